@@ -64,6 +64,7 @@ import org.eclipse.jdt.core.util.IMethodInfo;
 import org.eclipse.jdt.core.util.ISignatureAttribute;
 import org.eclipse.pde.api.tools.generator.util.Util;
 import org.eclipse.pde.api.tools.internal.IApiXmlConstants;
+import org.eclipse.pde.api.tools.internal.model.EEMemberIndex;
 import org.eclipse.pde.api.tools.internal.provisional.ProfileModifiers;
 import org.objectweb.asm.AnnotationVisitor;
 import org.objectweb.asm.Attribute;
@@ -994,6 +995,24 @@ public class EEGenerator {
 			System.out.println("The stub for the profile " + this.profileName + " was generated from " + this.totalSize + " bytes."); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
 			System.out.println("Its generated size is " + this.generatedSize + " bytes."); //$NON-NLS-1$ //$NON-NLS-2$
 			System.out.println("Ratio : " + (((double) this.generatedSize / (double) this.totalSize) * 100.0) + "%"); //$NON-NLS-1$ //$NON-NLS-2$
+			persistMemberIndex(file, new File(subDir, profileName2 + EEMemberIndex.INDEX_EXTENSION));
+		}
+
+		/**
+		 * Writes the member index of the given stub archive, used to check EE
+		 * references without reading the stubs
+		 *
+		 * @param stubFile the generated stub archive
+		 * @param indexFile the index file to write
+		 */
+		private void persistMemberIndex(File stubFile, File indexFile) {
+			try {
+				EEMemberIndex index = EEMemberIndex.build(stubFile);
+				index.write(indexFile);
+				System.out.println("Its member index for " + index.getTypeCount() + " types has " + indexFile.length() + " bytes."); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+			} catch (IOException e) {
+				e.printStackTrace();
+			}
 		}
 		@Override
 		public String toString() {
@@ -0,0 +1,116 @@
+/*******************************************************************************
+ * Copyright (c) 2019 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.pde.api.tools.builder.tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.util.Map;
+
+import org.eclipse.jdt.core.JavaCore;
+import org.eclipse.jdt.core.dom.CompilationUnit;
+import org.eclipse.pde.api.tools.internal.builder.ASTCache;
+import org.junit.Test;
+
+/**
+ * Tests the {@link ASTCache} shared by the checks of an API analysis
+ *
+ * @since 1.1.800
+ */
+public class ASTCacheTests {
+
+	private static final String SOURCE_A = "package a;\n/** @noextend */\npublic class A {}\n"; //$NON-NLS-1$
+	private static final String SOURCE_B = "package a;\npublic class B {}\n"; //$NON-NLS-1$
+	private static final String SOURCE_C = "package a;\npublic class C {}\n"; //$NON-NLS-1$
+
+	private Map<String, String> getOptions() {
+		return JavaCore.getOptions();
+	}
+
+	/**
+	 * Tests that an unchanged source is only parsed once
+	 */
+	@Test
+	public void testReuseUnchangedSource() {
+		ASTCache cache = new ASTCache();
+		CompilationUnit ast = cache.getAST("A", SOURCE_A, getOptions()); //$NON-NLS-1$
+		assertSame("the cached AST should be returned", ast, cache.getAST("A", SOURCE_A, getOptions())); //$NON-NLS-1$ //$NON-NLS-2$
+		assertEquals("there should have been one parse", 1, cache.getParseCount()); //$NON-NLS-1$
+		assertEquals("there should have been one parse saved", 1, cache.getHitCount()); //$NON-NLS-1$
+		assertEquals("the Javadoc should have been parsed", 1, ast.getCommentList().size()); //$NON-NLS-1$
+	}
+
+	/**
+	 * Tests that a changed source is parsed again
+	 */
+	@Test
+	public void testChangedSource() {
+		ASTCache cache = new ASTCache();
+		CompilationUnit ast = cache.getAST("A", SOURCE_A, getOptions()); //$NON-NLS-1$
+		assertNotSame("a new AST should be created", ast, cache.getAST("A", SOURCE_B, getOptions())); //$NON-NLS-1$ //$NON-NLS-2$
+		assertEquals("there should have been two parses", 2, cache.getParseCount()); //$NON-NLS-1$
+		assertEquals("there should have been no parse saved", 0, cache.getHitCount()); //$NON-NLS-1$
+	}
+
+	/**
+	 * Tests that the least recently used entries are evicted
+	 */
+	@Test
+	public void testEviction() {
+		ASTCache cache = new ASTCache(2, Integer.MAX_VALUE);
+		CompilationUnit a = cache.getAST("A", SOURCE_A, getOptions()); //$NON-NLS-1$
+		cache.getAST("B", SOURCE_B, getOptions()); //$NON-NLS-1$
+		// touch A so that B is evicted
+		cache.getAST("A", SOURCE_A, getOptions()); //$NON-NLS-1$
+		cache.getAST("C", SOURCE_C, getOptions()); //$NON-NLS-1$
+		assertSame("A should still be cached", a, cache.getAST("A", SOURCE_A, getOptions())); //$NON-NLS-1$ //$NON-NLS-2$
+		cache.getAST("B", SOURCE_B, getOptions()); //$NON-NLS-1$
+		assertEquals("B should have been parsed twice", 4, cache.getParseCount()); //$NON-NLS-1$
+	}
+
+	/**
+	 * Tests that sources larger than the character bound are not cached
+	 */
+	@Test
+	public void testCharacterBound() {
+		ASTCache cache = new ASTCache(16, SOURCE_B.length());
+		cache.getAST("A", SOURCE_A, getOptions()); //$NON-NLS-1$
+		cache.getAST("A", SOURCE_A, getOptions()); //$NON-NLS-1$
+		assertEquals("A should not have been cached", 0, cache.getHitCount()); //$NON-NLS-1$
+		cache.getAST("B", SOURCE_B, getOptions()); //$NON-NLS-1$
+		cache.getAST("B", SOURCE_B, getOptions()); //$NON-NLS-1$
+		assertEquals("B should have been cached", 1, cache.getHitCount()); //$NON-NLS-1$
+	}
+
+	/**
+	 * Tests activating a cache for the current thread
+	 */
+	@Test
+	public void testActivation() {
+		ASTCache outer = new ASTCache();
+		ASTCache inner = new ASTCache();
+		ASTCache previous = outer.activate();
+		try {
+			ASTCache previousInner = inner.activate();
+			assertSame("the inner cache should be active", inner, ASTCache.getActive()); //$NON-NLS-1$
+			ASTCache.restore(previousInner);
+			assertSame("the outer cache should be active again", outer, ASTCache.getActive()); //$NON-NLS-1$
+		} finally {
+			ASTCache.restore(previous);
+		}
+		assertNull("no cache should be active", ASTCache.getActive()); //$NON-NLS-1$
+	}
+}
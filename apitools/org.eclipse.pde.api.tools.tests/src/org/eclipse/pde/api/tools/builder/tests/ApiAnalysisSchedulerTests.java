@@ -0,0 +1,171 @@
+/*******************************************************************************
+ * Copyright (c) 2019 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.pde.api.tools.builder.tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.ResourcesPlugin;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.OperationCanceledException;
+import org.eclipse.pde.api.tools.internal.builder.ApiAnalysisScheduler;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests the {@link ApiAnalysisScheduler} used for parallel API analysis
+ *
+ * @since 1.1.800
+ */
+public class ApiAnalysisSchedulerTests {
+
+	/**
+	 * Records the calls made by the scheduler
+	 */
+	class RecordingTask implements ApiAnalysisScheduler.Task {
+		final String name;
+		final CountDownLatch release;
+		boolean disposed = false;
+		volatile boolean published = false;
+
+		RecordingTask(String name, CountDownLatch release) {
+			this.name = name;
+			this.release = release;
+		}
+
+		@Override
+		public void analyze(IProgressMonitor monitor) throws CoreException {
+			if (release != null) {
+				try {
+					while (!release.await(10, TimeUnit.MILLISECONDS)) {
+						if (monitor.isCanceled()) {
+							throw new OperationCanceledException();
+						}
+					}
+				} catch (InterruptedException e) {
+					throw new OperationCanceledException();
+				}
+			}
+			log.add(name);
+		}
+
+		@Override
+		public void publish() {
+			published = true;
+		}
+
+		@Override
+		public synchronized void dispose() {
+			disposed = true;
+		}
+
+		synchronized boolean isDisposed() {
+			return disposed;
+		}
+	}
+
+	final List<String> log = Collections.synchronizedList(new ArrayList<>());
+	private ApiAnalysisScheduler scheduler;
+	private IProject projectA;
+	private IProject projectB;
+
+	@Before
+	public void setUp() throws Exception {
+		scheduler = new ApiAnalysisScheduler(4);
+		projectA = createProject("scheduler.a"); //$NON-NLS-1$
+		projectB = createProject("scheduler.b"); //$NON-NLS-1$
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		scheduler.dispose();
+		projectA.delete(true, null);
+		projectB.delete(true, null);
+	}
+
+	private IProject createProject(String name) throws CoreException {
+		IProject project = ResourcesPlugin.getWorkspace().getRoot().getProject(name);
+		if (!project.exists()) {
+			project.create(null);
+		}
+		project.open(null);
+		return project;
+	}
+
+	/**
+	 * Tests that a project is only analyzed once its prerequisites are
+	 */
+	@Test
+	public void testPrerequisiteOrder() {
+		CountDownLatch release = new CountDownLatch(1);
+		RecordingTask a = new RecordingTask("a", release); //$NON-NLS-1$
+		RecordingTask b = new RecordingTask("b", null); //$NON-NLS-1$
+		scheduler.schedule(projectA, new IProject[0], a);
+		scheduler.schedule(projectB, new IProject[] { projectA }, b);
+		assertTrue("b should be pending", scheduler.isPending(projectB)); //$NON-NLS-1$
+		assertTrue("b must not be analyzed before a", log.isEmpty()); //$NON-NLS-1$
+		release.countDown();
+		scheduler.waitFor(projectB);
+		assertEquals("a should be analyzed before b", "[a, b]", log.toString()); //$NON-NLS-1$ //$NON-NLS-2$
+		assertTrue("b should be published", b.published); //$NON-NLS-1$
+		assertTrue("b should be disposed", b.isDisposed()); //$NON-NLS-1$
+		assertFalse("b should no longer be pending", scheduler.isPending(projectB)); //$NON-NLS-1$
+	}
+
+	/**
+	 * Tests that independent projects are analyzed concurrently
+	 */
+	@Test
+	public void testIndependentProjects() {
+		CountDownLatch release = new CountDownLatch(1);
+		RecordingTask a = new RecordingTask("a", release); //$NON-NLS-1$
+		RecordingTask b = new RecordingTask("b", null); //$NON-NLS-1$
+		scheduler.schedule(projectA, new IProject[0], a);
+		scheduler.schedule(projectB, new IProject[0], b);
+		scheduler.waitFor(projectB);
+		assertEquals("b should be analyzed while a is still running", "[b]", log.toString()); //$NON-NLS-1$ //$NON-NLS-2$
+		release.countDown();
+		scheduler.waitFor(projectA);
+		assertTrue("a should be published", a.published); //$NON-NLS-1$
+	}
+
+	/**
+	 * Tests that a canceled analysis is disposed without being published
+	 */
+	@Test
+	public void testCancel() throws Exception {
+		CountDownLatch release = new CountDownLatch(1);
+		RecordingTask a = new RecordingTask("a", release); //$NON-NLS-1$
+		scheduler.schedule(projectA, new IProject[0], a);
+		scheduler.cancel(projectA);
+		assertFalse("a should no longer be pending", scheduler.isPending(projectA)); //$NON-NLS-1$
+		long end = System.currentTimeMillis() + 5000;
+		while (!a.isDisposed() && System.currentTimeMillis() < end) {
+			Thread.sleep(10);
+		}
+		assertTrue("a should be disposed", a.isDisposed()); //$NON-NLS-1$
+		assertFalse("a should not be published", a.published); //$NON-NLS-1$
+		assertTrue("a should not have been analyzed", log.isEmpty()); //$NON-NLS-1$
+	}
+}
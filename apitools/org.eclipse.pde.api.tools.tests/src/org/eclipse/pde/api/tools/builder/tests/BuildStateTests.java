@@ -0,0 +1,167 @@
+/*******************************************************************************
+ * Copyright (c) 2019 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.pde.api.tools.builder.tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Map;
+
+import org.eclipse.pde.api.tools.internal.builder.BuildState;
+import org.eclipse.pde.api.tools.internal.comparator.Delta;
+import org.eclipse.pde.api.tools.internal.provisional.ApiPlugin;
+import org.eclipse.pde.api.tools.internal.provisional.comparator.IDelta;
+import org.junit.Test;
+import org.osgi.framework.Constants;
+
+/**
+ * Tests reading and writing the API tools {@link BuildState}, including build
+ * states saved in the format of previous releases
+ *
+ * @since 1.1.800
+ */
+public class BuildStateTests {
+
+	private static final IDelta COMPATIBLE_1 = new Delta(null, IDelta.CLASS_ELEMENT_TYPE, IDelta.ADDED, IDelta.METHOD, 0, 0, 0, 1, "a.b.C", "m()V", new String[] { //$NON-NLS-1$ //$NON-NLS-2$
+			"a.b.C", "m()" }); //$NON-NLS-1$ //$NON-NLS-2$
+	private static final IDelta COMPATIBLE_2 = new Delta(null, IDelta.CLASS_ELEMENT_TYPE, IDelta.ADDED, IDelta.FIELD, 0, 0, 0, 1, "a.b.C", "f", new String[] { //$NON-NLS-1$ //$NON-NLS-2$
+			"a.b.C", "f" }); //$NON-NLS-1$ //$NON-NLS-2$
+	private static final IDelta BREAKING = new Delta(null, IDelta.INTERFACE_ELEMENT_TYPE, IDelta.REMOVED, IDelta.METHOD, 0, 0, 1, 1, "a.b.I", "n()V", new String[] { //$NON-NLS-1$ //$NON-NLS-2$
+			"a.b.I", "n()" }); //$NON-NLS-1$ //$NON-NLS-2$
+
+	/**
+	 * Writes a build state in the format of version 33, which wrote every
+	 * string in place
+	 */
+	private byte[] writeVersion33State() throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		try (DataOutputStream out = new DataOutputStream(bytes)) {
+			out.writeUTF(ApiPlugin.PLUGIN_ID);
+			out.writeUTF("STATE"); //$NON-NLS-1$
+			out.writeInt(33);
+			out.writeBoolean(true);
+			out.writeLong(42L);
+			out.writeInt(2);
+			writeVersion33Delta(COMPATIBLE_1, out);
+			writeVersion33Delta(COMPATIBLE_2, out);
+			out.writeInt(1);
+			writeVersion33Delta(BREAKING, out);
+			out.writeInt(1);
+			out.writeUTF("reexported"); //$NON-NLS-1$
+			out.writeInt(1);
+			out.writeUTF("dependent"); //$NON-NLS-1$
+			out.writeInt(1);
+			out.writeUTF(Constants.BUNDLE_VERSION);
+			out.writeUTF("1.0.0"); //$NON-NLS-1$
+			out.writeInt(1);
+			out.writeUTF("jars.compile.order"); //$NON-NLS-1$
+			out.writeUTF("."); //$NON-NLS-1$
+		}
+		return bytes.toByteArray();
+	}
+
+	private void writeVersion33Delta(IDelta delta, DataOutputStream out) throws IOException {
+		out.writeBoolean(false);
+		out.writeInt(delta.getElementType());
+		out.writeInt(delta.getKind());
+		out.writeInt(delta.getFlags());
+		out.writeInt(delta.getCurrentRestrictions());
+		out.writeInt(delta.getOldModifiers());
+		out.writeInt(delta.getNewModifiers());
+		out.writeUTF(delta.getTypeName());
+		out.writeUTF(delta.getKey());
+		String[] arguments = delta.getArguments();
+		out.writeInt(arguments.length);
+		for (String argument : arguments) {
+			out.writeUTF(argument);
+		}
+	}
+
+	private BuildState read(byte[] bytes) throws IOException {
+		try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes))) {
+			return BuildState.read(in);
+		}
+	}
+
+	private byte[] write(BuildState state) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		try (DataOutputStream out = new DataOutputStream(bytes)) {
+			BuildState.write(state, out);
+		}
+		return bytes.toByteArray();
+	}
+
+	private void assertState(BuildState state) {
+		assertNotNull("The state should have been read", state); //$NON-NLS-1$
+		assertEquals("Wrong build path CRC", 42L, state.getBuildPathCRC()); //$NON-NLS-1$
+		assertEquals("Wrong re-exported components", Arrays.asList("reexported"), Arrays.asList(state.getReexportedComponents())); //$NON-NLS-1$ //$NON-NLS-2$
+		assertEquals("Wrong dependent projects", new HashSet<>(Arrays.asList("dependent")), state.getApiToolingDependentProjects()); //$NON-NLS-1$ //$NON-NLS-2$
+		assertEquals("Wrong manifest state", "1.0.0", state.getManifestState().get(Constants.BUNDLE_VERSION)); //$NON-NLS-1$ //$NON-NLS-2$
+		assertEquals("Wrong build.properties state", ".", state.getBuildPropertiesState().get("jars.compile.order")); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+		assertEquals("Wrong compatible changes", new HashSet<>(Arrays.asList(COMPATIBLE_1, COMPATIBLE_2)), new HashSet<>(Arrays.asList(state.getCompatibleChanges()))); //$NON-NLS-1$
+		assertEquals("Wrong breaking changes", Arrays.asList(BREAKING), Arrays.asList(state.getBreakingChanges())); //$NON-NLS-1$
+	}
+
+	/**
+	 * Tests that a build state saved by a previous release is read and written
+	 * in the current format
+	 */
+	@Test
+	public void testMigrateVersion33() throws Exception {
+		BuildState state = read(writeVersion33State());
+		assertState(state);
+		assertState(read(write(state)));
+	}
+
+	/**
+	 * Tests that a build state whose deltas were never accessed is written
+	 * again without losing them
+	 */
+	@Test
+	public void testRewriteUndecodedDeltas() throws Exception {
+		byte[] bytes = write(read(writeVersion33State()));
+		BuildState state = read(bytes);
+		// only touch the header data before writing again
+		assertEquals("Wrong build path CRC", 42L, state.getBuildPathCRC()); //$NON-NLS-1$
+		byte[] rewritten = write(state);
+		assertTrue("The state should be written unchanged", Arrays.equals(bytes, rewritten)); //$NON-NLS-1$
+		assertState(read(rewritten));
+	}
+
+	/**
+	 * Tests that strings longer than the limit of modified UTF-8 survive a
+	 * round trip
+	 */
+	@Test
+	public void testLongManifestHeader() throws Exception {
+		BuildState state = read(writeVersion33State());
+		StringBuilder exports = new StringBuilder();
+		for (int i = 0; exports.length() < 100000; i++) {
+			exports.append("org.example.package").append(i).append(','); //$NON-NLS-1$
+		}
+		Map<String, String> manifest = state.getManifestState();
+		manifest.put(Constants.EXPORT_PACKAGE, exports.toString());
+		BuildState result = read(write(state));
+		assertEquals("Wrong Export-Package header", exports.toString(), result.getManifestState().get(Constants.EXPORT_PACKAGE)); //$NON-NLS-1$
+		assertState(result);
+	}
+}
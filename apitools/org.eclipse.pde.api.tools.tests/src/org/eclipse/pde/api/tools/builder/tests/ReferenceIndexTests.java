@@ -0,0 +1,107 @@
+/*******************************************************************************
+ * Copyright (c) 2019 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.pde.api.tools.builder.tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.util.Arrays;
+import java.util.Set;
+import java.util.TreeSet;
+
+import org.eclipse.pde.api.tools.internal.builder.ReferenceIndex;
+import org.junit.Test;
+
+/**
+ * Tests the {@link ReferenceIndex} used to find the dependents of changed
+ * types in incremental builds
+ *
+ * @since 1.1.800
+ */
+public class ReferenceIndexTests {
+
+	private Set<String> getDependents(ReferenceIndex index, String type) {
+		Set<String> dependents = new TreeSet<>();
+		index.collectDependents(type, dependents);
+		return dependents;
+	}
+
+	private ReferenceIndex createIndex() {
+		ReferenceIndex index = new ReferenceIndex();
+		index.record("a.A", Arrays.asList("b.B", "b.B$Inner", "java.lang.Object")); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$
+		index.record("a.C", Arrays.asList("b.B", "a.C$Member")); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+		index.setComplete(true);
+		return index;
+	}
+
+	/**
+	 * Tests looking up the dependents of a type, in dot and slash form and
+	 * through its member types
+	 */
+	@Test
+	public void testDependents() {
+		ReferenceIndex index = createIndex();
+		assertEquals("wrong dependents", "[a/A, a/C]", getDependents(index, "b/B").toString()); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+		assertEquals("wrong dependents", "[a/A, a/C]", getDependents(index, "b.B$Inner").toString()); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+		assertEquals("wrong dependents", "[a/A]", getDependents(index, "java/lang/Object").toString()); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+		assertTrue("a type should not depend on itself", getDependents(index, "a/C").isEmpty()); //$NON-NLS-1$ //$NON-NLS-2$
+	}
+
+	/**
+	 * Tests that recording a type again replaces its references
+	 */
+	@Test
+	public void testRecordAgain() {
+		ReferenceIndex index = createIndex();
+		index.record("a/A", Arrays.asList("c.D")); //$NON-NLS-1$ //$NON-NLS-2$
+		assertEquals("wrong dependents", "[a/C]", getDependents(index, "b/B").toString()); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+		assertEquals("wrong dependents", "[a/A]", getDependents(index, "c/D").toString()); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+		index.remove("a.C"); //$NON-NLS-1$
+		assertTrue("a removed type should not be a dependent", getDependents(index, "b/B").isEmpty()); //$NON-NLS-1$ //$NON-NLS-2$
+	}
+
+	/**
+	 * Tests writing and reading an index
+	 */
+	@Test
+	public void testPersistence() throws Exception {
+		ReferenceIndex index = createIndex();
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		DataOutputStream out = new DataOutputStream(bytes);
+		index.write(out);
+		out.flush();
+		ReferenceIndex read = ReferenceIndex.read(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+		assertNotNull("the index should have been read", read); //$NON-NLS-1$
+		assertTrue("the index should be complete", read.isComplete()); //$NON-NLS-1$
+		assertEquals("wrong size", 2, read.size()); //$NON-NLS-1$
+		assertEquals("wrong dependents", "[a/A, a/C]", getDependents(read, "b/B").toString()); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+	}
+
+	/**
+	 * Tests that clearing an index makes it incomplete
+	 */
+	@Test
+	public void testClear() {
+		ReferenceIndex index = createIndex();
+		index.clear();
+		assertFalse("a cleared index should not be complete", index.isComplete()); //$NON-NLS-1$
+		assertTrue("a cleared index should be empty", getDependents(index, "b/B").isEmpty()); //$NON-NLS-1$ //$NON-NLS-2$
+	}
+}
@@ -0,0 +1,129 @@
+/*******************************************************************************
+ * Copyright (c) 2019 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.pde.api.tools.builder.tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.pde.api.tools.internal.builder.ReferenceResolver;
+import org.eclipse.pde.api.tools.internal.model.ApiModelFactory;
+import org.eclipse.pde.api.tools.internal.provisional.ApiPlugin;
+import org.eclipse.pde.api.tools.internal.provisional.builder.IReference;
+import org.eclipse.pde.api.tools.internal.provisional.model.ApiTypeContainerVisitor;
+import org.eclipse.pde.api.tools.internal.provisional.model.IApiBaseline;
+import org.eclipse.pde.api.tools.internal.provisional.model.IApiComponent;
+import org.eclipse.pde.api.tools.internal.provisional.model.IApiMember;
+import org.eclipse.pde.api.tools.internal.provisional.model.IApiTypeRoot;
+import org.eclipse.pde.api.tools.model.tests.TestSuiteHelper;
+import org.junit.Test;
+
+/**
+ * Tests that the {@link ReferenceResolver} resolves references concurrently
+ * the same way as on a single thread
+ *
+ * @since 1.1.800
+ */
+public class ReferenceResolverTests {
+
+	/**
+	 * Creates a baseline with the API tools bundle and its prerequisites,
+	 * which has enough references to be resolved on several threads
+	 *
+	 * @return the baseline, its first component is the API tools bundle
+	 */
+	private IApiBaseline createBaseline() throws CoreException {
+		IApiBaseline baseline = TestSuiteHelper.newApiBaseline("resolver", TestSuiteHelper.getEEDescriptionFile()); //$NON-NLS-1$
+		File bundle = TestSuiteHelper.getBundle(ApiPlugin.PLUGIN_ID);
+		assertNotNull("The API tools bundle should be available", bundle); //$NON-NLS-1$
+		IApiComponent component = ApiModelFactory.newApiComponent(baseline, bundle.getAbsolutePath());
+		assertNotNull("The API tools component should be created", component); //$NON-NLS-1$
+		List<IApiComponent> components = new ArrayList<>();
+		components.add(component);
+		Set<String> done = new HashSet<>();
+		done.add(component.getSymbolicName());
+		TestSuiteHelper.addAllRequired(baseline, done, component, components);
+		baseline.addApiComponents(components.toArray(new IApiComponent[components.size()]));
+		return baseline;
+	}
+
+	/**
+	 * Extracts the references of all types of the given component
+	 */
+	private List<IReference> extractReferences(IApiComponent component) throws CoreException {
+		List<IReference> references = new ArrayList<>();
+		List<CoreException> errors = new ArrayList<>();
+		component.accept(new ApiTypeContainerVisitor() {
+			@Override
+			public void visit(String packageName, IApiTypeRoot typeroot) {
+				try {
+					references.addAll(typeroot.getStructure().extractReferences(IReference.MASK_REF_ALL, null));
+				} catch (CoreException e) {
+					errors.add(e);
+				}
+			}
+		});
+		if (!errors.isEmpty()) {
+			throw errors.get(0);
+		}
+		return references;
+	}
+
+	/**
+	 * Resolves the references of the API tools bundle in a new baseline with
+	 * the given parallelism
+	 *
+	 * @return a sorted text representation of the resolved references
+	 */
+	private List<String> resolve(int parallelism) throws CoreException {
+		IApiBaseline baseline = createBaseline();
+		try {
+			IApiComponent component = baseline.getApiComponent(ApiPlugin.PLUGIN_ID);
+			List<IReference> references = extractReferences(component);
+			ReferenceResolver.resolveReferences(references, parallelism, null);
+			List<String> result = new ArrayList<>(references.size());
+			for (IReference reference : references) {
+				IApiMember resolved = reference.getResolvedReference();
+				result.add(reference.getMember().getHandle() + " " + reference.getLineNumber() + " " + reference.getReferenceKind() + " " //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+						+ reference.getReferencedTypeName() + '#' + reference.getReferencedMemberName() + reference.getReferencedSignature() + " -> " //$NON-NLS-1$
+						+ (resolved == null ? "unresolved" : resolved.getApiComponent().getSymbolicName() + ' ' + resolved.getHandle())); //$NON-NLS-1$
+			}
+			Collections.sort(result);
+			return result;
+		} finally {
+			baseline.dispose();
+		}
+	}
+
+	/**
+	 * Tests that concurrent resolution, which resolves packages of the
+	 * baseline from several threads, gives the same resolved references as
+	 * serial resolution
+	 */
+	@Test
+	public void testConcurrentSameAsSerial() throws Exception {
+		List<String> serial = resolve(1);
+		assertTrue("There should be enough references to resolve them concurrently", serial.size() > 1000); //$NON-NLS-1$
+		assertTrue("References should be resolved", serial.stream().anyMatch(reference -> !reference.endsWith(" -> unresolved"))); //$NON-NLS-1$ //$NON-NLS-2$
+		assertEquals("Concurrent resolution should be the same as serial", serial, resolve(4)); //$NON-NLS-1$
+	}
+}
@@ -0,0 +1,93 @@
+/*******************************************************************************
+ * Copyright (c) 2019 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.pde.api.tools.builder.tests.usage;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IPath;
+import org.eclipse.pde.api.tools.internal.builder.ReferenceIndex;
+
+import junit.framework.Test;
+
+/**
+ * Runs the {@link DependentUsageTests} with the reference index of the
+ * referencing project in place, so that the incremental builder finds the
+ * dependents of the changed type in the index rather than in the JDT
+ * reference collections. The same problems have to be reported.
+ *
+ * @since 1.1.800
+ */
+public class IndexedDependentUsageTests extends DependentUsageTests {
+
+	/**
+	 * Dot qualified name of the type whose API description changes
+	 */
+	String fChangedType = null;
+	/**
+	 * Dot qualified name of the type referencing the changed type
+	 */
+	String fDependentType = null;
+
+	public IndexedDependentUsageTests(String name) {
+		super(name);
+	}
+
+	public static Test suite() {
+		return buildTestSuite(IndexedDependentUsageTests.class);
+	}
+
+	@Override
+	protected void deployTest(String test, IPath usepath, IPath refpath, String refname, boolean addtag) throws Exception {
+		// the paths are of the form /project/src/package/
+		fChangedType = getTypeName(refpath, refname.substring(0, refname.lastIndexOf('.')));
+		fDependentType = getTypeName(usepath, test);
+		super.deployTest(test, usepath, refpath, refname, addtag);
+	}
+
+	private String getTypeName(IPath path, String typename) {
+		return path.removeFirstSegments(2).append(typename).toString().replace('/', '.');
+	}
+
+	@Override
+	protected void incrementalBuild() {
+		IProject project = getEnv().getProject(TESTING_PROJECT);
+		try {
+			prepareIndex(project, ReferenceIndex.getLastIndex(project));
+		} catch (CoreException e) {
+			fail(e.getMessage());
+		}
+		super.incrementalBuild();
+	}
+
+	/**
+	 * Checks or changes the saved reference index of the referencing project
+	 * before the incremental build
+	 *
+	 * @param project the referencing project
+	 * @param index the saved index or <code>null</code>
+	 * @throws CoreException if the index cannot be saved
+	 */
+	protected void prepareIndex(IProject project, ReferenceIndex index) throws CoreException {
+		assertNotNull("The reference index should be saved", index); //$NON-NLS-1$
+		assertTrue("The reference index should be complete", index.isComplete()); //$NON-NLS-1$
+		if (fChangedType != null) {
+			Set<String> dependents = new HashSet<>();
+			index.collectDependents(fChangedType, dependents);
+			assertTrue("The index should record " + fDependentType + " as dependent of " + fChangedType, dependents.contains(fDependentType)); //$NON-NLS-1$ //$NON-NLS-2$
+		}
+	}
+}
@@ -0,0 +1,54 @@
+/*******************************************************************************
+ * Copyright (c) 2019 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.pde.api.tools.builder.tests.usage;
+
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.pde.api.tools.internal.builder.ReferenceIndex;
+
+import junit.framework.Test;
+
+/**
+ * Runs the {@link DependentUsageTests} without a usable reference index of the
+ * referencing project, so that the incremental builder falls back to the JDT
+ * reference collections. The tests adding a restriction delete the saved
+ * index, the tests removing one save an incomplete index that lacks the
+ * dependent type. The same problems as with a complete index have to be
+ * reported.
+ *
+ * @since 1.1.800
+ */
+public class UnindexedDependentUsageTests extends IndexedDependentUsageTests {
+
+	public UnindexedDependentUsageTests(String name) {
+		super(name);
+	}
+
+	public static Test suite() {
+		return buildTestSuite(UnindexedDependentUsageTests.class);
+	}
+
+	@Override
+	protected void prepareIndex(IProject project, ReferenceIndex index) throws CoreException {
+		if (index == null || getName().startsWith("testAdd")) { //$NON-NLS-1$
+			ReferenceIndex.setLastIndex(project, null);
+			return;
+		}
+		if (fDependentType != null) {
+			index.remove(fDependentType);
+		}
+		index.setComplete(false);
+		ReferenceIndex.setLastIndex(project, index);
+	}
+}
@@ -218,6 +218,8 @@ public abstract class UsageTest extends ApiBuilderTest {
 		classes.add(InterfaceUsageTests.class);
 		classes.add(UnusedApiProblemFilterTests.class);
 		classes.add(DependentUsageTests.class);
+		classes.add(IndexedDependentUsageTests.class);
+		classes.add(UnindexedDependentUsageTests.class);
 		classes.add(FragmentUsageTests.class);
 		if (ProjectUtils.isJava5Compatible()) {
 			classes.add(Java5FieldUsageTests.class);
@@ -13,6 +13,7 @@
  *******************************************************************************/
 package org.eclipse.pde.api.tools.comparator.tests;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
@@ -252,4 +253,50 @@ public class ApiScopeDeltaTests extends DeltaTestSetup {
 			// expected as scope is null
 		}
 	}
+
+	/**
+	 * Use api scope with a parallel comparison of the components
+	 */
+	@Test
+	public void test8() throws CoreException {
+		deployBundles("test2"); //$NON-NLS-1$
+		IApiBaseline before = getBeforeState();
+		IApiBaseline after = getAfterState();
+		ApiScope scope = new ApiScope();
+		IApiComponent[] apiComponents = after.getApiComponents();
+		for (int i = 0, max = apiComponents.length; i < max; i++) {
+			scope.addElement(apiComponents[i]);
+		}
+		IDelta sequentialDelta = ApiComparator.compare(scope, before, VisibilityModifiers.API, true, null);
+		assertNotNull("No delta", sequentialDelta); //$NON-NLS-1$
+		IDelta delta = ApiComparator.compare(scope, before, VisibilityModifiers.API, true, false, 4, null);
+		assertNotNull("No delta", delta); //$NON-NLS-1$
+		IDelta[] allLeavesDeltas = collectLeaves(delta);
+		assertArrayEquals("Parallel comparison should match the sequential one", collectLeaves(sequentialDelta), allLeavesDeltas); //$NON-NLS-1$
+		assertEquals("Wrong size", 1, allLeavesDeltas.length); //$NON-NLS-1$
+		IDelta child = allLeavesDeltas[0];
+		assertEquals("Wrong kind", IDelta.REMOVED, child.getKind()); //$NON-NLS-1$
+		assertEquals("Wrong flag", IDelta.METHOD, child.getFlags()); //$NON-NLS-1$
+		assertFalse("Is compatible", DeltaProcessor.isCompatible(child)); //$NON-NLS-1$
+	}
+
+	/**
+	 * Use api scope with a parallel comparison of a whole baseline
+	 */
+	@Test
+	public void test9() throws CoreException {
+		deployBundles("test1"); //$NON-NLS-1$
+		IApiBaseline before = getBeforeState();
+		IApiBaseline after = getAfterState();
+		ApiScope scope = new ApiScope();
+		scope.addElement(after);
+		IDelta delta = ApiComparator.compare(scope, before, VisibilityModifiers.API, false, false, 4, null);
+		assertNotNull("No delta", delta); //$NON-NLS-1$
+		IDelta[] allLeavesDeltas = collectLeaves(delta);
+		assertEquals("Wrong size", 1, allLeavesDeltas.length); //$NON-NLS-1$
+		IDelta child = allLeavesDeltas[0];
+		assertEquals("Wrong kind", IDelta.REMOVED, child.getKind()); //$NON-NLS-1$
+		assertEquals("Wrong flag", IDelta.METHOD, child.getFlags()); //$NON-NLS-1$
+		assertEquals("Wrong element type", IDelta.CLASS_ELEMENT_TYPE, child.getElementType()); //$NON-NLS-1$
+	}
 }
@@ -21,6 +21,8 @@ import static org.junit.Assert.assertTrue;
 import java.io.File;
 import java.io.IOException;
 import java.lang.reflect.InvocationTargetException;
+import java.util.Arrays;
+import java.util.List;
 
 import org.eclipse.core.resources.IProject;
 import org.eclipse.core.resources.IResource;
@@ -245,6 +247,107 @@ public class ApiFilterStoreTests extends AbstractApiTest {
 		assertFalse("src/x/y/z/C4.java should not have a filter", store.isFiltered(problem)); //$NON-NLS-1$
 	}
 
+	/**
+	 * Matches problems against all filters of a resource, the way the filter
+	 * store did before filters were indexed by type name and id
+	 */
+	static class LinearFilterMatcher extends FilterStore {
+		boolean isFiltered(IApiProblemFilter[] filters, IApiProblem problem) {
+			for (IApiProblemFilter filter : filters) {
+				if (problemsMatch(filter.getUnderlyingProblem(), problem)) {
+					return true;
+				}
+			}
+			return false;
+		}
+	}
+
+	private IApiProblem newUsageProblem(IResource resource, String typeName, String[] args, int kind) {
+		return ApiProblemFactory.newApiProblem(resource.getProjectRelativePath().toPortableString(), typeName, args,
+				null, null, -1, -1, -1, IApiProblem.CATEGORY_USAGE, IElementDescriptor.TYPE, kind,
+				IApiProblem.NO_FLAGS);
+	}
+
+	/**
+	 * Tests that looking up filters by type name and id gives the same result
+	 * as matching the problem against all filters of the resource, for
+	 * problems with a type name and problems filtered globally
+	 *
+	 * @throws CoreException
+	 */
+	@Test
+	public void testIndexedFilterLookup() throws CoreException {
+		IApiComponent component = getProjectApiComponent(TESTING_PLUGIN_PROJECT_NAME);
+		assertNotNull("the testing project api component must exist", component); //$NON-NLS-1$
+		IProject project = getTestingJavaProject(TESTING_PLUGIN_PROJECT_NAME).getProject();
+		IResource resource = project.findMember(new Path("src/x/y/z/C4.java")); //$NON-NLS-1$
+		assertNotNull("the resource src/x/y/z/C4.java must exist", resource); //$NON-NLS-1$
+		String[] args = new String[] { "C4" }; //$NON-NLS-1$
+		IApiProblem typed = newUsageProblem(resource, "x.y.z.C4", args, IApiProblem.ILLEGAL_IMPLEMENT); //$NON-NLS-1$
+		IApiProblem global = newUsageProblem(resource, null, args, IApiProblem.ILLEGAL_EXTEND);
+		IApiProblem[] candidates = new IApiProblem[] {
+				typed,
+				global,
+				// the type name differs
+				newUsageProblem(resource, "x.y.z.C5", args, IApiProblem.ILLEGAL_IMPLEMENT), //$NON-NLS-1$
+				// a type name where the filter has none
+				newUsageProblem(resource, "x.y.z.C4", args, IApiProblem.ILLEGAL_EXTEND), //$NON-NLS-1$
+				// no type name where the filter has one
+				newUsageProblem(resource, null, args, IApiProblem.ILLEGAL_IMPLEMENT),
+				// the id differs
+				newUsageProblem(resource, "x.y.z.C4", args, IApiProblem.ILLEGAL_INSTANTIATE), //$NON-NLS-1$
+				// the arguments differ
+				newUsageProblem(resource, "x.y.z.C4", new String[] { "C5" }, IApiProblem.ILLEGAL_IMPLEMENT) //$NON-NLS-1$ //$NON-NLS-2$
+		};
+		IApiFilterStore store = component.getFilterStore();
+		store.addFiltersFor(new IApiProblem[] { typed, global });
+		assertTrue("the typed problem should be filtered", store.isFiltered(typed)); //$NON-NLS-1$
+		assertTrue("the global problem should be filtered", store.isFiltered(global)); //$NON-NLS-1$
+		IApiProblemFilter[] filters = store.getFilters(resource);
+		LinearFilterMatcher matcher = new LinearFilterMatcher();
+		for (IApiProblem candidate : candidates) {
+			assertEquals("indexed lookup differs for " + candidate, matcher.isFiltered(filters, candidate), store.isFiltered(candidate)); //$NON-NLS-1$
+		}
+		store.removeFilters(new IApiProblemFilter[] {
+				ApiProblemFactory.newProblemFilter(component.getSymbolicName(), typed, null),
+				ApiProblemFactory.newProblemFilter(component.getSymbolicName(), global, null) });
+		assertFalse("the typed problem should not be filtered", store.isFiltered(typed)); //$NON-NLS-1$
+		assertFalse("the global problem should not be filtered", store.isFiltered(global)); //$NON-NLS-1$
+	}
+
+	/**
+	 * Tests that only the filters that did not match a problem since the usage
+	 * was last recorded are reported as unused
+	 *
+	 * @throws CoreException
+	 */
+	@Test
+	public void testUnusedFilters() throws CoreException {
+		IApiComponent component = getProjectApiComponent(TESTING_PLUGIN_PROJECT_NAME);
+		assertNotNull("the testing project api component must exist", component); //$NON-NLS-1$
+		IProject project = getTestingJavaProject(TESTING_PLUGIN_PROJECT_NAME).getProject();
+		IResource resource = project.findMember(new Path("src/x/y/z/C4.java")); //$NON-NLS-1$
+		assertNotNull("the resource src/x/y/z/C4.java must exist", resource); //$NON-NLS-1$
+		String[] args = new String[] { "C4" }; //$NON-NLS-1$
+		IApiProblem used = newUsageProblem(resource, "x.y.z.C4", args, IApiProblem.ILLEGAL_IMPLEMENT); //$NON-NLS-1$
+		IApiProblem unused = newUsageProblem(resource, "x.y.z.C4", args, IApiProblem.ILLEGAL_EXTEND); //$NON-NLS-1$
+		IApiFilterStore store = component.getFilterStore();
+		assertTrue("the store must be an ApiFilterStore", store instanceof ApiFilterStore); //$NON-NLS-1$
+		ApiFilterStore filterStore = (ApiFilterStore) store;
+		filterStore.addFiltersFor(new IApiProblem[] { used, unused });
+		filterStore.recordFilterUsage();
+		assertTrue("the used problem should be filtered", filterStore.isFiltered(used)); //$NON-NLS-1$
+		assertTrue("the used problem should still be filtered", filterStore.isFiltered(used)); //$NON-NLS-1$
+		IApiProblemFilter usedFilter = ApiProblemFactory.newProblemFilter(component.getSymbolicName(), used, null);
+		IApiProblemFilter unusedFilter = ApiProblemFactory.newProblemFilter(component.getSymbolicName(), unused, null);
+		List<IApiProblemFilter> unusedFilters = Arrays.asList(filterStore.getUnusedFilters(resource, "x.y.z.C4", null)); //$NON-NLS-1$
+		assertFalse("the used filter should not be reported", unusedFilters.contains(usedFilter)); //$NON-NLS-1$
+		assertTrue("the unused filter should be reported", unusedFilters.contains(unusedFilter)); //$NON-NLS-1$
+		unusedFilters = Arrays.asList(filterStore.getUnusedFilters(resource, "x.y.z.C5", null)); //$NON-NLS-1$
+		assertFalse("filters of other types should not be reported", unusedFilters.contains(unusedFilter)); //$NON-NLS-1$
+		filterStore.removeFilters(new IApiProblemFilter[] { usedFilter, unusedFilter });
+	}
+
 	/**
 	 * Tests that a filter store will not be annotated from a bundle
 	 *
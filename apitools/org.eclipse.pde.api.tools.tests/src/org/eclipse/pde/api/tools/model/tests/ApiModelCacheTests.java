@@ -13,11 +13,14 @@
  *******************************************************************************/
 package org.eclipse.pde.api.tools.model.tests;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 
+import java.util.concurrent.atomic.AtomicReference;
+
 import org.eclipse.pde.api.tools.internal.model.ApiModelCache;
 import org.eclipse.pde.api.tools.internal.provisional.model.IApiElement;
 import org.eclipse.pde.api.tools.internal.provisional.model.IApiType;
@@ -34,9 +37,13 @@ public class ApiModelCacheTests {
 	static final String TEST_COMP_ID = "testcomp-id"; //$NON-NLS-1$
 	static final String TEST_BASELINE_ID = "testbaseline-id"; //$NON-NLS-1$
 
+	long budget = ApiModelCache.getCache().getMemoryBudget();
+
 	@After
 	public void tearDown() throws Exception {
 		ApiModelCache.getCache().flushCaches();
+		ApiModelCache.getCache().setMemoryBudget(budget);
+		ApiModelCache.getCache().resetStatistics();
 	}
 
 	/**
@@ -175,4 +182,78 @@ public class ApiModelCacheTests {
 		assertTrue("The type 'a.b.c.testee1' should have been removed from the cache", ApiModelCache.getCache().removeElementInfo(element)); //$NON-NLS-1$
 		assertTrue("The cache should be empty", ApiModelCache.getCache().isEmpty()); //$NON-NLS-1$
 	}
+
+	/**
+	 * Tests that the hit and miss counters are updated by lookups
+	 *
+	 * @throws Exception
+	 */
+	@Test
+	public void testHitMissCounters() throws Exception {
+		ApiModelCache cache = ApiModelCache.getCache();
+		cache.resetStatistics();
+		cacheType("testtype1"); //$NON-NLS-1$
+		assertNotNull("The type 'testtype1' should be cached", cache.getElementInfo(TEST_BASELINE_ID, TEST_COMP_ID, "testtype1", IApiElement.TYPE)); //$NON-NLS-1$ //$NON-NLS-2$
+		assertNull("The type 'testtype2' should not be cached", cache.getElementInfo(TEST_BASELINE_ID, TEST_COMP_ID, "testtype2", IApiElement.TYPE)); //$NON-NLS-1$ //$NON-NLS-2$
+		assertEquals("Wrong hit count", 1, cache.getHitCount()); //$NON-NLS-1$
+		assertEquals("Wrong miss count", 1, cache.getMissCount()); //$NON-NLS-1$
+	}
+
+	/**
+	 * Tests that the cache evicts the least recently used types to stay within
+	 * its memory budget
+	 *
+	 * @throws Exception
+	 */
+	@Test
+	public void testMemoryBudget() throws Exception {
+		ApiModelCache cache = ApiModelCache.getCache();
+		cache.resetStatistics();
+		cache.setMemoryBudget(4096);
+		for (int i = 0; i < 100; i++) {
+			cacheType("a.b.c.testtype" + i); //$NON-NLS-1$
+		}
+		assertTrue("Types should have been evicted", cache.getEvictionCount() > 0); //$NON-NLS-1$
+		assertTrue("The cache should be within its budget", cache.getEstimatedSize() <= 4096); //$NON-NLS-1$
+		assertNotNull("The most recent type should still be cached", cache.getElementInfo(TEST_BASELINE_ID, TEST_COMP_ID, "a.b.c.testtype99", IApiElement.TYPE)); //$NON-NLS-1$ //$NON-NLS-2$
+		assertNull("The oldest type should have been evicted", cache.getElementInfo(TEST_BASELINE_ID, TEST_COMP_ID, "a.b.c.testtype0", IApiElement.TYPE)); //$NON-NLS-1$ //$NON-NLS-2$
+	}
+
+	/**
+	 * Tests caching and looking up types from several threads at once
+	 *
+	 * @throws Exception
+	 */
+	@Test
+	public void testConcurrentAccess() throws Exception {
+		final ApiModelCache cache = ApiModelCache.getCache();
+		final AtomicReference<Throwable> failure = new AtomicReference<>();
+		Thread[] threads = new Thread[4];
+		for (int t = 0; t < threads.length; t++) {
+			final int offset = t * 100;
+			threads[t] = new Thread(() -> {
+				try {
+					for (int i = offset; i < offset + 100; i++) {
+						String name = "a.b.c.concurrent" + i; //$NON-NLS-1$
+						cacheType(name);
+						assertNotNull("The type " + name + " should be cached", cache.getElementInfo(TEST_BASELINE_ID, TEST_COMP_ID, name, IApiElement.TYPE)); //$NON-NLS-1$ //$NON-NLS-2$
+					}
+				} catch (Throwable e) {
+					failure.compareAndSet(null, e);
+				}
+			});
+			threads[t].start();
+		}
+		for (Thread thread : threads) {
+			thread.join();
+		}
+		if (failure.get() != null) {
+			throw new AssertionError(failure.get());
+		}
+		for (int i = 0; i < 400; i++) {
+			assertTrue("The type should have been removed", cache.removeElementInfo(TEST_BASELINE_ID, TEST_COMP_ID, "a.b.c.concurrent" + i, IApiElement.TYPE)); //$NON-NLS-1$ //$NON-NLS-2$
+		}
+		assertTrue("The cache should be empty", cache.isEmpty()); //$NON-NLS-1$
+		assertEquals("The cache size should be back to zero", 0, cache.getEstimatedSize()); //$NON-NLS-1$
+	}
 }
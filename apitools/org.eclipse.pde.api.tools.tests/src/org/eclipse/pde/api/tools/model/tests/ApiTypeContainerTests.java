@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2007, 2018 IBM Corporation and others.
+ * Copyright (c) 2007, 2019 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -13,25 +13,41 @@
  *******************************************************************************/
 package org.eclipse.pde.api.tools.model.tests;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
+import static org.junit.Assume.assumeTrue;
 
 import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Enumeration;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
 
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IPath;
 import org.eclipse.pde.api.tools.internal.model.ArchiveApiTypeContainer;
+import org.eclipse.pde.api.tools.internal.model.ArchiveIndex;
 import org.eclipse.pde.api.tools.internal.model.DirectoryApiTypeContainer;
+import org.eclipse.pde.api.tools.internal.model.JrtApiTypeContainer;
+import org.eclipse.pde.api.tools.internal.model.TypeStructureCache;
 import org.eclipse.pde.api.tools.internal.provisional.model.ApiTypeContainerVisitor;
+import org.eclipse.pde.api.tools.internal.provisional.model.IApiType;
 import org.eclipse.pde.api.tools.internal.provisional.model.IApiTypeContainer;
 import org.eclipse.pde.api.tools.internal.provisional.model.IApiTypeRoot;
+import org.eclipse.pde.api.tools.internal.util.Util;
 import org.junit.Test;
 
 /**
@@ -242,4 +258,81 @@ public class ApiTypeContainerTests {
 		assertEquals("Visited wrong number of packages", expectedPkgOrder.size(), visit.size()); //$NON-NLS-1$
 		assertEquals("Visit order incorrect", expectedPkgOrder, visit);		 //$NON-NLS-1$
 	}
+
+	/**
+	 * Tests that the shared archive index serves the same contents as
+	 * {@link ZipFile} for every entry of an archive.
+	 *
+	 * @throws IOException
+	 */
+	@Test
+	public void testArchiveIndexContents() throws IOException {
+		IPath path = TestSuiteHelper.getPluginDirectoryPath().append("test-jars").append("sample.jar"); //$NON-NLS-1$ //$NON-NLS-2$
+		ArchiveIndex index = ArchiveIndex.getIndex(path.toOSString());
+		assertSame("The index should be shared", index, ArchiveIndex.getIndex(path.toOSString())); //$NON-NLS-1$
+		int count = 0;
+		try (ZipFile zip = new ZipFile(path.toFile())) {
+			Enumeration<? extends ZipEntry> entries = zip.entries();
+			while (entries.hasMoreElements()) {
+				ZipEntry entry = entries.nextElement();
+				if (entry.isDirectory()) {
+					continue;
+				}
+				count++;
+				try (InputStream stream = zip.getInputStream(entry)) {
+					assertArrayEquals("Wrong contents for " + entry.getName(), Util.getInputStreamAsByteArray(stream, -1), index.read(entry.getName())); //$NON-NLS-1$
+				}
+			}
+		} finally {
+			ArchiveIndex.closeAll();
+		}
+		assertEquals("Wrong number of entries", count, index.getEntryNames().size()); //$NON-NLS-1$
+		assertNull("Missing entries should not be found", index.read("does/not/Exist.class")); //$NON-NLS-1$ //$NON-NLS-2$
+	}
+
+	/**
+	 * Tests that type structures survive an encode/decode round trip of the
+	 * persistent type structure cache
+	 */
+	@Test
+	public void testTypeStructureCacheRoundTrip() throws CoreException, IOException {
+		IApiTypeContainer container = buildArchiveContainer();
+		final List<IApiTypeRoot> roots = new ArrayList<>();
+		container.accept(new ApiTypeContainerVisitor() {
+			@Override
+			public void visit(String packageName, IApiTypeRoot typeroot) {
+				roots.add(typeroot);
+			}
+		});
+		assertTrue("Missing types", roots.size() > 0); //$NON-NLS-1$
+		for (IApiTypeRoot root : roots) {
+			IApiType type = root.getStructure();
+			byte[] bytes = TypeStructureCache.encode(type);
+			IApiType decoded = TypeStructureCache.decode(bytes, null, root);
+			assertEquals("Wrong decoded structure for " + root.getTypeName(), type.toString(), decoded.toString()); //$NON-NLS-1$
+			assertEquals("Wrong simple name for " + root.getTypeName(), type.getSimpleName(), decoded.getSimpleName()); //$NON-NLS-1$
+			assertArrayEquals("Wrong encoding for " + root.getTypeName(), bytes, TypeStructureCache.encode(decoded)); //$NON-NLS-1$
+		}
+		container.close();
+	}
+
+	/**
+	 * Tests reading classes of several modules from the module image of the
+	 * running JDK, if it is a Java 9 or later JDK
+	 */
+	@Test
+	public void testModuleImage() throws CoreException {
+		String home = System.getProperty("java.home"); //$NON-NLS-1$
+		assumeTrue("The running JDK has no module image", JrtApiTypeContainer.isModuleImage(home)); //$NON-NLS-1$
+		IApiTypeContainer container = new JrtApiTypeContainer(null, home);
+		List<String> packages = Arrays.asList(container.getPackageNames());
+		assertTrue("Missing package from java.base", packages.contains("java.lang")); //$NON-NLS-1$ //$NON-NLS-2$
+		assertTrue("Missing package from java.sql", packages.contains("java.sql")); //$NON-NLS-1$ //$NON-NLS-2$
+		IApiTypeRoot root = container.findTypeRoot("java.sql.Connection"); //$NON-NLS-1$
+		assertNotNull("Missing type from java.sql", root); //$NON-NLS-1$
+		assertEquals("Wrong type name", "java.sql.Connection", root.getStructure().getName()); //$NON-NLS-1$ //$NON-NLS-2$
+		assertNotNull("Missing type from java.base", container.findTypeRoot("java.lang.Object")); //$NON-NLS-1$ //$NON-NLS-2$
+		assertNull("Missing types should not be found", container.findTypeRoot("java.lang.DoesNotExist")); //$NON-NLS-1$ //$NON-NLS-2$
+		container.close();
+	}
 }
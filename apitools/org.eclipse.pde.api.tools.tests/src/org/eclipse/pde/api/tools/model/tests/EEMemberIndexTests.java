@@ -0,0 +1,150 @@
+/*******************************************************************************
+ * Copyright (c) 2019 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.pde.api.tools.model.tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.pde.api.tools.internal.builder.Reference;
+import org.eclipse.pde.api.tools.internal.model.EEMemberIndex;
+import org.eclipse.pde.api.tools.internal.model.StubApiComponent;
+import org.eclipse.pde.api.tools.internal.provisional.ProfileModifiers;
+import org.eclipse.pde.api.tools.internal.provisional.builder.IReference;
+import org.eclipse.pde.api.tools.internal.provisional.model.IApiComponent;
+import org.eclipse.pde.api.tools.internal.provisional.model.IApiField;
+import org.eclipse.pde.api.tools.internal.provisional.model.IApiMethod;
+import org.eclipse.pde.api.tools.internal.provisional.model.IApiType;
+import org.eclipse.pde.api.tools.internal.provisional.model.IApiTypeRoot;
+import org.eclipse.pde.api.tools.internal.util.Util;
+import org.junit.Test;
+
+/**
+ * Tests the {@link EEMemberIndex} of the JavaSE-1.8 stubs
+ *
+ * @since 1.1.800
+ */
+public class EEMemberIndexTests {
+
+	private EEMemberIndex getIndex() {
+		assumeTrue("The JavaSE-1.8 stubs are not installed", StubApiComponent.isInstalled(ProfileModifiers.JAVASE_1_8)); //$NON-NLS-1$
+		return StubApiComponent.getMemberIndex(ProfileModifiers.JAVASE_1_8);
+	}
+
+	/**
+	 * Tests type lookups
+	 */
+	@Test
+	public void testTypes() {
+		EEMemberIndex index = getIndex();
+		assertTrue("java.util.Map$Entry should be found", index.containsType("java.util.Map$Entry")); //$NON-NLS-1$ //$NON-NLS-2$
+		assertFalse("java.util.Missing should not be found", index.containsType("java.util.Missing")); //$NON-NLS-1$ //$NON-NLS-2$
+	}
+
+	/**
+	 * Tests that fields are resolved in the superclass chain
+	 */
+	@Test
+	public void testFields() {
+		EEMemberIndex index = getIndex();
+		assertTrue("Integer.MAX_VALUE should be found", index.containsField("java.lang.Integer", "MAX_VALUE")); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+		assertTrue("the inherited JarFile.OPEN_READ should be found", index.containsField("java.util.jar.JarFile", "OPEN_READ")); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+		assertFalse("String.missing should not be found", index.containsField("java.lang.String", "missing")); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+	}
+
+	/**
+	 * Tests that methods are resolved depending on the kind of reference
+	 */
+	@Test
+	public void testMethods() {
+		EEMemberIndex index = getIndex();
+		assertTrue("the inherited ArrayList.hashCode() should be found", index.containsMethod("java.util.ArrayList", "hashCode", "()I", IReference.REF_VIRTUALMETHOD)); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$
+		assertTrue("the default List.forEach() should be found", index.containsMethod("java.util.List", "forEach", "(Ljava/util/function/Consumer;)V", IReference.REF_INTERFACEMETHOD)); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$
+		assertTrue("the polymorphic MethodHandle.invokeExact() should be found", index.containsMethod("java.lang.invoke.MethodHandle", "invokeExact", "(I)V", IReference.REF_VIRTUALMETHOD)); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$
+		assertFalse("String.missing() should not be found", index.containsMethod("java.lang.String", "missing", "()V", IReference.REF_VIRTUALMETHOD)); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$
+	}
+
+	/**
+	 * Tests writing and reading an index
+	 *
+	 * @throws IOException
+	 */
+	@Test
+	public void testReadWrite() throws IOException {
+		EEMemberIndex index = getIndex();
+		File file = File.createTempFile("ee_member", EEMemberIndex.INDEX_EXTENSION); //$NON-NLS-1$
+		try {
+			index.write(file);
+			EEMemberIndex read = EEMemberIndex.read(file);
+			assertEquals("Wrong number of types", index.getTypeCount(), read.getTypeCount()); //$NON-NLS-1$
+			assertTrue("Object.toString() should be found", read.containsMethod("java.lang.Object", "toString", "()Ljava/lang/String;", IReference.REF_VIRTUALMETHOD)); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$
+		} finally {
+			file.delete();
+		}
+	}
+
+	/**
+	 * Tests that the index resolves the same references as the type
+	 * structures of the stub, for the members of related types looked up from
+	 * each of the types and for members that do not exist
+	 *
+	 * @throws CoreException
+	 */
+	@Test
+	public void testSameAsStub() throws CoreException {
+		EEMemberIndex index = getIndex();
+		int ee = ProfileModifiers.JAVASE_1_8;
+		IApiComponent stub = StubApiComponent.getStubApiComponent(ee);
+		String[] typeNames = new String[] {
+				"java.lang.Object", "java.lang.String", "java.lang.Integer", "java.lang.Number", //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$
+				"java.util.Collection", "java.util.List", "java.util.AbstractList", "java.util.ArrayList", //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$
+				"java.util.zip.ZipFile", "java.util.jar.JarFile", "java.lang.invoke.MethodHandle" }; //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+		int[] methodKinds = new int[] {
+				IReference.REF_VIRTUALMETHOD, IReference.REF_INTERFACEMETHOD,
+				IReference.REF_STATICMETHOD, IReference.REF_SPECIALMETHOD };
+		int count = 0;
+		for (String typeName : typeNames) {
+			assertResolvesSame(typeName, Reference.typeReference(null, typeName, IReference.REF_EXTENDS), index, ee);
+			assertResolvesSame(typeName, Reference.typeReference(null, typeName + "Missing", IReference.REF_EXTENDS), index, ee); //$NON-NLS-1$
+			for (String declaringName : typeNames) {
+				IApiTypeRoot root = Util.getClassFile(new IApiComponent[] { stub }, declaringName);
+				assertTrue(declaringName + " should be in the stub", root != null); //$NON-NLS-1$
+				IApiType declaring = root.getStructure();
+				for (IApiField field : declaring.getFields()) {
+					assertResolvesSame(typeName, Reference.fieldReference(null, typeName, field.getName(), IReference.REF_GETFIELD), index, ee);
+					count++;
+				}
+				for (IApiMethod method : declaring.getMethods()) {
+					for (int kind : methodKinds) {
+						assertResolvesSame(typeName, Reference.methodReference(null, typeName, method.getName(), method.getSignature(), kind), index, ee);
+						// same name, other signature
+						assertResolvesSame(typeName, Reference.methodReference(null, typeName, method.getName(), "(Ljava/lang/Missing;)V", kind), index, ee); //$NON-NLS-1$
+						count += 2;
+					}
+				}
+			}
+		}
+		assertTrue("Too few references compared: " + count, count > 1000); //$NON-NLS-1$
+	}
+
+	private void assertResolvesSame(String typeName, Reference reference, EEMemberIndex index, int ee) throws CoreException {
+		String member = reference.getReferencedMemberName() + (reference.getReferencedSignature() == null ? "" : reference.getReferencedSignature()); //$NON-NLS-1$
+		assertEquals("Index and stub differ for " + typeName + "#" + member + " kind " + reference.getReferenceKind(), reference.resolveInStub(ee), reference.resolve(index)); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+	}
+}
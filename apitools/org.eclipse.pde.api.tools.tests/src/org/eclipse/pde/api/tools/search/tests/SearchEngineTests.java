@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2009, 2018 IBM Corporation and others.
+ * Copyright (c) 2009, 2019 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -80,6 +80,24 @@ public class SearchEngineTests extends SearchTest {
 		engine.search(getTestBaseline(), TEST_REQUESTOR, TEST_REPORTER, null);
 	}
 
+	/**
+	 * Tests that the search engine reports the same matches when the
+	 * components are searched on several threads
+	 *
+	 * @throws CoreException
+	 */
+	@Test
+	public void testSearchParallel() throws CoreException {
+		ApiSearchEngine engine = new ApiSearchEngine();
+		TEST_REQUESTOR.setScopeBaseline(getTestBaseline());
+		TEST_REQUESTOR.setSearchMask(IApiSearchRequestor.INCLUDE_API | IApiSearchRequestor.INCLUDE_INTERNAL);
+		TEST_REPORTER.setExpectedReferences(new String[] { P2_NAME, P3_NAME },
+				new int[][] { { IReference.REF_FIELDDECL, IReference.REF_FIELDDECL },
+						{ IReference.REF_FIELDDECL, IReference.REF_FIELDDECL, IReference.REF_FIELDDECL } });
+		TEST_REPORTER.setExpectedNotSearched(null);
+		engine.search(getTestBaseline(), TEST_REQUESTOR, TEST_REPORTER, 4, null);
+	}
+
 	/**
 	 * Tests that an entry in the exclude file is honored
 	 *
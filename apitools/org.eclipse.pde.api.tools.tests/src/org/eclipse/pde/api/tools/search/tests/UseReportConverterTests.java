@@ -0,0 +1,172 @@
+/*******************************************************************************
+ * Copyright (c) 2019 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.pde.api.tools.search.tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.eclipse.core.runtime.IPath;
+import org.eclipse.pde.api.tools.internal.provisional.Factory;
+import org.eclipse.pde.api.tools.internal.provisional.VisibilityModifiers;
+import org.eclipse.pde.api.tools.internal.provisional.builder.IReference;
+import org.eclipse.pde.api.tools.internal.provisional.descriptors.IComponentDescriptor;
+import org.eclipse.pde.api.tools.internal.search.IReferenceDescriptor;
+import org.eclipse.pde.api.tools.internal.search.UseReportConverter;
+import org.eclipse.pde.api.tools.internal.search.XmlReferenceDescriptorWriter;
+import org.eclipse.pde.api.tools.model.tests.TestSuiteHelper;
+import org.junit.After;
+import org.junit.Test;
+
+/**
+ * Tests the incremental conversion of a use scan by the
+ * {@link UseReportConverter}
+ *
+ * @since 1.1.800
+ */
+public class UseReportConverterTests {
+
+	static IPath XML_PATH = TestSuiteHelper.getUserDirectoryPath().append("use-report-converter-tests/xml"); //$NON-NLS-1$
+	static IPath HTML_PATH = TestSuiteHelper.getUserDirectoryPath().append("use-report-converter-tests/html"); //$NON-NLS-1$
+
+	private static final IComponentDescriptor REFERENCING = Factory.componentDescriptor("referencing", "1.0.0"); //$NON-NLS-1$ //$NON-NLS-2$
+	private static final IComponentDescriptor REFERENCED = Factory.componentDescriptor("referenced", "1.0.0"); //$NON-NLS-1$ //$NON-NLS-2$
+	private static final IComponentDescriptor OTHER = Factory.componentDescriptor("other", "2.0.0"); //$NON-NLS-1$ //$NON-NLS-2$
+	private static final IComponentDescriptor ADDED = Factory.componentDescriptor("added", "3.0.0"); //$NON-NLS-1$ //$NON-NLS-2$
+
+	@After
+	public void tearDown() throws Exception {
+		scrubReportLocation(TestSuiteHelper.getUserDirectoryPath().append("use-report-converter-tests").toFile()); //$NON-NLS-1$
+	}
+
+	/**
+	 * Cleans the location if it exists
+	 *
+	 * @param file
+	 */
+	private void scrubReportLocation(File file) {
+		if (file.exists() && file.isDirectory()) {
+			File[] files = file.listFiles();
+			for (File child : files) {
+				if (child.isDirectory()) {
+					scrubReportLocation(child);
+				} else {
+					child.delete();
+				}
+			}
+			file.delete();
+		}
+	}
+
+	/**
+	 * Replaces the use scan by one with references to the given components,
+	 * the given number of references per type
+	 */
+	private void writeScan(IComponentDescriptor[] components, int lines) throws Exception {
+		scrubReportLocation(XML_PATH.toFile());
+		List<IReferenceDescriptor> references = new ArrayList<>();
+		for (IComponentDescriptor component : components) {
+			for (int line = 0; line < lines; line++) {
+				references.add(Factory.referenceDescriptor(REFERENCING, Factory.methodDescriptor("a.b.Client", "run", "()V"), line, //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+						component, Factory.typeDescriptor(component.getId() + ".Type" + (line % 2)), IReference.REF_PARAMETER, 0, VisibilityModifiers.API, null)); //$NON-NLS-1$
+				references.add(Factory.referenceDescriptor(REFERENCING, Factory.fieldDescriptor("a.b.Client", "field"), line, //$NON-NLS-1$ //$NON-NLS-2$
+						component, Factory.methodDescriptor(component.getId() + ".Type" + (line % 2), "call", "(I)V"), IReference.REF_VIRTUALMETHOD, 0, VisibilityModifiers.PRIVATE, null)); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+			}
+		}
+		XmlReferenceDescriptorWriter writer = new XmlReferenceDescriptorWriter(XML_PATH.toOSString());
+		writer.writeReferences(references.toArray(new IReferenceDescriptor[references.size()]));
+	}
+
+	private void convert() throws Exception {
+		UseReportConverter converter = new UseReportConverter(HTML_PATH.toOSString(), XML_PATH.toOSString(), null, null);
+		converter.setIncremental(true);
+		converter.convert(null, null);
+		assertTrue("The manifest should exist", HTML_PATH.append("report_manifest.properties").toFile().isFile()); //$NON-NLS-1$ //$NON-NLS-2$
+	}
+
+	/**
+	 * Returns the index page of the given component
+	 */
+	private File getPage(IComponentDescriptor component) {
+		return HTML_PATH.append(component.getId() + " (" + component.getVersion() + ")").append("index.html").toFile(); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+	}
+
+	/**
+	 * Sets the modification time of the page of the given component into the
+	 * past, so that a rewritten page can be told apart
+	 */
+	private long agePage(IComponentDescriptor component) {
+		File page = getPage(component);
+		assertTrue("The page of " + component.getId() + " should exist", page.isFile()); //$NON-NLS-1$ //$NON-NLS-2$
+		long timestamp = page.lastModified() - 100000;
+		assertTrue(page.setLastModified(timestamp));
+		return timestamp;
+	}
+
+	/**
+	 * Tests that converting a changed scan again keeps the pages of unchanged
+	 * components, rewrites the pages of changed components and removes the
+	 * pages of components that are no longer referenced
+	 */
+	@Test
+	public void testConvertChangedScan() throws Exception {
+		writeScan(new IComponentDescriptor[] { REFERENCED, OTHER }, 10);
+		convert();
+		long referenced = agePage(REFERENCED);
+		long other = agePage(OTHER);
+
+		// same scan, all pages are kept
+		writeScan(new IComponentDescriptor[] { REFERENCED, OTHER }, 10);
+		convert();
+		assertEquals("Unchanged page should be kept", referenced, getPage(REFERENCED).lastModified()); //$NON-NLS-1$
+		assertEquals("Unchanged page should be kept", other, getPage(OTHER).lastModified()); //$NON-NLS-1$
+
+		// the references to one component change
+		writeScan(new IComponentDescriptor[] { REFERENCED }, 10);
+		List<IReferenceDescriptor> references = new ArrayList<>();
+		for (int line = 0; line < 20; line++) {
+			references.add(Factory.referenceDescriptor(REFERENCING, Factory.typeDescriptor("a.b.Client"), line, //$NON-NLS-1$
+					OTHER, Factory.fieldDescriptor("other.Type0", "value"), IReference.REF_GETFIELD, 0, VisibilityModifiers.API, null)); //$NON-NLS-1$ //$NON-NLS-2$
+		}
+		new XmlReferenceDescriptorWriter(XML_PATH.toOSString()).writeReferences(references.toArray(new IReferenceDescriptor[references.size()]));
+		convert();
+		assertEquals("Unchanged page should be kept", referenced, getPage(REFERENCED).lastModified()); //$NON-NLS-1$
+		assertTrue("Changed page should be written again", other != getPage(OTHER).lastModified()); //$NON-NLS-1$
+
+		// one component is no longer referenced, another one is added
+		writeScan(new IComponentDescriptor[] { REFERENCED, ADDED }, 10);
+		convert();
+		assertEquals("Unchanged page should be kept", referenced, getPage(REFERENCED).lastModified()); //$NON-NLS-1$
+		assertFalse("Page of the removed component should be pruned", getPage(OTHER).getParentFile().exists()); //$NON-NLS-1$
+		assertTrue("Page of the added component should be written", getPage(ADDED).isFile()); //$NON-NLS-1$
+	}
+
+	/**
+	 * Tests that the pages are written again when the manifest of the previous
+	 * run is missing
+	 */
+	@Test
+	public void testConvertWithoutManifest() throws Exception {
+		writeScan(new IComponentDescriptor[] { REFERENCED }, 10);
+		convert();
+		long referenced = agePage(REFERENCED);
+		assertTrue(HTML_PATH.append("report_manifest.properties").toFile().delete()); //$NON-NLS-1$
+		convert();
+		assertTrue("Page should be written again without a manifest", referenced != getPage(REFERENCED).lastModified()); //$NON-NLS-1$
+	}
+}
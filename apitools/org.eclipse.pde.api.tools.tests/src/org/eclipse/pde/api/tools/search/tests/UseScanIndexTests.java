@@ -0,0 +1,150 @@
+/*******************************************************************************
+ * Copyright (c) 2019 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.pde.api.tools.search.tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+
+import org.eclipse.core.runtime.IPath;
+import org.eclipse.pde.api.tools.internal.provisional.Factory;
+import org.eclipse.pde.api.tools.internal.provisional.VisibilityModifiers;
+import org.eclipse.pde.api.tools.internal.provisional.builder.IReference;
+import org.eclipse.pde.api.tools.internal.provisional.descriptors.IComponentDescriptor;
+import org.eclipse.pde.api.tools.internal.search.IReferenceDescriptor;
+import org.eclipse.pde.api.tools.internal.search.UseScanIndex;
+import org.eclipse.pde.api.tools.internal.search.UseScanParser;
+import org.eclipse.pde.api.tools.internal.search.UseScanReferenceVisitor;
+import org.eclipse.pde.api.tools.internal.search.UseScanReferences;
+import org.eclipse.pde.api.tools.internal.search.XmlReferenceDescriptorWriter;
+import org.eclipse.pde.api.tools.model.tests.TestSuiteHelper;
+import org.junit.After;
+import org.junit.Test;
+
+/**
+ * Tests the {@link UseScanIndex}
+ *
+ * @since 1.1.800
+ */
+public class UseScanIndexTests {
+
+	static IPath XML_PATH = TestSuiteHelper.getUserDirectoryPath().append("use-scan-index-tests"); //$NON-NLS-1$
+
+	private static final IComponentDescriptor REFERENCING = Factory.componentDescriptor("referencing", "1.0.0"); //$NON-NLS-1$ //$NON-NLS-2$
+	private static final IComponentDescriptor REFERENCED = Factory.componentDescriptor("referenced", "1.0.0"); //$NON-NLS-1$ //$NON-NLS-2$
+	private static final IComponentDescriptor OTHER = Factory.componentDescriptor("other", "2.0.0"); //$NON-NLS-1$ //$NON-NLS-2$
+
+	@After
+	public void tearDown() throws Exception {
+		scrubReportLocation(XML_PATH.toFile());
+	}
+
+	/**
+	 * Cleans the location if it exists
+	 *
+	 * @param file
+	 */
+	private void scrubReportLocation(File file) {
+		if (file.exists() && file.isDirectory()) {
+			File[] files = file.listFiles();
+			for (File child : files) {
+				if (child.isDirectory()) {
+					scrubReportLocation(child);
+				} else {
+					child.delete();
+				}
+			}
+			file.delete();
+		}
+	}
+
+	/**
+	 * Writes a use scan with references to types, methods and fields of two
+	 * components
+	 */
+	private void writeScan() throws Exception {
+		List<IReferenceDescriptor> references = new ArrayList<>();
+		for (int line = 0; line < 30; line++) {
+			references.add(Factory.referenceDescriptor(REFERENCING, Factory.methodDescriptor("a.b.Client", "run", "()V"), line, //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+					REFERENCED, Factory.typeDescriptor("c.d.Type" + (line % 3)), IReference.REF_PARAMETER, 0, VisibilityModifiers.API, null)); //$NON-NLS-1$
+			references.add(Factory.referenceDescriptor(REFERENCING, Factory.fieldDescriptor("a.b.Client", "field"), line, //$NON-NLS-1$ //$NON-NLS-2$
+					REFERENCED, Factory.methodDescriptor("c.d.Type" + (line % 3) + "$Inner", "call", "(I)V"), IReference.REF_VIRTUALMETHOD, 0, VisibilityModifiers.PRIVATE, null)); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$
+			references.add(Factory.referenceDescriptor(REFERENCING, Factory.typeDescriptor("a.b.Client"), line, //$NON-NLS-1$
+					OTHER, Factory.fieldDescriptor("e.f.Other", "value"), IReference.REF_GETFIELD, 0, VisibilityModifiers.API, null)); //$NON-NLS-1$ //$NON-NLS-2$
+		}
+		XmlReferenceDescriptorWriter writer = new XmlReferenceDescriptorWriter(XML_PATH.toOSString());
+		writer.writeReferences(references.toArray(new IReferenceDescriptor[references.size()]));
+		UseScanIndex.write(XML_PATH.toOSString(), null);
+		assertTrue("The index should exist", UseScanIndex.getIndexFile(XML_PATH.toOSString()).isFile()); //$NON-NLS-1$
+	}
+
+	/**
+	 * Asserts that the index returns the same references as parsing the
+	 * reports
+	 */
+	private void assertSameReferences(String componentId, String[] types) throws Exception {
+		UseScanReferences parsed = new UseScanReferences();
+		new UseScanParser().parse(XML_PATH.toOSString(), null, new UseScanReferenceVisitor(TestSuiteHelper.createTestingApiComponent(componentId, componentId, null), types, parsed));
+		UseScanReferences indexed = new UseScanReferences();
+		UseScanIndex.open(UseScanIndex.getIndexFile(XML_PATH.toOSString())).collect(componentId, types, indexed);
+		IReferenceDescriptor[] expected = parsed.getAllExternalDependencies();
+		IReferenceDescriptor[] actual = indexed.getAllExternalDependencies();
+		assertTrue("There should be references", expected.length > 0); //$NON-NLS-1$
+		assertEquals("Wrong number of references", expected.length, actual.length); //$NON-NLS-1$
+		assertEquals("Wrong references", new HashSet<>(Arrays.asList(expected)), new HashSet<>(Arrays.asList(actual))); //$NON-NLS-1$
+		if (types != null) {
+			for (String type : types) {
+				assertEquals("Wrong references to " + type, parsed.getExternalDependenciesTo(new String[] { type }).length, indexed.getExternalDependenciesTo(new String[] { type }).length); //$NON-NLS-1$
+			}
+		}
+	}
+
+	/**
+	 * Tests looking up the references to given types
+	 */
+	@Test
+	public void testLookupTypes() throws Exception {
+		writeScan();
+		assertSameReferences("referenced", new String[] { "c.d.Type1", "c.d.Type2" }); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+		assertSameReferences("other", new String[] { "e.f.Other" }); //$NON-NLS-1$ //$NON-NLS-2$
+	}
+
+	/**
+	 * Tests looking up all references to a component
+	 */
+	@Test
+	public void testLookupComponent() throws Exception {
+		writeScan();
+		assertSameReferences("referenced", null); //$NON-NLS-1$
+		assertSameReferences("other", null); //$NON-NLS-1$
+	}
+
+	/**
+	 * Tests that types without references are not found
+	 */
+	@Test
+	public void testLookupMissing() throws Exception {
+		writeScan();
+		UseScanReferences indexed = new UseScanReferences();
+		UseScanIndex index = UseScanIndex.open(UseScanIndex.getIndexFile(XML_PATH.toOSString()));
+		index.collect("referenced", new String[] { "e.f.Other", "c.d.Type" }, indexed); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+		index.collect("unknown", null, indexed); //$NON-NLS-1$
+		assertEquals("There should be no references", 0, indexed.getAllExternalDependencies().length); //$NON-NLS-1$
+	}
+}
@@ -0,0 +1,155 @@
+/*******************************************************************************
+ * Copyright (c) 2019 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.pde.api.tools.search.tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+
+import org.eclipse.core.runtime.IPath;
+import org.eclipse.pde.api.tools.internal.IApiXmlConstants;
+import org.eclipse.pde.api.tools.internal.provisional.Factory;
+import org.eclipse.pde.api.tools.internal.provisional.VisibilityModifiers;
+import org.eclipse.pde.api.tools.internal.provisional.builder.IReference;
+import org.eclipse.pde.api.tools.internal.provisional.descriptors.IComponentDescriptor;
+import org.eclipse.pde.api.tools.internal.search.IReferenceDescriptor;
+import org.eclipse.pde.api.tools.internal.search.XmlReferenceDescriptorWriter;
+import org.eclipse.pde.api.tools.model.tests.TestSuiteHelper;
+import org.junit.After;
+import org.junit.Test;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.NodeList;
+
+/**
+ * Tests the {@link XmlReferenceDescriptorWriter}
+ *
+ * @since 1.1.800
+ */
+public class XmlReferenceDescriptorWriterTests {
+
+	static IPath XML_PATH = TestSuiteHelper.getUserDirectoryPath().append("reference-writer-tests"); //$NON-NLS-1$
+
+	private static final IComponentDescriptor REFERENCING = Factory.componentDescriptor("referencing", "1.0.0"); //$NON-NLS-1$ //$NON-NLS-2$
+	private static final IComponentDescriptor REFERENCED = Factory.componentDescriptor("referenced", "1.0.0"); //$NON-NLS-1$ //$NON-NLS-2$
+
+	@After
+	public void tearDown() throws Exception {
+		scrubReportLocation(XML_PATH.toFile());
+	}
+
+	/**
+	 * Cleans the location if it exists
+	 *
+	 * @param file
+	 */
+	private void scrubReportLocation(File file) {
+		if (file.exists() && file.isDirectory()) {
+			File[] files = file.listFiles();
+			for (File child : files) {
+				if (child.isDirectory()) {
+					scrubReportLocation(child);
+				} else {
+					child.delete();
+				}
+			}
+			file.delete();
+		}
+	}
+
+	/**
+	 * Creates references to three types, one reference per line
+	 *
+	 * @param from the first line number
+	 * @param to the last line number, exclusive
+	 * @return the references
+	 */
+	private IReferenceDescriptor[] createReferences(int from, int to) {
+		List<IReferenceDescriptor> references = new ArrayList<>();
+		for (int line = from; line < to; line++) {
+			references.add(Factory.referenceDescriptor(REFERENCING, Factory.methodDescriptor("a.b.Client", "run", "()V"), line, //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+					REFERENCED, Factory.typeDescriptor("c.d.Type" + (line % 3)), IReference.REF_PARAMETER, 0, VisibilityModifiers.API, null)); //$NON-NLS-1$
+		}
+		return references.toArray(new IReferenceDescriptor[references.size()]);
+	}
+
+	private Element readReport() throws Exception {
+		File report = XML_PATH.append("referenced (1.0.0)").append("referencing (1.0.0)") //$NON-NLS-1$ //$NON-NLS-2$
+				.append(VisibilityModifiers.getVisibilityName(VisibilityModifiers.API)).append(XmlReferenceDescriptorWriter.TYPE_REFERENCES + ".xml").toFile(); //$NON-NLS-1$
+		assertTrue("The report should exist", report.isFile()); //$NON-NLS-1$
+		Document document = DocumentBuilderFactory.newInstance().newDocumentBuilder().parse(report);
+		return document.getDocumentElement();
+	}
+
+	/**
+	 * Asserts that the report contains one target per referenced type and the
+	 * given number of distinct references
+	 */
+	private void assertReport(Element root, int count) {
+		assertEquals("Wrong reference count", Integer.toString(count), root.getAttribute(IApiXmlConstants.ATTR_REFERENCE_COUNT)); //$NON-NLS-1$
+		NodeList targets = root.getElementsByTagName(IApiXmlConstants.ELEMENT_TARGET);
+		assertEquals("Wrong number of targets", 3, targets.getLength()); //$NON-NLS-1$
+		Set<String> names = new HashSet<>();
+		for (int i = 0; i < targets.getLength(); i++) {
+			Element target = (Element) targets.item(i);
+			assertTrue("Duplicate target", names.add(target.getAttribute(IApiXmlConstants.ATTR_NAME))); //$NON-NLS-1$
+			assertEquals("The kinds of a target should be merged", 1, target.getElementsByTagName(IApiXmlConstants.REFERENCE_KIND).getLength()); //$NON-NLS-1$
+		}
+		NodeList references = root.getElementsByTagName(IApiXmlConstants.ATTR_REFERENCE);
+		assertEquals("Wrong number of references", count, references.getLength()); //$NON-NLS-1$
+		Set<String> lines = new HashSet<>();
+		for (int i = 0; i < references.getLength(); i++) {
+			assertTrue("Duplicate reference", lines.add(((Element) references.item(i)).getAttribute(IApiXmlConstants.ATTR_LINE_NUMBER))); //$NON-NLS-1$
+		}
+	}
+
+	/**
+	 * Tests that references collated through several spilled buffers are
+	 * written once each
+	 */
+	@Test
+	public void testSpilledReferences() throws Exception {
+		XmlReferenceDescriptorWriter writer = new XmlReferenceDescriptorWriter(XML_PATH.toOSString());
+		writer.setBufferSize(7);
+		IReferenceDescriptor[] references = createReferences(0, 50);
+		IReferenceDescriptor[] duplicated = new IReferenceDescriptor[references.length * 2];
+		System.arraycopy(references, 0, duplicated, 0, references.length);
+		System.arraycopy(references, 0, duplicated, references.length, references.length);
+		writer.writeReferences(duplicated);
+		assertReport(readReport(), 50);
+	}
+
+	/**
+	 * Tests that references written by several calls are merged into the
+	 * existing report
+	 */
+	@Test
+	public void testMergeExistingReport() throws Exception {
+		XmlReferenceDescriptorWriter writer = new XmlReferenceDescriptorWriter(XML_PATH.toOSString());
+		writer.setBufferSize(7);
+		writer.writeReferences(createReferences(0, 30));
+		assertReport(readReport(), 30);
+		writer.writeReferences(createReferences(20, 50));
+		Element root = readReport();
+		assertReport(root, 50);
+		assertEquals("The report attributes should be kept", "referencing (1.0.0)", root.getAttribute(IApiXmlConstants.ATTR_ORIGIN)); //$NON-NLS-1$ //$NON-NLS-2$
+	}
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2007, 2018 IBM Corporation and others.
+ * Copyright (c) 2007, 2019 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -14,7 +14,12 @@
 package org.eclipse.pde.api.tools.tests;
 
 
+import org.eclipse.pde.api.tools.builder.tests.ASTCacheTests;
+import org.eclipse.pde.api.tools.builder.tests.ApiAnalysisSchedulerTests;
+import org.eclipse.pde.api.tools.builder.tests.BuildStateTests;
 import org.eclipse.pde.api.tools.builder.tests.OSGiLessAnalysisTests;
+import org.eclipse.pde.api.tools.builder.tests.ReferenceIndexTests;
+import org.eclipse.pde.api.tools.builder.tests.ReferenceResolverTests;
 import org.eclipse.pde.api.tools.comparator.tests.AllDeltaTests;
 import org.eclipse.pde.api.tools.model.tests.ApiBaselineTests;
 import org.eclipse.pde.api.tools.model.tests.ApiDescriptionTests;
@@ -24,6 +29,7 @@ import org.eclipse.pde.api.tools.model.tests.BadClassfileTests;
 import org.eclipse.pde.api.tools.model.tests.CRCTests;
 import org.eclipse.pde.api.tools.model.tests.ClassFileScannerTests;
 import org.eclipse.pde.api.tools.model.tests.ComponentManifestTests;
+import org.eclipse.pde.api.tools.model.tests.EEMemberIndexTests;
 import org.eclipse.pde.api.tools.model.tests.ElementDescriptorTests;
 import org.eclipse.pde.api.tools.model.tests.Java8ClassfileScannerTests;
 import org.eclipse.pde.api.tools.model.tests.TagScannerTests;
@@ -33,12 +39,16 @@ import org.eclipse.pde.api.tools.problems.tests.ApiProblemTests;
 import org.eclipse.pde.api.tools.reference.tests.SearchScopeTests;
 import org.eclipse.pde.api.tools.search.tests.SearchEngineTests;
 import org.eclipse.pde.api.tools.search.tests.SkippedComponentTests;
+import org.eclipse.pde.api.tools.search.tests.UseReportConverterTests;
+import org.eclipse.pde.api.tools.search.tests.UseScanIndexTests;
 import org.eclipse.pde.api.tools.search.tests.UseSearchTests;
+import org.eclipse.pde.api.tools.search.tests.XmlReferenceDescriptorWriterTests;
 import org.eclipse.pde.api.tools.util.tests.HeadlessApiBaselineManagerTests;
 import org.eclipse.pde.api.tools.util.tests.SignaturesTests;
 import org.eclipse.pde.api.tools.util.tests.TarEntryTests;
 import org.eclipse.pde.api.tools.util.tests.TarExceptionTests;
 import org.eclipse.pde.api.tools.util.tests.UtilTests;
+import org.eclipse.pde.api.tools.util.tests.WorkerPoolTests;
 import org.junit.runner.RunWith;
 import org.junit.runners.Suite;
 
@@ -61,7 +71,10 @@ import org.junit.runners.Suite;
 		SignaturesTests.class, ApiBaselineTests.class, ApiTypeContainerTests.class, ClassFileScannerTests.class,
 		Java8ClassfileScannerTests.class, ElementDescriptorTests.class, SearchScopeTests.class, ApiProblemTests.class,
 		ApiProblemFactoryTests.class, ApiFilterTests.class, TarEntryTests.class, TarExceptionTests.class,
-		OSGiLessAnalysisTests.class, ApiModelCacheTests.class, BadClassfileTests.class,
+		OSGiLessAnalysisTests.class, ApiModelCacheTests.class, BadClassfileTests.class, BuildStateTests.class,
+		XmlReferenceDescriptorWriterTests.class,
+		UseScanIndexTests.class, UseReportConverterTests.class, ASTCacheTests.class, EEMemberIndexTests.class, ApiAnalysisSchedulerTests.class,
+		ReferenceIndexTests.class, ReferenceResolverTests.class, WorkerPoolTests.class,
 	CRCTests.class,
 	AllDeltaTests.class
 })
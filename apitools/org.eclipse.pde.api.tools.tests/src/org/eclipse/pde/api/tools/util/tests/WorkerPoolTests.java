@@ -0,0 +1,86 @@
+/*******************************************************************************
+ * Copyright (c) 2019 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.pde.api.tools.util.tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.eclipse.pde.api.tools.internal.util.WorkerPool;
+import org.junit.Test;
+
+/**
+ * Tests the shared {@link WorkerPool}
+ *
+ * @since 1.1.800
+ */
+public class WorkerPoolTests {
+
+	private List<Integer> getElements(int count) {
+		List<Integer> elements = new ArrayList<>(count);
+		for (int i = 0; i < count; i++) {
+			elements.add(Integer.valueOf(i));
+		}
+		return elements;
+	}
+
+	/**
+	 * Tests that results are returned in the order of the elements
+	 */
+	@Test
+	public void testResultOrder() throws Exception {
+		List<Integer> results = WorkerPool.run(getElements(100), 4, element -> Integer.valueOf(element.intValue() * 2), null);
+		assertEquals("wrong number of results", 100, results.size()); //$NON-NLS-1$
+		for (int i = 0; i < results.size(); i++) {
+			assertEquals("wrong result", i * 2, results.get(i).intValue()); //$NON-NLS-1$
+		}
+	}
+
+	/**
+	 * Tests that fewer elements than the threshold are processed on the
+	 * calling thread
+	 */
+	@Test
+	public void testThreshold() throws Exception {
+		final Thread caller = Thread.currentThread();
+		List<Boolean> results = WorkerPool.run(getElements(10), 4, 11, element -> Boolean.valueOf(Thread.currentThread() == caller), null);
+		for (Boolean result : results) {
+			assertTrue("element should be processed on the calling thread", result.booleanValue()); //$NON-NLS-1$
+		}
+	}
+
+	/**
+	 * Tests that work submitted from a worker thread is done on that thread
+	 * and that the shared pool is bounded
+	 */
+	@Test
+	public void testNestedRun() throws Exception {
+		final Set<Thread> threads = ConcurrentHashMap.newKeySet();
+		List<Boolean> results = WorkerPool.run(getElements(8), 8, element -> {
+			assertTrue("should run on a worker thread", WorkerPool.isWorkerThread()); //$NON-NLS-1$
+			Thread outer = Thread.currentThread();
+			threads.add(outer);
+			List<Boolean> nested = WorkerPool.run(getElements(4), 4, inner -> Boolean.valueOf(Thread.currentThread() == outer), null);
+			return Boolean.valueOf(!nested.contains(Boolean.FALSE));
+		}, null);
+		assertFalse("nested work should be done on the calling worker thread", results.contains(Boolean.FALSE)); //$NON-NLS-1$
+		assertTrue("too many threads used", threads.size() <= WorkerPool.getDefaultParallelism()); //$NON-NLS-1$
+		assertFalse("the test thread is not a worker thread", WorkerPool.isWorkerThread()); //$NON-NLS-1$
+	}
+}
@@ -45,6 +45,7 @@ import org.eclipse.pde.api.tools.internal.provisional.model.IApiBaseline;
 import org.eclipse.pde.api.tools.internal.provisional.model.IApiComponent;
 import org.eclipse.pde.api.tools.internal.provisional.model.IApiScope;
 import org.eclipse.pde.api.tools.internal.provisional.model.IApiTypeRoot;
+import org.eclipse.pde.api.tools.internal.util.WorkerPool;
 import org.eclipse.pde.api.tools.ui.internal.actions.ActionMessages;
 import org.eclipse.pde.api.tools.ui.internal.actions.DeltaSession;
 
@@ -79,7 +80,7 @@ public class CompareOperation extends Job {
 		try {
 			monitor.subTask(ActionMessages.CompareDialogComputeDeltasTaskName);
 			try {
-				IDelta delta = ApiComparator.compare(scope, baseline, VisibilityModifiers.API, false, monitor);
+				IDelta delta = ApiComparator.compare(scope, baseline, VisibilityModifiers.API, false, false, WorkerPool.getDefaultParallelism(), monitor);
 				if (delta == null) {
 					// we don't want to continue. The .log file should already
 					// contain details about the failure
@@ -53,7 +53,10 @@ public class AntFilterStore extends FilterStore {
 	public boolean isFiltered(IApiProblem problem) {
 		boolean isFiltered = super.isFiltered(problem);
 		if(isFiltered){
-			filteredAPIProblems.add(problem);
+			// use scans may check problems from several threads
+			synchronized (filteredAPIProblems) {
+				filteredAPIProblems.add(problem);
+			}
 		}
 		return isFiltered;
 	}
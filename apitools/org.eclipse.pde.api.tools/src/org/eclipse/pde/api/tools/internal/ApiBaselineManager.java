@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2007, 2017 IBM Corporation and others.
+ * Copyright (c) 2007, 2019 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -50,7 +50,10 @@ import org.eclipse.core.runtime.preferences.InstanceScope;
 import org.eclipse.pde.api.tools.internal.model.ApiBaseline;
 import org.eclipse.pde.api.tools.internal.model.ApiModelCache;
 import org.eclipse.pde.api.tools.internal.model.ApiModelFactory;
+import org.eclipse.pde.api.tools.internal.model.ArchiveIndex;
+import org.eclipse.pde.api.tools.internal.model.JrtApiTypeContainer;
 import org.eclipse.pde.api.tools.internal.model.StubApiComponent;
+import org.eclipse.pde.api.tools.internal.model.TypeStructureCache;
 import org.eclipse.pde.api.tools.internal.model.WorkspaceBaseline;
 import org.eclipse.pde.api.tools.internal.provisional.ApiPlugin;
 import org.eclipse.pde.api.tools.internal.provisional.IApiBaselineManager;
@@ -506,6 +509,10 @@ public final class ApiBaselineManager implements IApiBaselineManager, ISaveParti
 
 	@Override
 	public void saving(ISaveContext context) throws CoreException {
+		TypeStructureCache typeStructureCache = TypeStructureCache.getCache();
+		if (typeStructureCache != null) {
+			typeStructureCache.flush();
+		}
 		if (!fNeedsSaving) {
 			return;
 		}
@@ -574,6 +581,9 @@ public final class ApiBaselineManager implements IApiBaselineManager, ISaveParti
 				hasinfos.clear();
 			}
 			StubApiComponent.disposeAllCaches();
+			TypeStructureCache.disposeCache();
+			ArchiveIndex.closeAll();
+			JrtApiTypeContainer.closeAll();
 		} finally {
 			if (ApiPlugin.isRunningInFramework()) {
 				ApiPlugin.getDefault().removeSaveParticipant(this);
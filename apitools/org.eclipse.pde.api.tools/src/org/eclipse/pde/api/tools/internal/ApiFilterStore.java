@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2008, 2017 IBM Corporation and others.
+ * Copyright (c) 2008, 2019 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -25,6 +25,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.eclipse.core.filebuffers.FileBuffers;
 import org.eclipse.core.filebuffers.ITextFileBuffer;
@@ -75,9 +76,91 @@ import org.w3c.dom.Element;
 public class ApiFilterStore extends FilterStore implements IResourceChangeListener {
 
 	/**
-	 * Map used to collect unused {@link IApiProblemFilter}s
+	 * Read-only index of the filters, keyed by resource, type name and problem
+	 * id. Lookups do not lock the store.
 	 */
-	private HashMap<IResource, Set<IApiProblemFilter>> fUnusedFilters = null;
+	private static final class FilterIndex {
+
+		/**
+		 * Key of the filters for one kind of problem in one type
+		 */
+		private static final class Key {
+			final IResource resource;
+			final String typeName;
+			final int id;
+
+			Key(IResource resource, String typeName, int id) {
+				this.resource = resource;
+				this.typeName = typeName;
+				this.id = id;
+			}
+
+			@Override
+			public boolean equals(Object obj) {
+				if (obj instanceof Key) {
+					Key key = (Key) obj;
+					return id == key.id && resource.equals(key.resource) && typeName.equals(key.typeName);
+				}
+				return false;
+			}
+
+			@Override
+			public int hashCode() {
+				return (resource.hashCode() * 31 + typeName.hashCode()) * 31 + id;
+			}
+		}
+
+		private final Map<Key, IApiProblemFilter[]> fFilters = new HashMap<>();
+		private final Set<IResource> fResources;
+
+		FilterIndex(Map<IResource, Map<String, Set<IApiProblemFilter>>> filterMap) {
+			fResources = new HashSet<>(filterMap.keySet());
+			Map<Key, List<IApiProblemFilter>> filters = new HashMap<>();
+			for (Entry<IResource, Map<String, Set<IApiProblemFilter>>> entry : filterMap.entrySet()) {
+				for (Entry<String, Set<IApiProblemFilter>> types : entry.getValue().entrySet()) {
+					for (IApiProblemFilter filter : types.getValue()) {
+						Key key = new Key(entry.getKey(), types.getKey(), filter.getUnderlyingProblem().getId());
+						List<IApiProblemFilter> list = filters.get(key);
+						if (list == null) {
+							list = new ArrayList<>(1);
+							filters.put(key, list);
+						}
+						list.add(filter);
+					}
+				}
+			}
+			for (Entry<Key, List<IApiProblemFilter>> entry : filters.entrySet()) {
+				List<IApiProblemFilter> list = entry.getValue();
+				fFilters.put(entry.getKey(), list.toArray(new IApiProblemFilter[list.size()]));
+			}
+		}
+
+		boolean hasFilters(IResource resource) {
+			return fResources.contains(resource);
+		}
+
+		/**
+		 * Returns the filters for problems with the given id in the given type
+		 * of the given resource, in the order they were added
+		 */
+		IApiProblemFilter[] getFilters(IResource resource, String typeName, int id) {
+			IApiProblemFilter[] filters = fFilters.get(new Key(resource, typeName == null ? GLOBAL : typeName, id));
+			return filters == null ? FilterStore.NO_FILTERS : filters;
+		}
+	}
+
+	/**
+	 * Map used to count the uses of the {@link IApiProblemFilter}s that existed
+	 * when recording started. The map is not changed once it is published,
+	 * uses are recorded with atomic counters.
+	 */
+	private volatile Map<IResource, Map<IApiProblemFilter, AtomicInteger>> fUnusedFilters = null;
+
+	/**
+	 * The index of {@link #fFilterMap}, or <code>null</code> if it has to be
+	 * built again after the filters changed
+	 */
+	private volatile FilterIndex fFilterIndex = null;
 
 	/**
 	 * The backing {@link IJavaProject}
@@ -229,6 +312,7 @@ public class ApiFilterStore extends FilterStore implements IResourceChangeListen
 			}
 			fNeedsSaving |= pfilters.add(filter);
 		}
+		fFilterIndex = null;
 		persistApiFilters();
 	}
 
@@ -265,9 +349,29 @@ public class ApiFilterStore extends FilterStore implements IResourceChangeListen
 		return allFilters.toArray(new IApiProblemFilter[allFilters.size()]);
 	}
 
+	/**
+	 * Returns the index of the filters, building it if the filters changed
+	 *
+	 * @return the filter index
+	 */
+	private FilterIndex getFilterIndex() {
+		FilterIndex index = fFilterIndex;
+		if (index == null) {
+			synchronized (this) {
+				initializeApiFilters();
+				index = fFilterIndex;
+				if (index == null) {
+					index = new FilterIndex(fFilterMap);
+					fFilterIndex = index;
+				}
+			}
+		}
+		return index;
+	}
+
 	@Override
-	public synchronized boolean isFiltered(IApiProblem problem) {
-		initializeApiFilters();
+	public boolean isFiltered(IApiProblem problem) {
+		FilterIndex index = getFilterIndex();
 		String resourcePath = problem.getResourcePath();
 		if (resourcePath == null) {
 			return false;
@@ -279,14 +383,14 @@ public class ApiFilterStore extends FilterStore implements IResourceChangeListen
 			}
 			return false;
 		}
-		IApiProblemFilter[] filters = this.getFilters(resource);
-		if (filters == null) {
+		if (!index.hasFilters(resource)) {
 			if (ApiPlugin.DEBUG_FILTER_STORE) {
 				System.out.println("no filters defined for [" + resourcePath + "] return not filtered"); //$NON-NLS-1$ //$NON-NLS-2$
 			}
 			return false;
 		}
-		for (IApiProblemFilter filter : filters) {
+		// only filters with the same type name and id can match
+		for (IApiProblemFilter filter : index.getFilters(resource, problem.getTypeName(), problem.getId())) {
 			if (problemsMatch(filter.getUnderlyingProblem(), problem)) {
 				if (ApiPlugin.DEBUG_FILTER_STORE) {
 					System.out.println("recording filter used: [" + filter.toString() + "]"); //$NON-NLS-1$ //$NON-NLS-2$
@@ -308,10 +412,8 @@ public class ApiFilterStore extends FilterStore implements IResourceChangeListen
 		// https://bugs.eclipse.org/bugs/show_bug.cgi?id=299319
 		persistApiFilters();
 		clearFilters();
-		if (fUnusedFilters != null) {
-			fUnusedFilters.clear();
-			fUnusedFilters = null;
-		}
+		// the published map may still be read, it is only dropped
+		fUnusedFilters = null;
 		ResourcesPlugin.getWorkspace().removeResourceChangeListener(this);
 	}
 
@@ -372,6 +474,7 @@ public class ApiFilterStore extends FilterStore implements IResourceChangeListen
 				success &= false;
 			}
 		}
+		fFilterIndex = null;
 		persistApiFilters();
 		return success;
 	}
@@ -575,6 +678,7 @@ public class ApiFilterStore extends FilterStore implements IResourceChangeListen
 			}
 			fNeedsSaving |= filters.add(filter);
 		}
+		fFilterIndex = null;
 	}
 
 	/**
@@ -618,18 +722,21 @@ public class ApiFilterStore extends FilterStore implements IResourceChangeListen
 	 */
 	public synchronized void recordFilterUsage() {
 		initializeApiFilters();
-		fUnusedFilters = new LinkedHashMap<>();
+		Map<IResource, Map<IApiProblemFilter, AtomicInteger>> unused = new LinkedHashMap<>();
 		Map<String, Set<IApiProblemFilter>> types = null;
-		Set<IApiProblemFilter> values = null;
+		Map<IApiProblemFilter, AtomicInteger> values = null;
 		for (Entry<IResource, Map<String, Set<IApiProblemFilter>>> filterEntry : fFilterMap.entrySet()) {
 			IResource resource = filterEntry.getKey();
 			types = filterEntry.getValue();
-			values = new LinkedHashSet<>();
-			fUnusedFilters.put(resource, values);
+			values = new LinkedHashMap<>();
+			unused.put(resource, values);
 			for (Entry<String, Set<IApiProblemFilter>> entry : types.entrySet()) {
-				values.addAll(entry.getValue());
+				for (IApiProblemFilter filter : entry.getValue()) {
+					values.put(filter, new AtomicInteger());
+				}
 			}
 		}
+		fUnusedFilters = unused;
 	}
 
 	/**
@@ -639,12 +746,13 @@ public class ApiFilterStore extends FilterStore implements IResourceChangeListen
 	 * @param filter
 	 */
 	private void recordFilterUsed(IResource resource, IApiProblemFilter filter) {
-		if (fUnusedFilters != null) {
-			Set<IApiProblemFilter> unused = fUnusedFilters.get(resource);
+		Map<IResource, Map<IApiProblemFilter, AtomicInteger>> unusedFilters = fUnusedFilters;
+		if (unusedFilters != null) {
+			Map<IApiProblemFilter, AtomicInteger> unused = unusedFilters.get(resource);
 			if (unused != null) {
-				unused.remove(filter);
-				if (unused.isEmpty()) {
-					fUnusedFilters.remove(resource);
+				AtomicInteger uses = unused.get(filter);
+				if (uses != null) {
+					uses.incrementAndGet();
 				}
 			}
 		}
@@ -663,12 +771,13 @@ public class ApiFilterStore extends FilterStore implements IResourceChangeListen
 	 *         <code>null</code>
 	 */
 	public IApiProblemFilter[] getUnusedFilters(IResource resource, String typeName, int[] categories) {
-		if (fUnusedFilters != null) {
+		Map<IResource, Map<IApiProblemFilter, AtomicInteger>> unusedFilters = fUnusedFilters;
+		if (unusedFilters != null) {
 			Set<IApiProblemFilter> unused = new HashSet<>();
-			Set<IApiProblemFilter> set = null;
+			Map<IApiProblemFilter, AtomicInteger> set = null;
 			if (resource != null) {
 				// add any unused filters for the resource
-				set = fUnusedFilters.get(resource);
+				set = unusedFilters.get(resource);
 				if (set != null) {
 					collectFilterFor(set, typeName, unused, categories);
 				}
@@ -678,20 +787,24 @@ public class ApiFilterStore extends FilterStore implements IResourceChangeListen
 					// deleted types are only ever passed in with the manifest
 					// associated with them
 					IResource res = null;
-					for (Entry<IResource, Set<IApiProblemFilter>> entry : fUnusedFilters.entrySet()) {
+					for (Entry<IResource, Map<IApiProblemFilter, AtomicInteger>> entry : unusedFilters.entrySet()) {
 						res = entry.getKey();
 						if (res == null || !res.exists() || !res.getProject().equals(resource.getProject())) {
 							continue;
 						}
-						set = fUnusedFilters.get(res);
+						set = entry.getValue();
 						collectFilterFor(set, typeName, unused, categories);
 					}
 				}
 			} else {
-				for (Entry<IResource, Set<IApiProblemFilter>> entry : fUnusedFilters.entrySet()) {
+				for (Entry<IResource, Map<IApiProblemFilter, AtomicInteger>> entry : unusedFilters.entrySet()) {
 					set = entry.getValue();
 					if (set != null) {
-						unused.addAll(set);
+						for (Entry<IApiProblemFilter, AtomicInteger> filter : set.entrySet()) {
+							if (filter.getValue().get() == 0) {
+								unused.add(filter.getKey());
+							}
+						}
 					}
 				}
 			}
@@ -705,17 +818,22 @@ public class ApiFilterStore extends FilterStore implements IResourceChangeListen
 	}
 
 	/**
-	 * Collects the complete set of problem filters from the given set whose
-	 * underlying problem categories do not match any from the given array and
-	 * whose type name matches the underlying problem type name.
+	 * Collects the complete set of unused problem filters from the given
+	 * counts whose underlying problem categories do not match any from the
+	 * given array and whose type name matches the underlying problem type
+	 * name.
 	 *
 	 * @param filters
 	 * @param typename
 	 * @param collector
 	 * @param categories
 	 */
-	private void collectFilterFor(Set<IApiProblemFilter> filters, String typename, Set<IApiProblemFilter> collector, int[] categories) {
-		for (IApiProblemFilter filter : filters) {
+	private void collectFilterFor(Map<IApiProblemFilter, AtomicInteger> filters, String typename, Set<IApiProblemFilter> collector, int[] categories) {
+		for (Entry<IApiProblemFilter, AtomicInteger> entry : filters.entrySet()) {
+			if (entry.getValue().get() > 0) {
+				continue;
+			}
+			IApiProblemFilter filter = entry.getKey();
 			IApiProblem underlyingProblem = filter.getUnderlyingProblem();
 			if (underlyingProblem != null) {
 				if (matchesCategory(underlyingProblem, categories)) {
@@ -783,6 +901,7 @@ public class ApiFilterStore extends FilterStore implements IResourceChangeListen
 				}
 				if (fFilterMap != null) {
 					fFilterMap.clear();
+					fFilterIndex = null;
 					needsbuild = fProject.getProject().isAccessible();
 				}
 			} else if (leafdelta.getKind() == IResourceDelta.ADDED || (leafdelta.getFlags() & IResourceDelta.CONTENT) != 0 || (leafdelta.getFlags() & IResourceDelta.REPLACED) != 0) {
@@ -819,5 +938,6 @@ public class ApiFilterStore extends FilterStore implements IResourceChangeListen
 			fFilterMap.clear();
 			fFilterMap = null;
 		}
+		fFilterIndex = null;
 	}
 }
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2007, 2013 IBM Corporation and others.
+ * Copyright (c) 2007, 2019 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -152,6 +152,18 @@ public class CompilationUnit {
 		return this.encoding;
 	}
 
+	/**
+	 * Returns the workspace compilation unit backing this
+	 * {@link CompilationUnit}
+	 *
+	 * @return the backing {@link ICompilationUnit} or <code>null</code> if
+	 *         this {@link CompilationUnit} was created from a file path
+	 * @since 1.1.800
+	 */
+	public ICompilationUnit getCompilationUnit() {
+		return unit;
+	}
+
 	@Override
 	public String toString() {
 		return getName();
@@ -0,0 +1,225 @@
+/*******************************************************************************
+ * Copyright (c) 2019 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.pde.api.tools.internal.builder;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.jdt.core.ICompilationUnit;
+import org.eclipse.jdt.core.JavaCore;
+import org.eclipse.jdt.core.JavaModelException;
+import org.eclipse.jdt.core.dom.AST;
+import org.eclipse.jdt.core.dom.ASTParser;
+import org.eclipse.jdt.core.dom.CompilationUnit;
+
+/**
+ * Caches the Javadoc enabled, non-resolved ASTs created while analyzing one
+ * API component, so that tag validation, since tag checks and tag scanning
+ * of the same compilation unit share a single parse.
+ * <p>
+ * Entries are keyed by the handle identifier of the compilation unit and are
+ * only reused if the source and the compiler options are unchanged. The
+ * cache is bounded by the number of entries and by the total length of the
+ * cached sources, the least recently used entries are evicted first.
+ * </p>
+ * <p>
+ * A cache is made available to code that has no direct access to the
+ * analyzer (like the {@link org.eclipse.pde.api.tools.internal.provisional.scanner.TagScanner})
+ * by activating it for the current thread.
+ * </p>
+ *
+ * @since 1.1.800
+ */
+public final class ASTCache {
+
+	/**
+	 * Default maximum number of cached ASTs
+	 */
+	static final int DEFAULT_MAX_ENTRIES = 16;
+
+	/**
+	 * Default maximum total number of source characters of the cached ASTs
+	 */
+	static final int DEFAULT_MAX_CHARS = 1 << 20;
+
+	private static final ThreadLocal<ASTCache> ACTIVE = new ThreadLocal<>();
+
+	/**
+	 * A cached AST with the content it was created from
+	 */
+	private static class Entry {
+		final String source;
+		final Map<String, String> options;
+		final CompilationUnit ast;
+
+		Entry(String source, Map<String, String> options, CompilationUnit ast) {
+			this.source = source;
+			this.options = options;
+			this.ast = ast;
+		}
+	}
+
+	private final int fMaxEntries;
+	private final int fMaxChars;
+	private final LinkedHashMap<String, Entry> fEntries = new LinkedHashMap<>(16, 0.75f, true);
+	private int fChars = 0;
+	private int fParseCount = 0;
+	private int fHitCount = 0;
+
+	/**
+	 * Constructor, using the default bounds
+	 */
+	public ASTCache() {
+		this(DEFAULT_MAX_ENTRIES, DEFAULT_MAX_CHARS);
+	}
+
+	/**
+	 * Constructor
+	 *
+	 * @param maxEntries the maximum number of cached ASTs
+	 * @param maxChars the maximum total number of source characters of the
+	 *            cached ASTs
+	 */
+	public ASTCache(int maxEntries, int maxChars) {
+		fMaxEntries = maxEntries;
+		fMaxChars = maxChars;
+	}
+
+	/**
+	 * Returns the cache activated for the current thread
+	 *
+	 * @return the active cache or <code>null</code> if none
+	 */
+	public static ASTCache getActive() {
+		return ACTIVE.get();
+	}
+
+	/**
+	 * Activates this cache for the current thread
+	 *
+	 * @return the cache that was active before, to be passed to
+	 *         {@link #restore(ASTCache)}
+	 */
+	public ASTCache activate() {
+		ASTCache previous = ACTIVE.get();
+		ACTIVE.set(this);
+		return previous;
+	}
+
+	/**
+	 * Restores the cache that was active for the current thread before
+	 * {@link #activate()} was called
+	 *
+	 * @param previous the cache returned by {@link #activate()}, can be
+	 *            <code>null</code>
+	 */
+	public static void restore(ASTCache previous) {
+		if (previous == null) {
+			ACTIVE.remove();
+		} else {
+			ACTIVE.set(previous);
+		}
+	}
+
+	/**
+	 * Returns the AST of the current source of the given compilation unit
+	 *
+	 * @param unit the compilation unit
+	 * @param options the compiler options to use, Javadoc support is always
+	 *            enabled
+	 * @return the AST, or <code>null</code> if the unit has no source
+	 * @throws JavaModelException if the source of the unit cannot be read
+	 */
+	public CompilationUnit getAST(ICompilationUnit unit, Map<String, String> options) throws JavaModelException {
+		String source = unit.getSource();
+		if (source == null) {
+			return null;
+		}
+		return getAST(unit.getHandleIdentifier(), source, options);
+	}
+
+	/**
+	 * Returns the AST of the given source
+	 *
+	 * @param key the handle identifier of the compilation unit the source
+	 *            belongs to
+	 * @param source the source to parse
+	 * @param options the compiler options to use, Javadoc support is always
+	 *            enabled
+	 * @return the AST
+	 */
+	public synchronized CompilationUnit getAST(String key, String source, Map<String, String> options) {
+		Map<String, String> loptions = new HashMap<>(options);
+		loptions.put(JavaCore.COMPILER_DOC_COMMENT_SUPPORT, JavaCore.ENABLED);
+		Entry entry = fEntries.get(key);
+		if (entry != null && entry.source.equals(source) && entry.options.equals(loptions)) {
+			fHitCount++;
+			return entry.ast;
+		}
+		ASTParser parser = ASTParser.newParser(AST.JLS10);
+		parser.setResolveBindings(false);
+		parser.setSource(source.toCharArray());
+		parser.setCompilerOptions(loptions);
+		CompilationUnit ast = (CompilationUnit) parser.createAST(new NullProgressMonitor());
+		fParseCount++;
+		if (entry != null) {
+			fEntries.remove(key);
+			fChars -= entry.source.length();
+		}
+		if (source.length() <= fMaxChars) {
+			fEntries.put(key, new Entry(source, loptions, ast));
+			fChars += source.length();
+			evict();
+		}
+		return ast;
+	}
+
+	/**
+	 * Evicts the least recently used entries until the cache is within its
+	 * bounds
+	 */
+	private void evict() {
+		Iterator<Entry> iterator = fEntries.values().iterator();
+		while ((fEntries.size() > fMaxEntries || fChars > fMaxChars) && iterator.hasNext()) {
+			Entry entry = iterator.next();
+			fChars -= entry.source.length();
+			iterator.remove();
+		}
+	}
+
+	/**
+	 * @return the number of ASTs created by this cache
+	 */
+	public synchronized int getParseCount() {
+		return fParseCount;
+	}
+
+	/**
+	 * @return the number of parses saved by returning a cached AST
+	 */
+	public synchronized int getHitCount() {
+		return fHitCount;
+	}
+
+	/**
+	 * Removes all cached ASTs
+	 */
+	public synchronized void clear() {
+		fEntries.clear();
+		fChars = 0;
+	}
+}
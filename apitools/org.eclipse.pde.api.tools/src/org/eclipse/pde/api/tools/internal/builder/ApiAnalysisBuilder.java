@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2007, 2018 IBM Corporation and others.
+ * Copyright (c) 2007, 2019 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -60,6 +60,7 @@ import org.eclipse.osgi.util.ManifestElement;
 import org.eclipse.osgi.util.NLS;
 import org.eclipse.pde.api.tools.internal.ApiDescriptionManager;
 import org.eclipse.pde.api.tools.internal.IApiCoreConstants;
+import org.eclipse.pde.api.tools.internal.model.ApiModelCache;
 import org.eclipse.pde.api.tools.internal.problems.ApiProblemFactory;
 import org.eclipse.pde.api.tools.internal.provisional.ApiPlugin;
 import org.eclipse.pde.api.tools.internal.provisional.IApiMarkerConstants;
@@ -179,6 +180,74 @@ public class ApiAnalysisBuilder extends IncrementalProjectBuilder {
 	 */
 	private BuildState buildstate = null;
 
+	/**
+	 * The analysis of the current full build, if it is deferred to the
+	 * {@link ApiAnalysisScheduler}
+	 *
+	 * @since 1.1.800
+	 */
+	private DeferredAnalysis deferred = null;
+
+	/**
+	 * The index of the types referenced by the types of the current project,
+	 * updated by the analysis of the current build
+	 *
+	 * @since 1.1.800
+	 */
+	private ReferenceIndex referenceindex = null;
+
+	/**
+	 * The analysis of a full build, run by the {@link ApiAnalysisScheduler}
+	 * concurrently with the analysis of other projects
+	 *
+	 * @since 1.1.800
+	 */
+	class DeferredAnalysis implements ApiAnalysisScheduler.Task {
+		final IApiAnalyzer fAnalyzer;
+		final IApiBaseline fBaseline;
+		final IApiBaseline fWorkspaceBaseline;
+		final IApiComponent fComponent;
+		BuildState fState = null;
+		ReferenceIndex fIndex = null;
+		/**
+		 * If the baseline is closed once the analysis is done, as no other
+		 * build cycle reads it
+		 */
+		boolean fCloseBaseline = false;
+
+		DeferredAnalysis(IApiAnalyzer analyzer, IApiBaseline baseline, IApiBaseline wbaseline, IApiComponent component) {
+			fAnalyzer = analyzer;
+			fBaseline = baseline;
+			fWorkspaceBaseline = wbaseline;
+			fComponent = component;
+		}
+
+		@Override
+		public void analyze(IProgressMonitor monitor) throws CoreException {
+			if (fAnalyzer instanceof BaseApiAnalyzer) {
+				((BaseApiAnalyzer) fAnalyzer).checkBaselineMismatch(fBaseline, fWorkspaceBaseline);
+			}
+			fAnalyzer.analyzeComponent(fState, null, null, fBaseline, fComponent, new BuildContext(), monitor);
+			BuildState.saveBuiltState(currentproject, fState);
+			if (fIndex != null) {
+				ReferenceIndex.setLastIndex(currentproject, fIndex);
+			}
+		}
+
+		@Override
+		public void publish() {
+			createMarkers(fAnalyzer);
+		}
+
+		@Override
+		public void dispose() {
+			fAnalyzer.dispose();
+			if (fCloseBaseline && fBaseline != null) {
+				fBaseline.close();
+			}
+		}
+	}
+
 	/**
 	 * Cleans up markers associated with API Tools on the given resource.
 	 *
@@ -344,6 +413,8 @@ public class ApiAnalysisBuilder extends IncrementalProjectBuilder {
 			return NO_PROJECTS;
 		}
 		this.currentproject = getProject();
+		// publish a still pending analysis of this project first
+		ApiAnalysisScheduler.getDefault().waitFor(this.currentproject);
 		if (buildDisabled || shouldAbort(this.currentproject)) {
 			return NO_PROJECTS;
 		}
@@ -426,6 +497,9 @@ public class ApiAnalysisBuilder extends IncrementalProjectBuilder {
 									buildAll(baseline, wbaseline, switchMonitor.split(1));
 									break;
 								}
+								ReferenceIndex index = ReferenceIndex.getLastIndex(this.currentproject);
+								ReferenceIndex.setLastIndex(this.currentproject, null);
+								setReferenceIndex(index != null ? index : new ReferenceIndex());
 								BuildState.setLastBuiltState(this.currentproject, null);
 								IncrementalApiBuilder builder = new IncrementalApiBuilder(this);
 								builder.build(baseline, wbaseline, deltas, state, this.buildstate, switchMonitor.split(1));
@@ -463,8 +537,11 @@ public class ApiAnalysisBuilder extends IncrementalProjectBuilder {
 					// if this build cycle indicates that more projects need to
 					// be built do not close
 					// the baselines yet, they might be re-read by another build
-					// cycle
-					if (baseline != null) {
+					// cycle. A deferred analysis still reads them and closes
+					// them once it is disposed.
+					if (this.deferred != null) {
+						this.deferred.fCloseBaseline = true;
+					} else if (baseline != null) {
 						baseline.close();
 					}
 				}
@@ -495,10 +572,25 @@ public class ApiAnalysisBuilder extends IncrementalProjectBuilder {
 							ApiPlugin.log(ce);
 						}
 					}
-					BuildState.saveBuiltState(this.currentproject, this.buildstate);
+					if (this.deferred != null) {
+						// the analysis saves the state once it is done
+						this.deferred.fState = this.buildstate;
+						this.deferred.fIndex = this.referenceindex;
+						ApiAnalysisScheduler.getDefault().schedule(this.currentproject, projects, this.deferred);
+					} else {
+						BuildState.saveBuiltState(this.currentproject, this.buildstate);
+						if (this.referenceindex != null) {
+							ReferenceIndex.setLastIndex(this.currentproject, this.referenceindex);
+						}
+					}
 					this.buildstate = null;
+					this.referenceindex = null;
 					localMonitor.split(1);
+				} else if (this.deferred != null) {
+					// nothing to analyze without a state
+					this.deferred.dispose();
 				}
+				this.deferred = null;
 				SubMonitor.done(monitor);
 			} catch (OperationCanceledException oce) {
 				// do nothing, but don't forward it
@@ -511,6 +603,9 @@ public class ApiAnalysisBuilder extends IncrementalProjectBuilder {
 		if (ApiPlugin.DEBUG_BUILDER) {
 			System.out.println("ApiAnalysisBuilder: Finished build of " + this.currentproject.getName() + " @ " + new Date(System.currentTimeMillis())); //$NON-NLS-1$ //$NON-NLS-2$
 		}
+		if (ApiPlugin.DEBUG_MODEL_CACHE) {
+			System.out.println("ApiAnalysisBuilder: API model cache after build of " + this.currentproject.getName() + ": " + ApiModelCache.getCache().getStatistics()); //$NON-NLS-1$ //$NON-NLS-2$
+		}
 		return projects;
 	}
 
@@ -757,6 +852,8 @@ public class ApiAnalysisBuilder extends IncrementalProjectBuilder {
 		try {
 			BuildState.setLastBuiltState(this.currentproject, null);
 			this.buildstate = new BuildState();
+			ReferenceIndex.setLastIndex(this.currentproject, null);
+			setReferenceIndex(new ReferenceIndex());
 			localMonitor.subTask(NLS.bind(BuilderMessages.ApiAnalysisBuilder_initializing_analyzer, currentproject.getName()));
 			cleanupMarkers(this.currentproject);
 			IPluginModelBase currentModel = getCurrentModel();
@@ -780,7 +877,12 @@ public class ApiAnalysisBuilder extends IncrementalProjectBuilder {
 						}
 					}
 				}
-				if (apiComponent != null) {
+				if (apiComponent != null && isParallelAnalysis()) {
+					// the analyzer is owned by the deferred analysis from now on
+					this.deferred = new DeferredAnalysis(getAnalyzer(), baseline, wbaseline, apiComponent);
+					this.analyzer = null;
+					localMonitor.split(3);
+				} else if (apiComponent != null) {
 					if (getAnalyzer() instanceof BaseApiAnalyzer) {
 						((BaseApiAnalyzer)getAnalyzer()).checkBaselineMismatch(baseline, wbaseline);
 					}
@@ -803,6 +905,16 @@ public class ApiAnalysisBuilder extends IncrementalProjectBuilder {
 	 * running in the framework, no work is done.
 	 */
 	protected void createMarkers() {
+		createMarkers(getAnalyzer());
+	}
+
+	/**
+	 * Creates new markers for the problems found by the given analyzer
+	 *
+	 * @param apiAnalyzer the analyzer that analyzed the current project
+	 * @since 1.1.800
+	 */
+	void createMarkers(IApiAnalyzer apiAnalyzer) {
 		try {
 			IResource manifest = Util.getManifestFile(this.currentproject);
 			if (manifest != null) {
@@ -813,7 +925,7 @@ public class ApiAnalysisBuilder extends IncrementalProjectBuilder {
 		} catch (CoreException e) {
 			ApiPlugin.log(e);
 		}
-		IApiProblem[] problems = getAnalyzer().getProblems();
+		IApiProblem[] problems = apiAnalyzer.getProblems();
 		String type = null;
 		for (IApiProblem problem : problems) {
 			int category = problem.getCategory();
@@ -1025,6 +1137,7 @@ public class ApiAnalysisBuilder extends IncrementalProjectBuilder {
 	@Override
 	protected void clean(IProgressMonitor monitor) throws CoreException {
 		this.currentproject = getProject();
+		ApiAnalysisScheduler.getDefault().cancel(this.currentproject);
 		SubMonitor localmonitor = SubMonitor.convert(monitor, MessageFormat.format(BuilderMessages.CleaningAPIDescription, this.currentproject.getName()), 2);
 		try {
 			// clean up all existing markers
@@ -1039,6 +1152,7 @@ public class ApiAnalysisBuilder extends IncrementalProjectBuilder {
 			localmonitor.split(1);
 		} finally {
 			BuildState.setLastBuiltState(this.currentproject, null);
+			ReferenceIndex.setLastIndex(this.currentproject, null);
 			localmonitor.done();
 		}
 	}
@@ -1108,6 +1222,43 @@ public class ApiAnalysisBuilder extends IncrementalProjectBuilder {
 		return deltas.toArray(new IResourceDelta[deltas.size()]);
 	}
 
+	/**
+	 * Sets the index of the types referenced by the types of the current
+	 * project, to be updated by the analysis of the current build
+	 *
+	 * @param index the index
+	 * @since 1.1.800
+	 */
+	void setReferenceIndex(ReferenceIndex index) {
+		this.referenceindex = index;
+		if (getAnalyzer() instanceof BaseApiAnalyzer) {
+			((BaseApiAnalyzer) getAnalyzer()).setReferenceIndex(index);
+		}
+	}
+
+	/**
+	 * @return the index of the types referenced by the types of the current
+	 *         project, or <code>null</code> if none is used by the current
+	 *         build
+	 * @since 1.1.800
+	 */
+	ReferenceIndex getReferenceIndex() {
+		return this.referenceindex;
+	}
+
+	/**
+	 * Returns if the analysis of full builds is deferred to the workspace wide
+	 * {@link ApiAnalysisScheduler}, so that independent projects are analyzed
+	 * concurrently. Off by default, see
+	 * {@link ICoreConstants#PARALLEL_API_ANALYSIS}.
+	 *
+	 * @return <code>true</code> if parallel analysis is enabled
+	 * @since 1.1.800
+	 */
+	boolean isParallelAnalysis() {
+		return PDECore.getDefault().getPreferencesManager().getBoolean(ICoreConstants.PARALLEL_API_ANALYSIS);
+	}
+
 	/**
 	 * Returns the API analyzer to use with this instance of the builder
 	 *
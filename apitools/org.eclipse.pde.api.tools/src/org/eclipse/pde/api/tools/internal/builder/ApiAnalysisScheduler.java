@@ -0,0 +1,370 @@
+/*******************************************************************************
+ * Copyright (c) 2019 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.pde.api.tools.internal.builder;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.WorkspaceJob;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.core.runtime.OperationCanceledException;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.osgi.util.NLS;
+import org.eclipse.pde.api.tools.internal.provisional.ApiPlugin;
+import org.eclipse.pde.api.tools.internal.util.WorkerPool;
+
+/**
+ * Workspace wide scheduler for the API analysis of projects.
+ * <p>
+ * When parallel analysis is enabled the {@link ApiAnalysisBuilder} of each
+ * project only prepares the analysis of its component and hands it to this
+ * scheduler. The analysis of independent components is run concurrently on a
+ * bounded pool of worker threads, the analysis of a project is only started
+ * once the analysis of all of its prerequisite projects scheduled before has
+ * finished.
+ * </p>
+ * <p>
+ * Markers are still published per project, in a workspace job that locks
+ * only the project. A builder that runs again on a project with a pending
+ * analysis first waits for that analysis and publishes its markers itself,
+ * see {@link #waitFor(IProject)}.
+ * </p>
+ *
+ * @since 1.1.800
+ */
+public final class ApiAnalysisScheduler {
+
+	/**
+	 * The analysis of one project, as prepared by its builder
+	 */
+	public interface Task {
+		/**
+		 * Runs the analysis. Called on a worker thread, must not modify any
+		 * workspace resources.
+		 *
+		 * @param monitor the monitor to check for cancellation
+		 * @throws CoreException if the analysis fails
+		 */
+		void analyze(IProgressMonitor monitor) throws CoreException;
+
+		/**
+		 * Publishes the problems found by {@link #analyze(IProgressMonitor)}
+		 * as markers. Called at most once, from a thread that is allowed to
+		 * modify the markers of the project.
+		 */
+		void publish();
+
+		/**
+		 * Releases the resources held by this task. Always called once, after
+		 * the task was published or discarded.
+		 */
+		void dispose();
+	}
+
+	/**
+	 * A scheduled task and its state
+	 */
+	private static final class Scheduled {
+		final IProject project;
+		final Task task;
+		final IProgressMonitor monitor = new NullProgressMonitor();
+		final CountDownLatch done = new CountDownLatch(1);
+		CompletableFuture<Void> analysis;
+		boolean claimed = false;
+
+		Scheduled(IProject project, Task task) {
+			this.project = project;
+			this.task = task;
+		}
+
+		/**
+		 * Claims the publication of this task
+		 *
+		 * @return <code>true</code> if the caller has to publish or discard
+		 *         the task, <code>false</code> if it was already claimed
+		 */
+		synchronized boolean claim() {
+			if (claimed) {
+				return false;
+			}
+			claimed = true;
+			return true;
+		}
+	}
+
+	private static ApiAnalysisScheduler fgDefault = null;
+
+	/**
+	 * The pending analysis per project, guarded by <code>this</code>
+	 */
+	private final Map<IProject, Scheduled> fPending = new HashMap<>();
+
+	private final int fParallelism;
+	private ExecutorService fExecutor = null;
+
+	/**
+	 * Constructor
+	 *
+	 * @param parallelism the maximum number of analyses to run at the same
+	 *            time
+	 */
+	public ApiAnalysisScheduler(int parallelism) {
+		fParallelism = Math.max(1, parallelism);
+	}
+
+	/**
+	 * @return the workspace wide scheduler
+	 */
+	public static synchronized ApiAnalysisScheduler getDefault() {
+		if (fgDefault == null) {
+			fgDefault = new ApiAnalysisScheduler(WorkerPool.getDefaultParallelism());
+		}
+		return fgDefault;
+	}
+
+	/**
+	 * Shuts down the workspace wide scheduler, if it was created. Pending
+	 * analyses are discarded.
+	 */
+	public static synchronized void shutdown() {
+		if (fgDefault != null) {
+			fgDefault.dispose();
+			fgDefault = null;
+		}
+	}
+
+	/**
+	 * Schedules the analysis of the given project. The analysis starts once
+	 * the pending analyses of all of the given prerequisite projects have
+	 * finished. A pending analysis of the same project is discarded.
+	 *
+	 * @param project the project to analyze
+	 * @param prerequisites the projects the given project depends on
+	 * @param task the analysis
+	 */
+	public void schedule(IProject project, IProject[] prerequisites, Task task) {
+		Scheduled scheduled = new Scheduled(project, task);
+		Scheduled previous;
+		synchronized (this) {
+			previous = fPending.put(project, scheduled);
+			List<CompletableFuture<Void>> required = new ArrayList<>();
+			for (IProject prerequisite : prerequisites) {
+				Scheduled pending = fPending.get(prerequisite);
+				if (pending != null && pending != scheduled) {
+					// failures of a prerequisite are reported by its own task
+					required.add(pending.analysis.handle((v, e) -> null));
+				}
+			}
+			scheduled.analysis = CompletableFuture.allOf(required.toArray(new CompletableFuture<?>[required.size()])).thenRunAsync(() -> analyze(scheduled), getExecutor());
+		}
+		if (previous != null) {
+			discard(previous);
+		}
+		if (ApiPlugin.DEBUG_BUILDER) {
+			System.out.println("ApiAnalysisScheduler: scheduled analysis of " + project.getName()); //$NON-NLS-1$
+		}
+		scheduled.analysis.whenComplete((v, e) -> schedulePublish(scheduled));
+	}
+
+	/**
+	 * Waits for the pending analysis of the given project, if any, and
+	 * publishes its markers on the calling thread. Must be called from a
+	 * thread that is allowed to modify the markers of the project.
+	 *
+	 * @param project the project
+	 */
+	public void waitFor(IProject project) {
+		Scheduled scheduled;
+		synchronized (this) {
+			scheduled = fPending.get(project);
+		}
+		if (scheduled == null) {
+			return;
+		}
+		try {
+			scheduled.analysis.join();
+		} catch (CompletionException e) {
+			// already logged by the worker
+		}
+		publish(scheduled);
+	}
+
+	/**
+	 * Discards the pending analysis of the given project, if any, without
+	 * publishing its markers
+	 *
+	 * @param project the project
+	 */
+	public void cancel(IProject project) {
+		Scheduled scheduled;
+		synchronized (this) {
+			scheduled = fPending.get(project);
+		}
+		if (scheduled != null) {
+			discard(scheduled);
+		}
+	}
+
+	/**
+	 * @param project the project
+	 * @return <code>true</code> if the analysis of the given project has not
+	 *         been published yet
+	 */
+	public synchronized boolean isPending(IProject project) {
+		return fPending.containsKey(project);
+	}
+
+	/**
+	 * Runs the analysis of the given task on the current worker thread
+	 *
+	 * @param scheduled the task
+	 */
+	private void analyze(Scheduled scheduled) {
+		if (scheduled.monitor.isCanceled()) {
+			return;
+		}
+		long start = System.currentTimeMillis();
+		try {
+			scheduled.task.analyze(scheduled.monitor);
+		} catch (OperationCanceledException oce) {
+			// discarded while running
+		} catch (CoreException e) {
+			ApiPlugin.log(e);
+		} catch (RuntimeException e) {
+			ApiPlugin.log(new Status(IStatus.ERROR, ApiPlugin.PLUGIN_ID, "Error analyzing: " + scheduled.project.getName(), e)); //$NON-NLS-1$
+		}
+		if (ApiPlugin.DEBUG_BUILDER) {
+			System.out.println("ApiAnalysisScheduler: analyzed " + scheduled.project.getName() + " in " + (System.currentTimeMillis() - start) + "ms"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+		}
+	}
+
+	/**
+	 * Schedules the job that publishes the markers of the given analyzed task
+	 *
+	 * @param scheduled the task
+	 */
+	private void schedulePublish(final Scheduled scheduled) {
+		synchronized (this) {
+			if (fPending.get(scheduled.project) != scheduled) {
+				// discarded or already published
+				return;
+			}
+		}
+		WorkspaceJob job = new WorkspaceJob(NLS.bind(BuilderMessages.ApiAnalysisScheduler_publishing_markers, scheduled.project.getName())) {
+			@Override
+			public IStatus runInWorkspace(IProgressMonitor monitor) throws CoreException {
+				publish(scheduled);
+				return Status.OK_STATUS;
+			}
+		};
+		job.setRule(scheduled.project);
+		job.setSystem(true);
+		job.schedule();
+	}
+
+	/**
+	 * Publishes the markers of the given task unless that was already done.
+	 * If another thread is publishing them, waits for it to finish.
+	 *
+	 * @param scheduled the task
+	 */
+	private void publish(Scheduled scheduled) {
+		if (!scheduled.claim()) {
+			try {
+				scheduled.done.await();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			return;
+		}
+		try {
+			if (scheduled.project.isAccessible() && !scheduled.monitor.isCanceled()) {
+				scheduled.task.publish();
+			}
+		} finally {
+			remove(scheduled);
+			scheduled.done.countDown();
+			scheduled.task.dispose();
+		}
+	}
+
+	/**
+	 * Discards the given task without publishing it
+	 *
+	 * @param scheduled the task
+	 */
+	private void discard(Scheduled scheduled) {
+		scheduled.monitor.setCanceled(true);
+		if (!scheduled.claim()) {
+			return;
+		}
+		remove(scheduled);
+		scheduled.done.countDown();
+		// the task can only be disposed once it no longer runs
+		scheduled.analysis.whenComplete((v, e) -> scheduled.task.dispose());
+	}
+
+	/**
+	 * Removes the given task from the pending ones, if it is still the pending
+	 * task of its project
+	 *
+	 * @param scheduled the task
+	 */
+	private synchronized void remove(Scheduled scheduled) {
+		if (fPending.get(scheduled.project) == scheduled) {
+			fPending.remove(scheduled.project);
+		}
+	}
+
+	/**
+	 * @return the executor running the analyses, created on demand
+	 */
+	private synchronized ExecutorService getExecutor() {
+		if (fExecutor == null) {
+			// nested parallel work of an analysis is done on its own thread
+			fExecutor = Executors.newFixedThreadPool(fParallelism, WorkerPool.newThreadFactory("API Analysis Worker-")); //$NON-NLS-1$
+		}
+		return fExecutor;
+	}
+
+	/**
+	 * Discards all pending analyses and stops the worker threads
+	 */
+	public void dispose() {
+		List<Scheduled> pending;
+		synchronized (this) {
+			pending = new ArrayList<>(fPending.values());
+		}
+		for (Scheduled scheduled : pending) {
+			discard(scheduled);
+		}
+		synchronized (this) {
+			if (fExecutor != null) {
+				fExecutor.shutdown();
+				fExecutor = null;
+			}
+		}
+	}
+}
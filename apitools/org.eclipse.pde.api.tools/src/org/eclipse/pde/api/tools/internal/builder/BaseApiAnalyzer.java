@@ -26,7 +26,6 @@ import java.util.Arrays;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
-import java.util.Map;
 import java.util.Properties;
 import java.util.Set;
 import java.util.jar.JarFile;
@@ -41,7 +40,6 @@ import org.eclipse.core.resources.IWorkspaceRunnable;
 import org.eclipse.core.resources.ResourcesPlugin;
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IProgressMonitor;
-import org.eclipse.core.runtime.NullProgressMonitor;
 import org.eclipse.core.runtime.OperationCanceledException;
 import org.eclipse.core.runtime.Path;
 import org.eclipse.core.runtime.SubMonitor;
@@ -56,12 +54,8 @@ import org.eclipse.jdt.core.IPackageFragmentRoot;
 import org.eclipse.jdt.core.IParent;
 import org.eclipse.jdt.core.ISourceRange;
 import org.eclipse.jdt.core.IType;
-import org.eclipse.jdt.core.ITypeRoot;
-import org.eclipse.jdt.core.JavaCore;
 import org.eclipse.jdt.core.JavaModelException;
 import org.eclipse.jdt.core.compiler.CharOperation;
-import org.eclipse.jdt.core.dom.AST;
-import org.eclipse.jdt.core.dom.ASTParser;
 import org.eclipse.jdt.core.dom.CompilationUnit;
 import org.eclipse.jdt.internal.core.BinaryType;
 import org.eclipse.jface.text.BadLocationException;
@@ -164,6 +158,11 @@ public class BaseApiAnalyzer implements IApiAnalyzer {
 	 * The current preferences to use when the platform is not running.
 	 */
 	private Properties fPreferences = null;
+	/**
+	 * The ASTs shared by tag validation, since tag checks and tag scanning
+	 * while analyzing a component
+	 */
+	private ASTCache fASTCache = null;
 
 	/**
 	 * Boolean setting to continue analyzing a component even if it has
@@ -174,6 +173,17 @@ public class BaseApiAnalyzer implements IApiAnalyzer {
 	 */
 	private boolean fContinueOnResolutionError = false;
 
+	/**
+	 * Index of the types referenced by each type of the analyzed component,
+	 * updated by the API usage scan, or <code>null</code>
+	 */
+	private ReferenceIndex fReferenceIndex = null;
+
+	/**
+	 * If the reference index was complete before the current analysis
+	 */
+	private boolean fReferenceIndexComplete = false;
+
 	/**
 	 * Constructs an API analyzer
 	 */
@@ -183,6 +193,13 @@ public class BaseApiAnalyzer implements IApiAnalyzer {
 	@Override
 	public void analyzeComponent(final BuildState state, final IApiFilterStore filterStore, final Properties preferences, final IApiBaseline baseline, final IApiComponent component, final IBuildContext context, IProgressMonitor monitor) {
 		SubMonitor localMonitor = SubMonitor.convert(monitor, BuilderMessages.BaseApiAnalyzer_analyzing_api, 6);
+		fASTCache = new ASTCache();
+		ASTCache previousCache = fASTCache.activate();
+		if (fReferenceIndex != null) {
+			// only complete again once the changed types are recorded
+			fReferenceIndexComplete = fReferenceIndex.isComplete();
+			fReferenceIndex.setComplete(false);
+		}
 		try {
 			fJavaProject = getJavaProject(component);
 			this.fFilterStore = filterStore;
@@ -301,6 +318,12 @@ public class BaseApiAnalyzer implements IApiAnalyzer {
 				System.out.println("Trapped OperationCanceledException"); //$NON-NLS-1$
 			}
 		} finally {
+			ASTCache.restore(previousCache);
+			if (ApiPlugin.DEBUG_API_ANALYZER) {
+				System.out.println("AST cache for " + component.getSymbolicName() + ": " + fASTCache.getParseCount() + " parses, " + fASTCache.getHitCount() + " parses saved"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$
+			}
+			fASTCache.clear();
+			fASTCache = null;
 			SubMonitor.done(monitor);
 		}
 	}
@@ -351,6 +374,18 @@ public class BaseApiAnalyzer implements IApiAnalyzer {
 		return fContinueOnResolutionError;
 	}
 
+	/**
+	 * Sets the index to update with the types referenced by each type scanned
+	 * for API usage. A scan of the entire component replaces the content of
+	 * the index, a scan of some types replaces what is recorded for them.
+	 *
+	 * @param index the index or <code>null</code>
+	 * @since 1.1.800
+	 */
+	public void setReferenceIndex(ReferenceIndex index) {
+		fReferenceIndex = index;
+	}
+
 	/**
 	 * Checks if the setting to scan for invalid references is not set to be
 	 * ignored AND there are no descriptions installed
@@ -850,24 +885,25 @@ public class BaseApiAnalyzer implements IApiAnalyzer {
 	}
 
 	/**
-	 * Creates and AST for the given {@link ITypeRoot} at the given offset
+	 * Returns the AST for the given {@link ICompilationUnit}, shared with the
+	 * other checks of the current analysis
 	 *
-	 * @param root
-	 * @param offset
-	 * @return
+	 * @param unit
+	 * @return the AST or <code>null</code> if it cannot be created
 	 */
-	private CompilationUnit createAST(ITypeRoot root, int offset) {
+	private CompilationUnit createAST(ICompilationUnit unit) {
 		if (fJavaProject == null) {
 			return null;
 		}
-		ASTParser parser = ASTParser.newParser(AST.JLS10);
-		parser.setFocalPosition(offset);
-		parser.setResolveBindings(false);
-		parser.setSource(root);
-		Map<String, String> options = fJavaProject.getOptions(true);
-		options.put(JavaCore.COMPILER_DOC_COMMENT_SUPPORT, JavaCore.ENABLED);
-		parser.setCompilerOptions(options);
-		return (CompilationUnit) parser.createAST(new NullProgressMonitor());
+		try {
+			if (fASTCache != null) {
+				return fASTCache.getAST(unit, fJavaProject.getOptions(true));
+			}
+			return new ASTCache(1, 0).getAST(unit, fJavaProject.getOptions(true));
+		} catch (JavaModelException e) {
+			ApiPlugin.log(e);
+			return null;
+		}
 	}
 
 	/**
@@ -1186,7 +1222,7 @@ public class BaseApiAnalyzer implements IApiAnalyzer {
 	 * @param cunit
 	 */
 	private void processType(ICompilationUnit cunit, boolean tags, boolean annotations) {
-		CompilationUnit comp = createAST(cunit, 0);
+		CompilationUnit comp = createAST(cunit);
 		if (comp == null) {
 			return;
 		}
@@ -1213,10 +1249,25 @@ public class BaseApiAnalyzer implements IApiAnalyzer {
 			}
 			return;
 		}
+		if (fReferenceIndex != null) {
+			if (context.hasTypes()) {
+				for (String type : context.getRemovedTypes()) {
+					fReferenceIndex.remove(type);
+				}
+			} else {
+				// the scan records all types again
+				fReferenceIndex.clear();
+				fReferenceIndexComplete = true;
+			}
+		}
 		IApiTypeContainer scope = null;
 		if (context.hasTypes()) {
 			String[] typenames = getApiUseTypes(context);
 			if (typenames.length < 1) {
+				if (fReferenceIndex != null) {
+					// nothing to record
+					fReferenceIndex.setComplete(fReferenceIndexComplete);
+				}
 				return;
 			}
 			scope = getSearchScope(component, typenames);
@@ -1225,6 +1276,7 @@ public class BaseApiAnalyzer implements IApiAnalyzer {
 		}
 		SubMonitor localMonitor = SubMonitor.convert(monitor, MessageFormat.format(BuilderMessages.checking_api_usage, component.getSymbolicName()), 2);
 		ReferenceAnalyzer analyzer = new ReferenceAnalyzer();
+		analyzer.setReferenceIndex(fReferenceIndex);
 		try {
 			long start = System.currentTimeMillis();
 			IApiProblem[] illegal = analyzer.analyze(component, scope, localMonitor.split(2));
@@ -1235,6 +1287,9 @@ public class BaseApiAnalyzer implements IApiAnalyzer {
 			for (IApiProblem element : illegal) {
 				addProblem(element);
 			}
+			if (fReferenceIndex != null && !localMonitor.isCanceled()) {
+				fReferenceIndex.setComplete(fReferenceIndexComplete);
+			}
 		} catch (CoreException ce) {
 			if (ApiPlugin.DEBUG_API_ANALYZER) {
 				ApiPlugin.log(ce);
@@ -1588,7 +1643,7 @@ public class BaseApiAnalyzer implements IApiAnalyzer {
 		}
 		try {
 			int offset = nameRange.getOffset();
-			CompilationUnit comp = createAST(cunit, offset);
+			CompilationUnit comp = createAST(cunit);
 			if (comp == null) {
 				return;
 			}
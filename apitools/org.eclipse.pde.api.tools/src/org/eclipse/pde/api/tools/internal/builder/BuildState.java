@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2008, 2018 IBM Corporation and others.
+ * Copyright (c) 2008, 2019 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -15,18 +15,20 @@ package org.eclipse.pde.api.tools.internal.builder;
 
 import java.io.BufferedInputStream;
 import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.DataInputStream;
 import java.io.DataOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
-import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Map.Entry;
@@ -61,10 +63,26 @@ import org.eclipse.pde.core.build.IBuildModel;
 public class BuildState {
 	private static final IDelta[] EMPTY_DELTAS = new IDelta[0];
 	private static final String[] NO_REEXPORTED_COMPONENTS = new String[0];
-	private static final int VERSION = 33;
+	/**
+	 * The current version of the build state format: a string table per
+	 * section, the deltas in a section of their own that is only decoded when
+	 * the deltas are needed
+	 */
+	private static final int VERSION = 34;
+	/**
+	 * The last version of the build state format that wrote every string in
+	 * place and is still read
+	 */
+	private static final int VERSION_33 = 33;
 
 	private Map<String, Set<IDelta>> compatibleChanges;
 	private Map<String, Set<IDelta>> breakingChanges;
+	/**
+	 * The delta section as read from the saved state, or <code>null</code> once
+	 * it has been decoded into {@link #compatibleChanges} and
+	 * {@link #breakingChanges}
+	 */
+	private byte[] encodedDeltas;
 	/**
 	 * Map of the last saved state of the manifest file
 	 *
@@ -81,6 +99,60 @@ public class BuildState {
 	private Set<String> apiToolingDependentProjects;
 	private long buildpathCRC = -1L;
 
+	/**
+	 * Table of the distinct strings of a section of the build state. Each
+	 * string is written once, the section refers to it by its index.
+	 */
+	private static class StringTable {
+		private final Map<String, Integer> indexes = new HashMap<>();
+		private final ArrayList<String> strings = new ArrayList<>();
+
+		/**
+		 * Returns the index of the given string, adding it to the table if
+		 * needed
+		 *
+		 * @param string the string, not <code>null</code>
+		 * @return the index of the string
+		 */
+		int indexOf(String string) {
+			Integer index = indexes.get(string);
+			if (index == null) {
+				index = Integer.valueOf(strings.size());
+				indexes.put(string, index);
+				strings.add(string);
+			}
+			return index.intValue();
+		}
+
+		/**
+		 * Writes the table to the given stream. Strings are written as UTF-8
+		 * with their length, so they are not limited in size.
+		 */
+		void write(DataOutputStream out) throws IOException {
+			out.writeInt(strings.size());
+			for (String string : strings) {
+				byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+				out.writeInt(bytes.length);
+				out.write(bytes);
+			}
+		}
+
+		/**
+		 * Reads a table written by {@link #write(DataOutputStream)}
+		 *
+		 * @return the strings of the table by index
+		 */
+		static String[] read(DataInputStream in) throws IOException {
+			String[] table = new String[in.readInt()];
+			for (int i = 0; i < table.length; i++) {
+				byte[] bytes = new byte[in.readInt()];
+				in.readFully(bytes);
+				table[i] = new String(bytes, StandardCharsets.UTF_8);
+			}
+			return table;
+		}
+	}
+
 	/**
 	 * Constructor
 	 */
@@ -92,7 +164,8 @@ public class BuildState {
 	}
 
 	/**
-	 * Reads the build state from an input stream
+	 * Reads the build state from an input stream. The deltas of the state are
+	 * only decoded once they are accessed.
 	 *
 	 * @param in
 	 * @return the {@link BuildState} from the given input stream
@@ -107,10 +180,68 @@ public class BuildState {
 		if (!kind.equals("STATE")) {//$NON-NLS-1$
 			throw new IOException(BuilderMessages.build_wrongFileFormat);
 		}
-		if (in.readInt() != VERSION) {
+		int version = in.readInt();
+		if (version == VERSION_33) {
+			// saved by a previous release, rewritten in the current format on
+			// the next save
+			return readVersion33(in);
+		}
+		if (version != VERSION) {
 			// this is an old build state - a full build is required
 			return null;
 		}
+		if (in.readBoolean()) {
+			// continue to read
+			BuildState state = new BuildState();
+			state.buildpathCRC = in.readLong();
+			String[] strings = StringTable.read(in);
+			int count = in.readInt();
+			// read all re-exported component names
+			String[] components = new String[count];
+			for (int i = 0; i < count; i++) {
+				components[i] = strings[in.readInt()];
+			}
+			state.reexportedComponents = components;
+			count = in.readInt();
+			for (int i = 0; i < count; i++) {
+				state.addApiToolingDependentProject(strings[in.readInt()]);
+			}
+			count = in.readInt();
+			if (count > 0) {
+				// read the saved headers
+				HashMap<String, String> map = new HashMap<>(count);
+				for (int i = 0; i < count; i++) {
+					map.put(strings[in.readInt()], strings[in.readInt()]);
+				}
+				state.setManifestState(map);
+			}
+			count = in.readInt();
+			if (count > 0) {
+				// read the saved build.properties entries
+				HashMap<String, String> map = new LinkedHashMap<>(count);
+				for (int i = 0; i < count; i++) {
+					map.put(strings[in.readInt()], strings[in.readInt()]);
+				}
+				state.setBuildPropertiesState(map);
+			}
+			// keep the delta section as is, it is decoded on first access
+			byte[] deltas = new byte[in.readInt()];
+			in.readFully(deltas);
+			state.encodedDeltas = deltas;
+			return state;
+		}
+		return null;
+	}
+
+	/**
+	 * Reads a build state saved in the format of {@link #VERSION_33}, the
+	 * header has already been read
+	 *
+	 * @param in
+	 * @return the {@link BuildState} from the given input stream
+	 * @throws IOException
+	 */
+	private static BuildState readVersion33(DataInputStream in) throws IOException {
 		if (in.readBoolean()) {
 			// continue to read
 			BuildState state = new BuildState();
@@ -118,12 +249,12 @@ public class BuildState {
 			int count = in.readInt();
 			// read all compatible deltas
 			for (int i = 0; i < count; i++) {
-				state.addCompatibleChange(readDelta(in));
+				state.addCompatibleChange(readDelta33(in));
 			}
 			count = in.readInt();
 			// read all breaking deltas
 			for (int i = 0; i < count; i++) {
-				state.addBreakingChange(readDelta(in));
+				state.addBreakingChange(readDelta33(in));
 			}
 			count = in.readInt();
 			// read all re-exported component names
@@ -178,56 +309,153 @@ public class BuildState {
 		out.writeInt(VERSION);
 		out.writeBoolean(true);
 		out.writeLong(state.buildpathCRC);
-		IDelta[] compatibleChangesDeltas = state.getCompatibleChanges();
-		int length = compatibleChangesDeltas.length;
-		out.writeInt(length);
-		for (int i = 0; i < length; i++) {
-			writeDelta(compatibleChangesDeltas[i], out);
-		}
-		IDelta[] breakingChangesDeltas = state.getBreakingChanges();
-		length = breakingChangesDeltas.length;
-		out.writeInt(length);
-		for (int i = 0; i < length; i++) {
-			writeDelta(breakingChangesDeltas[i], out);
-		}
+
+		StringTable strings = new StringTable();
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		DataOutputStream section = new DataOutputStream(bytes);
 		String[] reexportedComponents = state.getReexportedComponents();
-		length = reexportedComponents.length;
-		out.writeInt(length);
-		for (int i = 0; i < length; i++) {
-			out.writeUTF(reexportedComponents[i]);
+		section.writeInt(reexportedComponents.length);
+		for (String component : reexportedComponents) {
+			section.writeInt(strings.indexOf(component));
 		}
 		Set<String> apiToolingDependentsProjects = state.getApiToolingDependentProjects();
-		length = apiToolingDependentsProjects.size();
-		out.writeInt(length);
-		for (String string : apiToolingDependentsProjects) {
-			out.writeUTF(string);
-		}
-		Map<String, String> map = state.getManifestState();
+		section.writeInt(apiToolingDependentsProjects.size());
+		for (String project : apiToolingDependentsProjects) {
+			section.writeInt(strings.indexOf(project));
+		}
+		writeMap(state.getManifestState(), strings, section);
+		writeMap(state.getBuildPropertiesState(), strings, section);
+		section.flush();
+		strings.write(out);
+		bytes.writeTo(out);
+
+		byte[] deltas = state.encodedDeltas;
+		if (deltas == null) {
+			deltas = encodeDeltas(state.getCompatibleChanges(), state.getBreakingChanges());
+		}
+		out.writeInt(deltas.length);
+		out.write(deltas);
+	}
+
+	/**
+	 * Writes the entries of the given map, referring to the strings by their
+	 * index in the given table
+	 */
+	private static void writeMap(Map<String, String> map, StringTable strings, DataOutputStream out) throws IOException {
 		out.writeInt(map.size());
-		Entry<String, String> entry = null;
-		for (Iterator<Entry<String, String>> i = map.entrySet().iterator(); i.hasNext();) {
-			entry = i.next();
-			out.writeUTF(entry.getKey());
-			out.writeUTF(entry.getValue());
+		for (Entry<String, String> entry : map.entrySet()) {
+			out.writeInt(strings.indexOf(entry.getKey()));
+			out.writeInt(strings.indexOf(entry.getValue()));
 		}
-		map = state.getBuildPropertiesState();
-		out.writeInt(map.size());
-		entry = null;
-		for (Iterator<Entry<String, String>> i = map.entrySet().iterator(); i.hasNext();) {
-			entry = i.next();
-			out.writeUTF(entry.getKey());
-			out.writeUTF(entry.getValue());
+	}
+
+	/**
+	 * Encodes the delta section of the build state: a string table followed by
+	 * the compatible and the breaking deltas
+	 *
+	 * @param compatible the compatible deltas
+	 * @param breaking the breaking deltas
+	 * @return the encoded delta section
+	 * @throws IOException
+	 */
+	private static byte[] encodeDeltas(IDelta[] compatible, IDelta[] breaking) throws IOException {
+		StringTable strings = new StringTable();
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		DataOutputStream out = new DataOutputStream(bytes);
+		out.writeInt(compatible.length);
+		for (IDelta delta : compatible) {
+			writeDelta(delta, strings, out);
+		}
+		out.writeInt(breaking.length);
+		for (IDelta delta : breaking) {
+			writeDelta(delta, strings, out);
+		}
+		out.flush();
+		ByteArrayOutputStream section = new ByteArrayOutputStream(bytes.size() + 1024);
+		DataOutputStream sectionOut = new DataOutputStream(section);
+		strings.write(sectionOut);
+		sectionOut.flush();
+		bytes.writeTo(section);
+		return section.toByteArray();
+	}
+
+	/**
+	 * Decodes the delta section read from the saved state, if it has not been
+	 * decoded yet. A delta section that cannot be decoded is logged and
+	 * dropped.
+	 */
+	private void decodeDeltas() {
+		byte[] deltas = this.encodedDeltas;
+		if (deltas == null) {
+			return;
+		}
+		this.encodedDeltas = null;
+		try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(deltas))) {
+			String[] strings = StringTable.read(in);
+			int count = in.readInt();
+			for (int i = 0; i < count; i++) {
+				addCompatibleChange(readDelta(in, strings));
+			}
+			count = in.readInt();
+			for (int i = 0; i < count; i++) {
+				addBreakingChange(readDelta(in, strings));
+			}
+		} catch (IOException e) {
+			ApiPlugin.log("Failed to read the deltas of the API build state", e); //$NON-NLS-1$
+			this.compatibleChanges.clear();
+			this.breakingChanges.clear();
 		}
 	}
 
 	/**
-	 * Read the {@link IDelta} from the build state (input stream)
+	 * Read the {@link IDelta} from the delta section of the build state
+	 *
+	 * @param in the input stream to read the {@link IDelta} from
+	 * @param strings the string table of the delta section
+	 * @return a reconstructed {@link IDelta} from the build state
+	 * @throws IOException
+	 */
+	private static IDelta readDelta(DataInputStream in, String[] strings) throws IOException {
+		// decode the delta from the build state
+		boolean hasComponentID = in.readBoolean();
+		String componentID = null;
+		if (hasComponentID) {
+			in.readInt(); // delta.getComponentID()
+		}
+		int elementType = in.readInt(); // delta.getElementType()
+		int kind = in.readInt(); // delta.getKind()
+		int flags = in.readInt(); // delta.getFlags()
+		int restrictions = in.readInt(); // delta.getRestrictions()
+		int oldModifiers = in.readInt(); // delta.getOldModifier()
+		int newModifiers = in.readInt(); // delta.getNewModifier()
+		String typeName = strings[in.readInt()]; // delta.getTypeName()
+		String key = strings[in.readInt()]; // delta.getKey()
+		int length = in.readInt(); // arguments.length;
+		String[] datas = null;
+		if (length != 0) {
+			datas = new String[length];
+			for (int i = 0; i < length; i++) {
+				datas[i] = strings[in.readInt()];
+			}
+		} else {
+			datas = new String[1];
+			datas[0] = typeName.replace('$', '.');
+		}
+
+		int previousRestrictions = restrictions >>> Delta.PREVIOUS_RESTRICTIONS_OFFSET;
+		int currentRestrictions = restrictions & Delta.RESTRICTIONS_MASK;
+		return new Delta(componentID, elementType, kind, flags, currentRestrictions, previousRestrictions, oldModifiers, newModifiers, typeName, key, datas);
+	}
+
+	/**
+	 * Read the {@link IDelta} from a build state in the format of
+	 * {@link #VERSION_33}
 	 *
 	 * @param in the input stream to read the {@link IDelta} from
 	 * @return a reconstructed {@link IDelta} from the build state
 	 * @throws IOException
 	 */
-	private static IDelta readDelta(DataInputStream in) throws IOException {
+	private static IDelta readDelta33(DataInputStream in) throws IOException {
 		// decode the delta from the build state
 		boolean hasComponentID = in.readBoolean();
 		String componentID = null;
@@ -262,13 +490,14 @@ public class BuildState {
 	}
 
 	/**
-	 * Writes a given {@link IDelta} to the build state (the output stream)
+	 * Writes a given {@link IDelta} to the delta section of the build state
 	 *
 	 * @param delta the delta to write
+	 * @param strings the string table of the delta section
 	 * @param out the stream to write to
 	 * @throws IOException
 	 */
-	private static void writeDelta(IDelta delta, DataOutputStream out) throws IOException {
+	private static void writeDelta(IDelta delta, StringTable strings, DataOutputStream out) throws IOException {
 		// encode a delta into the build state
 		// int elementType, int kind, int flags, int restrictions, int
 		// modifiers, String typeName, String key, Object data
@@ -276,7 +505,7 @@ public class BuildState {
 		boolean hasComponentID = apiComponentID != null;
 		out.writeBoolean(hasComponentID);
 		if (hasComponentID) {
-			out.writeUTF(apiComponentID);
+			out.writeInt(strings.indexOf(apiComponentID));
 		}
 		out.writeInt(delta.getElementType());
 		out.writeInt(delta.getKind());
@@ -284,13 +513,13 @@ public class BuildState {
 		out.writeInt(delta.getCurrentRestrictions());
 		out.writeInt(delta.getOldModifiers());
 		out.writeInt(delta.getNewModifiers());
-		out.writeUTF(delta.getTypeName());
-		out.writeUTF(delta.getKey());
+		out.writeInt(strings.indexOf(delta.getTypeName()));
+		out.writeInt(strings.indexOf(delta.getKey()));
 		String[] arguments = delta.getArguments();
 		int length = arguments.length;
 		out.writeInt(length);
 		for (int i = 0; i < length; i++) {
-			out.writeUTF(arguments[i]);
+			out.writeInt(strings.indexOf(arguments[i]));
 		}
 	}
 
@@ -301,6 +530,7 @@ public class BuildState {
 	 * @param delta the {@link IDelta} to add to the state
 	 */
 	public void addCompatibleChange(IDelta delta) {
+		decodeDeltas();
 		String typeName = delta.getTypeName();
 		Set<IDelta> object = this.compatibleChanges.get(typeName);
 		if (object == null) {
@@ -319,6 +549,7 @@ public class BuildState {
 	 * @param delta the {@link IDelta} to add to the state
 	 */
 	public void addBreakingChange(IDelta delta) {
+		decodeDeltas();
 		String typeName = delta.getTypeName();
 		Set<IDelta> object = this.breakingChanges.get(typeName);
 		if (object == null) {
@@ -335,6 +566,7 @@ public class BuildState {
 	 *         removed, or an empty array, never <code>null</code>
 	 */
 	public IDelta[] getBreakingChanges() {
+		decodeDeltas();
 		if (this.breakingChanges == null || this.breakingChanges.isEmpty()) {
 			return EMPTY_DELTAS;
 		}
@@ -351,6 +583,7 @@ public class BuildState {
 	 *         removed, or an empty array, never <code>null</code>
 	 */
 	public IDelta[] getCompatibleChanges() {
+		decodeDeltas();
 		if (this.compatibleChanges == null || this.compatibleChanges.isEmpty()) {
 			return EMPTY_DELTAS;
 		}
@@ -378,6 +611,7 @@ public class BuildState {
 	 * @param typeName the given type name
 	 */
 	public void cleanup(String typeName) {
+		decodeDeltas();
 		this.breakingChanges.remove(typeName);
 		this.compatibleChanges.remove(typeName);
 		this.reexportedComponents = null;
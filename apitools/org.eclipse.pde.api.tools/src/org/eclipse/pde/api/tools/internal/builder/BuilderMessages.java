@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2008, 2014 IBM Corporation and others.
+ * Copyright (c) 2008, 2019 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -103,6 +103,7 @@ public class BuilderMessages extends NLS {
 	public static String TagValidator_static_final_constructor;
 	public static String TagValidator_static_package_constructor;
 	public static String IncrementalBuilder_builder_for_project;
+	public static String ApiAnalysisScheduler_publishing_markers;
 
 	static {
 		// initialize resource bundle
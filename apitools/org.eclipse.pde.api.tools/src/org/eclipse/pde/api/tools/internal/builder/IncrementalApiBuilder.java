@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2009, 2017 IBM Corporation and others.
+ * Copyright (c) 2009, 2019 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -483,6 +483,11 @@ public class IncrementalApiBuilder {
 	 * @param kind mask of STRUCTURAL or DESCRIPTION
 	 */
 	private void addDependents(final IProject project, State state, String[] types, int kind) {
+		ReferenceIndex index = this.builder.getReferenceIndex();
+		if (index != null && index.isComplete()) {
+			addIndexedDependents(project, state, index, types, kind);
+			return;
+		}
 		StringSet packages = new StringSet(16);
 		StringSet typenames = new StringSet(16);
 		for (String type : types) {
@@ -524,6 +529,40 @@ public class IncrementalApiBuilder {
 		}
 	}
 
+	/**
+	 * Adds the dependent files of the given types, as recorded in the given
+	 * reference index of the project, to the current build context. Unlike
+	 * {@link #addDependents(IProject, State, String[], int)} this does not
+	 * visit the references of every type of the project.
+	 *
+	 * @param project the current project being built
+	 * @param state the current JDT build state
+	 * @param index the complete reference index of the project
+	 * @param types dot and $ qualified names of base types that changed
+	 * @param kind mask of STRUCTURAL or DESCRIPTION
+	 * @since 1.1.800
+	 */
+	private void addIndexedDependents(final IProject project, State state, ReferenceIndex index, String[] types, int kind) {
+		HashSet<String> dependents = new HashSet<>();
+		for (String type : types) {
+			if (type != null) {
+				index.collectDependents(type, dependents);
+			}
+		}
+		HashSet<String> locators = new HashSet<>();
+		for (String dependent : dependents) {
+			String typeLocator = (String) state.typeLocators.get(dependent);
+			if (typeLocator == null || !locators.add(typeLocator)) {
+				continue;
+			}
+			IFile file = project.getFile(typeLocator);
+			if (ApiPlugin.DEBUG_BUILDER) {
+				System.out.println("ApiAnalysisBuilder:   adding indexed affected source file " + file.getName()); //$NON-NLS-1$
+			}
+			addDependentTypeToContext(file, kind);
+		}
+	}
+
 	/**
 	 * Adds a type to search for dependents of in considered projects for an
 	 * incremental build
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2008, 2014 IBM Corporation and others.
+ * Copyright (c) 2008, 2019 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -18,6 +18,7 @@ import java.util.List;
 
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.jdt.core.Flags;
+import org.eclipse.pde.api.tools.internal.model.EEMemberIndex;
 import org.eclipse.pde.api.tools.internal.model.StubApiComponent;
 import org.eclipse.pde.api.tools.internal.provisional.ApiPlugin;
 import org.eclipse.pde.api.tools.internal.provisional.Factory;
@@ -346,6 +347,44 @@ public class Reference implements IReference {
 	}
 
 	public boolean resolve(int eeValue) throws CoreException {
+		EEMemberIndex index = StubApiComponent.getMemberIndex(eeValue);
+		if (index != null) {
+			return resolve(index);
+		}
+		return resolveInStub(eeValue);
+	}
+
+	/**
+	 * Resolves this reference against the member index of an EE stub
+	 *
+	 * @param index the member index of the EE
+	 * @return <code>true</code> if the reference resolves in the EE
+	 * @since 1.1.800
+	 */
+	public boolean resolve(EEMemberIndex index) {
+		switch (getReferenceType()) {
+			case IReference.T_TYPE_REFERENCE:
+				return index.containsType(getReferencedTypeName());
+			case IReference.T_FIELD_REFERENCE:
+				return index.containsField(getReferencedTypeName(), getReferencedMemberName());
+			case IReference.T_METHOD_REFERENCE:
+				return index.containsMethod(getReferencedTypeName(), getReferencedMemberName(), getReferencedSignature(), fKind);
+			default:
+				return false;
+		}
+	}
+
+	/**
+	 * Resolves this reference against the type structures of an EE stub,
+	 * without using its member index
+	 *
+	 * @param eeValue the EE
+	 * @return <code>true</code> if the reference resolves in the EE or there
+	 *         is no stub for the EE
+	 * @throws CoreException if the stub cannot be read
+	 * @since 1.1.800
+	 */
+	public boolean resolveInStub(int eeValue) throws CoreException {
 		IApiComponent sourceComponent = StubApiComponent.getStubApiComponent(eeValue);
 		if (sourceComponent == null) {
 			// if there is no source component for the EE value, the reference
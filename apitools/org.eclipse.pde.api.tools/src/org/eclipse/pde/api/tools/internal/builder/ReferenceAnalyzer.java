@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2008, 2015 IBM Corporation and others.
+ * Copyright (c) 2008, 2019 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -13,8 +13,10 @@
  *******************************************************************************/
 package org.eclipse.pde.api.tools.internal.builder;
 
+import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Set;
 
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IProgressMonitor;
@@ -95,9 +97,22 @@ public class ReferenceAnalyzer {
 					if (type.isMemberType() || type.isLocal() || type.isAnonymous()) {
 						return;
 					}
-					List<IReference> references = type.extractReferences(fAllReferenceKinds, null);
+					List<IReference> references = type.extractReferences(fIndex == null ? fAllReferenceKinds : IReference.MASK_REF_ALL, null);
+					if (fIndex != null) {
+						Set<String> referenced = new HashSet<>();
+						for (IReference ref : references) {
+							if (ref.getReferencedTypeName() != null) {
+								referenced.add(ref.getReferencedTypeName());
+							}
+						}
+						fIndex.record(type.getName(), referenced);
+					}
 					// keep potential matches
 					for (IReference ref : references) {
+						if ((ref.getReferenceKind() & fAllReferenceKinds) == 0) {
+							// only extracted for the reference index
+							continue;
+						}
 						// compute index of interested problem detectors
 						int index = getLog2(ref.getReferenceKind());
 						IApiProblemDetector[] detectors = fIndexedDetectors[index];
@@ -142,6 +157,26 @@ public class ReferenceAnalyzer {
 	 */
 	IApiProblemDetector[][] fIndexedDetectors;
 
+	/**
+	 * Index to record the types referenced by each scanned type in, or
+	 * <code>null</code>
+	 *
+	 * @since 1.1.800
+	 */
+	ReferenceIndex fIndex = null;
+
+	/**
+	 * Sets the index to record the types referenced by each scanned type in.
+	 * When set, references of all kinds are extracted, not only the ones the
+	 * problem detectors are interested in.
+	 *
+	 * @param index the index or <code>null</code>
+	 * @since 1.1.800
+	 */
+	public void setReferenceIndex(ReferenceIndex index) {
+		fIndex = index;
+	}
+
 	/**
 	 * Indexes the problem detectors by the reference kinds they are interested
 	 * in. For example, a detector interested in a
@@ -0,0 +1,327 @@
+/*******************************************************************************
+ * Copyright (c) 2019 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.pde.api.tools.internal.builder;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IPath;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Platform;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.osgi.util.NLS;
+import org.eclipse.pde.api.tools.internal.provisional.ApiPlugin;
+
+/**
+ * Persistent index of the types referenced by the types of one API project,
+ * used to look up the types of the project that depend on changed types
+ * (from the project itself or from any other API project) during an
+ * incremental build.
+ * <p>
+ * The index is filled by the {@link ReferenceAnalyzer} while it scans the
+ * project for API use, so it only knows about references present in the
+ * class files. All type names are top level type names in the slash
+ * separated form used by the JDT build state, like <code>a/b/C</code>;
+ * references to member types are recorded as references to their top level
+ * type.
+ * </p>
+ * <p>
+ * The index is only <i>complete</i> once a scan of the entire component has
+ * recorded all of its types; an incomplete index must not be used for look
+ * ups.
+ * </p>
+ *
+ * @since 1.1.800
+ */
+public final class ReferenceIndex {
+
+	/**
+	 * Name of the file the index is saved to, in the API tools working
+	 * location of the project
+	 */
+	static final String FILE_NAME = "references.dat"; //$NON-NLS-1$
+
+	private static final String KIND = "REFERENCES"; //$NON-NLS-1$
+	private static final int VERSION = 1;
+
+	/**
+	 * Referencing type to the types it references
+	 */
+	private final Map<String, Set<String>> fReferences = new HashMap<>();
+
+	/**
+	 * Referenced type to the types referencing it, computed on demand from
+	 * {@link #fReferences}
+	 */
+	private Map<String, Set<String>> fDependents = null;
+
+	private boolean fComplete = false;
+
+	/**
+	 * Returns the index name of the given type: its top level type in slash
+	 * separated form
+	 *
+	 * @param typename a dot or slash separated type name, member types
+	 *            separated by <code>$</code>
+	 * @return the index name of the type
+	 */
+	static String getIndexName(String typename) {
+		String name = typename.replace('.', '/');
+		int idx = name.indexOf('$', name.lastIndexOf('/') + 1);
+		return idx > 0 ? name.substring(0, idx) : name;
+	}
+
+	/**
+	 * Records the types referenced by the given type, replacing what was
+	 * recorded for it before
+	 *
+	 * @param typename the referencing type
+	 * @param referenced the names of the referenced types
+	 */
+	public synchronized void record(String typename, Collection<String> referenced) {
+		String type = getIndexName(typename);
+		Set<String> names = new HashSet<>(referenced.size());
+		for (String name : referenced) {
+			String ref = getIndexName(name);
+			if (!ref.equals(type)) {
+				names.add(ref);
+			}
+		}
+		fReferences.put(type, names);
+		fDependents = null;
+	}
+
+	/**
+	 * Removes all that is recorded for the given type
+	 *
+	 * @param typename the referencing type
+	 */
+	public synchronized void remove(String typename) {
+		if (fReferences.remove(getIndexName(typename)) != null) {
+			fDependents = null;
+		}
+	}
+
+	/**
+	 * Removes all recorded types and marks the index incomplete
+	 */
+	public synchronized void clear() {
+		fReferences.clear();
+		fDependents = null;
+		fComplete = false;
+	}
+
+	/**
+	 * @return <code>true</code> if all types of the project are recorded
+	 */
+	public synchronized boolean isComplete() {
+		return fComplete;
+	}
+
+	/**
+	 * Sets whether all types of the project are recorded
+	 *
+	 * @param complete
+	 */
+	public synchronized void setComplete(boolean complete) {
+		fComplete = complete;
+	}
+
+	/**
+	 * @return the number of recorded referencing types
+	 */
+	public synchronized int size() {
+		return fReferences.size();
+	}
+
+	/**
+	 * Adds the recorded types referencing the given type to the given
+	 * collection
+	 *
+	 * @param typename the referenced type
+	 * @param dependents the collection to add the index names of the
+	 *            referencing types to
+	 */
+	public synchronized void collectDependents(String typename, Collection<String> dependents) {
+		if (fDependents == null) {
+			fDependents = new HashMap<>();
+			for (Entry<String, Set<String>> entry : fReferences.entrySet()) {
+				for (String ref : entry.getValue()) {
+					fDependents.computeIfAbsent(ref, k -> new HashSet<>()).add(entry.getKey());
+				}
+			}
+		}
+		Set<String> types = fDependents.get(getIndexName(typename));
+		if (types != null) {
+			dependents.addAll(types);
+		}
+	}
+
+	/**
+	 * Writes this index to the given stream. Each type name is written once,
+	 * references refer to it by index.
+	 *
+	 * @param out
+	 * @throws IOException
+	 */
+	public synchronized void write(DataOutputStream out) throws IOException {
+		out.writeUTF(ApiPlugin.PLUGIN_ID);
+		out.writeUTF(KIND);
+		out.writeInt(VERSION);
+		out.writeBoolean(fComplete);
+		Map<String, Integer> indexes = new HashMap<>();
+		List<String> names = new ArrayList<>();
+		for (Entry<String, Set<String>> entry : fReferences.entrySet()) {
+			indexOf(entry.getKey(), indexes, names);
+			for (String ref : entry.getValue()) {
+				indexOf(ref, indexes, names);
+			}
+		}
+		out.writeInt(names.size());
+		for (String name : names) {
+			out.writeUTF(name);
+		}
+		out.writeInt(fReferences.size());
+		for (Entry<String, Set<String>> entry : fReferences.entrySet()) {
+			out.writeInt(indexes.get(entry.getKey()).intValue());
+			out.writeInt(entry.getValue().size());
+			for (String ref : entry.getValue()) {
+				out.writeInt(indexes.get(ref).intValue());
+			}
+		}
+	}
+
+	private static void indexOf(String name, Map<String, Integer> indexes, List<String> names) {
+		if (!indexes.containsKey(name)) {
+			indexes.put(name, Integer.valueOf(names.size()));
+			names.add(name);
+		}
+	}
+
+	/**
+	 * Reads an index written by {@link #write(DataOutputStream)}
+	 *
+	 * @param in
+	 * @return the index or <code>null</code> if it was written in another
+	 *         format
+	 * @throws IOException
+	 */
+	public static ReferenceIndex read(DataInputStream in) throws IOException {
+		if (!ApiPlugin.PLUGIN_ID.equals(in.readUTF()) || !KIND.equals(in.readUTF())) {
+			throw new IOException(BuilderMessages.build_wrongFileFormat);
+		}
+		if (in.readInt() != VERSION) {
+			return null;
+		}
+		ReferenceIndex index = new ReferenceIndex();
+		index.fComplete = in.readBoolean();
+		String[] names = new String[in.readInt()];
+		for (int i = 0; i < names.length; i++) {
+			names[i] = in.readUTF();
+		}
+		int count = in.readInt();
+		for (int i = 0; i < count; i++) {
+			String type = names[in.readInt()];
+			int refs = in.readInt();
+			Set<String> set = new HashSet<>(refs);
+			for (int j = 0; j < refs; j++) {
+				set.add(names[in.readInt()]);
+			}
+			index.fReferences.put(type, set);
+		}
+		return index;
+	}
+
+	/**
+	 * Returns the {@link File} the index of the given project is saved to
+	 *
+	 * @param project
+	 * @return the file or <code>null</code> if the project does not exist
+	 */
+	static File getSerializationFile(IProject project) {
+		if (!project.exists()) {
+			return null;
+		}
+		IPath workingLocation = project.getWorkingLocation(ApiPlugin.PLUGIN_ID);
+		return workingLocation.append(FILE_NAME).toFile();
+	}
+
+	/**
+	 * Returns the index saved for the given project
+	 *
+	 * @param project
+	 * @return the saved index or <code>null</code> if there is none or it
+	 *         cannot be read
+	 */
+	public static ReferenceIndex getLastIndex(IProject project) {
+		File file = getSerializationFile(project);
+		if (file == null || !file.exists()) {
+			return null;
+		}
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+			return read(in);
+		} catch (IOException e) {
+			if (ApiPlugin.DEBUG_BUILDER) {
+				System.out.println("ApiAnalysisBuilder: Could not read the reference index of " + project.getName()); //$NON-NLS-1$
+			}
+			return null;
+		}
+	}
+
+	/**
+	 * Saves the given index for the given project, or deletes the saved index
+	 * if the given index is <code>null</code>
+	 *
+	 * @param project
+	 * @param index the index to save or <code>null</code>
+	 * @throws CoreException if the index cannot be saved
+	 */
+	public static void setLastIndex(IProject project, ReferenceIndex index) throws CoreException {
+		File file = getSerializationFile(project);
+		if (file == null) {
+			return;
+		}
+		if (index == null) {
+			if (file.exists()) {
+				file.delete();
+			}
+			return;
+		}
+		try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)))) {
+			index.write(out);
+		} catch (IOException e) {
+			file.delete();
+			throw new CoreException(new Status(IStatus.ERROR, ApiPlugin.PLUGIN_ID, Platform.PLUGIN_ERROR, NLS.bind(BuilderMessages.build_cannotSaveState, project.getName()), e));
+		}
+		if (ApiPlugin.DEBUG_BUILDER) {
+			System.out.println("ApiAnalysisBuilder: Saved reference index of " + project.getName() + " with " + index.size() + " types"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+		}
+	}
+}
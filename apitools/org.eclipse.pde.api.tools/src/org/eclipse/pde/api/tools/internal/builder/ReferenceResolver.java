@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2009, 2013 IBM Corporation and others.
+ * Copyright (c) 2009, 2019 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -17,12 +17,16 @@ import java.util.ArrayList;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.SubMonitor;
 import org.eclipse.pde.api.tools.internal.provisional.ApiPlugin;
 import org.eclipse.pde.api.tools.internal.provisional.builder.IReference;
 import org.eclipse.pde.api.tools.internal.provisional.model.IApiMember;
+import org.eclipse.pde.api.tools.internal.util.WorkerPool;
 
 /**
  * Utility class used to resolve {@link IReference}s
@@ -32,6 +36,14 @@ import org.eclipse.pde.api.tools.internal.provisional.model.IApiMember;
  */
 public final class ReferenceResolver {
 
+	/**
+	 * Minimum number of reference groups or method overrides to resolve
+	 * concurrently. Types are usually resolved one at a time with a few
+	 * dozen references each, handing those to other threads costs more than
+	 * it saves.
+	 */
+	private static final int PARALLEL_THRESHOLD = 256;
+
 	/**
 	 * Constructor Private constructor, no instantiate
 	 */
@@ -39,13 +51,34 @@ public final class ReferenceResolver {
 	}
 
 	/**
-	 * Resolves retained references.
+	 * Resolves retained references, using as many threads as there are
+	 * available processors.
 	 *
 	 * @param references list of {@link IReference} to resolve
 	 * @param progress monitor
 	 * @throws CoreException if something goes wrong
 	 */
 	public static void resolveReferences(List<IReference> references, IProgressMonitor monitor) throws CoreException {
+		resolveReferences(references, WorkerPool.getDefaultParallelism(), monitor);
+	}
+
+	/**
+	 * Resolves retained references. References are grouped by the member they
+	 * refer to, and the groups are resolved concurrently using at most
+	 * <code>parallelism</code> threads of the shared {@link WorkerPool},
+	 * followed by the method overrides. Small lists of references, and
+	 * references resolved from a worker thread, are resolved on the calling
+	 * thread.
+	 *
+	 * @param references list of {@link IReference} to resolve
+	 * @param parallelism the maximum number of threads to use, a value less
+	 *            than two resolves the references on the calling thread
+	 * @param progress monitor
+	 * @throws CoreException if something goes wrong
+	 * @since 1.1.800
+	 */
+	public static void resolveReferences(List<IReference> references, int parallelism, IProgressMonitor monitor) throws CoreException {
+		SubMonitor localmonitor = SubMonitor.convert(monitor, 2);
 		// sort references by target type for 'shared' resolution
 		int refcount = references.size();
 		Map<String, List<IReference>> sigtoref = new LinkedHashMap<>(refcount);
@@ -74,32 +107,47 @@ public final class ReferenceResolver {
 		}
 		// resolve references
 		start = System.currentTimeMillis();
-		resolveReferenceSets(sigtoref, monitor);
+		WorkerStatistics statistics = ApiPlugin.DEBUG_REFERENCE_RESOLVER ? new WorkerStatistics() : null;
+		resolveReferenceSets(new ArrayList<>(sigtoref.values()), parallelism, statistics, localmonitor.split(1));
 		end = System.currentTimeMillis();
 		if (ApiPlugin.DEBUG_REFERENCE_RESOLVER) {
 			System.out.println("Reference resolver: resolved unique references in " + (end - start) + "ms"); //$NON-NLS-1$//$NON-NLS-2$
+			statistics.print("unique references"); //$NON-NLS-1$
 		}
 		// resolve method overrides
 		start = System.currentTimeMillis();
-		for (Reference reference : methodDecls) {
+		statistics = ApiPlugin.DEBUG_REFERENCE_RESOLVER ? new WorkerStatistics() : null;
+		final WorkerStatistics overrideStatistics = statistics;
+		WorkerPool.run(methodDecls, parallelism, PARALLEL_THRESHOLD, reference -> {
+			long time = System.nanoTime();
 			reference.resolve();
-		}
+			if (overrideStatistics != null) {
+				overrideStatistics.record(System.nanoTime() - time);
+			}
+			return null;
+		}, localmonitor.split(1));
 		end = System.currentTimeMillis();
 		if (ApiPlugin.DEBUG_REFERENCE_RESOLVER) {
 			System.out.println("Reference resolver: resolved method overrides in " + (end - start) + "ms"); //$NON-NLS-1$//$NON-NLS-2$
+			statistics.print("method overrides"); //$NON-NLS-1$
 		}
 	}
 
 	/**
-	 * Resolves the collect sets of references.
+	 * Resolves the collect sets of references. Each set is resolved once, and
+	 * the resolution is shared by all of the references of the set.
 	 *
-	 * @param map the mapping of keys to sets of {@link IReference}s
+	 * @param sets the sets of {@link IReference}s that refer to the same member
+	 * @param parallelism the maximum number of threads to use
+	 * @param statistics the per worker statistics to update or
+	 *            <code>null</code>
+	 * @param monitor the monitor to report progress to
 	 * @throws CoreException if something bad happens
 	 */
-	private static void resolveReferenceSets(Map<String, List<IReference>> map, IProgressMonitor monitor) throws CoreException {
-		IReference ref = null;
-		for (List<IReference> refs : map.values()) {
-			ref = refs.get(0);
+	private static void resolveReferenceSets(List<List<IReference>> sets, int parallelism, final WorkerStatistics statistics, SubMonitor monitor) throws CoreException {
+		WorkerPool.run(sets, parallelism, PARALLEL_THRESHOLD, refs -> {
+			long time = System.nanoTime();
+			IReference ref = refs.get(0);
 			((Reference) ref).resolve();
 			IApiMember resolved = ref.getResolvedReference();
 			if (resolved != null) {
@@ -107,6 +155,42 @@ public final class ReferenceResolver {
 					((Reference) ref2).setResolution(resolved);
 				}
 			}
+			if (statistics != null) {
+				statistics.record(System.nanoTime() - time);
+			}
+			return null;
+		}, monitor);
+	}
+
+	/**
+	 * Time spent and number of elements processed by each worker thread, used
+	 * for tracing
+	 */
+	static final class WorkerStatistics {
+		private final Map<String, long[]> fWorkers = new ConcurrentHashMap<>();
+
+		/**
+		 * Records an element processed by the current thread
+		 *
+		 * @param nanos the time spent on the element
+		 */
+		void record(long nanos) {
+			long[] counts = fWorkers.computeIfAbsent(Thread.currentThread().getName(), name -> new long[2]);
+			// only ever updated by the thread it belongs to
+			counts[0]++;
+			counts[1] += nanos;
+		}
+
+		/**
+		 * Prints the statistics of each worker
+		 *
+		 * @param phase the name of the resolution phase
+		 */
+		void print(String phase) {
+			for (Map.Entry<String, long[]> entry : new TreeMap<>(fWorkers).entrySet()) {
+				long[] counts = entry.getValue();
+				System.out.println("Reference resolver: [" + entry.getKey() + "] resolved " + counts[0] + " " + phase + " in " + (counts[1] / 1000000) + "ms"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$ //$NON-NLS-5$
+			}
 		}
 	}
 
@@ -44,6 +44,16 @@ public abstract class AbstractApiTypeRoot extends ApiElement implements IApiType
 
 	public abstract byte[] getContents() throws CoreException;
 
+	/**
+	 * Builds the structure of this type from its class file contents
+	 *
+	 * @return the type structure or <code>null</code>
+	 * @throws CoreException if the contents cannot be read
+	 */
+	protected IApiType buildStructure() throws CoreException {
+		return TypeStructureBuilder.buildTypeStructure(getContents(), getApiComponent(), this);
+	}
+
 	@Override
 	public IApiType getStructure() throws CoreException {
 		// if exists return
@@ -59,7 +69,7 @@ public abstract class AbstractApiTypeRoot extends ApiElement implements IApiType
 			type = (IApiType) cache.getElementInfo(baseline.getName(), comp.getSymbolicName(), this.getTypeName(), IApiElement.TYPE);
 		}
 		if (type == null) {
-			type = TypeStructureBuilder.buildTypeStructure(getContents(), getApiComponent(), this);
+			type = buildStructure();
 			if (type == null) {
 				return null;
 			}
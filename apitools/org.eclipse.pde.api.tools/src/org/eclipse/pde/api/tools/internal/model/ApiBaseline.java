@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2007, 2018 IBM Corporation and others.
+ * Copyright (c) 2007, 2019 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -34,6 +34,7 @@ import java.util.Map.Entry;
 import java.util.Properties;
 import java.util.Set;
 import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.eclipse.core.resources.IProject;
 import org.eclipse.core.runtime.CoreException;
@@ -130,7 +131,7 @@ public class ApiBaseline extends ApiElement implements IApiBaseline, IVMInstallC
 	 * that package, by source component name (including the <code>null</code>
 	 * component name).
 	 */
-	private HashMap<String, HashMap<IApiComponent, IApiComponent[]>> fComponentsProvidingPackageCache = null;
+	private final Map<String, Map<IApiComponent, IApiComponent[]>> fComponentsProvidingPackageCache = new ConcurrentHashMap<>(8);
 
 	/**
 	 * Maps component id's to components.
@@ -153,7 +154,7 @@ public class ApiBaseline extends ApiElement implements IApiBaseline, IVMInstallC
 	/**
 	 * Cache of system package names
 	 */
-	private HashSet<String> fSystemPackageNames = null;
+	private volatile Set<String> fSystemPackageNames = null;
 
 	/**
 	 * The VM install this baseline is bound to for system libraries or
@@ -347,10 +348,7 @@ public class ApiBaseline extends ApiElement implements IApiBaseline, IVMInstallC
 
 			}
 		}
-		if (fSystemPackageNames != null) {
-			fSystemPackageNames.clear();
-			fSystemPackageNames = null;
-		}
+		fSystemPackageNames = null;
 		clearComponentsCache();
 		// set new system library
 		SystemLibraryApiComponent fSystemLibraryComponent = new SystemLibraryApiComponent(this, description, systemPackages);
@@ -363,11 +361,8 @@ public class ApiBaseline extends ApiElement implements IApiBaseline, IVMInstallC
 	/**
 	 * Clears the package -> components cache and sets it to <code>null</code>
 	 */
-	private synchronized void clearComponentsCache() {
-		if (fComponentsProvidingPackageCache != null) {
-			fComponentsProvidingPackageCache.clear();
-			fComponentsProvidingPackageCache = null;
-		}
+	private void clearComponentsCache() {
+		fComponentsProvidingPackageCache.clear();
 	}
 
 	/**
@@ -547,24 +542,45 @@ public class ApiBaseline extends ApiElement implements IApiBaseline, IVMInstallC
 		return values.toArray(new IApiComponent[values.size()]);
 	}
 
+	/**
+	 * Returns the components providing the given package to the given source
+	 * component.
+	 * <p>
+	 * This method may be called concurrently, as the reference resolution
+	 * does. Cached results are returned without locking. Uncached packages are
+	 * resolved while holding the lock on this baseline, since the OSGi state
+	 * helper and the lazily loaded components of the baseline are not thread
+	 * safe.
+	 * </p>
+	 */
 	@Override
-	public synchronized IApiComponent[] resolvePackage(IApiComponent sourceComponent, String packageName) throws CoreException {
-		HashMap<IApiComponent, IApiComponent[]> componentsForPackage = null;
-		if (fComponentsProvidingPackageCache != null) {
-			componentsForPackage = fComponentsProvidingPackageCache.get(packageName);
-		} else {
-			fComponentsProvidingPackageCache = new HashMap<>(8);
+	public IApiComponent[] resolvePackage(IApiComponent sourceComponent, String packageName) throws CoreException {
+		// the inner map needs to accept the null source component
+		Map<IApiComponent, IApiComponent[]> componentsForPackage = fComponentsProvidingPackageCache.computeIfAbsent(packageName, name -> Collections.synchronizedMap(new HashMap<>(8)));
+		IApiComponent[] cachedComponents = componentsForPackage.get(sourceComponent);
+		if (cachedComponents != null && cachedComponents.length > 0) {
+			return cachedComponents;
 		}
-		IApiComponent[] cachedComponents = null;
-		if (componentsForPackage != null) {
-			cachedComponents = componentsForPackage.get(sourceComponent);
-			if (cachedComponents != null && cachedComponents.length > 0) {
-				return cachedComponents;
-			}
-		} else {
-			componentsForPackage = new HashMap<>(8);
-			fComponentsProvidingPackageCache.put(packageName, componentsForPackage);
+		return resolveUncachedPackage(componentsForPackage, sourceComponent, packageName);
+	}
+
+	/**
+	 * Resolves the components providing the given package to the given source
+	 * component and caches them
+	 *
+	 * @param componentsForPackage the cache of the package
+	 * @param sourceComponent the source component or <code>null</code>
+	 * @param packageName the package name
+	 * @return the components providing the package
+	 * @throws CoreException
+	 */
+	private synchronized IApiComponent[] resolveUncachedPackage(Map<IApiComponent, IApiComponent[]> componentsForPackage, IApiComponent sourceComponent, String packageName) throws CoreException {
+		// another thread may have resolved the package while this one waited
+		IApiComponent[] cachedComponents = componentsForPackage.get(sourceComponent);
+		if (cachedComponents != null && cachedComponents.length > 0) {
+			return cachedComponents;
 		}
+		cachedComponents = null;
 
 		// check resolvePackage0 before the system packages to avoid wrong
 		// add/remove API problems - see bug 430640
@@ -682,14 +698,16 @@ public class ApiBaseline extends ApiElement implements IApiBaseline, IVMInstallC
 		if (packageName.startsWith("java.")) { //$NON-NLS-1$
 			return true;
 		}
-		if (fSystemPackageNames == null) {
+		Set<String> systemPackageNames = fSystemPackageNames;
+		if (systemPackageNames == null) {
 			ExportPackageDescription[] systemPackages = getState().getSystemPackages();
-			fSystemPackageNames = new HashSet<>(systemPackages.length);
+			systemPackageNames = new HashSet<>(systemPackages.length);
 			for (ExportPackageDescription systemPackage : systemPackages) {
-				fSystemPackageNames.add(systemPackage.getName());
+				systemPackageNames.add(systemPackage.getName());
 			}
+			fSystemPackageNames = systemPackageNames;
 		}
-		return fSystemPackageNames.contains(packageName);
+		return systemPackageNames.contains(packageName);
 	}
 
 	/**
@@ -835,9 +853,7 @@ public class ApiBaseline extends ApiElement implements IApiBaseline, IVMInstallC
 			fComponentsByProjectNames.clear();
 			fComponentsByProjectNames = null;
 		}
-		if (fSystemPackageNames != null) {
-			fSystemPackageNames.clear();
-		}
+		fSystemPackageNames = null;
 		if (!fSystemLibraryComponentList.isEmpty()) {
 			for (IApiComponent iApiComponent : fSystemLibraryComponentList) {
 				iApiComponent.dispose();
@@ -924,10 +940,8 @@ public class ApiBaseline extends ApiElement implements IApiBaseline, IVMInstallC
 	 * @nooverride This method is not intended to be re-implemented or extended
 	 *             by clients.
 	 */
-	public synchronized void clearPackage(String packageName) {
-		if (fComponentsProvidingPackageCache != null) {
-			fComponentsProvidingPackageCache.remove(packageName);
-		}
+	public void clearPackage(String packageName) {
+		fComponentsProvidingPackageCache.remove(packageName);
 	}
 
 	@Override
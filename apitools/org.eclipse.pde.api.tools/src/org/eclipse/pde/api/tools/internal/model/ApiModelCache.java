@@ -13,62 +13,126 @@
  *******************************************************************************/
 package org.eclipse.pde.api.tools.internal.model;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
 import org.eclipse.core.runtime.CoreException;
-import org.eclipse.jdt.internal.core.OverflowingLRUCache;
-import org.eclipse.jdt.internal.core.util.LRUCache;
 import org.eclipse.pde.api.tools.internal.provisional.ApiPlugin;
 import org.eclipse.pde.api.tools.internal.provisional.model.IApiBaseline;
 import org.eclipse.pde.api.tools.internal.provisional.model.IApiComponent;
 import org.eclipse.pde.api.tools.internal.provisional.model.IApiElement;
+import org.eclipse.pde.api.tools.internal.provisional.model.IApiField;
+import org.eclipse.pde.api.tools.internal.provisional.model.IApiMethod;
+import org.eclipse.pde.api.tools.internal.provisional.model.IApiType;
 
 /**
  * Manages the caches of {@link IApiElement}s
+ * <p>
+ * The cache is safe for concurrent use: lookups are lock-free, and the size of
+ * the cache is bounded by an estimated memory budget (in bytes) rather than by
+ * a number of entries. When the budget is exceeded, the least recently used
+ * entries are evicted by whichever thread first notices it, other threads carry
+ * on.
+ * </p>
  *
  * @since 1.0.2
  */
 public final class ApiModelCache {
 
 	/**
-	 * Cache used for {@link IApiElement}s
+	 * A cached element and its bookkeeping information
 	 */
-	static class Cache<K, V> extends OverflowingLRUCache<K, V> {
+	static final class Entry {
+		final IApiElement fElement;
+		final long fWeight;
+		final Map<String, Entry> fOwner;
+		final String fKey;
+		volatile long fLastAccess;
 
+		Entry(IApiElement element, long weight, Map<String, Entry> owner, String key) {
+			fElement = element;
+			fWeight = weight;
+			fOwner = owner;
+			fKey = key;
+			fLastAccess = System.nanoTime();
+		}
+	}
+
+	/**
+	 * The cached types of one component
+	 */
+	static final class ComponentCache {
 		/**
-		 * Constructor
-		 *
-		 * @param size
-		 * @param overflow
+		 * Root types by name
 		 */
-		public Cache(int size, int overflow) {
-			super(size, overflow);
-		}
+		final Map<String, Entry> fTypes = new ConcurrentHashMap<>();
+		/**
+		 * Member types by root type name, then by member type name
+		 */
+		final Map<String, Map<String, Entry>> fMemberTypes = new ConcurrentHashMap<>();
 
-		@Override
-		protected boolean close(LRUCacheEntry<K, V> entry) {
+		boolean isEmpty() {
+			if (!fTypes.isEmpty()) {
+				return false;
+			}
+			for (Map<String, Entry> members : fMemberTypes.values()) {
+				if (!members.isEmpty()) {
+					return false;
+				}
+			}
 			return true;
 		}
 
-		@Override
-		protected LRUCache<K, V> newInstance(int size, int newOverflow) {
-			return new Cache<>(size, newOverflow);
-		}
-
-		/**
-		 * Returns if the cache has any elements in it or not
-		 *
-		 * @return true if the cache has no entries, false otherwise
-		 */
-		public boolean isEmpty() {
-			return !keys().hasMoreElements();
+		void collect(List<Entry> entries) {
+			entries.addAll(fTypes.values());
+			for (Map<String, Entry> members : fMemberTypes.values()) {
+				entries.addAll(members.values());
+			}
 		}
 	}
 
-	static final int DEFAULT_CACHE_SIZE = 1500;
-	static final int DEFAULT_OVERFLOW = (int) (DEFAULT_CACHE_SIZE * 0.1f);
-	static ApiModelCache fInstance = null;
+	/**
+	 * System property that can be used to set the memory budget of the cache,
+	 * in bytes
+	 */
+	public static final String MEMORY_BUDGET_PROPERTY = "org.eclipse.pde.api.tools.modelcache.budget"; //$NON-NLS-1$
+
+	/**
+	 * Default memory budget of the cache, in bytes
+	 */
+	static final long DEFAULT_MEMORY_BUDGET = 32L * 1024 * 1024;
+
+	/**
+	 * Estimated size of an empty type structure, in bytes
+	 */
+	private static final int TYPE_OVERHEAD = 192;
+
+	/**
+	 * Estimated size of a member (method or field) without its strings, in
+	 * bytes
+	 */
+	private static final int MEMBER_OVERHEAD = 96;
 
-	Cache<String, Cache<String, Cache<String, IApiElement>>> fRootCache;
-	Cache<String, Cache<String, ApiType>> fMemberTypeCache;
+	private static final ApiModelCache fInstance = new ApiModelCache();
+
+	/**
+	 * Component caches by baseline name, then by component id
+	 */
+	final Map<String, Map<String, ComponentCache>> fRootCache = new ConcurrentHashMap<>();
+
+	private final AtomicLong fSize = new AtomicLong();
+	private final ReentrantLock fEvictionLock = new ReentrantLock();
+	private volatile long fBudget = Long.getLong(MEMORY_BUDGET_PROPERTY, DEFAULT_MEMORY_BUDGET).longValue();
+
+	private final LongAdder fHits = new LongAdder();
+	private final LongAdder fMisses = new LongAdder();
+	private final LongAdder fEvictions = new LongAdder();
 
 	/**
 	 * Constructor - no instantiation
@@ -81,28 +145,10 @@ public final class ApiModelCache {
 	 *
 	 * @return the cache
 	 */
-	public static synchronized ApiModelCache getCache() {
-		if (fInstance == null) {
-			fInstance = new ApiModelCache();
-		}
+	public static ApiModelCache getCache() {
 		return fInstance;
 	}
 
-	/**
-	 * Returns the key to use in a cache. The key is of the form:
-	 * <code>[baselineid].[componentid].[typename]</code><br>
-	 *
-	 * @param baseline
-	 * @param component
-	 * @param typename
-	 * @return the member type cache key to use
-	 */
-	private String getCacheKey(String baseline, String component, String typename) {
-		StringBuilder buffer = new StringBuilder();
-		buffer.append(baseline).append('.').append(component).append('.').append(typename);
-		return buffer.toString();
-	}
-
 	/**
 	 * Caches the given {@link IApiElement} in the correct cache based on its
 	 * type.
@@ -115,9 +161,6 @@ public final class ApiModelCache {
 	public void cacheElementInfo(IApiElement element) throws CoreException {
 		switch (element.getType()) {
 			case IApiElement.TYPE: {
-				if (fRootCache == null) {
-					fRootCache = new Cache<>(DEFAULT_CACHE_SIZE / 150, DEFAULT_OVERFLOW / 150);
-				}
 				IApiComponent comp = element.getApiComponent();
 				if (comp != null) {
 					IApiBaseline baseline = comp.getBaseline();
@@ -125,45 +168,21 @@ public final class ApiModelCache {
 					if (id == null) {
 						return;
 					}
-					Cache<String, Cache<String, IApiElement>> compcache = fRootCache.get(baseline.getName());
-					if (compcache == null) {
-						compcache = new Cache<>(DEFAULT_CACHE_SIZE / 2, DEFAULT_OVERFLOW / 2);
-						fRootCache.put(baseline.getName(), compcache);
-					}
-					Cache<String, IApiElement> typecache = compcache.get(id);
-					if (typecache == null) {
-						typecache = new Cache<>(DEFAULT_CACHE_SIZE, DEFAULT_OVERFLOW);
-						compcache.put(comp.getSymbolicName(), typecache);
-					}
+					ComponentCache compcache = fRootCache.computeIfAbsent(baseline.getName(), k -> new ConcurrentHashMap<>()).computeIfAbsent(id, k -> new ComponentCache());
 					ApiType type = (ApiType) element;
-					if (type.isMemberType() || isMemberType(type.getName()) /*
-																			 * cache
-																			 * even
-																			 * a
-																			 * root
-																			 * type
-																			 * with
-																			 * a
-																			 * '$'
-																			 * in
-																			 * its
-																			 * name
-																			 * here
-																			 * as
-																			 * well
-																			 */) {
-						if (this.fMemberTypeCache == null) {
-							this.fMemberTypeCache = new Cache<>(DEFAULT_CACHE_SIZE, DEFAULT_OVERFLOW);
-						}
-						String key = getCacheKey(baseline.getName(), id, getRootName(type.getName()));
-						Cache<String, ApiType> mcache = this.fMemberTypeCache.get(key);
-						if (mcache == null) {
-							mcache = new Cache<>(DEFAULT_CACHE_SIZE, DEFAULT_OVERFLOW);
-							this.fMemberTypeCache.put(key, mcache);
-						}
-						mcache.put(type.getName(), type);
+					Map<String, Entry> owner;
+					// cache even a root type with a '$' in its name here as
+					// well
+					if (type.isMemberType() || isMemberType(type.getName())) {
+						owner = compcache.fMemberTypes.computeIfAbsent(getRootName(type.getName()), k -> new ConcurrentHashMap<>());
 					} else {
-						typecache.put(element.getName(), element);
+						owner = compcache.fTypes;
+					}
+					Entry entry = new Entry(element, estimateSize(type), owner, element.getName());
+					Entry old = owner.put(entry.fKey, entry);
+					fSize.addAndGet(old == null ? entry.fWeight : entry.fWeight - old.fWeight);
+					if (fSize.get() > fBudget) {
+						evict();
 					}
 				}
 				break;
@@ -198,6 +217,17 @@ public final class ApiModelCache {
 		return typename.indexOf('$') > -1;
 	}
 
+	/**
+	 * Returns the cache of the given component or <code>null</code>
+	 */
+	private ComponentCache getComponentCache(String baselineid, String componentid) {
+		Map<String, ComponentCache> compcache = fRootCache.get(baselineid);
+		if (compcache != null) {
+			return compcache.get(componentid);
+		}
+		return null;
+	}
+
 	/**
 	 * Returns the {@link IApiElement} infos for the element referenced by the
 	 * given identifier and of the given type.
@@ -220,25 +250,28 @@ public final class ApiModelCache {
 		}
 		switch (type) {
 			case IApiElement.TYPE: {
-				if (isMemberType(updatedIdentifier)) {
-					if (this.fMemberTypeCache != null) {
-						Cache<String, ApiType> mcache = this.fMemberTypeCache.get(getCacheKey(baselineid, componentid, getRootName(updatedIdentifier)));
+				if (updatedIdentifier == null) {
+					return null;
+				}
+				Entry entry = null;
+				ComponentCache compcache = getComponentCache(baselineid, componentid);
+				if (compcache != null) {
+					if (isMemberType(updatedIdentifier)) {
+						Map<String, Entry> mcache = compcache.fMemberTypes.get(getRootName(updatedIdentifier));
 						if (mcache != null) {
-							return mcache.get(updatedIdentifier);
-						}
-					}
-				} else {
-					if (this.fRootCache != null) {
-						Cache<String, Cache<String, IApiElement>> compcache = fRootCache.get(baselineid);
-						if (compcache != null) {
-							Cache<String, IApiElement> typecache = compcache.get(componentid);
-							if (typecache != null && updatedIdentifier != null) {
-								return typecache.get(updatedIdentifier);
-							}
+							entry = mcache.get(updatedIdentifier);
 						}
+					} else {
+						entry = compcache.fTypes.get(updatedIdentifier);
 					}
 				}
-				break;
+				if (entry == null) {
+					fMisses.increment();
+					return null;
+				}
+				fHits.increment();
+				entry.fLastAccess = System.nanoTime();
+				return entry.fElement;
 			}
 			default:
 				break;
@@ -263,58 +296,45 @@ public final class ApiModelCache {
 		switch (type) {
 			case IApiElement.TYPE: {
 				if (componentid != null && identifier != null) {
-					boolean removed = true;
-					// clean member type cache
-					if (this.fMemberTypeCache != null) {
-						if (isMemberType(identifier)) {
-							Cache<String, ApiType> mcache = this.fMemberTypeCache.get(getCacheKey(baselineid, componentid, getRootName(identifier)));
-							if (mcache != null) {
-								return mcache.remove(identifier) != null;
-							}
-						} else {
-							this.fMemberTypeCache.remove(getCacheKey(baselineid, componentid, getRootName(identifier)));
-						}
+					ComponentCache compcache = getComponentCache(baselineid, componentid);
+					if (compcache == null) {
+						return false;
 					}
-					if (fRootCache != null) {
-						Cache<String, Cache<String, IApiElement>> compcache = fRootCache.get(baselineid);
-						if (compcache != null) {
-							Cache<String, IApiElement> typecache = compcache.get(componentid);
-							if (typecache != null) {
-								removed &= typecache.remove(identifier) != null;
-								if (typecache.isEmpty()) {
-									removed &= compcache.remove(componentid) != null;
-								}
-								if (compcache.isEmpty()) {
-									removed &= fRootCache.remove(baselineid) != null;
-								}
-								return removed;
-							}
-
+					if (isMemberType(identifier)) {
+						Map<String, Entry> mcache = compcache.fMemberTypes.get(getRootName(identifier));
+						return mcache != null && removed(mcache.remove(identifier));
+					}
+					// clean member type cache
+					Map<String, Entry> mcache = compcache.fMemberTypes.remove(identifier);
+					if (mcache != null) {
+						for (Entry entry : mcache.values()) {
+							removed(entry);
 						}
-					} else {
-						return false;
 					}
+					return removed(compcache.fTypes.remove(identifier));
 				}
 				break;
 			}
 			case IApiElement.COMPONENT: {
-				flushMemberCache();
-				if (fRootCache != null && componentid != null) {
-					Cache<String, Cache<String, IApiElement>> compcache = fRootCache.get(baselineid);
+				if (componentid != null) {
+					Map<String, ComponentCache> compcache = fRootCache.get(baselineid);
 					if (compcache != null) {
-						boolean removed = compcache.remove(componentid) != null;
-						if (compcache.isEmpty()) {
-							removed &= fRootCache.remove(baselineid) != null;
+						ComponentCache removed = compcache.remove(componentid);
+						if (removed != null) {
+							removed(removed);
+							return true;
 						}
-						return removed;
 					}
 				}
 				break;
 			}
 			case IApiElement.BASELINE: {
-				flushMemberCache();
-				if (fRootCache != null) {
-					return fRootCache.remove(baselineid) != null;
+				Map<String, ComponentCache> compcache = fRootCache.remove(baselineid);
+				if (compcache != null) {
+					for (ComponentCache cache : compcache.values()) {
+						removed(cache);
+					}
+					return true;
 				}
 				break;
 			}
@@ -341,26 +361,20 @@ public final class ApiModelCache {
 		switch (element.getType()) {
 			case IApiElement.COMPONENT:
 			case IApiElement.TYPE: {
-				if (fRootCache != null) {
-					IApiComponent comp = element.getApiComponent();
-					if (comp != null) {
-						try {
-							IApiBaseline baseline = comp.getBaseline();
-							return removeElementInfo(baseline.getName(), comp.getSymbolicName(), element.getName(), element.getType());
-						} catch (CoreException ce) {
-							ApiPlugin.log("Failed to remove element info for " + comp.getName(), ce); //$NON-NLS-1$
-						}
+				IApiComponent comp = element.getApiComponent();
+				if (comp != null) {
+					try {
+						IApiBaseline baseline = comp.getBaseline();
+						return removeElementInfo(baseline.getName(), comp.getSymbolicName(), element.getName(), element.getType());
+					} catch (CoreException ce) {
+						ApiPlugin.log("Failed to remove element info for " + comp.getName(), ce); //$NON-NLS-1$
 					}
 				}
 				break;
 			}
 			case IApiElement.BASELINE: {
-				flushMemberCache();
-				if (fRootCache != null) {
-					IApiBaseline baseline = (IApiBaseline) element;
-					return fRootCache.remove(baseline.getName()) != null;
-				}
-				break;
+				IApiBaseline baseline = (IApiBaseline) element;
+				return removeElementInfo(baseline.getName(), null, null, IApiElement.BASELINE);
 			}
 			default:
 				break;
@@ -369,22 +383,190 @@ public final class ApiModelCache {
 	}
 
 	/**
-	 * Clears out all cached information.
+	 * Accounts for the removal of the given entry
+	 *
+	 * @param entry the removed entry or <code>null</code>
+	 * @return <code>true</code> if an entry was removed
 	 */
-	public void flushCaches() {
-		if (fRootCache != null) {
-			fRootCache.flush();
+	private boolean removed(Entry entry) {
+		if (entry == null) {
+			return false;
+		}
+		fSize.addAndGet(-entry.fWeight);
+		return true;
+	}
+
+	/**
+	 * Accounts for the removal of all entries of the given component cache
+	 *
+	 * @param cache the removed cache
+	 */
+	private void removed(ComponentCache cache) {
+		List<Entry> entries = new ArrayList<>();
+		cache.collect(entries);
+		for (Entry entry : entries) {
+			removed(entry);
+		}
+	}
+
+	/**
+	 * Evicts the least recently used entries until the cache is down to three
+	 * quarters of its budget. Only one thread evicts at a time, others return
+	 * immediately.
+	 */
+	private void evict() {
+		if (!fEvictionLock.tryLock()) {
+			return;
+		}
+		try {
+			List<Entry> entries = new ArrayList<>();
+			for (Map<String, ComponentCache> compcache : fRootCache.values()) {
+				for (ComponentCache cache : compcache.values()) {
+					cache.collect(entries);
+				}
+			}
+			// re-synchronize the estimated size with the actual contents
+			long total = 0;
+			for (Entry entry : entries) {
+				total += entry.fWeight;
+			}
+			fSize.set(total);
+			long budget = fBudget;
+			if (total <= budget) {
+				return;
+			}
+			long target = budget - (budget >> 2);
+			// sort on a snapshot of the access times, they keep changing
+			// while we evict
+			long[] accesses = new long[entries.size()];
+			Integer[] order = new Integer[accesses.length];
+			for (int i = 0; i < accesses.length; i++) {
+				accesses[i] = entries.get(i).fLastAccess;
+				order[i] = Integer.valueOf(i);
+			}
+			Arrays.sort(order, (i1, i2) -> Long.compare(accesses[i1.intValue()], accesses[i2.intValue()]));
+			for (Integer index : order) {
+				if (fSize.get() <= target) {
+					break;
+				}
+				Entry entry = entries.get(index.intValue());
+				if (entry.fOwner.remove(entry.fKey, entry)) {
+					fSize.addAndGet(-entry.fWeight);
+					fEvictions.increment();
+				}
+			}
+			if (ApiPlugin.DEBUG_MODEL_CACHE) {
+				System.out.println("ApiModelCache: evicted down to " + fSize.get() + " bytes, " + getStatistics()); //$NON-NLS-1$ //$NON-NLS-2$
+			}
+		} finally {
+			fEvictionLock.unlock();
 		}
-		flushMemberCache();
 	}
 
 	/**
-	 * Flushes the cache of member types
+	 * Returns the estimated memory used by the given type structure, in bytes
+	 *
+	 * @param type the type
+	 * @return the estimated size
 	 */
-	private void flushMemberCache() {
-		if (this.fMemberTypeCache != null) {
-			this.fMemberTypeCache.flush();
+	static long estimateSize(IApiType type) {
+		long size = TYPE_OVERHEAD + 2L * (type.getName().length() + length(type.getSignature()) + length(type.getGenericSignature()));
+		for (IApiMethod method : type.getMethods()) {
+			size += MEMBER_OVERHEAD + 2L * (method.getName().length() + length(method.getSignature()) + length(method.getGenericSignature()));
+		}
+		for (IApiField field : type.getFields()) {
+			size += MEMBER_OVERHEAD + 2L * (field.getName().length() + length(field.getSignature()) + length(field.getGenericSignature()));
 		}
+		return size;
+	}
+
+	private static int length(String value) {
+		return value == null ? 0 : value.length();
+	}
+
+	/**
+	 * Sets the memory budget of this cache, evicting entries if the cache is
+	 * currently over the new budget
+	 *
+	 * @param budget the budget in bytes, must be positive
+	 */
+	public void setMemoryBudget(long budget) {
+		fBudget = budget;
+		if (fSize.get() > budget) {
+			evict();
+		}
+	}
+
+	/**
+	 * @return the memory budget of this cache in bytes
+	 */
+	public long getMemoryBudget() {
+		return fBudget;
+	}
+
+	/**
+	 * @return the estimated memory currently used by the cached elements, in
+	 *         bytes
+	 */
+	public long getEstimatedSize() {
+		return fSize.get();
+	}
+
+	/**
+	 * @return the number of lookups that found a cached element since the
+	 *         statistics were last reset
+	 */
+	public long getHitCount() {
+		return fHits.sum();
+	}
+
+	/**
+	 * @return the number of lookups that did not find a cached element since
+	 *         the statistics were last reset
+	 */
+	public long getMissCount() {
+		return fMisses.sum();
+	}
+
+	/**
+	 * @return the number of elements evicted to stay within the memory budget
+	 *         since the statistics were last reset
+	 */
+	public long getEvictionCount() {
+		return fEvictions.sum();
+	}
+
+	/**
+	 * Resets the hit, miss and eviction counters
+	 */
+	public void resetStatistics() {
+		fHits.reset();
+		fMisses.reset();
+		fEvictions.reset();
+	}
+
+	/**
+	 * Returns a human readable summary of the cache statistics, used for
+	 * tracing
+	 *
+	 * @return the statistics
+	 */
+	public String getStatistics() {
+		StringBuilder buffer = new StringBuilder();
+		buffer.append("hits: ").append(getHitCount()) //$NON-NLS-1$
+		.append(", misses: ").append(getMissCount()) //$NON-NLS-1$
+		.append(", evictions: ").append(getEvictionCount()) //$NON-NLS-1$
+		.append(", size: ").append(getEstimatedSize()) //$NON-NLS-1$
+		.append('/').append(getMemoryBudget()).append(" bytes"); //$NON-NLS-1$
+		return buffer.toString();
+	}
+
+	/**
+	 * Clears out all cached information.
+	 */
+	public void flushCaches() {
+		fRootCache.clear();
+		fSize.set(0);
 	}
 
 	/**
@@ -393,13 +575,13 @@ public final class ApiModelCache {
 	 * @return true if the cache has no entries, false otherwise
 	 */
 	public boolean isEmpty() {
-		boolean empty = true;
-		if (fRootCache != null) {
-			empty &= fRootCache.isEmpty();
-		}
-		if (this.fMemberTypeCache != null) {
-			empty &= this.fMemberTypeCache.isEmpty();
+		for (Map<String, ComponentCache> compcache : fRootCache.values()) {
+			for (ComponentCache cache : compcache.values()) {
+				if (!cache.isEmpty()) {
+					return false;
+				}
+			}
 		}
-		return empty;
+		return true;
 	}
 }
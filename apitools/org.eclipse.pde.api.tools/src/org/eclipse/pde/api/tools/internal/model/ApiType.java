@@ -13,6 +13,8 @@
  *******************************************************************************/
 package org.eclipse.pde.api.tools.internal.model;
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
@@ -442,6 +444,32 @@ public class ApiType extends ApiMember implements IApiType {
 		}
 	}
 
+	/**
+	 * @return <code>true</code> if the enclosing method information of this
+	 *         type is known, see {@link #setEnclosingMethodInfo(String, String)}
+	 */
+	boolean hasEnclosingMethodInfo() {
+		return fEnclosingMethodName != null;
+	}
+
+	/**
+	 * @return the name of the enclosing method as set by
+	 *         {@link #setEnclosingMethodInfo(String, String)} or
+	 *         <code>null</code>
+	 */
+	String getEnclosingMethodName() {
+		return fEnclosingMethodName == NO_ENCLOSING_METHOD ? null : fEnclosingMethodName;
+	}
+
+	/**
+	 * @return the signature of the enclosing method as set by
+	 *         {@link #setEnclosingMethodInfo(String, String)} or
+	 *         <code>null</code>
+	 */
+	String getEnclosingMethodSignature() {
+		return fEnclosingMethodSignature == NO_ENCLOSING_METHOD ? null : fEnclosingMethodSignature;
+	}
+
 	@Override
 	public IApiMethod getEnclosingMethod() {
 		if (fEnclosingMethod == null) {
@@ -532,6 +560,29 @@ public class ApiType extends ApiMember implements IApiType {
 		fMemberTypes.put(simpleName, null);
 	}
 
+	/**
+	 * Used when restoring a cached type structure.
+	 *
+	 * @param simpleName simple name of the member type
+	 */
+	void addMemberTypeName(String simpleName) {
+		if (fMemberTypes == null) {
+			fMemberTypes = new LinkedHashMap<>();
+		}
+		fMemberTypes.put(simpleName, null);
+	}
+
+	/**
+	 * @return the simple names of the member types of this type, never
+	 *         <code>null</code>
+	 */
+	List<String> getMemberTypeNames() {
+		if (fMemberTypes == null) {
+			return Collections.emptyList();
+		}
+		return new ArrayList<>(fMemberTypes.keySet());
+	}
+
 	@Override
 	public IApiType getMemberType(String simpleName) throws CoreException {
 		if (fMemberTypes == null) {
@@ -649,6 +700,14 @@ public class ApiType extends ApiMember implements IApiType {
 		return fEnclosingType;
 	}
 
+	/**
+	 * @return the raw name of the enclosing type as read from the class file,
+	 *         or <code>null</code>
+	 */
+	String getEnclosingTypeName() {
+		return fEnclosingTypeName;
+	}
+
 	private String processEnclosingTypeName() {
 		if (isLocal() || isAnonymous()) {
 			int idx = fEnclosingTypeName.lastIndexOf('$');
@@ -14,25 +14,21 @@
 package org.eclipse.pde.api.tools.internal.model;
 
 import java.io.IOException;
-import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
-import java.util.Enumeration;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import java.util.zip.ZipEntry;
-import java.util.zip.ZipFile;
 
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IPath;
 import org.eclipse.core.runtime.Path;
-import org.eclipse.pde.api.tools.internal.provisional.ApiPlugin;
 import org.eclipse.pde.api.tools.internal.provisional.model.ApiTypeContainerVisitor;
 import org.eclipse.pde.api.tools.internal.provisional.model.IApiElement;
+import org.eclipse.pde.api.tools.internal.provisional.model.IApiType;
 import org.eclipse.pde.api.tools.internal.provisional.model.IApiTypeContainer;
 import org.eclipse.pde.api.tools.internal.provisional.model.IApiTypeRoot;
 import org.eclipse.pde.api.tools.internal.util.Util;
@@ -95,52 +91,40 @@ public class ArchiveApiTypeContainer extends ApiElement implements IApiTypeConta
 			return getName().hashCode();
 		}
 
+		@Override
+		protected IApiType buildStructure() throws CoreException {
+			TypeStructureCache cache = TypeStructureCache.getCache();
+			if (cache == null) {
+				return super.buildStructure();
+			}
+			String location = ((ArchiveApiTypeContainer) getParent()).fLocation;
+			IApiType type = cache.getStructure(location, getName(), getApiComponent(), this);
+			if (type == null) {
+				type = super.buildStructure();
+				if (type != null) {
+					cache.putStructure(location, getName(), type);
+				}
+			}
+			return type;
+		}
+
 		@Override
 		public byte[] getContents() throws CoreException {
 			if (fContents != null) {
 				return fContents;
 			}
 			ArchiveApiTypeContainer archive = (ArchiveApiTypeContainer) getParent();
-			ZipFile zipFile;
+			ArchiveIndex index = archive.getIndex();
 			try {
-				zipFile = new ZipFile(archive.fLocation);
+				fContents = index.read(getName());
 			} catch (IOException e) {
-				abort("Failed to open archive: " + archive.fLocation, e); //$NON-NLS-1$
+				abort("Unable to read class file: " + getTypeName() + " in archive: " + archive.fLocation, e); //$NON-NLS-1$ //$NON-NLS-2$
 				return null;
 			}
-			try {
-				ZipEntry entry = zipFile.getEntry(getName());
-				InputStream stream = null;
-				if (entry != null) {
-					try {
-						stream = zipFile.getInputStream(entry);
-					} catch (IOException e) {
-						abort("Failed to open class file: " + getTypeName() + " in archive: " + archive.fLocation, e); //$NON-NLS-1$ //$NON-NLS-2$
-						return null;
-					}
-					try {
-						fContents = Util.getInputStreamAsByteArray(stream, -1);
-						return fContents;
-					} catch (IOException ioe) {
-						abort("Unable to read class file: " + getTypeName(), ioe); //$NON-NLS-1$
-						return null;
-					} finally {
-						try {
-							stream.close();
-						} catch (IOException e) {
-							ApiPlugin.log(e);
-						}
-					}
-				}
-			} finally {
-				try {
-					zipFile.close();
-				} catch (IOException e) {
-					abort("Failed to close class file archive", e); //$NON-NLS-1$
-				}
+			if (fContents == null) {
+				abort("Class file not found: " + getTypeName() + " in archive: " + archive.fLocation, null); //$NON-NLS-1$ //$NON-NLS-2$
 			}
-			abort("Class file not found: " + getTypeName() + " in archive: " + archive.fLocation, null); //$NON-NLS-1$ //$NON-NLS-2$
-			return null;
+			return fContents;
 		}
 
 		@Override
@@ -280,6 +264,21 @@ public class ArchiveApiTypeContainer extends ApiElement implements IApiTypeConta
 		}
 	}
 
+	/**
+	 * Returns the shared index of this archive
+	 *
+	 * @return the archive index
+	 * @throws CoreException if the archive cannot be opened
+	 */
+	ArchiveIndex getIndex() throws CoreException {
+		try {
+			return ArchiveIndex.getIndex(fLocation);
+		} catch (IOException e) {
+			abort("Failed to open archive: " + fLocation, e); //$NON-NLS-1$
+			return null;
+		}
+	}
+
 	/**
 	 * Initializes cache of packages and types.
 	 *
@@ -288,37 +287,19 @@ public class ArchiveApiTypeContainer extends ApiElement implements IApiTypeConta
 	private synchronized void init() throws CoreException {
 		if (fPackages == null) {
 			fPackages = new HashMap<>();
-			ZipFile zipFile;
-			try {
-				zipFile = new ZipFile(fLocation);
-			} catch (IOException e) {
-				abort("Failed to open archive: " + fLocation, e); //$NON-NLS-1$
-				return;
-			}
-			try {
-				Enumeration<? extends ZipEntry> entries = zipFile.entries();
-				while (entries.hasMoreElements()) {
-					ZipEntry entry = entries.nextElement();
-					String name = entry.getName();
-					if (name.endsWith(Util.DOT_CLASS_SUFFIX)) {
-						String pkg = Util.DEFAULT_PACKAGE_NAME;
-						int index = name.lastIndexOf('/');
-						if (index >= 0) {
-							pkg = name.substring(0, index).replace('/', '.');
-						}
-						Set<String> fileNames = fPackages.get(pkg);
-						if (fileNames == null) {
-							fileNames = new HashSet<>();
-							fPackages.put(pkg, fileNames);
-						}
-						fileNames.add(name);
+			for (String name : getIndex().getEntryNames()) {
+				if (name.endsWith(Util.DOT_CLASS_SUFFIX)) {
+					String pkg = Util.DEFAULT_PACKAGE_NAME;
+					int index = name.lastIndexOf('/');
+					if (index >= 0) {
+						pkg = name.substring(0, index).replace('/', '.');
 					}
-				}
-			} finally {
-				try {
-					zipFile.close();
-				} catch (IOException e) {
-					abort("Failed to close class file archive", e); //$NON-NLS-1$
+					Set<String> fileNames = fPackages.get(pkg);
+					if (fileNames == null) {
+						fileNames = new HashSet<>();
+						fPackages.put(pkg, fileNames);
+					}
+					fileNames.add(name);
 				}
 			}
 		}
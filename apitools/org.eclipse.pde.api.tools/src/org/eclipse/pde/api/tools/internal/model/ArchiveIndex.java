@@ -0,0 +1,431 @@
+/*******************************************************************************
+ * Copyright (c) 2019 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.pde.api.tools.internal.model;
+
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * A read-only index of the entries of a zip archive (jar, zip or jmod file).
+ * <p>
+ * The central directory of the archive is read once; entry contents are then
+ * served by positional reads on a {@link FileChannel} at the recorded offsets,
+ * without re-opening the archive for every entry.
+ * </p>
+ * <p>
+ * Indexes are shared: {@link #getIndex(String)} returns the same index for the
+ * same unchanged file. At most {@link #MAX_OPEN_ARCHIVES} archives are kept
+ * open at any time; the least recently used ones are closed and transparently
+ * re-opened on their next read.
+ * </p>
+ *
+ * @since 1.1.800
+ */
+public final class ArchiveIndex {
+
+	/**
+	 * Maximum number of archives kept open
+	 */
+	static final int MAX_OPEN_ARCHIVES = 64;
+
+	/**
+	 * Maximum number of archive indexes kept in the pool
+	 */
+	static final int MAX_INDEXES = 1024;
+
+	private static final int LOCAL_HEADER_SIG = 0x04034b50;
+	private static final int CENTRAL_HEADER_SIG = 0x02014b50;
+	private static final int END_SIG = 0x06054b50;
+	private static final int ZIP64_END_SIG = 0x06064b50;
+	private static final int ZIP64_LOCATOR_SIG = 0x07064b50;
+	private static final int END_HEADER_SIZE = 22;
+	private static final int LOCAL_HEADER_SIZE = 30;
+	private static final int CENTRAL_HEADER_SIZE = 46;
+	private static final int ZIP64_LOCATOR_SIZE = 20;
+	private static final int ZIP64_END_HEADER_SIZE = 56;
+	private static final int MAX_COMMENT_SIZE = 0xFFFF;
+	private static final int STORED = 0;
+	private static final int DEFLATED = 8;
+
+	/**
+	 * An entry of the archive
+	 */
+	static final class Entry {
+		final int method;
+		final long compressedSize;
+		final long size;
+		final long headerOffset;
+		/**
+		 * Offset of the entry data, lazily computed from the local header
+		 */
+		long dataOffset = -1;
+
+		Entry(int method, long compressedSize, long size, long headerOffset) {
+			this.method = method;
+			this.compressedSize = compressedSize;
+			this.size = size;
+			this.headerOffset = headerOffset;
+		}
+	}
+
+	/**
+	 * All known indexes, in least recently used order
+	 */
+	private static final LinkedHashMap<String, ArchiveIndex> fgIndexes = new LinkedHashMap<>(16, 0.75f, true);
+
+	/**
+	 * Indexes currently holding an open channel, in least recently used order
+	 */
+	private static final LinkedHashMap<ArchiveIndex, Boolean> fgOpenIndexes = new LinkedHashMap<>(16, 0.75f, true);
+
+	private final File fFile;
+	private final long fLength;
+	private final long fLastModified;
+	private final Map<String, Entry> fEntries;
+	private FileChannel fChannel;
+
+	/**
+	 * Constructor - reads the central directory of the given archive
+	 *
+	 * @param file the archive
+	 * @throws IOException if the archive cannot be read
+	 */
+	private ArchiveIndex(File file) throws IOException {
+		fFile = file;
+		fLength = file.length();
+		fLastModified = file.lastModified();
+		try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+			fEntries = readCentralDirectory(channel);
+		}
+	}
+
+	/**
+	 * Returns the shared index for the archive at the given location, reading
+	 * its central directory if it is not indexed yet or if the file changed
+	 * since it was indexed.
+	 *
+	 * @param location the absolute path of the archive in the local file
+	 *            system
+	 * @return the index, never <code>null</code>
+	 * @throws IOException if the archive cannot be read or is not a zip file
+	 */
+	public static ArchiveIndex getIndex(String location) throws IOException {
+		File file = new File(location);
+		ArchiveIndex index;
+		synchronized (fgIndexes) {
+			index = fgIndexes.get(location);
+		}
+		if (index != null && index.fLength == file.length() && index.fLastModified == file.lastModified()) {
+			return index;
+		}
+		ArchiveIndex newIndex = new ArchiveIndex(file);
+		List<ArchiveIndex> evicted = new ArrayList<>();
+		synchronized (fgIndexes) {
+			ArchiveIndex old = fgIndexes.put(location, newIndex);
+			if (old != null && old != newIndex) {
+				evicted.add(old);
+			}
+			if (fgIndexes.size() > MAX_INDEXES) {
+				Iterator<ArchiveIndex> iterator = fgIndexes.values().iterator();
+				evicted.add(iterator.next());
+				iterator.remove();
+			}
+		}
+		for (ArchiveIndex stale : evicted) {
+			stale.closeChannel();
+		}
+		return newIndex;
+	}
+
+	/**
+	 * Closes all open archives and forgets all indexes.
+	 */
+	public static void closeAll() {
+		List<ArchiveIndex> indexes;
+		synchronized (fgIndexes) {
+			indexes = new ArrayList<>(fgIndexes.values());
+			fgIndexes.clear();
+		}
+		synchronized (fgOpenIndexes) {
+			indexes.addAll(fgOpenIndexes.keySet());
+			fgOpenIndexes.clear();
+		}
+		for (ArchiveIndex index : indexes) {
+			index.closeChannel();
+		}
+	}
+
+	/**
+	 * Returns the names of all entries of the archive
+	 *
+	 * @return the unmodifiable set of entry names
+	 */
+	public Set<String> getEntryNames() {
+		return Collections.unmodifiableSet(fEntries.keySet());
+	}
+
+	/**
+	 * Returns if the archive contains an entry with the given name
+	 *
+	 * @param name the entry name
+	 * @return <code>true</code> if the entry exists
+	 */
+	public boolean hasEntry(String name) {
+		return fEntries.containsKey(name);
+	}
+
+	/**
+	 * Returns the uncompressed contents of the entry with the given name.
+	 *
+	 * @param name the entry name
+	 * @return the contents or <code>null</code> if there is no such entry
+	 * @throws IOException if the entry cannot be read
+	 */
+	public byte[] read(String name) throws IOException {
+		Entry entry = fEntries.get(name);
+		if (entry == null) {
+			return null;
+		}
+		byte[] compressed;
+		boolean opened;
+		synchronized (this) {
+			opened = fChannel == null;
+			if (opened) {
+				fChannel = FileChannel.open(fFile.toPath(), StandardOpenOption.READ);
+			}
+			if (entry.dataOffset < 0) {
+				ByteBuffer header = readFully(fChannel, entry.headerOffset, LOCAL_HEADER_SIZE);
+				if (header.getInt(0) != LOCAL_HEADER_SIG) {
+					throw new IOException("Invalid local header for " + name + " in archive: " + fFile); //$NON-NLS-1$ //$NON-NLS-2$
+				}
+				entry.dataOffset = entry.headerOffset + LOCAL_HEADER_SIZE + (header.getShort(26) & 0xFFFF) + (header.getShort(28) & 0xFFFF);
+			}
+			compressed = readFully(fChannel, entry.dataOffset, checkedSize(entry.compressedSize, name)).array();
+		}
+		if (opened) {
+			opened(this);
+		}
+		switch (entry.method) {
+			case STORED:
+				return compressed;
+			case DEFLATED:
+				return inflate(compressed, checkedSize(entry.size, name), name);
+			default:
+				throw new IOException("Unsupported compression method " + entry.method + " for " + name + " in archive: " + fFile); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+		}
+	}
+
+	/**
+	 * Records the given index as holding an open channel, closing the least
+	 * recently used ones over the limit
+	 *
+	 * @param index the index that opened its channel
+	 */
+	private static void opened(ArchiveIndex index) {
+		List<ArchiveIndex> evicted = new ArrayList<>();
+		synchronized (fgOpenIndexes) {
+			fgOpenIndexes.put(index, Boolean.TRUE);
+			Iterator<ArchiveIndex> iterator = fgOpenIndexes.keySet().iterator();
+			while (fgOpenIndexes.size() - evicted.size() > MAX_OPEN_ARCHIVES && iterator.hasNext()) {
+				ArchiveIndex eldest = iterator.next();
+				if (eldest != index) {
+					evicted.add(eldest);
+					iterator.remove();
+				}
+			}
+		}
+		for (ArchiveIndex eldest : evicted) {
+			eldest.closeChannel();
+		}
+	}
+
+	/**
+	 * Closes the channel of this index, if open. The next read re-opens it.
+	 */
+	synchronized void closeChannel() {
+		if (fChannel != null) {
+			try {
+				fChannel.close();
+			} catch (IOException e) {
+				// ignore, the channel is discarded anyway
+			}
+			fChannel = null;
+		}
+	}
+
+	private byte[] inflate(byte[] compressed, int size, String name) throws IOException {
+		Inflater inflater = new Inflater(true);
+		try {
+			inflater.setInput(compressed);
+			byte[] result = new byte[size];
+			int count = 0;
+			while (count < size) {
+				int read = inflater.inflate(result, count, size - count);
+				if (read == 0 && (inflater.finished() || inflater.needsInput() || inflater.needsDictionary())) {
+					break;
+				}
+				count += read;
+			}
+			if (count != size) {
+				throw new EOFException("Unexpected end of data for " + name + " in archive: " + fFile); //$NON-NLS-1$ //$NON-NLS-2$
+			}
+			return result;
+		} catch (DataFormatException e) {
+			throw new IOException("Invalid compressed data for " + name + " in archive: " + fFile, e); //$NON-NLS-1$ //$NON-NLS-2$
+		} finally {
+			inflater.end();
+		}
+	}
+
+	private int checkedSize(long size, String name) throws IOException {
+		if (size < 0 || size > Integer.MAX_VALUE) {
+			throw new IOException("Entry too large: " + name + " in archive: " + fFile); //$NON-NLS-1$ //$NON-NLS-2$
+		}
+		return (int) size;
+	}
+
+	/**
+	 * Reads the central directory of the archive. Data prepended to the zip
+	 * content, like the header of a jmod file, is accounted for the same way
+	 * {@link java.util.zip.ZipFile} does.
+	 *
+	 * @param channel the channel to read from
+	 * @return the map of entry names to entries
+	 * @throws IOException if the archive is not a valid zip file
+	 */
+	private Map<String, Entry> readCentralDirectory(FileChannel channel) throws IOException {
+		long fileSize = channel.size();
+		int tailSize = (int) Math.min(fileSize, END_HEADER_SIZE + MAX_COMMENT_SIZE);
+		ByteBuffer tail = readFully(channel, fileSize - tailSize, tailSize);
+		int endPos = -1;
+		for (int i = tailSize - END_HEADER_SIZE; i >= 0; i--) {
+			if (tail.getInt(i) == END_SIG) {
+				endPos = i;
+				break;
+			}
+		}
+		if (endPos < 0) {
+			throw new IOException("Not a zip archive: " + fFile); //$NON-NLS-1$
+		}
+		long endOffset = fileSize - tailSize + endPos;
+		long count = tail.getShort(endPos + 10) & 0xFFFF;
+		long cenSize = tail.getInt(endPos + 12) & 0xFFFFFFFFL;
+		long cenOffset = tail.getInt(endPos + 16) & 0xFFFFFFFFL;
+		long cenEnd = endOffset;
+		if ((count == 0xFFFF || cenSize == 0xFFFFFFFFL || cenOffset == 0xFFFFFFFFL) && endOffset >= ZIP64_LOCATOR_SIZE) {
+			ByteBuffer locator = readFully(channel, endOffset - ZIP64_LOCATOR_SIZE, ZIP64_LOCATOR_SIZE);
+			if (locator.getInt(0) == ZIP64_LOCATOR_SIG) {
+				// the zip64 end header usually directly precedes the locator,
+				// otherwise trust the (unadjusted) recorded offset
+				long zip64EndOffset = endOffset - ZIP64_LOCATOR_SIZE - ZIP64_END_HEADER_SIZE;
+				ByteBuffer zip64End = zip64EndOffset >= 0 ? readFully(channel, zip64EndOffset, ZIP64_END_HEADER_SIZE) : null;
+				if (zip64End == null || zip64End.getInt(0) != ZIP64_END_SIG) {
+					zip64EndOffset = locator.getLong(8);
+					zip64End = readFully(channel, zip64EndOffset, ZIP64_END_HEADER_SIZE);
+				}
+				if (zip64End.getInt(0) != ZIP64_END_SIG) {
+					throw new IOException("Invalid zip64 end header in archive: " + fFile); //$NON-NLS-1$
+				}
+				count = zip64End.getLong(32);
+				cenSize = zip64End.getLong(40);
+				cenOffset = zip64End.getLong(48);
+				cenEnd = zip64EndOffset;
+			}
+		}
+		long base = cenEnd - cenSize - cenOffset;
+		if (base < 0 || cenSize > Integer.MAX_VALUE) {
+			throw new IOException("Invalid central directory in archive: " + fFile); //$NON-NLS-1$
+		}
+		ByteBuffer cen = readFully(channel, cenEnd - cenSize, (int) cenSize);
+		Map<String, Entry> entries = new HashMap<>((int) Math.min(count, 1 << 20) * 4 / 3 + 1);
+		int pos = 0;
+		while (pos + CENTRAL_HEADER_SIZE <= cenSize) {
+			if (cen.getInt(pos) != CENTRAL_HEADER_SIG) {
+				throw new IOException("Invalid central directory entry in archive: " + fFile); //$NON-NLS-1$
+			}
+			int method = cen.getShort(pos + 10) & 0xFFFF;
+			long compressedSize = cen.getInt(pos + 20) & 0xFFFFFFFFL;
+			long size = cen.getInt(pos + 24) & 0xFFFFFFFFL;
+			int nameLength = cen.getShort(pos + 28) & 0xFFFF;
+			int extraLength = cen.getShort(pos + 30) & 0xFFFF;
+			int commentLength = cen.getShort(pos + 32) & 0xFFFF;
+			long headerOffset = cen.getInt(pos + 42) & 0xFFFFFFFFL;
+			String name = new String(cen.array(), pos + CENTRAL_HEADER_SIZE, nameLength, StandardCharsets.UTF_8);
+			if (size == 0xFFFFFFFFL || compressedSize == 0xFFFFFFFFL || headerOffset == 0xFFFFFFFFL) {
+				// zip64 extended information extra field
+				int extra = pos + CENTRAL_HEADER_SIZE + nameLength;
+				int extraEnd = extra + extraLength;
+				while (extra + 4 <= extraEnd) {
+					int tag = cen.getShort(extra) & 0xFFFF;
+					int dataSize = cen.getShort(extra + 2) & 0xFFFF;
+					int data = extra + 4;
+					if (tag == 0x0001) {
+						if (size == 0xFFFFFFFFL && data + 8 <= extraEnd) {
+							size = cen.getLong(data);
+							data += 8;
+						}
+						if (compressedSize == 0xFFFFFFFFL && data + 8 <= extraEnd) {
+							compressedSize = cen.getLong(data);
+							data += 8;
+						}
+						if (headerOffset == 0xFFFFFFFFL && data + 8 <= extraEnd) {
+							headerOffset = cen.getLong(data);
+						}
+						break;
+					}
+					extra = data + dataSize;
+				}
+			}
+			if (!name.endsWith("/")) { //$NON-NLS-1$
+				entries.put(name, new Entry(method, compressedSize, size, base + headerOffset));
+			}
+			pos += CENTRAL_HEADER_SIZE + nameLength + extraLength + commentLength;
+		}
+		return entries;
+	}
+
+	private static ByteBuffer readFully(FileChannel channel, long position, int length) throws IOException {
+		ByteBuffer buffer = ByteBuffer.allocate(length).order(ByteOrder.LITTLE_ENDIAN);
+		long offset = position;
+		while (buffer.hasRemaining()) {
+			int read = channel.read(buffer, offset);
+			if (read < 0) {
+				throw new EOFException();
+			}
+			offset += read;
+		}
+		return buffer;
+	}
+
+	@Override
+	public String toString() {
+		return "Archive index: " + fFile; //$NON-NLS-1$
+	}
+}
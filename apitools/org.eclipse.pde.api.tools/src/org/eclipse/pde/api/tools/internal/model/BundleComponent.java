@@ -14,6 +14,7 @@
 package org.eclipse.pde.api.tools.internal.model;
 
 import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
@@ -831,15 +832,13 @@ public class BundleComponent extends Component {
 	 * @return the file contents or <code>null</code> if not present
 	 */
 	protected String readFileContents(String xmlFileName, File bundleLocation) {
-		ZipFile jarFile = null;
 		InputStream stream = null;
 		try {
 			String extension = new Path(bundleLocation.getName()).getFileExtension();
 			if (extension != null && extension.equals("jar") && bundleLocation.isFile()) { //$NON-NLS-1$
-				jarFile = new ZipFile(bundleLocation, ZipFile.OPEN_READ);
-				ZipEntry manifestEntry = jarFile.getEntry(xmlFileName);
-				if (manifestEntry != null) {
-					stream = jarFile.getInputStream(manifestEntry);
+				byte[] contents = ArchiveIndex.getIndex(bundleLocation.getAbsolutePath()).read(xmlFileName);
+				if (contents != null) {
+					stream = new ByteArrayInputStream(contents);
 				}
 			} else {
 				File file = new File(bundleLocation, xmlFileName);
@@ -854,7 +853,7 @@ public class BundleComponent extends Component {
 		} catch (IOException e) {
 			ApiPlugin.log(e);
 		} finally {
-			closingZipFileAndStream(stream, jarFile);
+			closingZipFileAndStream(stream, null);
 		}
 		return null;
 	}
@@ -868,17 +867,15 @@ public class BundleComponent extends Component {
 	 * @throws IOException if unable to parse
 	 */
 	protected String loadApiDescription(File bundleLocation) throws IOException {
-		ZipFile jarFile = null;
 		InputStream stream = null;
 		String contents = null;
 		try {
 			String extension = new Path(bundleLocation.getName()).getFileExtension();
 			if (extension != null && extension.equals("jar") && bundleLocation.isFile()) { //$NON-NLS-1$
-				jarFile = new ZipFile(bundleLocation, ZipFile.OPEN_READ);
-				ZipEntry manifestEntry = jarFile.getEntry(IApiCoreConstants.API_DESCRIPTION_XML_NAME);
-				if (manifestEntry != null) {
+				byte[] description = ArchiveIndex.getIndex(bundleLocation.getAbsolutePath()).read(IApiCoreConstants.API_DESCRIPTION_XML_NAME);
+				if (description != null) {
 					// new file is present
-					stream = jarFile.getInputStream(manifestEntry);
+					stream = new ByteArrayInputStream(description);
 				}
 			} else {
 				File file = new File(bundleLocation, IApiCoreConstants.API_DESCRIPTION_XML_NAME);
@@ -893,7 +890,7 @@ public class BundleComponent extends Component {
 			char[] charArray = Util.getInputStreamAsCharArray(stream, -1, StandardCharsets.UTF_8);
 			contents = new String(charArray);
 		} finally {
-			closingZipFileAndStream(stream, jarFile);
+			closingZipFileAndStream(stream, null);
 		}
 		return contents;
 	}
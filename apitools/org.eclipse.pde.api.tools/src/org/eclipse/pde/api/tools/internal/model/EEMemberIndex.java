@@ -0,0 +1,379 @@
+/*******************************************************************************
+ * Copyright (c) 2019 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.pde.api.tools.internal.model;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import org.eclipse.jdt.core.Flags;
+import org.eclipse.pde.api.tools.internal.provisional.builder.IReference;
+
+/**
+ * A compact index of the types and members of an execution environment stub
+ * archive, used to check whether an EE contains a referenced type, field or
+ * method without building {@link org.eclipse.pde.api.tools.internal.provisional.model.IApiType}
+ * structures.
+ * <p>
+ * The index holds the sorted type names of the EE with their super types,
+ * and the sorted keys of the members declared by each type. A key holds the
+ * kind, name and signature of a member, so a lookup matches exactly the
+ * members the stub archive declares.
+ * Member lookups walk the type hierarchy the same way the structural
+ * resolution of a {@link org.eclipse.pde.api.tools.internal.builder.Reference}
+ * does.
+ * </p>
+ * <p>
+ * Indexes are generated next to the stub archives by the EE generator. For
+ * stub archives without an index, the index is built from the archive.
+ * </p>
+ *
+ * @since 1.1.800
+ */
+public final class EEMemberIndex {
+
+	/**
+	 * File extension of the index of a stub archive
+	 */
+	public static final String INDEX_EXTENSION = ".index"; //$NON-NLS-1$
+
+	private static final int MAGIC = 0x41504549; // "APEI"
+	private static final int VERSION = 2;
+
+	private static final char FIELD = 'F';
+	private static final char METHOD = 'M';
+	private static final char POLYMORPHIC = 'P';
+
+	/**
+	 * The signature of polymorphic methods
+	 */
+	private static final String POLYMORPHIC_SIGNATURE = "([Ljava/lang/Object;)Ljava/lang/Object;"; //$NON-NLS-1$
+
+	/**
+	 * Sorted, dot separated type names
+	 */
+	private final String[] fTypeNames;
+	private final int[] fAccess;
+	/**
+	 * Index of the superclass of each type, <code>-1</code> if there is none
+	 * and {@link #MISSING} if it is not part of the EE
+	 */
+	private final int[] fSuperclasses;
+	private final int[][] fInterfaces;
+	/**
+	 * Sorted member keys of each type
+	 */
+	private final String[][] fMembers;
+
+	/**
+	 * Index of a super type that is not part of the EE
+	 */
+	private static final int MISSING = -2;
+
+	private EEMemberIndex(String[] typeNames, int[] access, int[] superclasses, int[][] interfaces, String[][] members) {
+		fTypeNames = typeNames;
+		fAccess = access;
+		fSuperclasses = superclasses;
+		fInterfaces = interfaces;
+		fMembers = members;
+	}
+
+	/**
+	 * The content of a stub class file
+	 */
+	private static class StubType {
+		String name;
+		int access;
+		String superclass;
+		String[] interfaces;
+		List<String> members = new ArrayList<>();
+	}
+
+	/**
+	 * Builds the index of the given stub archive
+	 *
+	 * @param stubArchive the stub archive of an EE
+	 * @return the index
+	 * @throws IOException if the archive cannot be read
+	 */
+	public static EEMemberIndex build(File stubArchive) throws IOException {
+		Map<String, StubType> types = new HashMap<>();
+		try (ZipFile zipFile = new ZipFile(stubArchive)) {
+			Enumeration<? extends ZipEntry> entries = zipFile.entries();
+			while (entries.hasMoreElements()) {
+				ZipEntry entry = entries.nextElement();
+				if (entry.isDirectory()) {
+					continue;
+				}
+				try (InputStream in = new BufferedInputStream(zipFile.getInputStream(entry))) {
+					StubType type = readStub(new DataInputStream(in));
+					types.put(type.name, type);
+				}
+			}
+		}
+		String[] names = types.keySet().toArray(new String[types.size()]);
+		Arrays.sort(names);
+		int[] access = new int[names.length];
+		int[] superclasses = new int[names.length];
+		int[][] interfaces = new int[names.length][];
+		String[][] members = new String[names.length][];
+		for (int i = 0; i < names.length; i++) {
+			StubType type = types.get(names[i]);
+			access[i] = type.access;
+			superclasses[i] = type.superclass == null ? -1 : indexOf(names, type.superclass);
+			interfaces[i] = new int[type.interfaces.length];
+			for (int j = 0; j < type.interfaces.length; j++) {
+				interfaces[i][j] = indexOf(names, type.interfaces[j]);
+			}
+			members[i] = type.members.toArray(new String[type.members.size()]);
+			Arrays.sort(members[i]);
+		}
+		return new EEMemberIndex(names, access, superclasses, interfaces, members);
+	}
+
+	private static int indexOf(String[] names, String name) {
+		int index = Arrays.binarySearch(names, name);
+		return index < 0 ? MISSING : index;
+	}
+
+	/**
+	 * Decodes a stub class file the same way
+	 * {@link TypeStructureBuilder} does
+	 */
+	private static StubType readStub(DataInputStream in) throws IOException {
+		StubType type = new StubType();
+		int version = in.readShort();
+		int poolSize = in.readShort();
+		Map<Integer, String> pool = new HashMap<>();
+		for (int i = 0; i < poolSize; i++) {
+			String value = in.readUTF();
+			pool.put(Integer.valueOf(in.readShort()), value);
+		}
+		if (version >= 2) {
+			type.access = in.readChar();
+		}
+		type.name = pool.get(Integer.valueOf(in.readShort())).replace('/', '.');
+		int superclass = in.readShort();
+		if (superclass != -1) {
+			type.superclass = pool.get(Integer.valueOf(superclass)).replace('/', '.');
+		}
+		type.interfaces = new String[in.readShort()];
+		for (int i = 0; i < type.interfaces.length; i++) {
+			type.interfaces[i] = pool.get(Integer.valueOf(in.readShort())).replace('/', '.');
+		}
+		int fields = in.readShort();
+		for (int i = 0; i < fields; i++) {
+			type.members.add(key(FIELD, pool.get(Integer.valueOf(in.readShort())), null));
+		}
+		int methods = in.readShort();
+		for (int i = 0; i < methods; i++) {
+			String selector = pool.get(Integer.valueOf(in.readShort()));
+			String signature = pool.get(Integer.valueOf(in.readShort()));
+			type.members.add(key(METHOD, selector, signature));
+			if (version == 3 && in.readByte() == 1 && POLYMORPHIC_SIGNATURE.equals(signature)) {
+				type.members.add(key(POLYMORPHIC, selector, null));
+			}
+		}
+		return type;
+	}
+
+	/**
+	 * Writes this index to the given file
+	 *
+	 * @param file the index file
+	 * @throws IOException if the file cannot be written
+	 */
+	public void write(File file) throws IOException {
+		try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)))) {
+			out.writeInt(MAGIC);
+			out.writeInt(VERSION);
+			out.writeInt(fTypeNames.length);
+			for (int i = 0; i < fTypeNames.length; i++) {
+				out.writeUTF(fTypeNames[i]);
+				out.writeChar(fAccess[i]);
+				out.writeInt(fSuperclasses[i]);
+				out.writeShort(fInterfaces[i].length);
+				for (int index : fInterfaces[i]) {
+					out.writeInt(index);
+				}
+				out.writeInt(fMembers[i].length);
+				for (String member : fMembers[i]) {
+					out.writeUTF(member);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Reads an index written by {@link #write(File)}
+	 *
+	 * @param file the index file
+	 * @return the index
+	 * @throws IOException if the file cannot be read or is not an index of
+	 *             the current version
+	 */
+	public static EEMemberIndex read(File file) throws IOException {
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+			if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+				throw new IOException("Unsupported EE member index: " + file); //$NON-NLS-1$
+			}
+			int count = in.readInt();
+			String[] names = new String[count];
+			int[] access = new int[count];
+			int[] superclasses = new int[count];
+			int[][] interfaces = new int[count][];
+			String[][] members = new String[count][];
+			for (int i = 0; i < count; i++) {
+				names[i] = in.readUTF();
+				access[i] = in.readChar();
+				superclasses[i] = in.readInt();
+				interfaces[i] = new int[in.readShort()];
+				for (int j = 0; j < interfaces[i].length; j++) {
+					interfaces[i][j] = in.readInt();
+				}
+				members[i] = new String[in.readInt()];
+				for (int j = 0; j < members[i].length; j++) {
+					members[i][j] = in.readUTF();
+				}
+			}
+			return new EEMemberIndex(names, access, superclasses, interfaces, members);
+		}
+	}
+
+	/**
+	 * Returns if the EE contains the given type
+	 *
+	 * @param typeName the dot separated type name, member types use
+	 *            <code>'$'</code>
+	 * @return <code>true</code> if the EE contains the type
+	 */
+	public boolean containsType(String typeName) {
+		return Arrays.binarySearch(fTypeNames, typeName) >= 0;
+	}
+
+	/**
+	 * Returns if the given field can be resolved from the given type of the
+	 * EE, looking up the superclass chain
+	 *
+	 * @param typeName the dot separated type name
+	 * @param fieldName the field name
+	 * @return <code>true</code> if the field resolves
+	 */
+	public boolean containsField(String typeName, String fieldName) {
+		int type = Arrays.binarySearch(fTypeNames, typeName);
+		while (type >= 0) {
+			if (contains(FIELD, type, fieldName, null)) {
+				return true;
+			}
+			type = fSuperclasses[type];
+		}
+		return false;
+	}
+
+	/**
+	 * Returns if the given method can be resolved from the given type of the
+	 * EE for the given kind of reference
+	 *
+	 * @param typeName the dot separated type name
+	 * @param methodName the method name
+	 * @param signature the method signature
+	 * @param referenceKind the kind of method reference, one of the
+	 *            <code>IReference.REF_*METHOD</code> constants
+	 * @return <code>true</code> if the method resolves
+	 */
+	public boolean containsMethod(String typeName, String methodName, String signature, int referenceKind) {
+		int type = Arrays.binarySearch(fTypeNames, typeName);
+		return type >= 0 && containsMethod(type, methodName, signature, referenceKind);
+	}
+
+	private boolean containsMethod(int type, String methodName, String signature, int referenceKind) {
+		if (contains(METHOD, type, methodName, signature)) {
+			return true;
+		}
+		switch (referenceKind) {
+			case IReference.REF_INTERFACEMETHOD:
+				return containsInterfaceMethod(type, methodName, signature, referenceKind);
+			case IReference.REF_STATICMETHOD:
+				return containsSuperclassMethod(type, methodName, signature, referenceKind);
+			case IReference.REF_VIRTUALMETHOD:
+			case IReference.REF_SPECIALMETHOD:
+				if (contains(POLYMORPHIC, type, methodName, null)) {
+					return true;
+				}
+				if (fSuperclasses[type] == MISSING) {
+					// the structural resolution gives up on a missing class file
+					return false;
+				}
+				if (containsSuperclassMethod(type, methodName, signature, referenceKind)) {
+					return true;
+				}
+				if (Flags.isAbstract(fAccess[type])) {
+					return containsInterfaceMethod(type, methodName, signature, referenceKind);
+				}
+				return false;
+			default:
+				return false;
+		}
+	}
+
+	private boolean containsSuperclassMethod(int type, String methodName, String signature, int referenceKind) {
+		int superclass = fSuperclasses[type];
+		return superclass >= 0 && containsMethod(superclass, methodName, signature, referenceKind);
+	}
+
+	private boolean containsInterfaceMethod(int type, String methodName, String signature, int referenceKind) {
+		for (int superinterface : fInterfaces[type]) {
+			if (superinterface == MISSING) {
+				// the structural resolution gives up on a missing class file
+				return false;
+			}
+			if (containsMethod(superinterface, methodName, signature, referenceKind)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private boolean contains(char kind, int type, String name, String signature) {
+		return Arrays.binarySearch(fMembers[type], key(kind, name, signature)) >= 0;
+	}
+
+	/**
+	 * @return the number of types in the index
+	 */
+	public int getTypeCount() {
+		return fTypeNames.length;
+	}
+
+	/**
+	 * Returns the key of a member of a type
+	 */
+	private static String key(char kind, String name, String signature) {
+		return signature == null ? kind + name : kind + name + ' ' + signature;
+	}
+}
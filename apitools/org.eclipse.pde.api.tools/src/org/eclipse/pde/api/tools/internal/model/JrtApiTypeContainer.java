@@ -0,0 +1,457 @@
+/*******************************************************************************
+ * Copyright (c) 2019 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.pde.api.tools.internal.model;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileSystem;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.ProviderNotFoundException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.pde.api.tools.internal.provisional.ApiPlugin;
+import org.eclipse.pde.api.tools.internal.provisional.model.ApiTypeContainerVisitor;
+import org.eclipse.pde.api.tools.internal.provisional.model.IApiElement;
+import org.eclipse.pde.api.tools.internal.provisional.model.IApiType;
+import org.eclipse.pde.api.tools.internal.provisional.model.IApiTypeContainer;
+import org.eclipse.pde.api.tools.internal.provisional.model.IApiTypeRoot;
+import org.eclipse.pde.api.tools.internal.util.Util;
+
+/**
+ * {@link IApiTypeContainer} for the module image of a Java 9 or later JDK,
+ * read through the <code>jrt:/</code> file system of the JDK.
+ * <p>
+ * The container covers the classes of all modules of the image. The package
+ * to module index of an image is shared by all containers of the same JDK.
+ * </p>
+ *
+ * @since 1.1.800
+ */
+public class JrtApiTypeContainer extends ApiElement implements IApiTypeContainer {
+
+	/**
+	 * Name of the library JDT reports for the module image of a JDK
+	 */
+	public static final String JRT_FS_JAR = "jrt-fs.jar"; //$NON-NLS-1$
+
+	private static final URI JRT_URI = URI.create("jrt:/"); //$NON-NLS-1$
+
+	/**
+	 * All open images, keyed by their Java home
+	 */
+	private static final Map<String, Image> fgImages = new HashMap<>();
+
+	/**
+	 * {@link IApiTypeRoot} implementation within a module image
+	 */
+	static class JrtApiTypeRoot extends AbstractApiTypeRoot implements Comparable<Object> {
+
+		private String fTypeName;
+
+		/**
+		 * Constructs a new handle to an {@link IApiTypeRoot} in the image.
+		 *
+		 * @param container the image container
+		 * @param entryName the path of the class file in its module
+		 */
+		public JrtApiTypeRoot(JrtApiTypeContainer container, String entryName) {
+			super(container, entryName);
+		}
+
+		@Override
+		public String getTypeName() {
+			if (fTypeName == null) {
+				fTypeName = getName().replace('/', '.').substring(0, getName().length() - Util.DOT_CLASS_SUFFIX.length());
+			}
+			return fTypeName;
+		}
+
+		@Override
+		public int compareTo(Object o) {
+			return getTypeName().compareTo(((JrtApiTypeRoot) o).getTypeName());
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (obj instanceof JrtApiTypeRoot) {
+				return this.getName().equals(((JrtApiTypeRoot) obj).getName());
+			}
+			return false;
+		}
+
+		@Override
+		public int hashCode() {
+			return getName().hashCode();
+		}
+
+		@Override
+		protected IApiType buildStructure() throws CoreException {
+			TypeStructureCache cache = TypeStructureCache.getCache();
+			if (cache == null) {
+				return super.buildStructure();
+			}
+			String location = ((JrtApiTypeContainer) getParent()).getImage().fModulesFile.getAbsolutePath();
+			IApiType type = cache.getStructure(location, getName(), getApiComponent(), this);
+			if (type == null) {
+				type = super.buildStructure();
+				if (type != null) {
+					cache.putStructure(location, getName(), type);
+				}
+			}
+			return type;
+		}
+
+		@Override
+		public byte[] getContents() throws CoreException {
+			JrtApiTypeContainer container = (JrtApiTypeContainer) getParent();
+			byte[] contents = null;
+			try {
+				contents = container.getImage().read(getName());
+			} catch (IOException e) {
+				abort("Unable to read class file: " + getTypeName() + " in module image: " + container.fHome, e); //$NON-NLS-1$ //$NON-NLS-2$
+			}
+			if (contents == null) {
+				abort("Class file not found: " + getTypeName() + " in module image: " + container.fHome, null); //$NON-NLS-1$ //$NON-NLS-2$
+			}
+			return contents;
+		}
+
+		@Override
+		public String toString() {
+			return getTypeName();
+		}
+	}
+
+	/**
+	 * An open <code>jrt:/</code> file system with the index of the packages
+	 * of its modules
+	 */
+	static final class Image {
+
+		final File fModulesFile;
+		final long fLastModified;
+		final FileSystem fFileSystem;
+
+		/**
+		 * Package names to the names of the modules containing them
+		 */
+		final Map<String, String[]> fPackageModules = new HashMap<>();
+
+		/**
+		 * Package names to the class file names in that package, filled lazily
+		 */
+		final Map<String, Set<String>> fClassFiles = new ConcurrentHashMap<>();
+
+		/**
+		 * Constructor - opens the module image of the given JDK and indexes
+		 * its packages
+		 *
+		 * @param home the Java home of the JDK
+		 * @throws IOException if the image cannot be opened
+		 */
+		Image(String home) throws IOException {
+			fModulesFile = new File(new File(home, "lib"), "modules"); //$NON-NLS-1$ //$NON-NLS-2$
+			fLastModified = fModulesFile.lastModified();
+			fFileSystem = openFileSystem(home);
+			try (DirectoryStream<Path> packages = Files.newDirectoryStream(fFileSystem.getPath("/packages"))) { //$NON-NLS-1$
+				for (Path pkg : packages) {
+					List<String> modules = new ArrayList<>(1);
+					try (DirectoryStream<Path> links = Files.newDirectoryStream(pkg)) {
+						for (Path module : links) {
+							modules.add(module.getFileName().toString());
+						}
+					}
+					fPackageModules.put(pkg.getFileName().toString(), modules.toArray(new String[modules.size()]));
+				}
+			} catch (IOException e) {
+				close();
+				throw e;
+			}
+		}
+
+		/**
+		 * Opens the <code>jrt:/</code> file system of the given JDK. When
+		 * running on Java 8 the file system provider is loaded from the
+		 * <code>jrt-fs.jar</code> of the JDK.
+		 */
+		@SuppressWarnings("resource")
+		private static FileSystem openFileSystem(String home) throws IOException {
+			try {
+				return FileSystems.newFileSystem(JRT_URI, Collections.singletonMap("java.home", home)); //$NON-NLS-1$
+			} catch (ProviderNotFoundException e) {
+				URL jrtfs = new File(new File(home, "lib"), JRT_FS_JAR).toURI().toURL(); //$NON-NLS-1$
+				ClassLoader loader = new URLClassLoader(new URL[] { jrtfs }, null);
+				return FileSystems.newFileSystem(JRT_URI, Collections.emptyMap(), loader);
+			}
+		}
+
+		/**
+		 * Returns the names of the class files of the given package
+		 *
+		 * @param pkg the dot separated package name
+		 * @return the class file names relative to their module, empty if the
+		 *         package does not exist
+		 * @throws IOException if the image cannot be read
+		 */
+		Set<String> getClassFileNames(String pkg) throws IOException {
+			Set<String> names = fClassFiles.get(pkg);
+			if (names != null) {
+				return names;
+			}
+			names = new HashSet<>();
+			String[] modules = fPackageModules.get(pkg);
+			if (modules != null) {
+				String folder = pkg.replace('.', '/');
+				for (String module : modules) {
+					try (DirectoryStream<Path> files = Files.newDirectoryStream(fFileSystem.getPath("/modules", module, folder))) { //$NON-NLS-1$
+						for (Path file : files) {
+							String name = file.getFileName().toString();
+							if (name.endsWith(Util.DOT_CLASS_SUFFIX)) {
+								names.add(folder + '/' + name);
+							}
+						}
+					} catch (NoSuchFileException e) {
+						// the package link is stale, skip the module
+					}
+				}
+			}
+			Set<String> result = Collections.unmodifiableSet(names);
+			fClassFiles.put(pkg, result);
+			return result;
+		}
+
+		/**
+		 * Reads the given class file
+		 *
+		 * @param entryName the path of the class file relative to its module
+		 * @return the class file bytes or <code>null</code> if the class file
+		 *         does not exist
+		 * @throws IOException if the class file cannot be read
+		 */
+		byte[] read(String entryName) throws IOException {
+			int index = entryName.lastIndexOf('/');
+			String pkg = index < 0 ? Util.DEFAULT_PACKAGE_NAME : entryName.substring(0, index).replace('/', '.');
+			String[] modules = fPackageModules.get(pkg);
+			if (modules == null) {
+				return null;
+			}
+			for (String module : modules) {
+				Path path = fFileSystem.getPath("/modules", module, entryName); //$NON-NLS-1$
+				if (Files.exists(path)) {
+					return Files.readAllBytes(path);
+				}
+			}
+			return null;
+		}
+
+		void close() {
+			try {
+				fFileSystem.close();
+			} catch (IOException | UnsupportedOperationException e) {
+				// the file system of the running JDK cannot be closed
+			}
+		}
+	}
+
+	/**
+	 * Java home of the JDK
+	 */
+	final String fHome;
+
+	/**
+	 * Cache of sorted package names, or <code>null</code> if not yet
+	 * initialized
+	 */
+	private String[] fPackageNames;
+
+	/**
+	 * Constructs an {@link IApiTypeContainer} for the module image of the
+	 * given JDK.
+	 *
+	 * @param parent the parent {@link IApiElement} or <code>null</code> if none
+	 * @param home the Java home of the JDK
+	 */
+	public JrtApiTypeContainer(IApiElement parent, String home) {
+		super(parent, IApiElement.API_TYPE_CONTAINER, home);
+		this.fHome = home;
+	}
+
+	/**
+	 * Returns if the given Java home contains a module image that can be read
+	 * through the <code>jrt:/</code> file system
+	 *
+	 * @param home the Java home to check
+	 * @return <code>true</code> if the home has a module image
+	 */
+	public static boolean isModuleImage(String home) {
+		File lib = new File(home, "lib"); //$NON-NLS-1$
+		return new File(lib, JRT_FS_JAR).isFile() && new File(lib, "modules").isFile(); //$NON-NLS-1$
+	}
+
+	/**
+	 * Returns the shared image of the JDK of this container, opening it if it
+	 * is not open yet or if the image changed since it was opened.
+	 *
+	 * @return the image, never <code>null</code>
+	 * @throws CoreException if the image cannot be opened
+	 */
+	Image getImage() throws CoreException {
+		Image stale = null;
+		try {
+			synchronized (fgImages) {
+				Image image = fgImages.get(fHome);
+				if (image != null && image.fLastModified == image.fModulesFile.lastModified()) {
+					return image;
+				}
+				stale = image;
+				image = new Image(fHome);
+				fgImages.put(fHome, image);
+				if (ApiPlugin.DEBUG_BASELINE_MANAGER) {
+					System.out.println("Opened module image of " + fHome + " with " + image.fPackageModules.size() + " packages"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+				}
+				return image;
+			}
+		} catch (IOException e) {
+			abort("Failed to open module image: " + fHome, e); //$NON-NLS-1$
+			return null;
+		} finally {
+			if (stale != null) {
+				stale.close();
+			}
+		}
+	}
+
+	/**
+	 * Closes all open module images.
+	 */
+	public static void closeAll() {
+		List<Image> images;
+		synchronized (fgImages) {
+			images = new ArrayList<>(fgImages.values());
+			fgImages.clear();
+		}
+		for (Image image : images) {
+			image.close();
+		}
+	}
+
+	@Override
+	public void accept(ApiTypeContainerVisitor visitor) throws CoreException {
+		if (visitor.visit(this)) {
+			Image image = getImage();
+			for (String pkg : getPackageNames()) {
+				if (visitor.visitPackage(pkg)) {
+					Set<String> names;
+					try {
+						names = image.getClassFileNames(pkg);
+					} catch (IOException e) {
+						abort("Failed to read package: " + pkg + " in module image: " + fHome, e); //$NON-NLS-1$ //$NON-NLS-2$
+						return;
+					}
+					List<JrtApiTypeRoot> classFiles = new ArrayList<>(names.size());
+					for (String entryName : names) {
+						classFiles.add(new JrtApiTypeRoot(this, entryName));
+					}
+					Collections.sort(classFiles);
+					for (JrtApiTypeRoot classfile : classFiles) {
+						visitor.visit(pkg, classfile);
+						visitor.end(pkg, classfile);
+					}
+				}
+				visitor.endVisitPackage(pkg);
+			}
+		}
+		visitor.end(this);
+	}
+
+	@Override
+	public String toString() {
+		return "Module Image Class File Container: " + getName(); //$NON-NLS-1$
+	}
+
+	@Override
+	public void close() throws CoreException {
+		// images are shared, see #closeAll()
+	}
+
+	@Override
+	public IApiTypeRoot findTypeRoot(String qualifiedName) throws CoreException {
+		int index = qualifiedName.lastIndexOf('.');
+		String packageName = Util.DEFAULT_PACKAGE_NAME;
+		if (index >= 0) {
+			packageName = qualifiedName.substring(0, index);
+		}
+		String fileName = qualifiedName.replace('.', '/') + Util.DOT_CLASS_SUFFIX;
+		try {
+			if (getImage().getClassFileNames(packageName).contains(fileName)) {
+				return new JrtApiTypeRoot(this, fileName);
+			}
+		} catch (IOException e) {
+			abort("Failed to read package: " + packageName + " in module image: " + fHome, e); //$NON-NLS-1$ //$NON-NLS-2$
+		}
+		return null;
+	}
+
+	@Override
+	public IApiTypeRoot findTypeRoot(String qualifiedName, String id) throws CoreException {
+		return findTypeRoot(qualifiedName);
+	}
+
+	@Override
+	public String[] getPackageNames() throws CoreException {
+		Image image = getImage();
+		synchronized (this) {
+			if (fPackageNames == null) {
+				String[] result = image.fPackageModules.keySet().toArray(new String[image.fPackageModules.size()]);
+				Arrays.sort(result);
+				fPackageNames = result;
+			}
+			return fPackageNames;
+		}
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (obj instanceof JrtApiTypeContainer) {
+			return this.fHome.equals(((JrtApiTypeContainer) obj).fHome);
+		}
+		return false;
+	}
+
+	@Override
+	public int hashCode() {
+		return this.fHome.hashCode();
+	}
+
+	@Override
+	public int getContainerType() {
+		return ARCHIVE;
+	}
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2009, 2013 IBM Corporation and others.
+ * Copyright (c) 2009, 2019 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -18,6 +18,7 @@ import java.io.IOException;
 import java.net.URL;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
@@ -45,6 +46,7 @@ import org.eclipse.pde.api.tools.internal.provisional.model.IApiTypeContainer;
 public class StubApiComponent extends SystemLibraryApiComponent {
 	private static final String STUB_PATH = "/org/eclipse/pde/api/tools/internal/api_stubs/"; //$NON-NLS-1$
 	private static Map<String, IApiComponent> AllSystemLibraryApiComponents;
+	private static Map<String, EEMemberIndex> AllMemberIndexes;
 
 	public static IApiComponent getStubApiComponent(int eeValue) {
 		if (AllSystemLibraryApiComponents == null) {
@@ -64,7 +66,54 @@ public class StubApiComponent extends SystemLibraryApiComponent {
 		return component;
 	}
 
+	/**
+	 * Returns the member index of the stub of the given EE. The index is read
+	 * from the file generated next to the stub, or built from the stub if
+	 * there is no such file.
+	 *
+	 * @param eeValue the EE
+	 * @return the index or <code>null</code> if there is no stub for the EE
+	 * @since 1.1.800
+	 */
+	public static synchronized EEMemberIndex getMemberIndex(int eeValue) {
+		if (AllMemberIndexes == null) {
+			AllMemberIndexes = new HashMap<>();
+		}
+		String name = ProfileModifiers.getName(eeValue);
+		if (name == null) {
+			return null;
+		}
+		if (AllMemberIndexes.containsKey(name)) {
+			return AllMemberIndexes.get(name);
+		}
+		EEMemberIndex index = null;
+		File indexFile = getFileFor(eeValue, name, EEMemberIndex.INDEX_EXTENSION);
+		if (indexFile != null) {
+			try {
+				index = EEMemberIndex.read(indexFile);
+			} catch (IOException e) {
+				ApiPlugin.log("Failed to read the EE member index " + indexFile, e); //$NON-NLS-1$
+			}
+		}
+		if (index == null) {
+			File stubFile = getFileFor(eeValue, name);
+			if (stubFile != null) {
+				try {
+					index = EEMemberIndex.build(stubFile);
+				} catch (IOException e) {
+					ApiPlugin.log("Failed to index the EE stub " + stubFile, e); //$NON-NLS-1$
+				}
+			}
+		}
+		AllMemberIndexes.put(name, index);
+		return index;
+	}
+
 	private static File getFileFor(int eeValue, String name) {
+		return getFileFor(eeValue, name, ".zip"); //$NON-NLS-1$
+	}
+
+	private static File getFileFor(int eeValue, String name, String extension) {
 		try {
 			String lname = name;
 			switch (eeValue) {
@@ -78,7 +127,7 @@ public class StubApiComponent extends SystemLibraryApiComponent {
 				default:
 					break;
 			}
-			String stubName = lname + ".zip"; //$NON-NLS-1$
+			String stubName = lname + extension;
 			URL stub = null;
 			if (Platform.isRunning()) {
 				stub = ApiPlugin.getDefault().getBundle().getResource(STUB_PATH + stubName);
@@ -188,6 +237,9 @@ public class StubApiComponent extends SystemLibraryApiComponent {
 	}
 
 	public static void disposeAllCaches() {
+		synchronized (StubApiComponent.class) {
+			AllMemberIndexes = null;
+		}
 		if (AllSystemLibraryApiComponents != null) {
 			for (IApiComponent apiComponent : AllSystemLibraryApiComponents.values()) {
 				apiComponent.dispose();
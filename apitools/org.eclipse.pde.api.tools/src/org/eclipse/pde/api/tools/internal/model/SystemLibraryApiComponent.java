@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2007, 2013 IBM Corporation and others.
+ * Copyright (c) 2007, 2019 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -121,10 +121,24 @@ public class SystemLibraryApiComponent extends Component {
 	protected List<IApiTypeContainer> createApiTypeContainers() throws CoreException {
 		List<IApiTypeContainer> libs = new ArrayList<>(fLibraries.length);
 		for (LibraryLocation lib : fLibraries) {
-			libs.add(new ArchiveApiTypeContainer(this, lib.getSystemLibraryPath().toOSString()));
+			IPath path = lib.getSystemLibraryPath();
+			if (JrtApiTypeContainer.JRT_FS_JAR.equals(path.lastSegment())) {
+				// Java 9 and above: read all modules of the image
+				String home = path.removeLastSegments(2).toOSString();
+				if (JrtApiTypeContainer.isModuleImage(home)) {
+					JrtApiTypeContainer image = new JrtApiTypeContainer(this, home);
+					if (!libs.contains(image)) {
+						libs.add(image);
+					}
+					continue;
+				}
+			}
+			libs.add(new ArchiveApiTypeContainer(this, path.toOSString()));
 		}
 		if (fLibraries.length == 0) {
-			if (fLocation != null) {
+			if (fLocation != null && JrtApiTypeContainer.isModuleImage(fLocation)) {
+				libs.add(new JrtApiTypeContainer(this, fLocation));
+			} else if (fLocation != null) {
 				IPath newPath = new Path(fLocation);
 				newPath = newPath.append("jmods").append("java.base.jmod"); //$NON-NLS-1$ //$NON-NLS-2$
 				if (newPath.toFile().exists()) {
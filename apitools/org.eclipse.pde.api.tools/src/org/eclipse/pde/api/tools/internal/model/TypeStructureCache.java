@@ -0,0 +1,559 @@
+/*******************************************************************************
+ * Copyright (c) 2019 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.pde.api.tools.internal.model;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+import org.eclipse.pde.api.tools.internal.provisional.ApiPlugin;
+import org.eclipse.pde.api.tools.internal.provisional.model.IApiComponent;
+import org.eclipse.pde.api.tools.internal.provisional.model.IApiField;
+import org.eclipse.pde.api.tools.internal.provisional.model.IApiMethod;
+import org.eclipse.pde.api.tools.internal.provisional.model.IApiType;
+import org.eclipse.pde.api.tools.internal.provisional.model.IApiTypeRoot;
+
+/**
+ * Persistent cache of type structures read from archives.
+ * <p>
+ * For each archive, the decoded member tables of the {@link ApiType}s built
+ * from its class files are stored in one file of the cache directory. A cache
+ * file is only used if the path, size and modification time of the archive
+ * match the ones recorded in it, so a cold start (or a CI run reusing the same
+ * baseline) does not need to parse the class files of unchanged archives
+ * again.
+ * </p>
+ * <p>
+ * The cache directory is kept under {@link #MAX_DISK_SIZE} bytes by deleting
+ * the least recently used cache files. The cache is only available when
+ * running in the framework.
+ * </p>
+ *
+ * @since 1.1.800
+ */
+public final class TypeStructureCache {
+
+	/**
+	 * Version of the cache file format, bump whenever the encoding of a type
+	 * structure changes
+	 */
+	static final int VERSION = 1;
+
+	private static final int MAGIC = 0x41505453; // "APTS"
+
+	/**
+	 * Maximum total size of the cache files on disk
+	 */
+	static final long MAX_DISK_SIZE = 256L * 1024 * 1024;
+
+	/**
+	 * Maximum number of archive caches kept in memory
+	 */
+	static final int MAX_LOADED_ARCHIVES = 64;
+
+	private static final String CACHE_DIRECTORY = ".type_structures"; //$NON-NLS-1$
+	private static final String CACHE_FILE_EXTENSION = ".types"; //$NON-NLS-1$
+
+	private static final byte NULL_VALUE = 0;
+	private static final byte INTEGER_VALUE = 1;
+	private static final byte LONG_VALUE = 2;
+	private static final byte FLOAT_VALUE = 3;
+	private static final byte DOUBLE_VALUE = 4;
+	private static final byte STRING_VALUE = 5;
+
+	/**
+	 * The cached type structures of one archive
+	 */
+	static final class ArchiveCache {
+		final String fPath;
+		final long fSize;
+		final long fLastModified;
+		final Map<String, byte[]> fEntries = new HashMap<>();
+		boolean fDirty = false;
+
+		ArchiveCache(String path, long size, long lastModified) {
+			fPath = path;
+			fSize = size;
+			fLastModified = lastModified;
+		}
+	}
+
+	private static TypeStructureCache fInstance = null;
+
+	private final File fDirectory;
+
+	/**
+	 * Archive caches in memory, in least recently used order
+	 */
+	private final LinkedHashMap<String, ArchiveCache> fArchives = new LinkedHashMap<>(16, 0.75f, true);
+
+	/**
+	 * Constructor - no instantiation
+	 *
+	 * @param directory the cache directory
+	 */
+	private TypeStructureCache(File directory) {
+		fDirectory = directory;
+	}
+
+	/**
+	 * Returns the singleton instance of this cache or <code>null</code> when
+	 * not running in the framework
+	 *
+	 * @return the cache or <code>null</code>
+	 */
+	public static synchronized TypeStructureCache getCache() {
+		if (fInstance == null && ApiPlugin.isRunningInFramework()) {
+			fInstance = new TypeStructureCache(ApiPlugin.getDefault().getStateLocation().append(CACHE_DIRECTORY).toFile());
+		}
+		return fInstance;
+	}
+
+	/**
+	 * Returns the cached structure of the given archive entry, or
+	 * <code>null</code> if it is not cached or the archive changed.
+	 *
+	 * @param archive the archive the entry belongs to
+	 * @param entryName the name of the class file entry
+	 * @param component the component the type belongs to
+	 * @param root the type root the structure is for
+	 * @return the type structure or <code>null</code>
+	 */
+	public IApiType getStructure(String archive, String entryName, IApiComponent component, IApiTypeRoot root) {
+		byte[] bytes;
+		synchronized (this) {
+			ArchiveCache cache = getArchiveCache(archive);
+			if (cache == null) {
+				return null;
+			}
+			bytes = cache.fEntries.get(entryName);
+		}
+		if (bytes == null) {
+			return null;
+		}
+		try {
+			return decode(bytes, component, root);
+		} catch (IOException e) {
+			ApiPlugin.log("Discarding corrupt cached type structure for " + entryName + " in " + archive, e); //$NON-NLS-1$ //$NON-NLS-2$
+			synchronized (this) {
+				ArchiveCache cache = getArchiveCache(archive);
+				if (cache != null) {
+					cache.fEntries.remove(entryName);
+					cache.fDirty = true;
+				}
+			}
+			return null;
+		}
+	}
+
+	/**
+	 * Records the structure of the given archive entry. The structure is
+	 * written to disk on the next {@link #flush()}.
+	 *
+	 * @param archive the archive the entry belongs to
+	 * @param entryName the name of the class file entry
+	 * @param type the structure built from the class file
+	 */
+	public void putStructure(String archive, String entryName, IApiType type) {
+		byte[] bytes;
+		try {
+			bytes = encode(type);
+		} catch (IOException e) {
+			// writeUTF fails on strings longer than 64K, such as huge
+			// generic signatures: such a type is simply not cached
+			if (ApiPlugin.DEBUG_BASELINE_MANAGER) {
+				System.out.println("Not caching type structure " + entryName + " of " + archive + ": " + e.getMessage()); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+			}
+			return;
+		}
+		synchronized (this) {
+			ArchiveCache cache = getArchiveCache(archive);
+			if (cache != null) {
+				cache.fEntries.put(entryName, bytes);
+				cache.fDirty = true;
+			}
+		}
+	}
+
+	/**
+	 * Writes all modified archive caches to disk and trims the cache directory
+	 * to its maximum size.
+	 */
+	public synchronized void flush() {
+		for (ArchiveCache cache : fArchives.values()) {
+			write(cache);
+		}
+		trim();
+	}
+
+	/**
+	 * Writes all modified archive caches of the singleton cache to disk and
+	 * releases it, if it was created.
+	 */
+	public static void disposeCache() {
+		TypeStructureCache cache;
+		synchronized (TypeStructureCache.class) {
+			cache = fInstance;
+			fInstance = null;
+		}
+		if (cache != null) {
+			synchronized (cache) {
+				cache.flush();
+				cache.fArchives.clear();
+			}
+		}
+	}
+
+	/**
+	 * Returns the in-memory cache for the given archive, loading it from disk
+	 * or discarding it if the archive changed. Must be called holding the
+	 * lock on this cache.
+	 *
+	 * @param archive the archive path
+	 * @return the archive cache or <code>null</code> if the archive does not
+	 *         exist
+	 */
+	private ArchiveCache getArchiveCache(String archive) {
+		File file = new File(archive);
+		long size = file.length();
+		long lastModified = file.lastModified();
+		if (lastModified == 0) {
+			return null;
+		}
+		ArchiveCache cache = fArchives.get(archive);
+		if (cache != null && cache.fSize == size && cache.fLastModified == lastModified) {
+			return cache;
+		}
+		cache = read(archive, size, lastModified);
+		if (cache == null) {
+			cache = new ArchiveCache(archive, size, lastModified);
+		}
+		fArchives.put(archive, cache);
+		if (fArchives.size() > MAX_LOADED_ARCHIVES) {
+			Iterator<ArchiveCache> iterator = fArchives.values().iterator();
+			ArchiveCache eldest = iterator.next();
+			iterator.remove();
+			write(eldest);
+		}
+		return cache;
+	}
+
+	/**
+	 * Returns the cache file for the given archive
+	 *
+	 * @param archive the archive path
+	 * @return the cache file
+	 */
+	private File getCacheFile(String archive) {
+		CRC32 crc = new CRC32();
+		crc.update(archive.getBytes(StandardCharsets.UTF_8));
+		String name = new File(archive).getName();
+		return new File(fDirectory, name + '_' + Long.toHexString(crc.getValue()) + CACHE_FILE_EXTENSION);
+	}
+
+	/**
+	 * Reads the cache file of the given archive if it is valid for the given
+	 * archive size and timestamp.
+	 *
+	 * @return the archive cache or <code>null</code> if there is no valid cache
+	 *         file
+	 */
+	private ArchiveCache read(String archive, long size, long lastModified) {
+		File file = getCacheFile(archive);
+		if (!file.isFile()) {
+			return null;
+		}
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+			if (in.readInt() != MAGIC || in.readInt() != VERSION || !archive.equals(in.readUTF()) || in.readLong() != size || in.readLong() != lastModified) {
+				return null;
+			}
+			ArchiveCache cache = new ArchiveCache(archive, size, lastModified);
+			int count = in.readInt();
+			for (int i = 0; i < count; i++) {
+				String entryName = in.readUTF();
+				byte[] bytes = new byte[in.readInt()];
+				in.readFully(bytes);
+				cache.fEntries.put(entryName, bytes);
+			}
+			// record the use for the LRU eviction on disk
+			file.setLastModified(System.currentTimeMillis());
+			return cache;
+		} catch (IOException e) {
+			if (ApiPlugin.DEBUG_BASELINE_MANAGER) {
+				System.out.println("Ignoring unreadable type structure cache " + file + ": " + e.getMessage()); //$NON-NLS-1$ //$NON-NLS-2$
+			}
+			return null;
+		}
+	}
+
+	/**
+	 * Writes the given archive cache to disk if it was modified
+	 *
+	 * @param cache the cache to write
+	 */
+	private void write(ArchiveCache cache) {
+		if (!cache.fDirty) {
+			return;
+		}
+		if (!fDirectory.exists() && !fDirectory.mkdirs()) {
+			return;
+		}
+		File file = getCacheFile(cache.fPath);
+		File tmp = new File(file.getPath() + ".tmp"); //$NON-NLS-1$
+		try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmp)))) {
+			out.writeInt(MAGIC);
+			out.writeInt(VERSION);
+			out.writeUTF(cache.fPath);
+			out.writeLong(cache.fSize);
+			out.writeLong(cache.fLastModified);
+			out.writeInt(cache.fEntries.size());
+			for (Map.Entry<String, byte[]> entry : cache.fEntries.entrySet()) {
+				out.writeUTF(entry.getKey());
+				out.writeInt(entry.getValue().length);
+				out.write(entry.getValue());
+			}
+		} catch (IOException e) {
+			ApiPlugin.log("Failed to write type structure cache for " + cache.fPath, e); //$NON-NLS-1$
+			tmp.delete();
+			return;
+		}
+		file.delete();
+		if (tmp.renameTo(file)) {
+			cache.fDirty = false;
+		} else {
+			tmp.delete();
+		}
+	}
+
+	/**
+	 * Deletes the least recently used cache files until the cache directory
+	 * is under its maximum size
+	 */
+	private void trim() {
+		File[] files = fDirectory.listFiles((dir, name) -> name.endsWith(CACHE_FILE_EXTENSION));
+		if (files == null) {
+			return;
+		}
+		long total = 0;
+		for (File file : files) {
+			total += file.length();
+		}
+		if (total <= MAX_DISK_SIZE) {
+			return;
+		}
+		Arrays.sort(files, (f1, f2) -> Long.compare(f1.lastModified(), f2.lastModified()));
+		for (File file : files) {
+			if (total <= MAX_DISK_SIZE) {
+				break;
+			}
+			long length = file.length();
+			if (file.delete()) {
+				total -= length;
+			}
+		}
+	}
+
+	/**
+	 * Encodes the given type structure
+	 *
+	 * @param type the type to encode
+	 * @return the encoded bytes
+	 * @throws IOException
+	 */
+	public static byte[] encode(IApiType type) throws IOException {
+		ApiType apiType = (ApiType) type;
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream(512);
+		DataOutputStream out = new DataOutputStream(bytes);
+		out.writeUTF(apiType.getName());
+		out.writeUTF(apiType.getSignature());
+		writeString(out, apiType.getGenericSignature());
+		out.writeInt(apiType.getModifiers());
+		writeString(out, apiType.getEnclosingTypeName());
+		writeString(out, apiType.getSuperclassName());
+		writeStrings(out, apiType.getSuperInterfaceNames());
+		out.writeBoolean(apiType.isAnonymous());
+		out.writeBoolean(apiType.isLocal());
+		out.writeBoolean(apiType.isMemberType());
+		writeString(out, apiType.isLocal() || apiType.isMemberType() ? apiType.getSimpleName() : null);
+		out.writeBoolean(apiType.hasEnclosingMethodInfo());
+		if (apiType.hasEnclosingMethodInfo()) {
+			writeString(out, apiType.getEnclosingMethodName());
+			writeString(out, apiType.getEnclosingMethodSignature());
+		}
+		List<String> memberTypes = apiType.getMemberTypeNames();
+		writeStrings(out, memberTypes.toArray(new String[memberTypes.size()]));
+		IApiMethod[] methods = apiType.getMethods();
+		out.writeInt(methods.length);
+		for (IApiMethod method : methods) {
+			out.writeUTF(method.getName());
+			out.writeUTF(method.getSignature());
+			writeString(out, method.getGenericSignature());
+			out.writeInt(method.getModifiers());
+			writeStrings(out, method.getExceptionNames());
+			writeString(out, method.getDefaultValue());
+		}
+		IApiField[] fields = apiType.getFields();
+		out.writeInt(fields.length);
+		for (IApiField field : fields) {
+			out.writeUTF(field.getName());
+			out.writeUTF(field.getSignature());
+			writeString(out, field.getGenericSignature());
+			out.writeInt(field.getModifiers());
+			writeValue(out, field.getConstantValue());
+		}
+		out.flush();
+		return bytes.toByteArray();
+	}
+
+	/**
+	 * Decodes a type structure
+	 *
+	 * @param bytes the encoded structure
+	 * @param component the component of the type
+	 * @param root the type root of the type
+	 * @return the decoded type
+	 * @throws IOException if the bytes are not a valid encoding
+	 */
+	public static ApiType decode(byte[] bytes, IApiComponent component, IApiTypeRoot root) throws IOException {
+		DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes));
+		String name = in.readUTF();
+		String signature = in.readUTF();
+		String genericSignature = readString(in);
+		int modifiers = in.readInt();
+		String enclosingName = readString(in);
+		ApiType type = new ApiType(component, name, signature, genericSignature, modifiers, enclosingName, root);
+		type.setSuperclassName(readString(in));
+		type.setSuperInterfaceNames(readStrings(in));
+		if (in.readBoolean()) {
+			type.setAnonymous();
+		}
+		if (in.readBoolean()) {
+			type.setLocal();
+		}
+		if (in.readBoolean()) {
+			type.setMemberType();
+		}
+		String simpleName = readString(in);
+		if (simpleName != null) {
+			type.setSimpleName(simpleName);
+		}
+		if (in.readBoolean()) {
+			type.setEnclosingMethodInfo(readString(in), readString(in));
+		}
+		String[] memberTypes = readStrings(in);
+		if (memberTypes != null) {
+			for (String memberType : memberTypes) {
+				type.addMemberTypeName(memberType);
+			}
+		}
+		int count = in.readInt();
+		for (int i = 0; i < count; i++) {
+			ApiMethod method = type.addMethod(in.readUTF(), in.readUTF(), readString(in), in.readInt(), readStrings(in));
+			method.setDefaultValue(readString(in));
+		}
+		count = in.readInt();
+		for (int i = 0; i < count; i++) {
+			type.addField(in.readUTF(), in.readUTF(), readString(in), in.readInt(), readValue(in));
+		}
+		return type;
+	}
+
+	private static void writeString(DataOutputStream out, String value) throws IOException {
+		out.writeBoolean(value != null);
+		if (value != null) {
+			out.writeUTF(value);
+		}
+	}
+
+	private static String readString(DataInputStream in) throws IOException {
+		return in.readBoolean() ? in.readUTF() : null;
+	}
+
+	private static void writeStrings(DataOutputStream out, String[] values) throws IOException {
+		out.writeInt(values == null ? -1 : values.length);
+		if (values != null) {
+			for (String value : values) {
+				out.writeUTF(value);
+			}
+		}
+	}
+
+	private static String[] readStrings(DataInputStream in) throws IOException {
+		int length = in.readInt();
+		if (length < 0) {
+			return null;
+		}
+		String[] values = new String[length];
+		for (int i = 0; i < length; i++) {
+			values[i] = in.readUTF();
+		}
+		return values;
+	}
+
+	private static void writeValue(DataOutputStream out, Object value) throws IOException {
+		if (value instanceof Integer) {
+			out.writeByte(INTEGER_VALUE);
+			out.writeInt(((Integer) value).intValue());
+		} else if (value instanceof Long) {
+			out.writeByte(LONG_VALUE);
+			out.writeLong(((Long) value).longValue());
+		} else if (value instanceof Float) {
+			out.writeByte(FLOAT_VALUE);
+			out.writeFloat(((Float) value).floatValue());
+		} else if (value instanceof Double) {
+			out.writeByte(DOUBLE_VALUE);
+			out.writeDouble(((Double) value).doubleValue());
+		} else if (value != null) {
+			out.writeByte(STRING_VALUE);
+			out.writeUTF(value.toString());
+		} else {
+			out.writeByte(NULL_VALUE);
+		}
+	}
+
+	private static Object readValue(DataInputStream in) throws IOException {
+		byte kind = in.readByte();
+		switch (kind) {
+			case NULL_VALUE:
+				return null;
+			case INTEGER_VALUE:
+				return Integer.valueOf(in.readInt());
+			case LONG_VALUE:
+				return Long.valueOf(in.readLong());
+			case FLOAT_VALUE:
+				return Float.valueOf(in.readFloat());
+			case DOUBLE_VALUE:
+				return Double.valueOf(in.readDouble());
+			case STRING_VALUE:
+				return in.readUTF();
+			default:
+				throw new IOException("Unknown constant kind " + kind); //$NON-NLS-1$
+		}
+	}
+}
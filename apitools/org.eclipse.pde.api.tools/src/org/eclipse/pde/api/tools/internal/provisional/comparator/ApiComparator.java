@@ -13,7 +13,10 @@
  *******************************************************************************/
 package org.eclipse.pde.api.tools.internal.provisional.comparator;
 
+import java.util.ArrayList;
 import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Set;
 
 import org.eclipse.core.runtime.CoreException;
@@ -37,6 +40,7 @@ import org.eclipse.pde.api.tools.internal.provisional.model.IApiType;
 import org.eclipse.pde.api.tools.internal.provisional.model.IApiTypeContainer;
 import org.eclipse.pde.api.tools.internal.provisional.model.IApiTypeRoot;
 import org.eclipse.pde.api.tools.internal.util.Util;
+import org.eclipse.pde.api.tools.internal.util.WorkerPool;
 import org.osgi.framework.Version;
 
 /**
@@ -51,6 +55,11 @@ public class ApiComparator {
 	 */
 	public static final IDelta NO_DELTA = new Delta();
 
+	/**
+	 * Parallelism value to use to run a comparison on the calling thread only
+	 */
+	public static final int SEQUENTIAL = 1;
+
 	/**
 	 * Returns a delta for a API component version change
 	 *
@@ -88,6 +97,10 @@ public class ApiComparator {
 	/**
 	 * Returns a delta that corresponds to the difference between the given
 	 * baseline and the reference.
+	 * <p>
+	 * Equivalent to: compare(referenceBaseline, baseline, visibilityModifiers,
+	 * force, SEQUENTIAL, monitor);
+	 * </p>
 	 *
 	 * @param referenceBaseline the given API baseline which is used as the
 	 *            reference
@@ -103,6 +116,35 @@ public class ApiComparator {
 	 * @throws IllegalArgumentException if one of the two baselines is null
 	 */
 	public static IDelta compare(final IApiBaseline referenceBaseline, final IApiBaseline baseline, final int visibilityModifiers, final boolean force, final IProgressMonitor monitor) {
+		return compare(referenceBaseline, baseline, visibilityModifiers, force, SEQUENTIAL, monitor);
+	}
+
+	/**
+	 * Returns a delta that corresponds to the difference between the given
+	 * baseline and the reference.
+	 * <p>
+	 * If <code>parallelism</code> is greater than one, the API components are
+	 * compared concurrently using at most that many threads. The children of
+	 * the returned delta are always in the order of the components of the
+	 * reference baseline, whatever the parallelism.
+	 * </p>
+	 *
+	 * @param referenceBaseline the given API baseline which is used as the
+	 *            reference
+	 * @param baseline the given API baseline to compare with
+	 * @param visibilityModifiers the given visibility that triggers what
+	 *            visibility should be used for the comparison
+	 * @param force a flag to force the comparison of nested API components with
+	 *            the same versions
+	 * @param parallelism the maximum number of threads to use, or
+	 *            {@link #SEQUENTIAL}
+	 * @param monitor
+	 *
+	 * @return a delta, an empty delta if no difference is found or null if the
+	 *         delta detection failed
+	 * @throws IllegalArgumentException if one of the two baselines is null
+	 */
+	public static IDelta compare(final IApiBaseline referenceBaseline, final IApiBaseline baseline, final int visibilityModifiers, final boolean force, final int parallelism, final IProgressMonitor monitor) {
 		SubMonitor localmonitor = SubMonitor.convert(monitor, 2);
 		try {
 			if (referenceBaseline == null || baseline == null) {
@@ -112,41 +154,28 @@ public class ApiComparator {
 			IApiComponent[] apiComponents2 = baseline.getApiComponents();
 			Set<String> apiComponentsIds = new HashSet<>();
 			final Delta globalDelta = new Delta();
-			SubMonitor apiLoopMonitor = localmonitor.split(1).setWorkRemaining(apiComponents.length);
-			for (IApiComponent apiComponentMainLoop : apiComponents) {
-				apiLoopMonitor.split(1);
-				IApiComponent apiComponent = apiComponentMainLoop;
+			List<IApiComponent> components = new ArrayList<>(apiComponents.length);
+			for (IApiComponent apiComponent : apiComponents) {
 				if (!apiComponent.isSystemComponent()) {
+					components.add(apiComponent);
 					String id = apiComponent.getSymbolicName();
-					IApiComponent apiComponentBaseline = baseline.getApiComponent(id);
-					IDelta delta = null;
-					if (apiComponentBaseline == null) {
-						// report removal of an API component
-						delta = new Delta(null, IDelta.API_BASELINE_ELEMENT_TYPE, IDelta.REMOVED, IDelta.API_COMPONENT, null, id, id);
-					} else {
+					if (baseline.getApiComponent(id) != null) {
 						apiComponentsIds.add(id);
-						String versionString = apiComponent.getVersion();
-						String versionString2 = apiComponentBaseline.getVersion();
-						IDelta bundleVersionChangesDelta = checkBundleVersionChanges(apiComponentBaseline, id, versionString, versionString2);
-						if (bundleVersionChangesDelta != null) {
-							globalDelta.add(bundleVersionChangesDelta);
-						}
-						if (!versionString.equals(versionString2) || force) {
-							long time = System.currentTimeMillis();
-							try {
-								delta = compare(apiComponent, apiComponentBaseline, referenceBaseline, baseline, visibilityModifiers, localmonitor.split(1));
-							} finally {
-								if (ApiPlugin.DEBUG_API_COMPARATOR) {
-									System.out.println("Time spent for " + id + " " + versionString + " : " + (System.currentTimeMillis() - time) + "ms"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$
-								}
-							}
-						}
-					}
-					if (delta != null && delta != NO_DELTA) {
-						globalDelta.add(delta);
 					}
 				}
 			}
+			List<IDelta[]> componentDeltas;
+			try {
+				componentDeltas = WorkerPool.run(components, parallelism, component -> compareComponent(component, referenceBaseline, baseline, visibilityModifiers, force), localmonitor.split(1));
+			} catch (CoreException e) {
+				ApiPlugin.log(e);
+				return null;
+			}
+			for (IDelta[] deltas : componentDeltas) {
+				for (IDelta delta : deltas) {
+					globalDelta.add(delta);
+				}
+			}
 			SubMonitor elementLoopMonitor = localmonitor.split(1).setWorkRemaining(apiComponents2.length);
 			for (IApiComponent element : apiComponents2) {
 				elementLoopMonitor.split(1);
@@ -165,6 +194,50 @@ public class ApiComparator {
 		}
 	}
 
+	/**
+	 * Compares the given component from the reference baseline with its
+	 * counterpart in the given baseline. This method does not touch any shared
+	 * state and can be called from any thread.
+	 *
+	 * @param apiComponent the component from the reference baseline
+	 * @param referenceBaseline the reference baseline
+	 * @param baseline the baseline to compare with
+	 * @param visibilityModifiers the visibility to use for the comparison
+	 * @param force a flag to force the comparison of components with the same
+	 *            versions
+	 * @return the deltas to add to the global delta, in order, never
+	 *         <code>null</code>
+	 */
+	static IDelta[] compareComponent(IApiComponent apiComponent, IApiBaseline referenceBaseline, IApiBaseline baseline, int visibilityModifiers, boolean force) {
+		String id = apiComponent.getSymbolicName();
+		IApiComponent apiComponentBaseline = baseline.getApiComponent(id);
+		if (apiComponentBaseline == null) {
+			// report removal of an API component
+			return new IDelta[] { new Delta(null, IDelta.API_BASELINE_ELEMENT_TYPE, IDelta.REMOVED, IDelta.API_COMPONENT, null, id, id) };
+		}
+		List<IDelta> deltas = new ArrayList<>(2);
+		String versionString = apiComponent.getVersion();
+		String versionString2 = apiComponentBaseline.getVersion();
+		IDelta bundleVersionChangesDelta = checkBundleVersionChanges(apiComponentBaseline, id, versionString, versionString2);
+		if (bundleVersionChangesDelta != null) {
+			deltas.add(bundleVersionChangesDelta);
+		}
+		if (!versionString.equals(versionString2) || force) {
+			long time = System.currentTimeMillis();
+			try {
+				IDelta delta = compare(apiComponent, apiComponentBaseline, referenceBaseline, baseline, visibilityModifiers, null);
+				if (delta != null && delta != NO_DELTA) {
+					deltas.add(delta);
+				}
+			} finally {
+				if (ApiPlugin.DEBUG_API_COMPARATOR) {
+					System.out.println("Time spent for " + id + " " + versionString + " : " + (System.currentTimeMillis() - time) + "ms"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$
+				}
+			}
+		}
+		return deltas.toArray(new IDelta[deltas.size()]);
+	}
+
 	/**
 	 * Returns a delta that corresponds to the difference between the given
 	 * component and the reference baseline.
@@ -544,15 +617,49 @@ public class ApiComparator {
 	 *             visited
 	 */
 	public static IDelta compare(final IApiScope scope, final IApiBaseline baseline, final int visibilityModifiers, final boolean force, final boolean continueOnResolverError, final IProgressMonitor monitor) throws CoreException {
+		return compare(scope, baseline, visibilityModifiers, force, continueOnResolverError, SEQUENTIAL, monitor);
+	}
+
+	/**
+	 * Returns a delta that corresponds to the comparison of the given scope
+	 * with the given API baseline.
+	 * <p>
+	 * If <code>parallelism</code> is greater than one, the API components of
+	 * the scope are compared concurrently using at most that many threads. The
+	 * resulting deltas are merged in scope order, so the result does not
+	 * depend on the parallelism.
+	 * </p>
+	 *
+	 * @param scope the given scope for the comparison
+	 * @param baseline the given API baseline to compare with
+	 * @param visibilityModifiers the given visibility that triggers what
+	 *            visibility should be used for the comparison
+	 * @param force a flag to force the comparison of nested API components with
+	 *            the same versions
+	 * @param continueOnResolverError if <code>true</code> the comparison will
+	 *            continue even if a component in the scope has a resolver error
+	 * @param parallelism the maximum number of threads to use, or
+	 *            {@link #SEQUENTIAL}
+	 * @param monitor the given progress monitor to report progress
+	 *
+	 * @return a delta, an empty delta if no difference is found or null if the
+	 *         delta detection failed. If set to continue on resolver error a
+	 *         delta, possibly empty, will always be returned
+	 * @throws IllegalArgumentException if one of the two baselines is null
+	 *             CoreException if one of the element in the scope cannot be
+	 *             visited
+	 */
+	public static IDelta compare(final IApiScope scope, final IApiBaseline baseline, final int visibilityModifiers, final boolean force, final boolean continueOnResolverError, final int parallelism, final IProgressMonitor monitor) throws CoreException {
 
 		if (scope == null || baseline == null) {
 			throw new IllegalArgumentException("None of the scope or the baseline must be null"); //$NON-NLS-1$
 		}
-		SubMonitor localmonitor = SubMonitor.convert(monitor, 2);
+		SubMonitor localmonitor = SubMonitor.convert(monitor, 3);
 		try {
-			final Set<IDelta> deltas = new HashSet<>();
-			final CompareApiScopeVisitor visitor = new CompareApiScopeVisitor(deltas, baseline, force, visibilityModifiers, continueOnResolverError, localmonitor.split(1));
+			final Set<IDelta> deltas = new LinkedHashSet<>();
+			final CompareApiScopeVisitor visitor = new CompareApiScopeVisitor(deltas, baseline, force, visibilityModifiers, continueOnResolverError, parallelism, localmonitor.split(1));
 			scope.accept(visitor);
+			visitor.comparePendingComponents(localmonitor.split(1));
 
 			// If set to continue on error, return whatever deltas were
 			// collected
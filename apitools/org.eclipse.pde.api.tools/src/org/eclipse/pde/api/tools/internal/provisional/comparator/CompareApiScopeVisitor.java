@@ -13,6 +13,8 @@
  *******************************************************************************/
 package org.eclipse.pde.api.tools.internal.provisional.comparator;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Set;
 
 import org.eclipse.core.runtime.CoreException;
@@ -25,6 +27,7 @@ import org.eclipse.pde.api.tools.internal.provisional.model.IApiBaseline;
 import org.eclipse.pde.api.tools.internal.provisional.model.IApiComponent;
 import org.eclipse.pde.api.tools.internal.provisional.model.IApiTypeContainer;
 import org.eclipse.pde.api.tools.internal.provisional.model.IApiTypeRoot;
+import org.eclipse.pde.api.tools.internal.util.WorkerPool;
 
 /**
  * ApiScope visitor implementation to run the comparison on all elements of the
@@ -37,22 +40,49 @@ public class CompareApiScopeVisitor extends ApiScopeVisitor {
 	int visibilityModifiers;
 	boolean force;
 	boolean continueOnResolverError = false;
-	boolean containsErrors = false;
+	volatile boolean containsErrors = false;
+	int parallelism = ApiComparator.SEQUENTIAL;
 	SubMonitor monitor;
 
+	/**
+	 * Components visited while running in parallel mode, compared in
+	 * {@link #comparePendingComponents(SubMonitor)}
+	 */
+	List<IApiComponent> pendingComponents = new ArrayList<>();
+
 	public CompareApiScopeVisitor(final Set<IDelta> deltas, final IApiBaseline baseline, final boolean force, final int visibilityModifiers, final boolean continueOnResolverError, final SubMonitor monitor) {
+		this(deltas, baseline, force, visibilityModifiers, continueOnResolverError, ApiComparator.SEQUENTIAL, monitor);
+	}
+
+	/**
+	 * Constructor
+	 *
+	 * @param deltas the set to collect the leaf deltas into
+	 * @param baseline the reference baseline
+	 * @param force a flag to force the comparison of components with the same
+	 *            versions
+	 * @param visibilityModifiers the visibility to use for the comparison
+	 * @param continueOnResolverError if the comparison continues on resolver
+	 *            errors
+	 * @param parallelism the maximum number of threads to use. If greater than
+	 *            one, visited components are only recorded and compared by
+	 *            {@link #comparePendingComponents(SubMonitor)}
+	 * @param monitor the monitor to report progress to
+	 */
+	public CompareApiScopeVisitor(final Set<IDelta> deltas, final IApiBaseline baseline, final boolean force, final int visibilityModifiers, final boolean continueOnResolverError, final int parallelism, final SubMonitor monitor) {
 		this.deltas = deltas;
 		this.referenceBaseline = baseline;
 		this.visibilityModifiers = visibilityModifiers;
 		this.force = force;
 		this.continueOnResolverError = continueOnResolverError;
+		this.parallelism = parallelism;
 		this.monitor = monitor;
 	}
 
 	@Override
 	public boolean visit(IApiBaseline baseline) throws CoreException {
 		this.monitor.setWorkRemaining(100).split(1);
-		IDelta delta = ApiComparator.compare(this.referenceBaseline, baseline, this.visibilityModifiers, this.force, null);
+		IDelta delta = ApiComparator.compare(this.referenceBaseline, baseline, this.visibilityModifiers, this.force, this.parallelism, null);
 		if (delta != null) {
 			delta.accept(new DeltaVisitor() {
 				@Override
@@ -88,13 +118,48 @@ public class CompareApiScopeVisitor extends ApiScopeVisitor {
 	@Override
 	public boolean visit(IApiComponent component) throws CoreException {
 		SubMonitor subMonitor = this.monitor.setWorkRemaining(100).split(1).setWorkRemaining(100);
-		if (component.isSourceComponent() || component.isSystemComponent()) {
+		if (this.parallelism > ApiComparator.SEQUENTIAL) {
+			this.pendingComponents.add(component);
 			return false;
 		}
+		subMonitor.split(50);
+		this.deltas.addAll(compareComponent(component));
+		return false;
+	}
+
+	/**
+	 * Compares all of the components recorded while visiting the scope in
+	 * parallel mode and adds their deltas in visit order. Does nothing if the
+	 * visitor runs sequentially.
+	 *
+	 * @param localMonitor the monitor to report progress to
+	 * @throws CoreException if a component cannot be compared
+	 */
+	public void comparePendingComponents(SubMonitor localMonitor) throws CoreException {
+		List<List<IDelta>> results = WorkerPool.run(this.pendingComponents, this.parallelism, this::compareComponent, localMonitor);
+		this.pendingComponents.clear();
+		for (List<IDelta> componentDeltas : results) {
+			this.deltas.addAll(componentDeltas);
+		}
+	}
+
+	/**
+	 * Compares the given component against its counterpart in the reference
+	 * baseline. Safe to call from any thread.
+	 *
+	 * @param component the component to compare
+	 * @return the leaf deltas of the comparison, never <code>null</code>
+	 * @throws CoreException
+	 */
+	List<IDelta> compareComponent(IApiComponent component) throws CoreException {
+		final List<IDelta> leaves = new ArrayList<>();
+		if (component.isSourceComponent() || component.isSystemComponent()) {
+			return leaves;
+		}
 		if (component.getErrors() != null) {
 			this.containsErrors = true;
 			if (!continueOnResolverError) {
-				return false;
+				return leaves;
 			}
 		}
 		IApiComponent referenceComponent = this.referenceBaseline.getApiComponent(component.getSymbolicName());
@@ -102,11 +167,10 @@ public class CompareApiScopeVisitor extends ApiScopeVisitor {
 		if (referenceComponent != null && referenceComponent.getErrors() != null) {
 			this.containsErrors = true;
 			if (!continueOnResolverError) {
-				return false;
+				return leaves;
 			}
 		}
 
-		subMonitor.split(50);
 		final Delta globalDelta = new Delta();
 		globalDelta.add(ApiComparator.compare(referenceComponent, component, this.visibilityModifiers, null));
 		if (referenceComponent != null) {
@@ -121,11 +185,11 @@ public class CompareApiScopeVisitor extends ApiScopeVisitor {
 			@Override
 			public void endVisit(IDelta localDelta) {
 				if (localDelta.getChildren().length == 0) {
-					CompareApiScopeVisitor.this.deltas.add(localDelta);
+					leaves.add(localDelta);
 				}
 			}
 		});
-		return false;
+		return leaves;
 	}
 
 	@Override
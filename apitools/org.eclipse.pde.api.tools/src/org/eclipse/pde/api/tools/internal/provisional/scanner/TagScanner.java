@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2007, 2015 IBM Corporation and others.
+ * Copyright (c) 2007, 2019 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -47,6 +47,7 @@ import org.eclipse.jdt.core.dom.TypeDeclaration;
 import org.eclipse.jdt.core.dom.VariableDeclarationFragment;
 import org.eclipse.pde.api.tools.internal.CompilationUnit;
 import org.eclipse.pde.api.tools.internal.JavadocTagManager;
+import org.eclipse.pde.api.tools.internal.builder.ASTCache;
 import org.eclipse.pde.api.tools.internal.provisional.ApiPlugin;
 import org.eclipse.pde.api.tools.internal.provisional.Factory;
 import org.eclipse.pde.api.tools.internal.provisional.IApiAnnotations;
@@ -610,11 +611,11 @@ public class TagScanner {
 	 */
 	public void scan(CompilationUnit source, IApiDescription description, IApiTypeContainer container, Map<String, String> options, IProgressMonitor monitor) throws CoreException {
 		SubMonitor localmonitor = SubMonitor.convert(monitor, 2);
-		ASTParser parser = ASTParser.newParser(AST.JLS10);
+		char[] contents = null;
 		InputStream inputStream = null;
 		try {
 			inputStream = source.getInputStream();
-			parser.setSource(Util.getInputStreamAsCharArray(inputStream, -1, source.getEncoding()));
+			contents = Util.getInputStreamAsCharArray(inputStream, -1, source.getEncoding());
 		} catch (FileNotFoundException e) {
 			throw new CoreException(new Status(IStatus.ERROR, ApiPlugin.PLUGIN_ID, MessageFormat.format("Compilation unit source not found: {0}", source.getName()), e)); //$NON-NLS-1$
 		} catch (IOException e) {
@@ -636,9 +637,20 @@ public class TagScanner {
 		if (loptions == null) {
 			loptions = JavaCore.getOptions();
 		}
-		loptions.put(JavaCore.COMPILER_DOC_COMMENT_SUPPORT, JavaCore.ENABLED);
-		parser.setCompilerOptions(loptions);
-		org.eclipse.jdt.core.dom.CompilationUnit cunit = (org.eclipse.jdt.core.dom.CompilationUnit) parser.createAST(localmonitor.split(1));
+		org.eclipse.jdt.core.dom.CompilationUnit cunit = null;
+		// share the AST with the API analysis of the unit if one is running
+		ASTCache cache = ASTCache.getActive();
+		ICompilationUnit unit = source.getCompilationUnit();
+		if (cache != null && unit != null) {
+			cunit = cache.getAST(unit.getHandleIdentifier(), new String(contents), loptions);
+			localmonitor.split(1);
+		} else {
+			ASTParser parser = ASTParser.newParser(AST.JLS10);
+			parser.setSource(contents);
+			loptions.put(JavaCore.COMPILER_DOC_COMMENT_SUPPORT, JavaCore.ENABLED);
+			parser.setCompilerOptions(loptions);
+			cunit = (org.eclipse.jdt.core.dom.CompilationUnit) parser.createAST(localmonitor.split(1));
+		}
 		Visitor visitor = new Visitor(description, container);
 		cunit.accept(visitor);
 	}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2009, 2015 IBM Corporation and others.
+ * Copyright (c) 2009, 2019 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -14,6 +14,7 @@
 package org.eclipse.pde.api.tools.internal.provisional.search;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
@@ -22,6 +23,8 @@ import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.IStatus;
 import org.eclipse.core.runtime.MultiStatus;
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.core.runtime.OperationCanceledException;
 import org.eclipse.core.runtime.Status;
 import org.eclipse.core.runtime.SubMonitor;
 import org.eclipse.pde.api.tools.internal.AntFilterStore;
@@ -38,6 +41,7 @@ import org.eclipse.pde.api.tools.internal.provisional.model.IApiType;
 import org.eclipse.pde.api.tools.internal.provisional.model.IApiTypeContainer;
 import org.eclipse.pde.api.tools.internal.provisional.model.IApiTypeRoot;
 import org.eclipse.pde.api.tools.internal.search.SearchMessages;
+import org.eclipse.pde.api.tools.internal.util.WorkerPool;
 
 import com.ibm.icu.text.MessageFormat;
 
@@ -119,6 +123,38 @@ public final class ApiSearchEngine {
 		}
 	}
 
+	/**
+	 * Reporter that serializes all calls to the reporter it delegates to, used
+	 * when several components are searched concurrently
+	 */
+	private static final class SynchronizedReporter implements IApiSearchReporter {
+		private final IApiSearchReporter delegate;
+
+		SynchronizedReporter(IApiSearchReporter delegate) {
+			this.delegate = delegate;
+		}
+
+		@Override
+		public synchronized void reportResults(IApiElement element, IReference[] references) {
+			delegate.reportResults(element, references);
+		}
+
+		@Override
+		public synchronized void reportNotSearched(IApiElement[] elements) {
+			delegate.reportNotSearched(elements);
+		}
+
+		@Override
+		public synchronized void reportMetadata(IMetadata data) {
+			delegate.reportMetadata(data);
+		}
+
+		@Override
+		public synchronized void reportCounts() {
+			delegate.reportCounts();
+		}
+	}
+
 	/**
 	 * Simple string used for reporting what is being searched
 	 */
@@ -250,6 +286,30 @@ public final class ApiSearchEngine {
 	 * @throws CoreException if the search fails
 	 */
 	public void search(IApiBaseline baseline, IApiSearchRequestor requestor, IApiSearchReporter reporter, IProgressMonitor monitor) throws CoreException {
+		search(baseline, requestor, reporter, 1, monitor);
+	}
+
+	/**
+	 * Searches for all of the use of API or internal code from the given
+	 * {@link IApiComponent} within the given {@link IApiBaseline}, searching
+	 * up to <code>threads</code> elements of the scope concurrently.
+	 * <p>
+	 * When more than one thread is used the calls to the reporter are
+	 * serialized, but the order in which the results of different elements
+	 * are reported is not defined. The given requestor must support being
+	 * called from several threads.
+	 * </p>
+	 *
+	 * @param baseline the baseline to search within
+	 * @param requestor the requestor to use for the search
+	 * @param reporter the reporter to use when reporting any search results to
+	 *            the user
+	 * @param threads the maximum number of elements to search concurrently
+	 * @param monitor the monitor to report progress to
+	 * @throws CoreException if the search fails
+	 * @since 1.1.800
+	 */
+	public void search(IApiBaseline baseline, IApiSearchRequestor requestor, IApiSearchReporter reporter, int threads, IProgressMonitor monitor) throws CoreException {
 		if (baseline == null || reporter == null || requestor == null) {
 			return;
 		}
@@ -261,6 +321,14 @@ public final class ApiSearchEngine {
 		fRequestorContext = computeContext(requestor);
 		IApiElement[] scopeelements = scope.getApiElements();
 		SubMonitor localmonitor = SubMonitor.convert(monitor, MessageFormat.format(SearchMessages.ApiSearchEngine_searching_projects, fRequestorContext), scopeelements.length * 2 + 1);
+		if (threads > 1 && scopeelements.length > 1) {
+			try {
+				searchParallel(scopeelements, requestor, new SynchronizedReporter(reporter), threads, localmonitor);
+			} finally {
+				localmonitor.done();
+			}
+			return;
+		}
 		try {
 			long start = System.currentTimeMillis();
 			long loopstart = 0;
@@ -302,6 +370,66 @@ public final class ApiSearchEngine {
 		}
 	}
 
+	/**
+	 * Searches the given elements using a pool of at most <code>threads</code>
+	 * workers. Failures of single elements are collected and reported once all
+	 * elements have been searched.
+	 *
+	 * @param scopeelements the elements to search
+	 * @param requestor the requestor to use for the search
+	 * @param reporter the thread-safe reporter to report results to
+	 * @param threads the maximum number of elements to search concurrently
+	 * @param monitor the monitor to report progress to
+	 * @throws CoreException if searching any of the elements failed
+	 */
+	private void searchParallel(IApiElement[] scopeelements, IApiSearchRequestor requestor, IApiSearchReporter reporter, int threads, SubMonitor monitor) throws CoreException {
+		long start = System.currentTimeMillis();
+		// workers report their progress through the calling thread only
+		IProgressMonitor workermonitor = new NullProgressMonitor() {
+			@Override
+			public boolean isCanceled() {
+				return monitor.isCanceled();
+			}
+		};
+		List<CoreException> failures;
+		try {
+			failures = WorkerPool.run(Arrays.asList(scopeelements), threads, element -> {
+				long loopstart = System.currentTimeMillis();
+				String name = element.getApiComponent().getSymbolicName();
+				if (ApiPlugin.DEBUG_SEARCH_ENGINE) {
+					System.out.println("Searching " + name + " on " + Thread.currentThread().getName() + "..."); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+				}
+				try {
+					searchReferences(requestor, element, reporter, workermonitor);
+				} catch (CoreException ce) {
+					return ce;
+				}
+				if (ApiPlugin.DEBUG_SEARCH_ENGINE) {
+					System.out.println("Searched " + name + " in " + (System.currentTimeMillis() - loopstart) + " ms"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+				}
+				return null;
+			}, monitor.split(scopeelements.length * 2));
+		} catch (OperationCanceledException e) {
+			return;
+		}
+		if (ApiPlugin.DEBUG_SEARCH_ENGINE) {
+			System.out.println("Total Search Time: " + ((System.currentTimeMillis() - start) / 1000) + " seconds using " + threads + " threads"); //$NON-NLS-1$//$NON-NLS-2$ //$NON-NLS-3$
+		}
+		MultiStatus mstatus = null;
+		for (CoreException ce : failures) {
+			if (ce == null) {
+				continue;
+			}
+			if (mstatus == null) {
+				mstatus = new MultiStatus(ApiPlugin.PLUGIN_ID, IStatus.ERROR, null, null);
+			}
+			mstatus.add(new Status(IStatus.ERROR, ApiPlugin.PLUGIN_ID, ce.getMessage(), ce));
+		}
+		if (mstatus != null) {
+			throw new CoreException(mstatus);
+		}
+	}
+
 	/**
 	 * Computes the process context (label)
 	 *
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2011, 2013 IBM Corporation and others.
+ * Copyright (c) 2011, 2019 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -116,7 +116,20 @@ class MissingRefParser extends UseScanParser {
 		}
 		File[] components = getDirectories(reportsRoot);
 		components = sort(components);
+		parse(components, visitor);
+	}
 
+	/**
+	 * Visits the reports of the given components. Separate parsers can visit
+	 * disjoint sets of components concurrently.
+	 *
+	 * @param components the directories of the components in the root of the
+	 *            scan
+	 * @param visitor
+	 * @throws Exception
+	 * @since 1.1.800
+	 */
+	public void parse(File[] components, MissingRefVisitor visitor) throws Exception {
 		visitor.visitScan();
 		SAXParser parser = getParser();
 		// Treat each top level directory as a producer component
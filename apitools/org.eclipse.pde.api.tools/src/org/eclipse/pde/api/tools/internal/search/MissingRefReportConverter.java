@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2011, 2017 IBM Corporation and others.
+ * Copyright (c) 2011, 2019 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -20,25 +20,34 @@ import java.io.OutputStreamWriter;
 import java.io.PrintWriter;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.Comparator;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map.Entry;
+import java.util.Set;
 import java.util.TreeMap;
 
+import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.SubMonitor;
 import org.eclipse.osgi.util.NLS;
 import org.eclipse.pde.api.tools.internal.problems.ApiProblem;
 import org.eclipse.pde.api.tools.internal.provisional.ApiPlugin;
 import org.eclipse.pde.api.tools.internal.provisional.descriptors.IComponentDescriptor;
 import org.eclipse.pde.api.tools.internal.provisional.problems.IApiProblem;
 import org.eclipse.pde.api.tools.internal.provisional.search.IMetadata;
+import org.eclipse.pde.api.tools.internal.util.WorkerPool;
 import org.osgi.framework.Version;
 
 public class MissingRefReportConverter extends UseReportConverter {
 
 	class MissingRefVisitor {
 		public List<Report> reports;
+		Report currentreport = null;
 
 		public void visitScan() {
 			reports = new ArrayList<>();
@@ -234,7 +243,6 @@ public class MissingRefReportConverter extends UseReportConverter {
 	private String htmlLocation = null;
 	private File reportsRoot = null;
 	private File htmlIndex = null;
-	Report currentreport = null;
 
 	static final Comparator<Object> missingcompare = (o1, o2) -> {
 		if (o1 instanceof String && o2 instanceof String) {
@@ -535,12 +543,98 @@ public class MissingRefReportConverter extends UseReportConverter {
 	 * Parse the XML directories and report.xml and generate HTML for them
 	 */
 	protected List<?> parse() throws Exception {
+		if (getThreads() > 1 || isIncremental()) {
+			return parseProblems();
+		}
 		MissingRefParser lparser = new MissingRefParser();
 		MissingRefVisitor visitor = new MissingRefVisitor();
 		lparser.parse(getXmlLocation(), visitor);
 		return visitor.reports;
 	}
 
+	/**
+	 * Parses the problems of each component separately, on up to
+	 * {@link #getThreads()} threads. In incremental mode the pages of
+	 * components whose problems did not change are kept.
+	 *
+	 * @return the reports of the components
+	 * @throws Exception
+	 */
+	List<Report> parseProblems() throws Exception {
+		MissingRefParser lparser = new MissingRefParser();
+		File[] components = lparser.sort(lparser.getDirectories(getReportsRoot()));
+		ReportManifest manifest = null;
+		if (isIncremental()) {
+			manifest = new ReportManifest(new File(getHtmlLocation()), getManifestConfiguration());
+		}
+		final ReportManifest lmanifest = manifest;
+		List<Report> reports = WorkerPool.run(Arrays.asList(components), getThreads(), component -> parseComponentProblems(component, lmanifest), SubMonitor.convert(null));
+		if (manifest != null) {
+			Set<String> names = new HashSet<>();
+			for (Report report : reports) {
+				if (report != null) {
+					names.add(report.name);
+				}
+			}
+			pruneComponents(manifest, names);
+			manifest.save();
+		}
+		return new ArrayList<>(reports);
+	}
+
+	/**
+	 * Parses the problems of the given component and writes its page, unless
+	 * the manifest shows it is up to date
+	 *
+	 * @param component the directory of the component
+	 * @param manifest the manifest or <code>null</code>
+	 * @return the report of the component
+	 * @throws CoreException if the problems cannot be parsed
+	 */
+	Report parseComponentProblems(File component, ReportManifest manifest) throws CoreException {
+		MissingRefParser lparser = new MissingRefParser();
+		MissingRefVisitor visitor = new MissingRefVisitor();
+		long checksum = 0;
+		ReportManifest lmanifest = manifest;
+		if (lmanifest != null) {
+			try {
+				checksum = ReportManifest.checksum(component);
+			} catch (IOException e) {
+				ApiPlugin.log(e);
+				lmanifest = null;
+			}
+		}
+		if (lmanifest != null) {
+			String[] values = lmanifest.get(component.getName(), checksum);
+			if (values != null && values.length == 3) {
+				String[] idv = lparser.getIdVersion(component.getName());
+				Report report = new Report();
+				report.name = visitor.composeName(idv[0], idv[1]);
+				try {
+					report.typeProblems = Integer.parseInt(values[0]);
+					report.methodProblems = Integer.parseInt(values[1]);
+					report.fieldProblems = Integer.parseInt(values[2]);
+				} catch (NumberFormatException e) {
+					report = null;
+				}
+				if (report != null && new File(new File(getHtmlLocation(), report.name), "index.html").exists()) { //$NON-NLS-1$
+					lmanifest.put(component.getName(), checksum, values);
+					return report;
+				}
+			}
+		}
+		try {
+			lparser.parse(new File[] { component }, visitor);
+		} catch (Exception e) {
+			throw new CoreException(new Status(IStatus.ERROR, ApiPlugin.PLUGIN_ID, e.getMessage(), e));
+		}
+		Report report = visitor.reports.get(0);
+		if (lmanifest != null) {
+			lmanifest.put(component.getName(), checksum, Integer.toString(report.typeProblems), Integer.toString(report.methodProblems), Integer.toString(report.fieldProblems));
+		}
+		return report;
+	}
+
 	@Override
 	protected String getHtmlLocation() {
 		return this.htmlLocation;
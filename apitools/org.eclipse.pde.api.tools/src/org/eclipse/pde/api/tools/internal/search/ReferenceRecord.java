@@ -0,0 +1,246 @@
+/*******************************************************************************
+ * Copyright (c) 2019 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.pde.api.tools.internal.search;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * The flattened form of an {@link IReferenceDescriptor}, holding exactly the
+ * values written to a use scan report by {@link XmlReferenceDescriptorWriter}.
+ * <p>
+ * Records are ordered by the report file they belong to (referenced component,
+ * referencing component, visibility and reference type), then by the
+ * referenced member and the reference kind, so that a sorted sequence of
+ * records can be written to the report files in a single pass. Two records
+ * that compare equal write the same XML.
+ * </p>
+ *
+ * @since 1.1.800
+ */
+final class ReferenceRecord implements Comparable<ReferenceRecord> {
+
+	/**
+	 * Id of the referenced component, including its version
+	 */
+	String referee;
+	/**
+	 * Id of the referencing component, including its version
+	 */
+	String origin;
+	int visibility;
+	/**
+	 * One of the <code>IReference.T_*</code> reference types
+	 */
+	int referenceType;
+
+	/**
+	 * Signature of the referenced member
+	 */
+	String target;
+	String targetType;
+	String targetMember;
+	String targetSignature;
+
+	int kind;
+	int flags;
+
+	/**
+	 * Signature of the referencing member
+	 */
+	String source;
+	String sourceType;
+	String sourceMember;
+	String sourceSignature;
+	/**
+	 * The problem message arguments or <code>null</code>
+	 */
+	String messages;
+	int lineNumber;
+
+	/**
+	 * Returns if the given record is written to the same report file as this
+	 * record
+	 *
+	 * @param record
+	 * @return <code>true</code> if both records belong to the same report file
+	 */
+	boolean isSameGroup(ReferenceRecord record) {
+		return referee.equals(record.referee) && origin.equals(record.origin) && visibility == record.visibility && referenceType == record.referenceType;
+	}
+
+	/**
+	 * Copies the values identifying the report file of the given record
+	 *
+	 * @param record
+	 */
+	void setGroup(ReferenceRecord record) {
+		referee = record.referee;
+		origin = record.origin;
+		visibility = record.visibility;
+		referenceType = record.referenceType;
+	}
+
+	@Override
+	public int compareTo(ReferenceRecord record) {
+		int result = referee.compareTo(record.referee);
+		if (result == 0) {
+			result = origin.compareTo(record.origin);
+		}
+		if (result == 0) {
+			result = Integer.compare(visibility, record.visibility);
+		}
+		if (result == 0) {
+			result = Integer.compare(referenceType, record.referenceType);
+		}
+		if (result == 0) {
+			result = compare(target, record.target);
+		}
+		if (result == 0) {
+			result = Integer.compare(kind, record.kind);
+		}
+		if (result == 0) {
+			result = Integer.compare(flags, record.flags);
+		}
+		if (result == 0) {
+			result = compare(source, record.source);
+		}
+		if (result == 0) {
+			result = Integer.compare(lineNumber, record.lineNumber);
+		}
+		if (result == 0) {
+			result = compare(messages, record.messages);
+		}
+		if (result == 0) {
+			result = compare(targetType, record.targetType);
+		}
+		if (result == 0) {
+			result = compare(targetMember, record.targetMember);
+		}
+		if (result == 0) {
+			result = compare(targetSignature, record.targetSignature);
+		}
+		if (result == 0) {
+			result = compare(sourceType, record.sourceType);
+		}
+		if (result == 0) {
+			result = compare(sourceMember, record.sourceMember);
+		}
+		if (result == 0) {
+			result = compare(sourceSignature, record.sourceSignature);
+		}
+		return result;
+	}
+
+	/**
+	 * Compares two strings, <code>null</code> first
+	 */
+	static int compare(String s1, String s2) {
+		if (s1 == null) {
+			return s2 == null ? 0 : -1;
+		}
+		return s2 == null ? 1 : s1.compareTo(s2);
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		return obj instanceof ReferenceRecord && compareTo((ReferenceRecord) obj) == 0;
+	}
+
+	@Override
+	public int hashCode() {
+		return referee.hashCode() + origin.hashCode() + (target == null ? 0 : target.hashCode()) + kind + lineNumber;
+	}
+
+	/**
+	 * Writes this record to the given stream
+	 *
+	 * @param out
+	 * @throws IOException
+	 * @see #read(DataInputStream)
+	 */
+	void write(DataOutputStream out) throws IOException {
+		writeString(referee, out);
+		writeString(origin, out);
+		out.writeInt(visibility);
+		out.writeInt(referenceType);
+		writeString(target, out);
+		writeString(targetType, out);
+		writeString(targetMember, out);
+		writeString(targetSignature, out);
+		out.writeInt(kind);
+		out.writeInt(flags);
+		writeString(source, out);
+		writeString(sourceType, out);
+		writeString(sourceMember, out);
+		writeString(sourceSignature, out);
+		writeString(messages, out);
+		out.writeInt(lineNumber);
+	}
+
+	/**
+	 * Reads a record written by {@link #write(DataOutputStream)}
+	 *
+	 * @param in
+	 * @return the record read from the stream
+	 * @throws IOException
+	 */
+	static ReferenceRecord read(DataInputStream in) throws IOException {
+		ReferenceRecord record = new ReferenceRecord();
+		record.referee = readString(in);
+		record.origin = readString(in);
+		record.visibility = in.readInt();
+		record.referenceType = in.readInt();
+		record.target = readString(in);
+		record.targetType = readString(in);
+		record.targetMember = readString(in);
+		record.targetSignature = readString(in);
+		record.kind = in.readInt();
+		record.flags = in.readInt();
+		record.source = readString(in);
+		record.sourceType = readString(in);
+		record.sourceMember = readString(in);
+		record.sourceSignature = readString(in);
+		record.messages = readString(in);
+		record.lineNumber = in.readInt();
+		return record;
+	}
+
+	/**
+	 * Writes the given string as length-prefixed UTF-8, since problem
+	 * messages are not limited to the length supported by
+	 * {@link DataOutputStream#writeUTF(String)}
+	 */
+	private static void writeString(String value, DataOutputStream out) throws IOException {
+		if (value == null) {
+			out.writeInt(-1);
+			return;
+		}
+		byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+		out.writeInt(bytes.length);
+		out.write(bytes);
+	}
+
+	private static String readString(DataInputStream in) throws IOException {
+		int length = in.readInt();
+		if (length < 0) {
+			return null;
+		}
+		byte[] bytes = new byte[length];
+		in.readFully(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+}
@@ -0,0 +1,256 @@
+/*******************************************************************************
+ * Copyright (c) 2019 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.pde.api.tools.internal.search;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Sorts {@link ReferenceRecord}s using a bounded amount of memory. Records
+ * are collected in a buffer; whenever the buffer is full it is sorted and
+ * spilled to a temporary run file. {@link #sort()} merges the runs and the
+ * remaining buffer into one sorted sequence without duplicates.
+ *
+ * @since 1.1.800
+ */
+final class ReferenceRecordSorter implements Closeable {
+
+	/**
+	 * A sequence of records
+	 */
+	interface RecordInput extends Closeable {
+		/**
+		 * @return the next record or <code>null</code> if there are no more
+		 *         records
+		 * @throws IOException
+		 */
+		ReferenceRecord next() throws IOException;
+	}
+
+	/**
+	 * Input over an in-memory list of records
+	 */
+	static final class ListInput implements RecordInput {
+		private final Iterator<ReferenceRecord> iterator;
+
+		ListInput(List<ReferenceRecord> records) {
+			iterator = records.iterator();
+		}
+
+		@Override
+		public ReferenceRecord next() {
+			return iterator.hasNext() ? iterator.next() : null;
+		}
+
+		@Override
+		public void close() {
+			// nothing to release
+		}
+	}
+
+	/**
+	 * Input over a run file
+	 */
+	static final class RunInput implements RecordInput {
+		private final DataInputStream in;
+		private int remaining;
+
+		RunInput(File run, int count) throws IOException {
+			in = new DataInputStream(new BufferedInputStream(new FileInputStream(run)));
+			remaining = count;
+		}
+
+		@Override
+		public ReferenceRecord next() throws IOException {
+			if (remaining == 0) {
+				return null;
+			}
+			remaining--;
+			return ReferenceRecord.read(in);
+		}
+
+		@Override
+		public void close() throws IOException {
+			in.close();
+		}
+	}
+
+	/**
+	 * Merges sorted inputs into one sorted input, dropping duplicate records
+	 */
+	static final class MergeInput implements RecordInput {
+		/**
+		 * Head of one of the merged inputs
+		 */
+		private static final class Head implements Comparable<Head> {
+			final RecordInput input;
+			ReferenceRecord record;
+
+			Head(RecordInput input, ReferenceRecord record) {
+				this.input = input;
+				this.record = record;
+			}
+
+			@Override
+			public int compareTo(Head head) {
+				return record.compareTo(head.record);
+			}
+		}
+
+		private final List<RecordInput> inputs;
+		private final PriorityQueue<Head> heads;
+		private ReferenceRecord last = null;
+
+		MergeInput(List<RecordInput> inputs) throws IOException {
+			this.inputs = inputs;
+			heads = new PriorityQueue<>(Math.max(1, inputs.size()));
+			try {
+				for (RecordInput input : inputs) {
+					ReferenceRecord record = input.next();
+					if (record != null) {
+						heads.add(new Head(input, record));
+					}
+				}
+			} catch (IOException e) {
+				close();
+				throw e;
+			}
+		}
+
+		@Override
+		public ReferenceRecord next() throws IOException {
+			while (!heads.isEmpty()) {
+				Head head = heads.poll();
+				ReferenceRecord record = head.record;
+				head.record = head.input.next();
+				if (head.record != null) {
+					heads.add(head);
+				}
+				if (last == null || last.compareTo(record) != 0) {
+					last = record;
+					return record;
+				}
+			}
+			return null;
+		}
+
+		@Override
+		public void close() throws IOException {
+			IOException failure = null;
+			for (RecordInput input : inputs) {
+				try {
+					input.close();
+				} catch (IOException e) {
+					failure = e;
+				}
+			}
+			if (failure != null) {
+				throw failure;
+			}
+		}
+	}
+
+	private final int fBufferSize;
+	private final List<ReferenceRecord> fBuffer = new ArrayList<>();
+	private final List<File> fRuns = new ArrayList<>();
+	private final List<Integer> fRunSizes = new ArrayList<>();
+
+	/**
+	 * Constructor
+	 *
+	 * @param bufferSize the maximum number of records to keep in memory
+	 */
+	ReferenceRecordSorter(int bufferSize) {
+		fBufferSize = Math.max(1, bufferSize);
+	}
+
+	/**
+	 * Adds the given record, spilling the buffer to disk if it is full
+	 *
+	 * @param record
+	 * @throws IOException if the buffer cannot be spilled
+	 */
+	void add(ReferenceRecord record) throws IOException {
+		fBuffer.add(record);
+		if (fBuffer.size() >= fBufferSize) {
+			spill();
+		}
+	}
+
+	/**
+	 * Sorts the buffer and writes it to a new run file
+	 */
+	private void spill() throws IOException {
+		Collections.sort(fBuffer);
+		File run = File.createTempFile("references", ".run"); //$NON-NLS-1$ //$NON-NLS-2$
+		fRuns.add(run);
+		try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(run)))) {
+			for (ReferenceRecord record : fBuffer) {
+				record.write(out);
+			}
+		}
+		fRunSizes.add(Integer.valueOf(fBuffer.size()));
+		fBuffer.clear();
+	}
+
+	/**
+	 * Returns all records added so far in sorted order without duplicates.
+	 * The returned input must be closed; the run files are kept until this
+	 * sorter is closed.
+	 *
+	 * @return the sorted records
+	 * @throws IOException if a run file cannot be read
+	 */
+	RecordInput sort() throws IOException {
+		Collections.sort(fBuffer);
+		List<RecordInput> inputs = new ArrayList<>(fRuns.size() + 1);
+		try {
+			for (int i = 0; i < fRuns.size(); i++) {
+				inputs.add(new RunInput(fRuns.get(i), fRunSizes.get(i).intValue()));
+			}
+		} catch (IOException e) {
+			for (RecordInput input : inputs) {
+				input.close();
+			}
+			throw e;
+		}
+		inputs.add(new ListInput(fBuffer));
+		return new MergeInput(inputs);
+	}
+
+	/**
+	 * Deletes the run files of this sorter
+	 */
+	@Override
+	public void close() {
+		for (File run : fRuns) {
+			run.delete();
+		}
+		fRuns.clear();
+		fRunSizes.clear();
+		fBuffer.clear();
+	}
+}
@@ -0,0 +1,179 @@
+/*******************************************************************************
+ * Copyright (c) 2019 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.pde.api.tools.internal.search;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Properties;
+import java.util.Set;
+import java.util.zip.CRC32;
+
+/**
+ * Records the checksum of the XML reports each component page of an HTML
+ * report was generated from, together with the values the report index needs
+ * for the component. A converter run in incremental mode reuses the pages of
+ * components whose XML reports did not change since the previous run.
+ * <p>
+ * The manifest is only valid for the converter configuration it was written
+ * with, since filter patterns change the content of every page.
+ * </p>
+ *
+ * @since 1.1.800
+ */
+final class ReportManifest {
+
+	/**
+	 * Name of the manifest file in the HTML root
+	 */
+	static final String MANIFEST_FILE = "report_manifest.properties"; //$NON-NLS-1$
+
+	private static final String CONFIGURATION = "%configuration"; //$NON-NLS-1$
+	private static final String SEPARATOR = ","; //$NON-NLS-1$
+
+	private final File fFile;
+	private final String fConfiguration;
+	private final Properties fPrevious = new Properties();
+	private final Properties fCurrent = new Properties();
+	private final Set<String> fPreviousComponents = new HashSet<>();
+
+	/**
+	 * Constructor, loads the manifest of the previous run if it was written
+	 * with the same configuration
+	 *
+	 * @param htmlroot the HTML root of the report
+	 * @param configuration a description of the converter configuration
+	 */
+	ReportManifest(File htmlroot, String configuration) {
+		fFile = new File(htmlroot, MANIFEST_FILE);
+		fConfiguration = configuration;
+		if (fFile.isFile()) {
+			try (InputStream in = new BufferedInputStream(new FileInputStream(fFile))) {
+				fPrevious.load(in);
+			} catch (IOException e) {
+				fPrevious.clear();
+			}
+			fPreviousComponents.addAll(fPrevious.stringPropertyNames());
+			fPreviousComponents.remove(CONFIGURATION);
+			if (!configuration.equals(fPrevious.getProperty(CONFIGURATION))) {
+				fPrevious.clear();
+			}
+		}
+		fCurrent.setProperty(CONFIGURATION, configuration);
+	}
+
+	/**
+	 * Returns the values recorded by the previous run for the given component,
+	 * if its XML reports had the given checksum
+	 *
+	 * @param component the name of the component directory
+	 * @param checksum the checksum of the current XML reports
+	 * @return the recorded values or <code>null</code> if the component has to
+	 *         be converted again
+	 */
+	synchronized String[] get(String component, long checksum) {
+		String value = fPrevious.getProperty(component);
+		if (value == null) {
+			return null;
+		}
+		String[] values = value.split(SEPARATOR, -1);
+		if (!Long.toString(checksum).equals(values[0])) {
+			return null;
+		}
+		return Arrays.copyOfRange(values, 1, values.length);
+	}
+
+	/**
+	 * Returns the components recorded by the previous run, whatever its
+	 * configuration. Their pages may have to be removed if they are no longer
+	 * part of the report.
+	 *
+	 * @return the names of the component directories of the previous run
+	 */
+	synchronized Set<String> getPreviousComponents() {
+		return new HashSet<>(fPreviousComponents);
+	}
+
+	/**
+	 * Records the values of a converted or reused component
+	 *
+	 * @param component the name of the component directory
+	 * @param checksum the checksum of its XML reports
+	 * @param values the values to record, must not contain
+	 *            <code>','</code>
+	 */
+	synchronized void put(String component, long checksum, String... values) {
+		StringBuilder buffer = new StringBuilder(Long.toString(checksum));
+		for (String value : values) {
+			buffer.append(SEPARATOR).append(value);
+		}
+		fCurrent.setProperty(component, buffer.toString());
+	}
+
+	/**
+	 * Writes the values recorded by this run, replacing the manifest of the
+	 * previous run
+	 *
+	 * @throws IOException
+	 */
+	synchronized void save() throws IOException {
+		try (OutputStream out = new BufferedOutputStream(new FileOutputStream(fFile))) {
+			fCurrent.store(out, null);
+		}
+	}
+
+	/**
+	 * Computes the checksum of the names and contents of all files below the
+	 * given directory
+	 *
+	 * @param directory
+	 * @return the checksum
+	 * @throws IOException if a file cannot be read
+	 */
+	static long checksum(File directory) throws IOException {
+		CRC32 crc = new CRC32();
+		checksum(directory, "", crc, new byte[8192]); //$NON-NLS-1$
+		return crc.getValue();
+	}
+
+	private static void checksum(File directory, String path, CRC32 crc, byte[] buffer) throws IOException {
+		File[] files = directory.listFiles();
+		if (files == null) {
+			return;
+		}
+		Arrays.sort(files);
+		for (File file : files) {
+			String name = path + '/' + file.getName();
+			if (file.isDirectory()) {
+				checksum(file, name, crc, buffer);
+				continue;
+			}
+			crc.update(name.getBytes(StandardCharsets.UTF_8));
+			try (InputStream in = new FileInputStream(file)) {
+				int read;
+				while ((read = in.read(buffer)) != -1) {
+					crc.update(buffer, 0, read);
+				}
+			}
+		}
+	}
+}
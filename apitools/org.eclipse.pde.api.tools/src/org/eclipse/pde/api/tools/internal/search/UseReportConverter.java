@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2009, 2018 IBM Corporation and others.
+ * Copyright (c) 2009, 2019 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -23,13 +23,16 @@ import java.io.OutputStreamWriter;
 import java.io.PrintWriter;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.Set;
 import java.util.StringTokenizer;
 import java.util.TreeMap;
 import java.util.TreeSet;
@@ -41,6 +44,7 @@ import javax.xml.parsers.SAXParser;
 import javax.xml.parsers.SAXParserFactory;
 import javax.xml.transform.Result;
 import javax.xml.transform.Source;
+import javax.xml.transform.Templates;
 import javax.xml.transform.Transformer;
 import javax.xml.transform.TransformerException;
 import javax.xml.transform.TransformerFactory;
@@ -50,7 +54,9 @@ import javax.xml.transform.stream.StreamSource;
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IPath;
 import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
 import org.eclipse.core.runtime.Path;
+import org.eclipse.core.runtime.Status;
 import org.eclipse.core.runtime.SubMonitor;
 import org.eclipse.jdt.core.Signature;
 import org.eclipse.osgi.util.NLS;
@@ -67,6 +73,7 @@ import org.eclipse.pde.api.tools.internal.provisional.descriptors.IReferenceType
 import org.eclipse.pde.api.tools.internal.provisional.search.IMetadata;
 import org.eclipse.pde.api.tools.internal.util.Signatures;
 import org.eclipse.pde.api.tools.internal.util.Util;
+import org.eclipse.pde.api.tools.internal.util.WorkerPool;
 import org.osgi.framework.Version;
 import org.w3c.dom.Element;
 import org.w3c.dom.NamedNodeMap;
@@ -520,6 +527,65 @@ public class UseReportConverter extends HTMLConvertor {
 		public int getTotalIllegalRefCount() {
 			return total_illegal_field_count + total_illegal_method_count + total_illegal_type_count;
 		}
+
+		/**
+		 * @return the counts as values for a {@link ReportManifest}
+		 */
+		String[] toValues() {
+			int[] counts = new int[] {
+					total_api_field_count, total_private_field_count,
+					total_permissable_field_count,
+					total_fragment_permissible_field_count,
+					total_illegal_field_count, total_api_method_count,
+					total_private_method_count, total_permissable_method_count,
+					total_fragment_permissible_method_count,
+					total_illegal_method_count, total_api_type_count,
+					total_private_type_count, total_permissable_type_count,
+					total_fragment_permissible_type_count,
+					total_illegal_type_count };
+			String[] values = new String[counts.length];
+			for (int i = 0; i < counts.length; i++) {
+				values[i] = Integer.toString(counts[i]);
+			}
+			return values;
+		}
+
+		/**
+		 * Creates the counts from values returned by {@link #toValues()}
+		 *
+		 * @param values
+		 * @return the counts or <code>null</code> if the values are not valid
+		 */
+		static CountGroup fromValues(String[] values) {
+			if (values.length != 15) {
+				return null;
+			}
+			int[] counts = new int[values.length];
+			try {
+				for (int i = 0; i < values.length; i++) {
+					counts[i] = Integer.parseInt(values[i]);
+				}
+			} catch (NumberFormatException e) {
+				return null;
+			}
+			CountGroup group = new CountGroup();
+			group.total_api_field_count = counts[0];
+			group.total_private_field_count = counts[1];
+			group.total_permissable_field_count = counts[2];
+			group.total_fragment_permissible_field_count = counts[3];
+			group.total_illegal_field_count = counts[4];
+			group.total_api_method_count = counts[5];
+			group.total_private_method_count = counts[6];
+			group.total_permissable_method_count = counts[7];
+			group.total_fragment_permissible_method_count = counts[8];
+			group.total_illegal_method_count = counts[9];
+			group.total_api_type_count = counts[10];
+			group.total_private_type_count = counts[11];
+			group.total_permissable_type_count = counts[12];
+			group.total_fragment_permissible_type_count = counts[13];
+			group.total_illegal_type_count = counts[14];
+			return group;
+		}
 	}
 
 	/**
@@ -618,6 +684,9 @@ public class UseReportConverter extends HTMLConvertor {
 	private int filteredCount = -1;
 	Pattern[] topatterns = null;
 	Pattern[] frompatterns = null;
+	private int threads = 1;
+	private boolean incremental = false;
+	private final Map<String, Templates> templates = new HashMap<>();
 
 	/**
 	 * Constructor
@@ -686,6 +755,70 @@ public class UseReportConverter extends HTMLConvertor {
 		return this.hasmissing;
 	}
 
+	/**
+	 * Sets the number of threads used to write the pages of the referenced
+	 * components. The pages do not depend on this value.
+	 *
+	 * @param threads the number of threads, <code>1</code> by default
+	 * @since 1.1.800
+	 */
+	public void setThreads(int threads) {
+		this.threads = Math.max(1, threads);
+	}
+
+	/**
+	 * Sets if the pages of referenced components whose XML reports did not
+	 * change since the previous conversion into the same HTML location should
+	 * be kept rather than written again. The checksums of the XML reports are
+	 * recorded in a manifest in the HTML location.
+	 *
+	 * @param incremental <code>false</code> by default
+	 * @since 1.1.800
+	 */
+	public void setIncremental(boolean incremental) {
+		this.incremental = incremental;
+	}
+
+	/**
+	 * @return the number of threads used to write the pages of the referenced
+	 *         components
+	 * @since 1.1.800
+	 */
+	protected int getThreads() {
+		return this.threads;
+	}
+
+	/**
+	 * @return if pages of unchanged components are kept
+	 * @since 1.1.800
+	 */
+	protected boolean isIncremental() {
+		return this.incremental;
+	}
+
+	/**
+	 * Returns a description of the settings of this converter that the pages
+	 * depend on, pages written with a different configuration are not reused
+	 *
+	 * @return the configuration
+	 * @since 1.1.800
+	 */
+	protected String getManifestConfiguration() {
+		StringBuilder buffer = new StringBuilder(getClass().getName());
+		appendPatterns(buffer, this.topatterns);
+		appendPatterns(buffer, this.frompatterns);
+		return buffer.toString();
+	}
+
+	private static void appendPatterns(StringBuilder buffer, Pattern[] patterns) {
+		buffer.append(';');
+		if (patterns != null) {
+			for (Pattern pattern : patterns) {
+				buffer.append(pattern.pattern()).append(';');
+			}
+		}
+	}
+
 	/**
 	 * Runs the converter on the given locations
 	 */
@@ -762,12 +895,129 @@ public class UseReportConverter extends HTMLConvertor {
 	}
 
 	protected List<?> parse(IProgressMonitor monitor) throws Exception {
+		if (this.threads > 1 || this.incremental) {
+			return parseComponents(monitor);
+		}
 		UseScanParser lparser = new UseScanParser();
 		Visitor convertor = new Visitor();
 		lparser.parse(getXmlLocation(), monitor, convertor);
 		return convertor.reports;
 	}
 
+	/**
+	 * Parses the reports of each referenced component separately, on up to
+	 * {@link #getThreads()} threads. In incremental mode the pages of
+	 * components whose reports did not change are kept.
+	 *
+	 * @param monitor
+	 * @return the reports of the referenced components
+	 * @throws Exception
+	 */
+	List<Report> parseComponents(IProgressMonitor monitor) throws Exception {
+		File[] referees = new UseScanParser().getDirectories(getReportsRoot());
+		ReportManifest manifest = null;
+		if (this.incremental) {
+			manifest = new ReportManifest(new File(getHtmlLocation()), getManifestConfiguration());
+		}
+		final ReportManifest lmanifest = manifest;
+		List<Report> reports = new ArrayList<>();
+		for (Report report : WorkerPool.run(Arrays.asList(referees), this.threads, referee -> parseComponent(referee, lmanifest), SubMonitor.convert(monitor))) {
+			if (report != null) {
+				reports.add(report);
+			}
+		}
+		if (manifest != null) {
+			Set<String> names = new HashSet<>();
+			for (Report report : reports) {
+				names.add(report.name);
+			}
+			pruneComponents(manifest, names);
+			manifest.save();
+		}
+		return reports;
+	}
+
+	/**
+	 * Removes the pages of the components of the previous incremental run
+	 * that have no report anymore, so they are not left behind in the HTML
+	 * location
+	 *
+	 * @param manifest the manifest of this run
+	 * @param names the names of the components that have a page in this run
+	 */
+	void pruneComponents(ReportManifest manifest, Set<String> names) {
+		UseScanParser lparser = new UseScanParser();
+		for (String component : manifest.getPreviousComponents()) {
+			String[] idv = lparser.getIdVersion(component);
+			String name = composeName(idv[0], idv[1]);
+			if (!names.contains(name)) {
+				File page = new File(getHtmlLocation(), name);
+				if (page.isDirectory()) {
+					if (ApiPlugin.DEBUG_USE_REPORT_CONVERTER) {
+						System.out.println("Removing report for bundle: " + name); //$NON-NLS-1$
+					}
+					Util.delete(page);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Parses the reports of the given referenced component and writes its
+	 * pages, unless the manifest shows they are up to date
+	 *
+	 * @param referee the directory of the referenced component
+	 * @param manifest the manifest or <code>null</code>
+	 * @return the report or <code>null</code> if there are no references to
+	 *         the component
+	 * @throws CoreException if the reports cannot be parsed
+	 */
+	Report parseComponent(File referee, ReportManifest manifest) throws CoreException {
+		UseScanParser lparser = new UseScanParser();
+		long checksum = 0;
+		ReportManifest lmanifest = manifest;
+		if (lmanifest != null) {
+			try {
+				checksum = ReportManifest.checksum(referee);
+			} catch (IOException e) {
+				ApiPlugin.log(e);
+				lmanifest = null;
+			}
+		}
+		if (lmanifest != null) {
+			String[] values = lmanifest.get(referee.getName(), checksum);
+			CountGroup counts = values == null ? null : CountGroup.fromValues(values);
+			if (counts != null) {
+				String[] idv = lparser.getIdVersion(referee.getName());
+				Report report = new Report();
+				report.name = composeName(idv[0], idv[1]);
+				report.counts = counts;
+				if (counts.getTotalRefCount() == 0) {
+					lmanifest.put(referee.getName(), checksum, values);
+					return null;
+				}
+				if (new File(new File(getHtmlLocation(), report.name), "index.html").exists()) { //$NON-NLS-1$
+					if (ApiPlugin.DEBUG_USE_REPORT_CONVERTER) {
+						System.out.println("Keeping report for bundle: " + report.name); //$NON-NLS-1$
+					}
+					lmanifest.put(referee.getName(), checksum, values);
+					return report;
+				}
+			}
+		}
+		Visitor convertor = new Visitor();
+		try {
+			lparser.parse(new File[] { referee }, null, convertor);
+		} catch (Exception e) {
+			throw new CoreException(new Status(IStatus.ERROR, ApiPlugin.PLUGIN_ID, e.getMessage(), e));
+		}
+		Report report = convertor.reports.isEmpty() ? null : convertor.reports.get(0);
+		if (lmanifest != null) {
+			lmanifest.put(referee.getName(), checksum, (report == null ? new CountGroup() : report.counts).toValues());
+		}
+		return report;
+	}
+
 	/**
 	 * Returns the handle to the default parser, caches the handle once it has
 	 * been created
@@ -831,19 +1081,38 @@ public class UseReportConverter extends HTMLConvertor {
 	 * @throws TransformerException
 	 */
 	protected void applyXSLT(File xsltFile, File xmlfile, File htmloutput) throws TransformerException, Exception {
-		Source xslt = null;
+		Transformer former = getTemplates(xsltFile).newTransformer();
+		former.transform(new StreamSource(xmlfile), new StreamResult(htmloutput));
+	}
+
+	/**
+	 * Returns the compiled form of the given XSLT file, which is compiled once
+	 * per converter and can be shared by concurrent transformations
+	 *
+	 * @param xsltFile the XSLT file or <code>null</code> for the default one
+	 * @return the compiled XSLT
+	 * @throws Exception if there is no XSLT or it cannot be compiled
+	 * @since 1.1.800
+	 */
+	protected synchronized Templates getTemplates(File xsltFile) throws Exception {
+		String key = xsltFile == null ? DEFAULT_XSLT : xsltFile.getAbsolutePath();
+		Templates compiled = this.templates.get(key);
+		if (compiled != null) {
+			return compiled;
+		}
 		if (xsltFile != null) {
-			xslt = new StreamSource(xsltFile);
+			compiled = TransformerFactory.newInstance().newTemplates(new StreamSource(xsltFile));
 		} else {
 			InputStream defaultXsltInputStream = UseReportConverter.class.getResourceAsStream(DEFAULT_XSLT);
-			if (defaultXsltInputStream != null) {
-				xslt = new StreamSource(new BufferedInputStream(defaultXsltInputStream));
+			if (defaultXsltInputStream == null) {
+				throw new Exception(SearchMessages.UseReportConverter_no_xstl_specified);
+			}
+			try (InputStream in = new BufferedInputStream(defaultXsltInputStream)) {
+				compiled = TransformerFactory.newInstance().newTemplates(new StreamSource(in));
 			}
 		}
-		if (xslt == null) {
-			throw new Exception(SearchMessages.UseReportConverter_no_xstl_specified);
-		}
-		applyXSLT(xslt, xmlfile, htmloutput);
+		this.templates.put(key, compiled);
+		return compiled;
 	}
 
 	/**
@@ -0,0 +1,472 @@
+/*******************************************************************************
+ * Copyright (c) 2019 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.pde.api.tools.internal.search;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.TreeMap;
+
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.pde.api.tools.internal.provisional.Factory;
+import org.eclipse.pde.api.tools.internal.provisional.descriptors.IComponentDescriptor;
+import org.eclipse.pde.api.tools.internal.provisional.descriptors.IElementDescriptor;
+import org.eclipse.pde.api.tools.internal.provisional.descriptors.IFieldDescriptor;
+import org.eclipse.pde.api.tools.internal.provisional.descriptors.IMemberDescriptor;
+import org.eclipse.pde.api.tools.internal.provisional.descriptors.IMethodDescriptor;
+import org.eclipse.pde.api.tools.internal.provisional.descriptors.IReferenceTypeDescriptor;
+
+/**
+ * A binary index of an API use scan, mapping each referenced top-level type
+ * to the references made to it. The index is written next to the XML reports
+ * of a scan and is memory-mapped when read, so the references to a type are
+ * found with a binary search instead of parsing the reports.
+ * <p>
+ * Index format:
+ *
+ * <pre>
+ * int magic, int version
+ * int string count, int entry count, int reference count
+ * int[string count]  absolute offset of each string
+ * entries            sorted by component id and type name:
+ *                    component id, type name, first reference, reference count
+ * references         {@link #REFERENCE_SIZE} ints each
+ * strings            int length, UTF-8 bytes
+ * </pre>
+ *
+ * Strings are stored once and referenced by their index, <code>-1</code> for
+ * <code>null</code>.
+ * </p>
+ *
+ * @since 1.1.800
+ */
+public final class UseScanIndex {
+
+	/**
+	 * Name of the index file in the XML root of a use scan
+	 */
+	public static final String INDEX_FILE = "references.index"; //$NON-NLS-1$
+
+	private static final int MAGIC = 0x55534958;
+	private static final int VERSION = 1;
+	private static final int HEADER_SIZE = 20;
+	private static final int ENTRY_SIZE = 4;
+
+	// reference record layout
+	private static final int R_REFERENCING_ID = 0;
+	private static final int R_REFERENCING_VERSION = 1;
+	private static final int R_REFERENCED_VERSION = 2;
+	private static final int R_ORIGIN_TYPE = 3;
+	private static final int R_ORIGIN_MEMBER = 4;
+	private static final int R_ORIGIN_SIGNATURE = 5;
+	private static final int R_TARGET_TYPE = 6;
+	private static final int R_TARGET_MEMBER = 7;
+	private static final int R_TARGET_SIGNATURE = 8;
+	private static final int R_TARGET_KIND = 9;
+	private static final int R_LINE = 10;
+	private static final int R_KIND = 11;
+	private static final int R_FLAGS = 12;
+	private static final int R_VISIBILITY = 13;
+	private static final int REFERENCE_SIZE = 14;
+
+	private final ByteBuffer fBuffer;
+	private final int fStringCount;
+	private final int fEntryCount;
+	private final int fEntriesStart;
+	private final int fReferencesStart;
+	private final String[] fStrings;
+
+	private UseScanIndex(ByteBuffer buffer) throws IOException {
+		fBuffer = buffer;
+		if (buffer.limit() < HEADER_SIZE || buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+			throw new IOException("Unsupported use scan index"); //$NON-NLS-1$
+		}
+		fStringCount = buffer.getInt(8);
+		fEntryCount = buffer.getInt(12);
+		int referenceCount = buffer.getInt(16);
+		fEntriesStart = HEADER_SIZE + fStringCount * 4;
+		fReferencesStart = fEntriesStart + fEntryCount * ENTRY_SIZE * 4;
+		if (fStringCount < 0 || fEntryCount < 0 || referenceCount < 0 || fReferencesStart + (long) referenceCount * REFERENCE_SIZE * 4 > buffer.limit()) {
+			throw new IOException("Corrupt use scan index"); //$NON-NLS-1$
+		}
+		fStrings = new String[fStringCount];
+	}
+
+	/**
+	 * Returns the index file of the use scan with the given XML root
+	 *
+	 * @param xmlLocation the XML root of a use scan
+	 * @return the index file, which may not exist
+	 */
+	public static File getIndexFile(String xmlLocation) {
+		return new File(xmlLocation, INDEX_FILE);
+	}
+
+	/**
+	 * Opens the given index file by mapping it into memory
+	 *
+	 * @param file the index file
+	 * @return the index
+	 * @throws IOException if the file cannot be read or is not a valid index
+	 */
+	public static UseScanIndex open(File file) throws IOException {
+		try (RandomAccessFile raf = new RandomAccessFile(file, "r"); FileChannel channel = raf.getChannel()) { //$NON-NLS-1$
+			// the mapping stays valid after the channel is closed
+			return new UseScanIndex(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+		}
+	}
+
+	/**
+	 * Adds the references to the given types of the given component to the
+	 * collection
+	 *
+	 * @param componentId the symbolic name of the referenced component
+	 * @param types the qualified names of the top-level types to add the
+	 *            references to, or <code>null</code> or an empty array for
+	 *            all types
+	 * @param references the collection to add the references to
+	 */
+	public synchronized void collect(String componentId, String[] types, IReferenceCollection references) {
+		if (types == null || types.length == 0) {
+			for (int i = lowerBound(componentId, null); i < fEntryCount && componentId.equals(getString(getEntry(i, 0))); i++) {
+				collectEntry(i, references);
+			}
+			return;
+		}
+		for (String type : types) {
+			for (int i = lowerBound(componentId, type); i < fEntryCount && compare(i, componentId, type) == 0; i++) {
+				collectEntry(i, references);
+			}
+		}
+	}
+
+	/**
+	 * Returns the first entry not less than the given key
+	 *
+	 * @param componentId
+	 * @param type the type name or <code>null</code> to find the first entry
+	 *            of the component
+	 */
+	private int lowerBound(String componentId, String type) {
+		int low = 0;
+		int high = fEntryCount;
+		while (low < high) {
+			int mid = (low + high) >>> 1;
+			if (compare(mid, componentId, type) < 0) {
+				low = mid + 1;
+			} else {
+				high = mid;
+			}
+		}
+		return low;
+	}
+
+	/**
+	 * Compares the key of the given entry with the given key
+	 */
+	private int compare(int entry, String componentId, String type) {
+		int result = getString(getEntry(entry, 0)).compareTo(componentId);
+		if (result != 0 || type == null) {
+			return type == null && result == 0 ? 1 : result;
+		}
+		return getString(getEntry(entry, 1)).compareTo(type);
+	}
+
+	private int getEntry(int entry, int field) {
+		return fBuffer.getInt(fEntriesStart + (entry * ENTRY_SIZE + field) * 4);
+	}
+
+	private void collectEntry(int entry, IReferenceCollection references) {
+		String type = getString(getEntry(entry, 1));
+		String componentId = getString(getEntry(entry, 0));
+		int first = getEntry(entry, 2);
+		int count = getEntry(entry, 3);
+		for (int i = first; i < first + count; i++) {
+			int position = fReferencesStart + i * REFERENCE_SIZE * 4;
+			int[] record = new int[REFERENCE_SIZE];
+			for (int j = 0; j < REFERENCE_SIZE; j++) {
+				record[j] = fBuffer.getInt(position + j * 4);
+			}
+			IComponentDescriptor referencing = Factory.componentDescriptor(getString(record[R_REFERENCING_ID]), getString(record[R_REFERENCING_VERSION]));
+			IComponentDescriptor referenced = Factory.componentDescriptor(componentId, getString(record[R_REFERENCED_VERSION]));
+			IMemberDescriptor origin = createMember(record[R_ORIGIN_TYPE], record[R_ORIGIN_MEMBER], record[R_ORIGIN_SIGNATURE], -1);
+			IMemberDescriptor target = createMember(record[R_TARGET_TYPE], record[R_TARGET_MEMBER], record[R_TARGET_SIGNATURE], record[R_TARGET_KIND]);
+			references.add(type, new ReferenceDescriptor(referencing, origin, record[R_LINE], referenced, target, record[R_KIND], record[R_FLAGS], record[R_VISIBILITY], null));
+		}
+	}
+
+	/**
+	 * Creates a member descriptor. Without an element type the kind of member
+	 * is derived from the given values, as {@link UseScanParser} does.
+	 */
+	private IMemberDescriptor createMember(int type, int member, int signature, int elementType) {
+		String qname = getString(type);
+		if (elementType == IElementDescriptor.METHOD || (elementType == -1 && signature != -1)) {
+			return Factory.methodDescriptor(qname, getString(member), getString(signature));
+		}
+		if (elementType == IElementDescriptor.FIELD || (elementType == -1 && member != -1)) {
+			return Factory.fieldDescriptor(qname, getString(member));
+		}
+		return Factory.typeDescriptor(qname);
+	}
+
+	private String getString(int index) {
+		if (index < 0 || index >= fStringCount) {
+			return null;
+		}
+		String value = fStrings[index];
+		if (value == null) {
+			int position = fBuffer.getInt(HEADER_SIZE + index * 4);
+			byte[] bytes = new byte[fBuffer.getInt(position)];
+			for (int i = 0; i < bytes.length; i++) {
+				bytes[i] = fBuffer.get(position + 4 + i);
+			}
+			value = new String(bytes, StandardCharsets.UTF_8);
+			fStrings[index] = value;
+		}
+		return value;
+	}
+
+	/**
+	 * Writes the index of the use scan with the given XML root, replacing an
+	 * existing index.
+	 *
+	 * @param xmlLocation the XML root of the use scan
+	 * @param monitor the monitor to report progress to
+	 * @throws Exception if the scan cannot be parsed or the index cannot be
+	 *             written
+	 */
+	public static void write(String xmlLocation, IProgressMonitor monitor) throws Exception {
+		File index = getIndexFile(xmlLocation);
+		File temp = new File(xmlLocation, INDEX_FILE + ".tmp"); //$NON-NLS-1$
+		File references = File.createTempFile("references", ".data"); //$NON-NLS-1$ //$NON-NLS-2$
+		try {
+			IndexBuilder builder = new IndexBuilder(references);
+			try {
+				new UseScanParser().parse(xmlLocation, monitor, builder);
+			} finally {
+				builder.close();
+			}
+			builder.write(temp);
+			if (index.exists() && !index.delete()) {
+				throw new IOException("Unable to replace " + index); //$NON-NLS-1$
+			}
+			if (!temp.renameTo(index)) {
+				throw new IOException("Unable to write " + index); //$NON-NLS-1$
+			}
+		} finally {
+			references.delete();
+			temp.delete();
+		}
+	}
+
+	/**
+	 * Visitor collecting the references of a use scan into an index. The
+	 * references of one referenced component are kept in memory, the
+	 * references of visited components are written to a temporary file.
+	 */
+	static final class IndexBuilder extends UseScanVisitor {
+		private final File fReferencesFile;
+		private final DataOutputStream fReferences;
+		private final Map<String, Integer> fStringIndexes = new HashMap<>();
+		private final ByteArrayOutputStream fStringData = new ByteArrayOutputStream();
+		private final List<int[]> fEntries = new ArrayList<>();
+		private final Map<String, List<int[]>> fComponentReferences = new TreeMap<>();
+		private int fReferenceCount = 0;
+		private IComponentDescriptor fComponent;
+		private IComponentDescriptor fReferencingComponent;
+		private IMemberDescriptor fMember;
+		private String fRootType;
+
+		IndexBuilder(File references) throws IOException {
+			fReferencesFile = references;
+			fReferences = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(references)));
+		}
+
+		private int index(String value) {
+			if (value == null) {
+				return -1;
+			}
+			Integer index = fStringIndexes.get(value);
+			if (index == null) {
+				index = Integer.valueOf(fStringIndexes.size());
+				fStringIndexes.put(value, index);
+				byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+				int length = bytes.length;
+				fStringData.write(length >>> 24);
+				fStringData.write(length >>> 16);
+				fStringData.write(length >>> 8);
+				fStringData.write(length);
+				fStringData.write(bytes, 0, length);
+			}
+			return index.intValue();
+		}
+
+		@Override
+		public boolean visitComponent(IComponentDescriptor target) {
+			fComponent = target;
+			return true;
+		}
+
+		@Override
+		public boolean visitReferencingComponent(IComponentDescriptor component) {
+			fReferencingComponent = component;
+			return true;
+		}
+
+		@Override
+		public boolean visitMember(IMemberDescriptor referencedMember) {
+			String rootType;
+			if (referencedMember instanceof IReferenceTypeDescriptor) {
+				rootType = ((IReferenceTypeDescriptor) referencedMember).getQualifiedName();
+			} else {
+				rootType = referencedMember.getEnclosingType().getQualifiedName();
+			}
+			if (rootType.indexOf('$') > -1) {
+				rootType = rootType.substring(0, rootType.indexOf('$'));
+			}
+			fMember = referencedMember;
+			fRootType = rootType;
+			return true;
+		}
+
+		@Override
+		public void visitReference(IReferenceDescriptor reference) {
+			int[] record = new int[REFERENCE_SIZE];
+			record[R_REFERENCING_ID] = index(fReferencingComponent.getId());
+			record[R_REFERENCING_VERSION] = index(fReferencingComponent.getVersion());
+			record[R_REFERENCED_VERSION] = index(fComponent.getVersion());
+			setMember(record, R_ORIGIN_TYPE, reference.getMember());
+			setMember(record, R_TARGET_TYPE, fMember);
+			record[R_TARGET_KIND] = fMember.getElementType();
+			record[R_LINE] = reference.getLineNumber();
+			record[R_KIND] = reference.getReferenceKind();
+			record[R_FLAGS] = reference.getReferenceFlags();
+			record[R_VISIBILITY] = reference.getVisibility();
+			List<int[]> records = fComponentReferences.get(fRootType);
+			if (records == null) {
+				records = new ArrayList<>();
+				fComponentReferences.put(fRootType, records);
+			}
+			records.add(record);
+		}
+
+		/**
+		 * Sets the type, member name and signature of the given member at the
+		 * given position of the record
+		 */
+		private void setMember(int[] record, int position, IMemberDescriptor member) {
+			record[position + 1] = -1;
+			record[position + 2] = -1;
+			switch (member.getElementType()) {
+				case IElementDescriptor.TYPE:
+					record[position] = index(((IReferenceTypeDescriptor) member).getQualifiedName());
+					break;
+				case IElementDescriptor.METHOD:
+					record[position] = index(member.getEnclosingType().getQualifiedName());
+					record[position + 1] = index(member.getName());
+					record[position + 2] = index(((IMethodDescriptor) member).getSignature());
+					break;
+				case IElementDescriptor.FIELD:
+					record[position] = index(member.getEnclosingType().getQualifiedName());
+					record[position + 1] = index(((IFieldDescriptor) member).getName());
+					break;
+				default:
+					record[position] = -1;
+					break;
+			}
+		}
+
+		@Override
+		public void endVisitComponent(IComponentDescriptor target) {
+			try {
+				int component = index(target.getId());
+				for (Entry<String, List<int[]>> entry : fComponentReferences.entrySet()) {
+					List<int[]> records = entry.getValue();
+					fEntries.add(new int[] { component, index(entry.getKey()), fReferenceCount, records.size() });
+					for (int[] record : records) {
+						for (int value : record) {
+							fReferences.writeInt(value);
+						}
+					}
+					fReferenceCount += records.size();
+				}
+			} catch (IOException e) {
+				throw new IllegalStateException(e);
+			} finally {
+				fComponentReferences.clear();
+			}
+		}
+
+		void close() throws IOException {
+			fReferences.close();
+		}
+
+		/**
+		 * Writes the index to the given file
+		 */
+		void write(File file) throws IOException {
+			String[] strings = new String[fStringIndexes.size()];
+			for (Entry<String, Integer> entry : fStringIndexes.entrySet()) {
+				strings[entry.getValue().intValue()] = entry.getKey();
+			}
+			// binary search needs the entries in key order
+			fEntries.sort((e1, e2) -> {
+				int result = strings[e1[0]].compareTo(strings[e2[0]]);
+				return result != 0 ? result : strings[e1[1]].compareTo(strings[e2[1]]);
+			});
+			int stringsStart = HEADER_SIZE + strings.length * 4 + (fEntries.size() * ENTRY_SIZE + fReferenceCount * REFERENCE_SIZE) * 4;
+			try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)))) {
+				out.writeInt(MAGIC);
+				out.writeInt(VERSION);
+				out.writeInt(strings.length);
+				out.writeInt(fEntries.size());
+				out.writeInt(fReferenceCount);
+				int offset = stringsStart;
+				for (String string : strings) {
+					out.writeInt(offset);
+					offset += 4 + string.getBytes(StandardCharsets.UTF_8).length;
+				}
+				for (int[] entry : fEntries) {
+					for (int value : entry) {
+						out.writeInt(value);
+					}
+				}
+				try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(fReferencesFile)))) {
+					byte[] buffer = new byte[8192];
+					int read;
+					while ((read = in.read(buffer)) != -1) {
+						out.write(buffer, 0, read);
+					}
+				}
+				fStringData.writeTo(out);
+			}
+		}
+	}
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2010, 2013 IBM Corporation and others.
+ * Copyright (c) 2010, 2019 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -18,6 +18,8 @@ import java.io.FileFilter;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.jar.JarFile;
 import java.util.regex.Pattern;
 import java.util.zip.ZipEntry;
@@ -89,6 +91,25 @@ public class UseScanManager {
 
 	private String[] fLocations = null;
 
+	/**
+	 * An opened use scan index and the time stamp of its file
+	 */
+	private static final class OpenedIndex {
+		final UseScanIndex index;
+		final long timestamp;
+
+		OpenedIndex(UseScanIndex index, long timestamp) {
+			this.index = index;
+			this.timestamp = timestamp;
+		}
+	}
+
+	/**
+	 * Opened use scan indexes, keyed by the path of the index file. An index
+	 * rewritten by a later scan replaces the entry of its previous version.
+	 */
+	private final Map<String, OpenedIndex> fIndexes = new HashMap<>();
+
 	/**
 	 * {@link FileFilter} for finding use scan directories
 	 */
@@ -225,7 +246,12 @@ public class UseScanManager {
 							}
 							throw new Exception(message);
 						}
-						parser.parse(locations[i], iterationMonitor, visitor);
+						UseScanIndex index = getIndex(locations[i]);
+						if (index != null) {
+							index.collect(apiComponent.getSymbolicName(), types, references);
+						} else {
+							parser.parse(locations[i], iterationMonitor, visitor);
+						}
 					} catch (Exception e) {
 						ApiPlugin.log(e); // log the exception and continue with
 											// next location
@@ -243,6 +269,44 @@ public class UseScanManager {
 		}
 	}
 
+	/**
+	 * Returns the index of the use scan with the given XML root, or
+	 * <code>null</code> if the scan has no index or it cannot be read, in which
+	 * case the XML reports are parsed instead.
+	 *
+	 * @param xmlLocation
+	 * @return the index or <code>null</code>
+	 */
+	private synchronized UseScanIndex getIndex(String xmlLocation) {
+		File file = UseScanIndex.getIndexFile(xmlLocation);
+		String key = file.getAbsolutePath();
+		if (!file.isFile()) {
+			fIndexes.remove(key);
+			return null;
+		}
+		// an index older than the scan metadata was not rewritten by the last
+		// scan into this location
+		if (new File(xmlLocation, "meta.xml").lastModified() > file.lastModified()) { //$NON-NLS-1$
+			fIndexes.remove(key);
+			return null;
+		}
+		long timestamp = file.lastModified();
+		OpenedIndex opened = fIndexes.get(key);
+		if (opened == null || opened.timestamp != timestamp) {
+			// the mapping of a replaced index is released once it is no
+			// longer referenced
+			fIndexes.remove(key);
+			try {
+				opened = new OpenedIndex(UseScanIndex.open(file), timestamp);
+			} catch (IOException e) {
+				ApiPlugin.log(e);
+				return null;
+			}
+			fIndexes.put(key, opened);
+		}
+		return opened.index;
+	}
+
 	/**
 	 * Returns the scan
 	 *
@@ -413,5 +477,8 @@ public class UseScanManager {
 			reference.clear();
 		}
 		fApiComponentCache.flush();
+		synchronized (this) {
+			fIndexes.clear();
+		}
 	}
 }
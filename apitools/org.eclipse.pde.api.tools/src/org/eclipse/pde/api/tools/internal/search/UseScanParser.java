@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2009, 2015 IBM Corporation and others.
+ * Copyright (c) 2009, 2019 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -242,9 +242,25 @@ public class UseScanParser {
 		localmonitor.subTask(SearchMessages.UseReportConverter_collecting_dir_info);
 		File[] referees = getDirectories(reportsRoot);
 		localmonitor.split(1);
+		parse(referees, localmonitor.split(7), usv);
+	}
+
+	/**
+	 * Visits the reports of the given referenced components of an API use
+	 * scan. Each parser visits one set of components at a time, separate
+	 * parsers can visit disjoint sets concurrently.
+	 *
+	 * @param referees the directories of the referenced components in the
+	 *            root of the use scan
+	 * @param monitor progress monitor
+	 * @param usv the visitor
+	 * @since 1.1.800
+	 */
+	public void parse(File[] referees, IProgressMonitor monitor, UseScanVisitor usv) throws Exception {
+		visitor = usv;
+		SubMonitor localmonitor = SubMonitor.convert(monitor, referees.length);
 		File[] origins = null;
 		File[] xmlfiles = null;
-		localmonitor.setWorkRemaining(referees.length);
 		visitor.visitScan();
 		try {
 			SAXParser parser = getParser();
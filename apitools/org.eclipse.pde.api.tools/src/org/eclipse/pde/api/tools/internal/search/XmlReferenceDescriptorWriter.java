@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2009, 2017 IBM Corporation and others.
+ * Copyright (c) 2009, 2019 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -13,23 +13,35 @@
  *******************************************************************************/
 package org.eclipse.pde.api.tools.internal.search;
 
-import java.io.BufferedWriter;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
-import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.OutputStreamWriter;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.nio.charset.StandardCharsets;
-import java.util.HashMap;
-import java.util.HashSet;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Map.Entry;
 
-import javax.xml.parsers.DocumentBuilder;
-import javax.xml.parsers.DocumentBuilderFactory;
-import javax.xml.parsers.FactoryConfigurationError;
-import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.stream.XMLEventFactory;
+import javax.xml.stream.XMLEventReader;
+import javax.xml.stream.XMLEventWriter;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.stream.XMLStreamWriter;
+import javax.xml.stream.events.Attribute;
+import javax.xml.stream.events.StartElement;
+import javax.xml.stream.events.XMLEvent;
 
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.pde.api.tools.internal.IApiXmlConstants;
@@ -44,16 +56,18 @@ import org.eclipse.pde.api.tools.internal.provisional.descriptors.IMemberDescrip
 import org.eclipse.pde.api.tools.internal.provisional.descriptors.IMethodDescriptor;
 import org.eclipse.pde.api.tools.internal.provisional.descriptors.IReferenceTypeDescriptor;
 import org.eclipse.pde.api.tools.internal.provisional.model.IApiMember;
+import org.eclipse.pde.api.tools.internal.search.ReferenceRecordSorter.MergeInput;
+import org.eclipse.pde.api.tools.internal.search.ReferenceRecordSorter.RecordInput;
 import org.eclipse.pde.api.tools.internal.util.Signatures;
-import org.eclipse.pde.api.tools.internal.util.Util;
-import org.w3c.dom.Document;
-import org.w3c.dom.Element;
-import org.w3c.dom.NodeList;
-import org.xml.sax.SAXException;
-import org.xml.sax.helpers.DefaultHandler;
 
 /**
  * Writes reference descriptions to XML files.
+ * <p>
+ * The references are collated with an external sort, so at most
+ * {@link #setBufferSize(int) buffer size} references are held in memory, and
+ * each report file is streamed: references already in a report file are
+ * merged with the new references while the file is rewritten.
+ * </p>
  *
  * @since 1.0.1
  */
@@ -65,10 +79,22 @@ public class XmlReferenceDescriptorWriter {
 	public static final String TYPE_REFERENCES = "type_references"; //$NON-NLS-1$
 	public static final String METHOD_REFERENCES = "method_references"; //$NON-NLS-1$
 	public static final String FIELD_REFERENCES = "field_references"; //$NON-NLS-1$
-	private static final Integer V_ILLEGAL = Integer.valueOf(VisibilityModifiers.ILLEGAL_API);
+
+	/**
+	 * The default number of references collated in memory before they are
+	 * spilled to disk
+	 *
+	 * @since 1.1.800
+	 */
+	public static final int DEFAULT_BUFFER_SIZE = 20000;
+
+	private static final String INDENT = "    "; //$NON-NLS-1$
+	private static final String TEMP_EXTENSION = ".tmp"; //$NON-NLS-1$
 	private String fLocation = null;
-	private HashMap<String, HashMap<String, HashMap<Integer, HashMap<Integer, HashMap<String, HashSet<IReferenceDescriptor>>>>>> fReferenceMap = null;
-	private DocumentBuilder parser = null;
+	private int fBufferSize = DEFAULT_BUFFER_SIZE;
+	private XMLInputFactory fInputFactory = null;
+	private XMLOutputFactory fOutputFactory = null;
+	private XMLEventFactory fEventFactory = null;
 
 	/**
 	 * Alternate API component where references were unresolved, or
@@ -76,23 +102,185 @@ public class XmlReferenceDescriptorWriter {
 	 */
 	private IComponentDescriptor alternate;
 
+	/**
+	 * The references of a single report file, read from a sorted sequence of
+	 * references
+	 */
+	private static final class GroupInput implements RecordInput {
+		private final RecordInput input;
+		private final ReferenceRecord first;
+		private ReferenceRecord pending;
+		private ReferenceRecord nextGroup = null;
+		private boolean done = false;
+
+		GroupInput(RecordInput input, ReferenceRecord first) {
+			this.input = input;
+			this.first = first;
+			this.pending = first;
+		}
+
+		@Override
+		public ReferenceRecord next() throws IOException {
+			if (pending != null) {
+				ReferenceRecord record = pending;
+				pending = null;
+				return record;
+			}
+			if (done) {
+				return null;
+			}
+			ReferenceRecord record = input.next();
+			if (record == null || !record.isSameGroup(first)) {
+				nextGroup = record;
+				done = true;
+				return null;
+			}
+			return record;
+		}
+
+		/**
+		 * Skips the remaining references of this group
+		 *
+		 * @return the first reference of the next group or <code>null</code>
+		 * @throws IOException
+		 */
+		ReferenceRecord skip() throws IOException {
+			while (next() != null) {
+				// skip
+			}
+			return nextGroup;
+		}
+
+		@Override
+		public void close() {
+			// the underlying input is shared by all groups
+		}
+	}
+
+	/**
+	 * The references of an existing report file, in document order
+	 */
+	private final class ReportInput implements RecordInput {
+		private final InputStream stream;
+		private final XMLStreamReader reader;
+		private final ReferenceRecord group;
+		private final Map<String, String> attributes = new LinkedHashMap<>();
+		private String target;
+		private String targetType;
+		private String targetMember;
+		private String targetSignature;
+		private int kind;
+		private int flags;
+
+		ReportInput(File report, ReferenceRecord group) throws IOException, XMLStreamException {
+			this.group = group;
+			stream = new BufferedInputStream(new FileInputStream(report));
+			try {
+				reader = fInputFactory.createXMLStreamReader(stream);
+				reader.nextTag();
+				for (int i = 0; i < reader.getAttributeCount(); i++) {
+					attributes.put(reader.getAttributeLocalName(i), reader.getAttributeValue(i));
+				}
+			} catch (XMLStreamException e) {
+				stream.close();
+				throw e;
+			}
+		}
+
+		/**
+		 * @return the attributes of the root element of the report
+		 */
+		Map<String, String> getAttributes() {
+			return attributes;
+		}
+
+		@Override
+		public ReferenceRecord next() throws IOException {
+			try {
+				while (reader.hasNext()) {
+					if (reader.next() != XMLStreamConstants.START_ELEMENT) {
+						continue;
+					}
+					String name = reader.getLocalName();
+					if (IApiXmlConstants.ELEMENT_TARGET.equals(name)) {
+						target = reader.getAttributeValue(null, IApiXmlConstants.ATTR_NAME);
+						targetType = reader.getAttributeValue(null, IApiXmlConstants.ATTR_TYPE);
+						targetMember = reader.getAttributeValue(null, IApiXmlConstants.ATTR_MEMBER_NAME);
+						targetSignature = reader.getAttributeValue(null, IApiXmlConstants.ATTR_SIGNATURE);
+					} else if (IApiXmlConstants.REFERENCE_KIND.equals(name)) {
+						kind = parseInt(reader.getAttributeValue(null, IApiXmlConstants.ATTR_KIND));
+						flags = parseInt(reader.getAttributeValue(null, IApiXmlConstants.ATTR_FLAGS));
+					} else if (IApiXmlConstants.ATTR_REFERENCE.equals(name)) {
+						ReferenceRecord record = new ReferenceRecord();
+						record.setGroup(group);
+						record.target = target;
+						record.targetType = targetType;
+						record.targetMember = targetMember;
+						record.targetSignature = targetSignature;
+						record.kind = kind;
+						record.flags = flags;
+						record.source = reader.getAttributeValue(null, IApiXmlConstants.ATTR_ORIGIN);
+						record.sourceType = reader.getAttributeValue(null, IApiXmlConstants.ATTR_TYPE);
+						record.sourceMember = reader.getAttributeValue(null, IApiXmlConstants.ATTR_MEMBER_NAME);
+						record.sourceSignature = reader.getAttributeValue(null, IApiXmlConstants.ATTR_SIGNATURE);
+						record.messages = reader.getAttributeValue(null, IApiXmlConstants.ELEMENT_PROBLEM_MESSAGE_ARGUMENTS);
+						record.lineNumber = parseInt(reader.getAttributeValue(null, IApiXmlConstants.ATTR_LINE_NUMBER));
+						return record;
+					}
+				}
+				return null;
+			} catch (XMLStreamException e) {
+				throw new IOException(e);
+			}
+		}
+
+		private int parseInt(String value) {
+			if (value == null) {
+				return 0;
+			}
+			try {
+				return Integer.parseInt(value);
+			} catch (NumberFormatException e) {
+				return 0;
+			}
+		}
+
+		@Override
+		public void close() throws IOException {
+			try {
+				reader.close();
+			} catch (XMLStreamException e) {
+				// the stream is closed below
+			}
+			stream.close();
+		}
+	}
+
 	/**
 	 * Constructor
 	 *
 	 * @param location the absolute path in the local file system to the folder
 	 *            to write the reports to
-	 * @param debug if debugging infos should be written out to the console
 	 */
 	public XmlReferenceDescriptorWriter(String location) {
 		fLocation = location;
-		try {
-			parser = DocumentBuilderFactory.newInstance().newDocumentBuilder();
-			parser.setErrorHandler(new DefaultHandler());
-		} catch (FactoryConfigurationError fce) {
-			ApiPlugin.log(fce);
-		} catch (ParserConfigurationException pce) {
-			ApiPlugin.log(pce);
-		}
+		fInputFactory = XMLInputFactory.newInstance();
+		// only reports written by this writer are read
+		fInputFactory.setProperty(XMLInputFactory.SUPPORT_DTD, Boolean.FALSE);
+		fInputFactory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, Boolean.FALSE);
+		fOutputFactory = XMLOutputFactory.newInstance();
+		fEventFactory = XMLEventFactory.newInstance();
+	}
+
+	/**
+	 * Sets the maximum number of references that are collated in memory, more
+	 * references are spilled to temporary files.
+	 *
+	 * @param size the buffer size, values less than 1 are treated as 1
+	 * @since 1.1.800
+	 */
+	public void setBufferSize(int size) {
+		fBufferSize = size;
 	}
 
 	/**
@@ -102,20 +290,15 @@ public class XmlReferenceDescriptorWriter {
 	 */
 	public void writeReferences(IReferenceDescriptor[] references) {
 		if (fLocation != null) {
-			try {
+			try (ReferenceRecordSorter sorter = new ReferenceRecordSorter(fBufferSize)) {
 				File parent = new File(fLocation);
 				if (!parent.exists()) {
 					parent.mkdirs();
 				}
-				collateResults(references);
-				writeXML(parent);
+				collateResults(references, sorter);
+				writeXML(parent, sorter);
 			} catch (Exception e) {
 				ApiPlugin.log(e);
-			} finally {
-				if (fReferenceMap != null) {
-					fReferenceMap.clear();
-					fReferenceMap = null;
-				}
 			}
 		}
 	}
@@ -123,75 +306,73 @@ public class XmlReferenceDescriptorWriter {
 	/**
 	 * Collates the results into like reference kinds. If two references have
 	 * the same reference, referencer, type, visibility, and member, one will be
-	 * removed (even if the line numbers differ). Updates {@link #fReferenceMap}
-	 * with a map based tree structure as follows:
+	 * removed (even if the line numbers differ). The references are added to
+	 * the given sorter, which orders them as follows:
 	 *
 	 * <pre>
-	 * Returned Map (Referenced Component ID -> rmap)
-	 * rmap (Referencing Component ID -> mmap)
-	 * mmap (Visibility -> vmap)
-	 * vmap (Reference Type -> tmap)
-	 * tmap (Referenced Member -> Reference Descriptor)
+	 * Referenced Component ID
+	 *  Referencing Component ID
+	 *   Visibility
+	 *    Reference Type
+	 *     Referenced Member
+	 *      Reference Kind
 	 * </pre>
 	 *
 	 * @param references
+	 * @param sorter
 	 */
-	private void collateResults(IReferenceDescriptor[] references) throws CoreException {
-		if (fReferenceMap == null) {
-			fReferenceMap = new HashMap<>();
-		}
-		Integer type = null;
-		Integer visibility = null;
-		String id = null;
-		String tname = null;
-		HashMap<String, HashMap<Integer, HashMap<Integer, HashMap<String, HashSet<IReferenceDescriptor>>>>> rmap = null;
-		HashMap<Integer, HashMap<Integer, HashMap<String, HashSet<IReferenceDescriptor>>>> mmap = null;
-		HashMap<Integer, HashMap<String, HashSet<IReferenceDescriptor>>> vmap = null;
-		HashMap<String, HashSet<IReferenceDescriptor>> tmap = null;
-		HashSet<IReferenceDescriptor> reflist = null;
-		IComponentDescriptor rcomponent = null;
-		IComponentDescriptor mcomponent = null;
-		for (int i = 0; i < references.length; i++) {
-			rcomponent = references[i].getReferencedComponent();
-			id = getId(rcomponent);
-			rmap = fReferenceMap.get(id);
-			if (rmap == null) {
-				rmap = new HashMap<>();
-				fReferenceMap.put(id, rmap);
-			}
-			mcomponent = references[i].getComponent();
-			id = getId(mcomponent);
-			mmap = rmap.get(id);
-			if (mmap == null) {
-				mmap = new HashMap<>();
-				rmap.put(id, mmap);
-			}
-			if ((references[i].getReferenceFlags() & IReference.F_ILLEGAL) > 0) {
-				visibility = V_ILLEGAL;
-			} else {
-				visibility = Integer.valueOf(references[i].getVisibility());
+	private void collateResults(IReferenceDescriptor[] references, ReferenceRecordSorter sorter) throws CoreException, IOException {
+		for (IReferenceDescriptor reference : references) {
+			ReferenceRecord record = createRecord(reference);
+			if (record != null) {
+				sorter.add(record);
 			}
-			vmap = mmap.get(visibility);
-			if (vmap == null) {
-				vmap = new HashMap<>();
-				mmap.put(visibility, vmap);
-			}
-			type = Integer.valueOf(references[i].getReferenceType());
-			tmap = vmap.get(type);
-			if (tmap == null) {
-				tmap = new HashMap<>();
-				vmap.put(type, tmap);
-			}
-			tname = getText(references[i].getReferencedMember());
-			reflist = tmap.get(tname);
-			if (reflist == null) {
-				reflist = new HashSet<>();
-				tmap.put(tname, reflist);
-			}
-			reflist.add(references[i]);
 		}
 	}
 
+	/**
+	 * Returns the values written to the report for the given reference
+	 *
+	 * @param reference
+	 * @return the record of the given reference or <code>null</code> if the
+	 *         reference is not written
+	 * @throws CoreException
+	 */
+	private ReferenceRecord createRecord(IReferenceDescriptor reference) throws CoreException {
+		IMemberDescriptor referenced = reference.getReferencedMember();
+		if (referenced == null) {
+			return null;
+		}
+		ReferenceRecord record = new ReferenceRecord();
+		record.referee = getId(reference.getReferencedComponent());
+		record.origin = getId(reference.getComponent());
+		if ((reference.getReferenceFlags() & IReference.F_ILLEGAL) > 0) {
+			record.visibility = VisibilityModifiers.ILLEGAL_API;
+		} else {
+			record.visibility = reference.getVisibility();
+		}
+		record.referenceType = reference.getReferenceType();
+		record.target = getText(referenced);
+		String[] details = getMemberDetails(referenced);
+		record.targetType = details[0];
+		record.targetMember = details[1];
+		record.targetSignature = details[2];
+		record.kind = reference.getReferenceKind();
+		record.flags = reference.getReferenceFlags();
+		IMemberDescriptor member = reference.getMember();
+		record.source = getText(member);
+		details = getMemberDetails(member);
+		record.sourceType = details[0];
+		record.sourceMember = details[1];
+		record.sourceSignature = details[2];
+		String[] messages = reference.getProblemMessages();
+		if (messages != null) {
+			record.messages = getText(messages);
+		}
+		record.lineNumber = reference.getLineNumber();
+		return record;
+	}
+
 	/**
 	 * Resolves the id to use for the component in the mapping
 	 *
@@ -247,258 +428,274 @@ public class XmlReferenceDescriptorWriter {
 	}
 
 	/**
-	 * Writes out the XML for the given api element using the collated
-	 * {@link IReference}s
+	 * Writes out the XML for the collated references, one report file at a
+	 * time
 	 *
 	 * @param parent
+	 * @param sorter
 	 * @throws CoreException
-	 * @throws FileNotFoundException
 	 * @throws IOException
+	 * @throws XMLStreamException
 	 */
-	private void writeXML(File parent) throws CoreException, FileNotFoundException, IOException {
-		HashMap<Integer, HashMap<String, HashSet<IReferenceDescriptor>>> vismap = null;
-		HashMap<String, HashSet<IReferenceDescriptor>> typemap = null;
-		HashMap<String, HashMap<Integer, HashMap<Integer, HashMap<String, HashSet<IReferenceDescriptor>>>>> rmap = null;
-		HashMap<Integer, HashMap<Integer, HashMap<String, HashSet<IReferenceDescriptor>>>> mmap = null;
-		Integer type = null;
-		Integer vis = null;
-		String id = null;
-		String referee = null;
-		File root = null;
-		File location = null;
-		File base = null;
-		for (Iterator<Entry<String, HashMap<String, HashMap<Integer, HashMap<Integer, HashMap<String, HashSet<IReferenceDescriptor>>>>>>> iter = fReferenceMap.entrySet().iterator(); iter.hasNext();) {
-			Entry<String, HashMap<String, HashMap<Integer, HashMap<Integer, HashMap<String, HashSet<IReferenceDescriptor>>>>>> entry = iter.next();
-			id = entry.getKey();
-			referee = id;
-			base = new File(parent, id);
-			if (!base.exists()) {
-				base.mkdir();
-			}
-			rmap = entry.getValue();
-			for (Iterator<Entry<String, HashMap<Integer, HashMap<Integer, HashMap<String, HashSet<IReferenceDescriptor>>>>>> iter2 = rmap.entrySet().iterator(); iter2.hasNext();) {
-				Entry<String, HashMap<Integer, HashMap<Integer, HashMap<String, HashSet<IReferenceDescriptor>>>>> entry2 = iter2.next();
-				id = entry2.getKey();
-				root = new File(base, id);
-				if (!root.exists()) {
-					root.mkdir();
-				}
-				mmap = entry2.getValue();
-				for (Iterator<Entry<Integer, HashMap<Integer, HashMap<String, HashSet<IReferenceDescriptor>>>>> iter4 = mmap.entrySet().iterator(); iter4.hasNext();) {
-					Entry<Integer, HashMap<Integer, HashMap<String, HashSet<IReferenceDescriptor>>>> entry3 = iter4.next();
-					vis = entry3.getKey();
-					location = new File(root, VisibilityModifiers.getVisibilityName(vis.intValue()));
-					if (!location.exists()) {
-						location.mkdir();
-					}
-					vismap = entry3.getValue();
-					for (Iterator<Entry<Integer, HashMap<String, HashSet<IReferenceDescriptor>>>> iter3 = vismap.entrySet().iterator(); iter3.hasNext();) {
-						Entry<Integer, HashMap<String, HashSet<IReferenceDescriptor>>> entry4 = iter3.next();
-						type = entry4.getKey();
-						typemap = entry4.getValue();
-						writeGroup(id, referee, location, getRefTypeName(type.intValue()), typemap, vis.intValue());
-					}
+	private void writeXML(File parent, ReferenceRecordSorter sorter) throws CoreException, IOException, XMLStreamException {
+		try (RecordInput input = sorter.sort()) {
+			ReferenceRecord record = input.next();
+			while (record != null) {
+				GroupInput group = new GroupInput(input, record);
+				File base = new File(parent, record.referee);
+				File root = new File(base, record.origin);
+				File location = new File(root, VisibilityModifiers.getVisibilityName(record.visibility));
+				if (!location.exists()) {
+					location.mkdirs();
 				}
+				writeGroup(record, location, getRefTypeName(record.referenceType), group);
+				record = group.skip();
 			}
 		}
 	}
 
 	/**
 	 * Writes out a group of references under the newly created element with the
-	 * given name
+	 * given name. If the report file already exists, the references it
+	 * contains are merged with the given references.
 	 *
-	 * @param origin the name of the bundle that has the references in it
-	 * @param referee the name of the bundle that is referenced
+	 * @param first the first reference of the group
 	 * @param parent
 	 * @param name
-	 * @param map
-	 * @param visibility
+	 * @param references the sorted references of the group
 	 */
-	private void writeGroup(String origin, String referee, File parent, String name, HashMap<String, HashSet<IReferenceDescriptor>> map, int visibility) throws CoreException, FileNotFoundException, IOException {
-		if (parent.exists()) {
-			BufferedWriter writer = null;
-			try {
-				Document doc = null;
-				Element root = null;
-				int count = 0;
-				File out = new File(parent, name + ".xml"); //$NON-NLS-1$
-				if (out.exists()) {
-					try {
-						FileInputStream inputStream = null;
-						try {
-							inputStream = new FileInputStream(out);
-							doc = this.parser.parse(inputStream);
-						} catch (IOException e) {
-							e.printStackTrace();
-						} finally {
-							if (inputStream != null) {
-								inputStream.close();
-							}
-						}
-						if (doc == null) {
-							return;
-						}
-						root = doc.getDocumentElement();
-						String value = root.getAttribute(IApiXmlConstants.ATTR_REFERENCE_COUNT);
-						count = Integer.parseInt(value);
-					} catch (SAXException se) {
-						se.printStackTrace();
-					}
-				} else {
-					doc = Util.newDocument();
-					root = doc.createElement(IApiXmlConstants.REFERENCES);
-					doc.appendChild(root);
-					root.setAttribute(IApiXmlConstants.ATTR_REFERENCE_VISIBILITY, Integer.toString(visibility));
-					root.setAttribute(IApiXmlConstants.ATTR_ORIGIN, origin);
-					root.setAttribute(IApiXmlConstants.ATTR_REFEREE, referee);
-					root.setAttribute(IApiXmlConstants.ATTR_NAME, getFormattedTypeName(name));
-					if (alternate != null) {
-						root.setAttribute(IApiXmlConstants.ATTR_ALTERNATE, getId(alternate));
-					}
-				}
-				if (doc == null || root == null) {
-					return;
-				}
-				String tname = null;
-				HashSet<IReferenceDescriptor> refs = null;
-				Element telement = null;
-				for (Iterator<Entry<String, HashSet<IReferenceDescriptor>>> iter = map.entrySet().iterator(); iter.hasNext();) {
-					Entry<String, HashSet<IReferenceDescriptor>> entry = iter.next();
-					tname = entry.getKey();
-					telement = findTypeElement(root, tname);
-					if (telement == null) {
-						telement = doc.createElement(IApiXmlConstants.ELEMENT_TARGET);
-						telement.setAttribute(IApiXmlConstants.ATTR_NAME, tname);
-						root.appendChild(telement);
-					}
-					refs = entry.getValue();
-					if (refs != null) {
-						for (Iterator<IReferenceDescriptor> iter2 = refs.iterator(); iter2.hasNext();) {
-							count++;
-							IReferenceDescriptor ref = iter2.next();
-							writeReference(doc, telement, ref);
-							if (!iter2.hasNext()) {
-								// set qualified referenced attributes
-								IMemberDescriptor resolved = ref.getReferencedMember();
-								if (resolved != null) {
-									addMemberDetails(telement, resolved);
-								}
-							}
-						}
-					}
+	private void writeGroup(ReferenceRecord first, File parent, String name, RecordInput references) throws CoreException, IOException, XMLStreamException {
+		if (!parent.exists()) {
+			return;
+		}
+		File out = new File(parent, name + ".xml"); //$NON-NLS-1$
+		File temp = new File(parent, name + ".xml" + TEMP_EXTENSION); //$NON-NLS-1$
+		Map<String, String> attributes = new LinkedHashMap<>();
+		try {
+			int count;
+			if (out.exists()) {
+				try (RecordInput merged = new MergeInput(Arrays.asList(openReport(out, first, attributes), references))) {
+					count = writeReport(temp, attributes, merged);
 				}
-				root.setAttribute(IApiXmlConstants.ATTR_REFERENCE_COUNT, Integer.toString(count));
-				writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(out), StandardCharsets.UTF_8));
-				writer.write(Util.serializeDocument(doc));
-				writer.flush();
-			} finally {
-				if (writer != null) {
-					writer.close();
+			} else {
+				attributes.put(IApiXmlConstants.ATTR_REFERENCE_VISIBILITY, Integer.toString(first.visibility));
+				attributes.put(IApiXmlConstants.ATTR_ORIGIN, first.origin);
+				attributes.put(IApiXmlConstants.ATTR_REFEREE, first.referee);
+				attributes.put(IApiXmlConstants.ATTR_NAME, getFormattedTypeName(name));
+				if (alternate != null) {
+					attributes.put(IApiXmlConstants.ATTR_ALTERNATE, getId(alternate));
 				}
+				count = writeReport(temp, attributes, references);
 			}
+			// the count is only known once all references are written
+			copyReport(temp, out, count);
+		} finally {
+			temp.delete();
 		}
 	}
 
 	/**
-	 * Add member descriptor details to the given element.
+	 * Opens the given existing report for merging. A report not written in
+	 * sorted order is sorted first.
 	 *
-	 * @param element XML element
-	 * @param member member to add details for
+	 * @param report the report file
+	 * @param group a reference of the group of the report
+	 * @param attributes the map to add the attributes of the report root
+	 *            element to, except for the reference count
+	 * @return the sorted references of the report
 	 */
-	private void addMemberDetails(Element element, IMemberDescriptor member) {
-		switch (member.getElementType()) {
-			case IElementDescriptor.TYPE:
-				element.setAttribute(IApiXmlConstants.ATTR_TYPE, ((IReferenceTypeDescriptor) member).getQualifiedName());
-				break;
-			case IElementDescriptor.FIELD:
-				IReferenceTypeDescriptor encl = member.getEnclosingType();
-				element.setAttribute(IApiXmlConstants.ATTR_TYPE, encl.getQualifiedName());
-				element.setAttribute(IApiXmlConstants.ATTR_MEMBER_NAME, member.getName());
-				break;
-			case IElementDescriptor.METHOD:
-				encl = member.getEnclosingType();
-				element.setAttribute(IApiXmlConstants.ATTR_TYPE, encl.getQualifiedName());
-				element.setAttribute(IApiXmlConstants.ATTR_MEMBER_NAME, member.getName());
-				element.setAttribute(IApiXmlConstants.ATTR_SIGNATURE, ((IMethodDescriptor) member).getSignature());
-				break;
-			default:
-				break;
+	private RecordInput openReport(File report, ReferenceRecord group, Map<String, String> attributes) throws IOException, XMLStreamException {
+		boolean sorted = true;
+		try (ReportInput input = new ReportInput(report, group)) {
+			attributes.putAll(input.getAttributes());
+			attributes.remove(IApiXmlConstants.ATTR_REFERENCE_COUNT);
+			ReferenceRecord previous = null;
+			ReferenceRecord record = null;
+			while (sorted && (record = input.next()) != null) {
+				sorted = previous == null || previous.compareTo(record) <= 0;
+				previous = record;
+			}
 		}
+		ReportInput input = new ReportInput(report, group);
+		if (sorted) {
+			return input;
+		}
+		ReferenceRecordSorter sorter = new ReferenceRecordSorter(fBufferSize);
+		try {
+			ReferenceRecord record = null;
+			while ((record = input.next()) != null) {
+				sorter.add(record);
+			}
+		} catch (IOException e) {
+			sorter.close();
+			throw e;
+		} finally {
+			input.close();
+		}
+		RecordInput sortedInput = sorter.sort();
+		return new RecordInput() {
+			@Override
+			public ReferenceRecord next() throws IOException {
+				return sortedInput.next();
+			}
+
+			@Override
+			public void close() throws IOException {
+				try {
+					sortedInput.close();
+				} finally {
+					sorter.close();
+				}
+			}
+		};
 	}
 
 	/**
-	 * gets the root kind element
+	 * Writes a report containing the given sorted references to the given
+	 * file, without the reference count
 	 *
-	 * @param root
-	 * @param kind
-	 * @return
+	 * @param file the file to write
+	 * @param attributes the attributes of the root element
+	 * @param references the sorted references to write
+	 * @return the number of references written
 	 */
-	private Element findTypeElement(Element root, String tname) {
-		if (tname == null) {
-			return null;
-		}
-		Element kelement = null;
-		NodeList nodes = root.getElementsByTagName(IApiXmlConstants.ELEMENT_TARGET);
-		for (int i = 0; i < nodes.getLength(); i++) {
-			kelement = (Element) nodes.item(i);
-			if (tname.equals(kelement.getAttribute(IApiXmlConstants.ATTR_NAME))) {
-				return kelement;
+	private int writeReport(File file, Map<String, String> attributes, RecordInput references) throws IOException, XMLStreamException {
+		int count = 0;
+		try (OutputStream stream = new BufferedOutputStream(new FileOutputStream(file))) {
+			XMLStreamWriter writer = fOutputFactory.createXMLStreamWriter(stream, StandardCharsets.UTF_8.name());
+			writer.writeStartDocument(StandardCharsets.UTF_8.name(), "1.0"); //$NON-NLS-1$
+			newLine(writer, 0);
+			writer.writeStartElement(IApiXmlConstants.REFERENCES);
+			for (Entry<String, String> entry : attributes.entrySet()) {
+				writer.writeAttribute(entry.getKey(), entry.getValue());
+			}
+			ReferenceRecord previous = null;
+			ReferenceRecord record = null;
+			while ((record = references.next()) != null) {
+				boolean newtarget = previous == null || ReferenceRecord.compare(previous.target, record.target) != 0;
+				if (newtarget) {
+					if (previous != null) {
+						endElement(writer, 2);
+						endElement(writer, 1);
+					}
+					newLine(writer, 1);
+					writer.writeStartElement(IApiXmlConstants.ELEMENT_TARGET);
+					writeAttribute(writer, IApiXmlConstants.ATTR_NAME, record.target);
+					writeAttribute(writer, IApiXmlConstants.ATTR_TYPE, record.targetType);
+					writeAttribute(writer, IApiXmlConstants.ATTR_MEMBER_NAME, record.targetMember);
+					writeAttribute(writer, IApiXmlConstants.ATTR_SIGNATURE, record.targetSignature);
+				}
+				if (newtarget || previous.kind != record.kind) {
+					if (!newtarget) {
+						endElement(writer, 2);
+					}
+					newLine(writer, 2);
+					writer.writeStartElement(IApiXmlConstants.REFERENCE_KIND);
+					writer.writeAttribute(IApiXmlConstants.ATTR_REFERENCE_KIND_NAME, Reference.getReferenceText(record.kind));
+					writer.writeAttribute(IApiXmlConstants.ATTR_KIND, Integer.toString(record.kind));
+					writer.writeAttribute(IApiXmlConstants.ATTR_FLAGS, Integer.toString(record.flags));
+				}
+				newLine(writer, 3);
+				writer.writeEmptyElement(IApiXmlConstants.ATTR_REFERENCE);
+				writeAttribute(writer, IApiXmlConstants.ATTR_ORIGIN, record.source);
+				writeAttribute(writer, IApiXmlConstants.ELEMENT_PROBLEM_MESSAGE_ARGUMENTS, record.messages);
+				writeAttribute(writer, IApiXmlConstants.ATTR_TYPE, record.sourceType);
+				writeAttribute(writer, IApiXmlConstants.ATTR_MEMBER_NAME, record.sourceMember);
+				writeAttribute(writer, IApiXmlConstants.ATTR_SIGNATURE, record.sourceSignature);
+				writer.writeAttribute(IApiXmlConstants.ATTR_LINE_NUMBER, Integer.toString(record.lineNumber));
+				count++;
+				previous = record;
+			}
+			if (previous != null) {
+				endElement(writer, 2);
+				endElement(writer, 1);
 			}
+			endElement(writer, 0);
+			newLine(writer, 0);
+			writer.writeEndDocument();
+			writer.close();
 		}
-		return null;
+		return count;
 	}
 
 	/**
-	 * gets the root kind element
+	 * Copies the given report, adding the reference count to its root element
 	 *
-	 * @param root
-	 * @param kind
-	 * @return
+	 * @param from the report written by
+	 *            {@link #writeReport(File, Map, RecordInput)}
+	 * @param to the file to write
+	 * @param count the number of references in the report
 	 */
-	private Element findKindElement(Element root, Integer kind) {
-		Element kelement = null;
-		NodeList nodes = root.getElementsByTagName(IApiXmlConstants.REFERENCE_KIND);
-		for (int i = 0; i < nodes.getLength(); i++) {
-			kelement = (Element) nodes.item(i);
-			if (kind.toString().equals(kelement.getAttribute(IApiXmlConstants.ATTR_KIND))) {
-				return kelement;
+	private void copyReport(File from, File to, int count) throws IOException, XMLStreamException {
+		try (InputStream in = new BufferedInputStream(new FileInputStream(from)); OutputStream out = new BufferedOutputStream(new FileOutputStream(to))) {
+			XMLEventReader reader = fInputFactory.createXMLEventReader(in);
+			XMLEventWriter writer = fOutputFactory.createXMLEventWriter(out, StandardCharsets.UTF_8.name());
+			boolean root = true;
+			while (reader.hasNext()) {
+				XMLEvent event = reader.nextEvent();
+				if (root && event.isStartElement()) {
+					root = false;
+					StartElement element = event.asStartElement();
+					List<Attribute> attributes = new ArrayList<>();
+					for (Iterator<?> iter = element.getAttributes(); iter.hasNext();) {
+						attributes.add((Attribute) iter.next());
+					}
+					attributes.add(fEventFactory.createAttribute(IApiXmlConstants.ATTR_REFERENCE_COUNT, Integer.toString(count)));
+					event = fEventFactory.createStartElement(element.getName(), attributes.iterator(), element.getNamespaces());
+				}
+				writer.add(event);
 			}
+			writer.close();
+			reader.close();
 		}
-		return null;
 	}
 
 	/**
-	 * Writes the attributes from the given {@link IReference} into a new
-	 * {@link Element} that is added to the given parent.
-	 *
-	 * @param document
-	 * @param parent
-	 * @param reference
+	 * Writes the given attribute if the value is not <code>null</code>
 	 */
-	private void writeReference(Document document, Element parent, IReferenceDescriptor reference) throws CoreException {
-		Element kelement = null;
-		Integer kind = Integer.valueOf(reference.getReferenceKind());
-		kelement = findKindElement(parent, kind);
-		if (kelement == null) {
-			kelement = document.createElement(IApiXmlConstants.REFERENCE_KIND);
-			kelement.setAttribute(IApiXmlConstants.ATTR_REFERENCE_KIND_NAME, Reference.getReferenceText(kind.intValue()));
-			kelement.setAttribute(IApiXmlConstants.ATTR_KIND, kind.toString());
-			kelement.setAttribute(IApiXmlConstants.ATTR_FLAGS, Integer.toString(reference.getReferenceFlags()));
-			parent.appendChild(kelement);
+	private void writeAttribute(XMLStreamWriter writer, String name, String value) throws XMLStreamException {
+		if (value != null) {
+			writer.writeAttribute(name, value);
 		}
-		Element relement = document.createElement(IApiXmlConstants.ATTR_REFERENCE);
-		IMemberDescriptor member = reference.getMember();
-		relement.setAttribute(IApiXmlConstants.ATTR_ORIGIN, getText(member));
-		String[] messages = reference.getProblemMessages();
-		if (messages != null) {
-			relement.setAttribute(IApiXmlConstants.ELEMENT_PROBLEM_MESSAGE_ARGUMENTS, getText(messages));
+	}
+
+	/**
+	 * Ends the current element, indented to the given depth
+	 */
+	private void endElement(XMLStreamWriter writer, int depth) throws XMLStreamException {
+		newLine(writer, depth);
+		writer.writeEndElement();
+	}
+
+	/**
+	 * Starts a new line indented to the given depth
+	 */
+	private void newLine(XMLStreamWriter writer, int depth) throws XMLStreamException {
+		StringBuilder buffer = new StringBuilder("\n"); //$NON-NLS-1$
+		for (int i = 0; i < depth; i++) {
+			buffer.append(INDENT);
 		}
-		// add detailed information about origin
-		addMemberDetails(relement, member);
-		member = reference.getReferencedMember();
-		if (member != null) {
-			relement.setAttribute(IApiXmlConstants.ATTR_LINE_NUMBER, Integer.toString(reference.getLineNumber()));
-			kelement.appendChild(relement);
+		writer.writeCharacters(buffer.toString());
+	}
+
+	/**
+	 * Returns the qualified type, member name and signature of the given
+	 * member, the values not applicable to the kind of member are
+	 * <code>null</code>
+	 *
+	 * @param member member to return the details for
+	 * @return the type, member name and signature
+	 */
+	private String[] getMemberDetails(IMemberDescriptor member) {
+		switch (member.getElementType()) {
+			case IElementDescriptor.TYPE:
+				return new String[] { ((IReferenceTypeDescriptor) member).getQualifiedName(), null, null };
+			case IElementDescriptor.FIELD:
+				return new String[] { member.getEnclosingType().getQualifiedName(), member.getName(), null };
+			case IElementDescriptor.METHOD:
+				return new String[] { member.getEnclosingType().getQualifiedName(), member.getName(), ((IMethodDescriptor) member).getSignature() };
+			default:
+				return new String[3];
 		}
 	}
 
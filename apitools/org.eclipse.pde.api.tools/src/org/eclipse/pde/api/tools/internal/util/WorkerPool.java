@@ -0,0 +1,289 @@
+/*******************************************************************************
+ * Copyright (c) 2019 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.pde.api.tools.internal.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.OperationCanceledException;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.SubMonitor;
+import org.eclipse.pde.api.tools.internal.provisional.ApiPlugin;
+
+/**
+ * Runs a unit of work over a list of elements using one shared, bounded
+ * fork/join pool. Results are always returned in the order of the given
+ * elements, so callers can merge them deterministically regardless of the
+ * completion order of the workers.
+ * <p>
+ * The shared pool has one thread per available processor, whatever the
+ * parallelism requested by the callers. Work submitted from a thread of the
+ * pool, or from any other thread created by {@link #newThreadFactory(String)},
+ * is done on the calling thread, so nested parallel operations do not
+ * multiply the number of threads.
+ * </p>
+ * <p>
+ * Progress is reported and cancellation is checked on the calling thread
+ * only; workers never touch the given progress monitor.
+ * </p>
+ *
+ * @since 1.1.800
+ */
+public final class WorkerPool {
+
+	/**
+	 * Work done for a single element
+	 *
+	 * @param <T> the type of the element to process
+	 * @param <R> the type of the result
+	 */
+	@FunctionalInterface
+	public interface Worker<T, R> {
+		/**
+		 * Processes the given element
+		 *
+		 * @param element the element to process
+		 * @return the result for the given element, can be <code>null</code>
+		 * @throws CoreException if the element cannot be processed
+		 */
+		R run(T element) throws CoreException;
+	}
+
+	/**
+	 * Thread created by {@link WorkerPool#newThreadFactory(String)}
+	 */
+	private static final class WorkerThread extends Thread {
+		WorkerThread(Runnable runnable, String name) {
+			super(runnable, name);
+			setDaemon(true);
+		}
+	}
+
+	/**
+	 * One call of {@link WorkerPool#run}: the pool threads working for it
+	 * take the next unprocessed element until all are done or the call is
+	 * abandoned
+	 */
+	private static final class Batch<T, R> {
+		final List<T> elements;
+		final Worker<T, R> worker;
+		final List<CompletableFuture<R>> results;
+		final AtomicInteger next = new AtomicInteger();
+		volatile boolean abandoned = false;
+
+		Batch(List<T> elements, Worker<T, R> worker) {
+			this.elements = elements;
+			this.worker = worker;
+			this.results = new ArrayList<>(elements.size());
+			for (int i = 0; i < elements.size(); i++) {
+				results.add(new CompletableFuture<>());
+			}
+		}
+
+		void work() {
+			int index;
+			while (!abandoned && (index = next.getAndIncrement()) < elements.size()) {
+				CompletableFuture<R> result = results.get(index);
+				try {
+					result.complete(worker.run(elements.get(index)));
+				} catch (Throwable e) {
+					result.completeExceptionally(e);
+				}
+			}
+		}
+	}
+
+	/**
+	 * How long the calling thread waits on a worker before polling for
+	 * cancellation again
+	 */
+	private static final long CANCEL_POLL_MILLIS = 100;
+
+	private static ForkJoinPool fgPool = null;
+
+	/**
+	 * Constructor - no instantiation
+	 */
+	private WorkerPool() {
+	}
+
+	/**
+	 * Returns the default number of workers to use: the number of available
+	 * processors
+	 *
+	 * @return the default parallelism, always &gt; 0
+	 */
+	public static int getDefaultParallelism() {
+		return Math.max(1, Runtime.getRuntime().availableProcessors());
+	}
+
+	/**
+	 * @return the shared pool, created on demand
+	 */
+	private static synchronized ForkJoinPool getPool() {
+		if (fgPool == null) {
+			final AtomicInteger count = new AtomicInteger();
+			fgPool = new ForkJoinPool(getDefaultParallelism(), pool -> {
+				ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+				thread.setName("API Tools Worker-" + count.incrementAndGet()); //$NON-NLS-1$
+				thread.setDaemon(true);
+				return thread;
+			}, null, false);
+		}
+		return fgPool;
+	}
+
+	/**
+	 * Stops the threads of the shared pool, if it was created. The pool is
+	 * created again if needed.
+	 */
+	public static synchronized void shutdown() {
+		if (fgPool != null) {
+			fgPool.shutdownNow();
+			fgPool = null;
+		}
+	}
+
+	/**
+	 * Returns a factory of daemon threads that are known as worker threads:
+	 * work submitted to this pool from them is done on the calling thread.
+	 *
+	 * @param prefix the prefix of the thread names
+	 * @return a new thread factory
+	 */
+	public static ThreadFactory newThreadFactory(final String prefix) {
+		final AtomicInteger count = new AtomicInteger();
+		return runnable -> new WorkerThread(runnable, prefix + count.incrementAndGet());
+	}
+
+	/**
+	 * @return <code>true</code> if the current thread is a thread of a fork
+	 *         join pool or was created by {@link #newThreadFactory(String)}
+	 */
+	public static boolean isWorkerThread() {
+		Thread thread = Thread.currentThread();
+		return thread instanceof ForkJoinWorkerThread || thread instanceof WorkerThread;
+	}
+
+	/**
+	 * Runs the given worker over all of the given elements, using at most
+	 * <code>parallelism</code> threads of the shared pool. The work is done on
+	 * the calling thread if <code>parallelism</code> is less than two, if
+	 * there is at most one element or if the calling thread is a worker
+	 * thread itself.
+	 *
+	 * @param elements the elements to process
+	 * @param parallelism the maximum number of threads to use
+	 * @param worker the work to do for each element
+	 * @param monitor the monitor to report progress to, one unit per element,
+	 *            or <code>null</code>
+	 * @return the results in the order of the given elements
+	 * @throws CoreException the first exception thrown by a worker, in element
+	 *             order
+	 * @throws OperationCanceledException if the monitor is canceled; pending
+	 *             work is abandoned
+	 */
+	public static <T, R> List<R> run(List<T> elements, int parallelism, Worker<T, R> worker, SubMonitor monitor) throws CoreException {
+		return run(elements, parallelism, 2, worker, monitor);
+	}
+
+	/**
+	 * Runs the given worker over all of the given elements like
+	 * {@link #run(List, int, Worker, SubMonitor)}, but only uses other threads
+	 * if there are at least <code>threshold</code> elements. Use a threshold
+	 * when the work for a single element is small compared to the cost of
+	 * handing it to another thread.
+	 *
+	 * @param elements the elements to process
+	 * @param parallelism the maximum number of threads to use
+	 * @param threshold the minimum number of elements to process concurrently
+	 * @param worker the work to do for each element
+	 * @param monitor the monitor to report progress to, one unit per element,
+	 *            or <code>null</code>
+	 * @return the results in the order of the given elements
+	 * @throws CoreException the first exception thrown by a worker, in element
+	 *             order
+	 * @throws OperationCanceledException if the monitor is canceled; pending
+	 *             work is abandoned
+	 */
+	public static <T, R> List<R> run(List<T> elements, int parallelism, int threshold, Worker<T, R> worker, SubMonitor monitor) throws CoreException {
+		SubMonitor localmonitor = SubMonitor.convert(monitor, elements.size());
+		List<R> results = new ArrayList<>(elements.size());
+		int workers = Math.min(Math.min(parallelism, elements.size()), getDefaultParallelism());
+		if (workers < 2 || elements.size() < threshold || isWorkerThread()) {
+			for (T element : elements) {
+				localmonitor.split(1);
+				results.add(worker.run(element));
+			}
+			return results;
+		}
+		Batch<T, R> batch = new Batch<>(elements, worker);
+		ForkJoinPool pool = getPool();
+		try {
+			for (int i = 0; i < workers; i++) {
+				pool.execute(batch::work);
+			}
+			for (CompletableFuture<R> result : batch.results) {
+				results.add(await(result, localmonitor));
+				localmonitor.split(1);
+			}
+			return results;
+		} finally {
+			batch.abandoned = true;
+		}
+	}
+
+	/**
+	 * Waits for the given result, polling the monitor for cancellation
+	 *
+	 * @param result the result to wait for
+	 * @param monitor the monitor to poll
+	 * @return the result
+	 * @throws CoreException if the work failed
+	 */
+	private static <R> R await(CompletableFuture<R> result, SubMonitor monitor) throws CoreException {
+		while (true) {
+			if (monitor.isCanceled()) {
+				throw new OperationCanceledException();
+			}
+			try {
+				return result.get(CANCEL_POLL_MILLIS, TimeUnit.MILLISECONDS);
+			} catch (TimeoutException e) {
+				// poll again
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new OperationCanceledException();
+			} catch (ExecutionException e) {
+				Throwable cause = e.getCause();
+				if (cause instanceof CoreException) {
+					throw (CoreException) cause;
+				}
+				if (cause instanceof OperationCanceledException) {
+					throw (OperationCanceledException) cause;
+				}
+				throw new CoreException(new Status(IStatus.ERROR, ApiPlugin.PLUGIN_ID, cause == null ? e.getMessage() : cause.getMessage(), cause));
+			}
+		}
+	}
+}
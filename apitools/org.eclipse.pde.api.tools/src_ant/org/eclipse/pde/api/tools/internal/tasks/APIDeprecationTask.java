@@ -23,6 +23,7 @@ import java.io.StringWriter;
 import org.apache.tools.ant.BuildException;
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.osgi.util.NLS;
+import org.eclipse.pde.api.tools.internal.model.ArchiveIndex;
 import org.eclipse.pde.api.tools.internal.model.StubApiComponent;
 import org.eclipse.pde.api.tools.internal.provisional.ApiPlugin;
 import org.eclipse.pde.api.tools.internal.provisional.VisibilityModifiers;
@@ -119,6 +120,7 @@ public class APIDeprecationTask extends CommonUtilsTask {
 			referenceBaseline.dispose();
 			currentBaseline.dispose();
 			StubApiComponent.disposeAllCaches();
+			ArchiveIndex.closeAll();
 			deleteBaseline(this.referenceBaselineLocation, referenceInstallDir);
 			deleteBaseline(this.currentBaselineLocation, baselineInstallDir);
 			if (this.debug) {
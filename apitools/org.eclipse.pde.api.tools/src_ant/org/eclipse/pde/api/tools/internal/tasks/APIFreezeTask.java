@@ -27,6 +27,7 @@ import org.eclipse.core.runtime.CoreException;
 import org.eclipse.osgi.service.resolver.ResolverError;
 import org.eclipse.osgi.util.NLS;
 import org.eclipse.pde.api.tools.internal.IApiXmlConstants;
+import org.eclipse.pde.api.tools.internal.model.ArchiveIndex;
 import org.eclipse.pde.api.tools.internal.model.StubApiComponent;
 import org.eclipse.pde.api.tools.internal.provisional.ApiPlugin;
 import org.eclipse.pde.api.tools.internal.provisional.VisibilityModifiers;
@@ -161,6 +162,7 @@ public class APIFreezeTask extends CommonUtilsTask {
 			referenceBaseline.dispose();
 			currentBaseline.dispose();
 			StubApiComponent.disposeAllCaches();
+			ArchiveIndex.closeAll();
 			deleteBaseline(this.referenceBaselineLocation, referenceInstallDir);
 			deleteBaseline(this.currentBaselineLocation, baselineInstallDir);
 			if (this.debug) {
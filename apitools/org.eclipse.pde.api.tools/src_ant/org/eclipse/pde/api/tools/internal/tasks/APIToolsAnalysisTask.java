@@ -39,6 +39,7 @@ import org.eclipse.pde.api.tools.internal.AntFilterStore;
 import org.eclipse.pde.api.tools.internal.IApiXmlConstants;
 import org.eclipse.pde.api.tools.internal.builder.BaseApiAnalyzer;
 import org.eclipse.pde.api.tools.internal.builder.BuildContext;
+import org.eclipse.pde.api.tools.internal.model.ArchiveIndex;
 import org.eclipse.pde.api.tools.internal.model.StubApiComponent;
 import org.eclipse.pde.api.tools.internal.problems.ApiProblemFactory;
 import org.eclipse.pde.api.tools.internal.provisional.ApiPlugin;
@@ -501,6 +502,7 @@ public class APIToolsAnalysisTask extends CommonUtilsTask {
 			referenceBaseline.dispose();
 			currentBaseline.dispose();
 			StubApiComponent.disposeAllCaches();
+			ArchiveIndex.closeAll();
 			deleteBaseline(this.referenceBaselineLocation, referenceInstallDir);
 			deleteBaseline(this.currentBaselineLocation, baselineInstallDir);
 			if (this.debug) {
@@ -25,6 +25,7 @@ import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.NullProgressMonitor;
 import org.eclipse.osgi.service.resolver.ResolverError;
 import org.eclipse.osgi.util.NLS;
+import org.eclipse.pde.api.tools.internal.model.ArchiveIndex;
 import org.eclipse.pde.api.tools.internal.provisional.model.IApiBaseline;
 import org.eclipse.pde.api.tools.internal.provisional.model.IApiComponent;
 import org.eclipse.pde.api.tools.internal.search.ReferenceLookupVisitor;
@@ -259,6 +260,7 @@ public final class ApiMigrationTask extends CommonUtilsTask {
 		} finally {
 			if (baseline != null) {
 				baseline.dispose();
+				ArchiveIndex.closeAll();
 				deleteBaseline(this.currentBaselineLocation, this.baselinedir);
 			}
 		}
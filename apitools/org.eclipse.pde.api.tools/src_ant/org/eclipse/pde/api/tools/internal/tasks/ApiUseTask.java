@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2009, 2013 IBM Corporation and others.
+ * Copyright (c) 2009, 2019 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -27,6 +27,7 @@ import org.apache.tools.ant.BuildException;
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.osgi.service.resolver.ResolverError;
 import org.eclipse.osgi.util.NLS;
+import org.eclipse.pde.api.tools.internal.model.ArchiveIndex;
 import org.eclipse.pde.api.tools.internal.provisional.ApiPlugin;
 import org.eclipse.pde.api.tools.internal.provisional.model.IApiBaseline;
 import org.eclipse.pde.api.tools.internal.provisional.model.IApiComponent;
@@ -37,6 +38,7 @@ import org.eclipse.pde.api.tools.internal.provisional.search.IApiSearchRequestor
 import org.eclipse.pde.api.tools.internal.search.ApiDescriptionModifier;
 import org.eclipse.pde.api.tools.internal.search.SkippedComponent;
 import org.eclipse.pde.api.tools.internal.search.UseMetadata;
+import org.eclipse.pde.api.tools.internal.search.UseScanIndex;
 import org.eclipse.pde.api.tools.internal.search.UseSearchRequestor;
 import org.eclipse.pde.api.tools.internal.search.XmlSearchReporter;
 import org.eclipse.pde.api.tools.internal.util.FilteredElements;
@@ -119,6 +121,11 @@ public final class ApiUseTask extends CommonUtilsTask {
 	 */
 	private String filters = null;
 
+	/**
+	 * The number of components to search concurrently
+	 */
+	private int threads = 1;
+
 	/**
 	 * Set the location of the current product you want to search.
 	 *
@@ -333,17 +340,33 @@ public final class ApiUseTask extends CommonUtilsTask {
 			}
 
 			ApiPlugin.DEBUG_SEARCH_ENGINE = this.debug;
-			engine.search(baseline, requestor, reporter, null);
+			engine.search(baseline, requestor, reporter, this.threads, null);
 		} catch (CoreException ce) {
 			throw new BuildException(Messages.ApiUseTask_search_engine_problem, ce);
 		} finally {
 			if (baseline != null) {
 				baseline.dispose();
+				ArchiveIndex.closeAll();
 				deleteBaseline(this.currentBaselineLocation, this.baselinedir);
 			}
 			reporter.reportNotSearched(this.notsearched.toArray(new IApiElement[this.notsearched.size()]));
 			reporter.reportMetadata(data);
 			reporter.reportCounts();
+			writeIndex(this.reportLocation);
+		}
+	}
+
+	/**
+	 * Writes the index of the use scan at the given report location, which lets
+	 * the API builder look up references without parsing the reports
+	 *
+	 * @param xmlLocation
+	 */
+	private void writeIndex(String xmlLocation) {
+		try {
+			UseScanIndex.write(xmlLocation, null);
+		} catch (Exception e) {
+			ApiPlugin.log(e);
 		}
 	}
 
@@ -514,6 +537,7 @@ public final class ApiUseTask extends CommonUtilsTask {
 			System.out.println("Searching for API references : " + this.considerapi); //$NON-NLS-1$
 			System.out.println("Searching for internal references : " + this.considerinternal); //$NON-NLS-1$
 			System.out.println("Searching for illegal API use : " + this.considerillegaluse); //$NON-NLS-1$
+			System.out.println("Threads : " + this.threads); //$NON-NLS-1$
 			if (this.excludeListLocation != null) {
 				System.out.println("Exclude list location : " + this.excludeListLocation); //$NON-NLS-1$
 			} else {
@@ -642,4 +666,26 @@ public final class ApiUseTask extends CommonUtilsTask {
 	public void setFilters(String filters) {
 		this.filters = filters;
 	}
+
+	/**
+	 * Set the number of threads used to search the API components.
+	 *
+	 * <p>
+	 * The value is either a positive number or <code>"auto"</code> to use as
+	 * many threads as there are available processors. The references in the
+	 * report do not depend on this value.
+	 * </p>
+	 *
+	 * <p>
+	 * This is optional. If not set, the components are searched on a single
+	 * thread.
+	 * </p>
+	 *
+	 * @param value the given number of threads
+	 * @throws BuildException if the given value is neither a positive number
+	 *             nor "auto"
+	 */
+	public void setThreads(String value) {
+		this.threads = parseThreads(value);
+	}
 }
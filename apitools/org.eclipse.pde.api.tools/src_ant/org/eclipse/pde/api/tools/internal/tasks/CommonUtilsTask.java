@@ -32,6 +32,7 @@ import org.eclipse.pde.api.tools.internal.provisional.model.IApiComponent;
 import org.eclipse.pde.api.tools.internal.util.FilteredElements;
 import org.eclipse.pde.api.tools.internal.util.TarException;
 import org.eclipse.pde.api.tools.internal.util.Util;
+import org.eclipse.pde.api.tools.internal.util.WorkerPool;
 
 /**
  * Common code for API Tools Ant tasks.
@@ -46,6 +47,12 @@ public abstract class CommonUtilsTask extends Task {
 	protected static final String CURRENT_BASELINE_NAME = "current_baseline"; //$NON-NLS-1$
 	protected static final String REFERENCE = "referenceBaseline"; //$NON-NLS-1$
 	protected static final String REFERENCE_BASELINE_NAME = "reference_baseline"; //$NON-NLS-1$
+	/**
+	 * The number of threads that uses all available processors
+	 *
+	 * @since 1.1.800
+	 */
+	protected static final String THREADS_AUTO = "auto"; //$NON-NLS-1$
 
 	protected boolean debug;
 	protected String eeFileLocation;
@@ -151,6 +158,32 @@ public abstract class CommonUtilsTask extends Task {
 		}
 	}
 
+	/**
+	 * Parses the number of threads given to a task
+	 *
+	 * @param value either a positive number or <code>"auto"</code> to use as
+	 *            many threads as there are available processors
+	 * @return the number of threads
+	 * @throws BuildException if the given value is neither a positive number
+	 *             nor "auto"
+	 * @since 1.1.800
+	 */
+	protected static int parseThreads(String value) throws BuildException {
+		if (THREADS_AUTO.equals(value)) {
+			return WorkerPool.getDefaultParallelism();
+		}
+		int threads;
+		try {
+			threads = Integer.parseInt(value);
+		} catch (NumberFormatException e) {
+			threads = 0;
+		}
+		if (threads < 1) {
+			throw new BuildException(NLS.bind(Messages.invalidThreads, value));
+		}
+		return threads;
+	}
+
 	/**
 	 * Initializes the include/exclude list from the given file location, and
 	 * returns a {@link Set} of project names that should be include/excluded.
@@ -26,6 +26,7 @@ import java.util.regex.PatternSyntaxException;
 import org.apache.tools.ant.BuildException;
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.osgi.util.NLS;
+import org.eclipse.pde.api.tools.internal.model.ArchiveIndex;
 import org.eclipse.pde.api.tools.internal.model.StubApiComponent;
 import org.eclipse.pde.api.tools.internal.provisional.ApiPlugin;
 import org.eclipse.pde.api.tools.internal.provisional.VisibilityModifiers;
@@ -51,6 +52,7 @@ public class CompareTask extends CommonUtilsTask {
 	private String componentsList;
 	private String excludeListLocation;
 	private String includeListLocation;
+	private int threads = ApiComparator.SEQUENTIAL;
 
 	@Override
 	public void execute() throws BuildException {
@@ -69,6 +71,7 @@ public class CompareTask extends CommonUtilsTask {
 			System.out.println("Baseline to compare : " + this.currentBaselineLocation); //$NON-NLS-1$
 			System.out.println("Report location : " + this.reportLocation); //$NON-NLS-1$
 			System.out.println("Component's list : " + this.componentsList); //$NON-NLS-1$
+			System.out.println("Threads : " + this.threads); //$NON-NLS-1$
 			if (this.excludeListLocation != null) {
 				System.out.println("exclude list location : " + this.excludeListLocation); //$NON-NLS-1$
 			} else {
@@ -146,7 +149,7 @@ public class CompareTask extends CommonUtilsTask {
 			scope.addElement(currentBaseline);
 		}
 		try {
-			delta = ApiComparator.compare(scope, referenceBaseline, this.visibilityModifiers, false, null);
+			delta = ApiComparator.compare(scope, referenceBaseline, this.visibilityModifiers, false, false, this.threads, null);
 		} catch (CoreException e) {
 			// an error occurred during the comparison
 			throw new BuildException(NLS.bind(Messages.illegalElementInScope, e.getMessage()));
@@ -154,6 +157,7 @@ public class CompareTask extends CommonUtilsTask {
 			referenceBaseline.dispose();
 			currentBaseline.dispose();
 			StubApiComponent.disposeAllCaches();
+			ArchiveIndex.closeAll();
 			deleteBaseline(this.referenceBaselineLocation, referenceInstallDir);
 			deleteBaseline(this.currentBaselineLocation, baselineInstallDir);
 		}
@@ -387,4 +391,25 @@ public class CompareTask extends CommonUtilsTask {
 	public void setincludeList(String includeListLocation) {
 		this.includeListLocation = includeListLocation;
 	}
+
+	/**
+	 * Set the number of threads used to compare the API components.
+	 *
+	 * <p>
+	 * The value is either a positive number or <code>"auto"</code> to use as
+	 * many threads as there are available processors. The report does not
+	 * depend on this value.
+	 * </p>
+	 *
+	 * <p>
+	 * This is optional. If not set, the comparison runs on a single thread.
+	 * </p>
+	 *
+	 * @param value the given number of threads
+	 * @throws BuildException if the given value is neither a positive number
+	 *             nor "auto"
+	 */
+	public void setThreads(String value) {
+		this.threads = parseThreads(value);
+	}
 }
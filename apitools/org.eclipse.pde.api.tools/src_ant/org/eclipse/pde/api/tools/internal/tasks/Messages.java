@@ -77,6 +77,7 @@ public class Messages extends NLS {
 	public static String errorInComparison;
 	public static String illegalElementInScope;
 	public static String errorCreatingParentReportFile;
+	public static String invalidThreads;
 	public static String errorCreatingReportDirectory;
 	public static String directoryIsEmpty;
 	public static String fileDoesnotExist;
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2011, 2012 IBM Corporation and others.
+ * Copyright (c) 2011, 2019 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -32,6 +32,8 @@ public final class MissingRefProblemsReportConversionTask extends CommonUtilsTas
 
 	private String xmlReportsLocation = null;
 	private String htmlReportsLocation = null;
+	private int threads = 1;
+	private boolean incremental = false;
 
 	/**
 	 * Set the debug value.
@@ -79,6 +81,46 @@ public final class MissingRefProblemsReportConversionTask extends CommonUtilsTas
 		this.xmlReportsLocation = xmlFilesLocation;
 	}
 
+	/**
+	 * Set the number of threads used to write the pages of the referenced
+	 * components.
+	 *
+	 * <p>
+	 * The value is either a positive number or <code>"auto"</code> to use as
+	 * many threads as there are available processors. The pages do not depend
+	 * on this value.
+	 * </p>
+	 *
+	 * <p>
+	 * This is optional. If not set, the pages are written on a single thread.
+	 * </p>
+	 *
+	 * @param value the given number of threads
+	 * @throws BuildException if the given value is neither a positive number
+	 *             nor "auto"
+	 */
+	public void setThreads(String value) {
+		this.threads = parseThreads(value);
+	}
+
+	/**
+	 * Set if the pages of components whose XML reports did not change since
+	 * the previous conversion should be kept.
+	 * <p>
+	 * The possible values are: <code>true</code>, <code>false</code>
+	 * </p>
+	 * <p>
+	 * Default is <code>false</code>, the HTML location is deleted before the
+	 * conversion. Otherwise the HTML location is kept, and the checksums of
+	 * the XML reports are recorded in a manifest file in it.
+	 * </p>
+	 *
+	 * @param incremental the given incremental value
+	 */
+	public void setIncremental(String incremental) {
+		this.incremental = Boolean.toString(true).equals(incremental);
+	}
+
 	@Override
 	public void execute() throws BuildException {
 		if (this.xmlReportsLocation == null) {
@@ -92,8 +134,12 @@ public final class MissingRefProblemsReportConversionTask extends CommonUtilsTas
 			System.out.println("HTML report location: " + this.htmlReportsLocation); //$NON-NLS-1$
 		}
 		try {
-			Util.delete(new File(this.htmlReportsLocation));
+			if (!this.incremental) {
+				Util.delete(new File(this.htmlReportsLocation));
+			}
 			MissingRefReportConverter converter = new MissingRefReportConverter(this.htmlReportsLocation, this.xmlReportsLocation);
+			converter.setThreads(this.threads);
+			converter.setIncremental(this.incremental);
 			ApiPlugin.DEBUG_USE_REPORT_CONVERTER = this.debug;
 			converter.convert(null, new NullProgressMonitor());
 			File index = converter.getReportIndex();
@@ -42,6 +42,7 @@ import org.eclipse.osgi.util.NLS;
 import org.eclipse.pde.api.tools.internal.IApiXmlConstants;
 import org.eclipse.pde.api.tools.internal.builder.BaseApiAnalyzer;
 import org.eclipse.pde.api.tools.internal.builder.BuildContext;
+import org.eclipse.pde.api.tools.internal.model.ArchiveIndex;
 import org.eclipse.pde.api.tools.internal.model.StubApiComponent;
 import org.eclipse.pde.api.tools.internal.problems.ApiProblem;
 import org.eclipse.pde.api.tools.internal.problems.ApiProblemFactory;
@@ -202,6 +203,7 @@ public class MissingRefProblemsTask extends CommonUtilsTask {
 			}
 			profile.dispose();
 			StubApiComponent.disposeAllCaches();
+			ArchiveIndex.closeAll();
 			deleteBaseline(super.currentBaselineLocation, baselineInstallDir);
 			writeMetaData(new File(this.reportLocation, "meta.xml")); //$NON-NLS-1$
 		}
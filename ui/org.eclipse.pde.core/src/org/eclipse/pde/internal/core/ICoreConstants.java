@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2018 IBM Corporation and others.
+ * Copyright (c) 2000, 2019 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -480,6 +480,13 @@ public interface ICoreConstants {
 	 */
 	public static final String DISABLE_API_ANALYSIS_BUILDER = "Preferences.MainPage.disableAPIAnalysisBuilder";//$NON-NLS-1$
 
+	/**
+	 * Boolean preference whether the API analysis of full builds is deferred
+	 * to a workspace wide scheduler that analyzes independent projects
+	 * concurrently. Not accessible from the UI.
+	 */
+	public static final String PARALLEL_API_ANALYSIS = "Preferences.MainPage.parallelAPIAnalysis";//$NON-NLS-1$
+
 	/**
 	 * Explicit preference value for {@link #WORKSPACE_TARGET_HANDLE} when the user chooses no
 	 * target for the workspace (no external bundles).
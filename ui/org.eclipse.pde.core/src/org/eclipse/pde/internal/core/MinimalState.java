@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2005, 2015 IBM Corporation and others.
+ * Copyright (c) 2005, 2019 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -95,17 +95,35 @@ public class MinimalState {
 	}
 
 	public BundleDescription addBundle(Map<String, String> manifest, File bundleLocation, long bundleId) throws CoreException {
-		try {
-			// OSGi requires a dictionary over any map
-			Hashtable<String, String> dictionaryManifest = new Hashtable<>(manifest);
-			BundleDescription descriptor = stateObjectFactory.createBundleDescription(fState, dictionaryManifest, bundleLocation.getAbsolutePath(), bundleId == -1 ? getNextId() : bundleId);
+		BundleDescription descriptor = createBundleDescription(manifest, bundleLocation, bundleId == -1 ? getNextId() : bundleId);
+		if (descriptor != null) {
 			// new bundle
 			if (bundleId == -1) {
 				fState.addBundle(descriptor);
 			} else if (!fState.updateBundle(descriptor)) {
 				fState.addBundle(descriptor);
 			}
-			return descriptor;
+		}
+		return descriptor;
+	}
+
+	/**
+	 * Creates a bundle description for the given manifest without adding it to
+	 * the state. Does not modify this state and can be called from several
+	 * threads at once.
+	 *
+	 * @param manifest the manifest of the bundle
+	 * @param bundleLocation the location of the bundle
+	 * @param bundleId the id of the new bundle description
+	 * @return the bundle description or <code>null</code> if the manifest
+	 *         contains invalid values
+	 * @throws CoreException if the manifest is not a valid bundle manifest
+	 */
+	protected BundleDescription createBundleDescription(Map<String, String> manifest, File bundleLocation, long bundleId) throws CoreException {
+		try {
+			// OSGi requires a dictionary over any map
+			Hashtable<String, String> dictionaryManifest = new Hashtable<>(manifest);
+			return stateObjectFactory.createBundleDescription(fState, dictionaryManifest, bundleLocation.getAbsolutePath(), bundleId);
 		} catch (BundleException e) {
 			// A stack trace isn't helpful here, but need to list the plug-in location causing the issue
 			MultiStatus status = new MultiStatus(PDECore.PLUGIN_ID, 0, NLS.bind(UtilMessages.ErrorReadingManifest, bundleLocation.toString()), null);
@@ -118,11 +136,35 @@ public class MinimalState {
 	}
 
 	public BundleDescription addBundle(File bundleLocation, long bundleId) throws CoreException {
+		Map<String, String> manifest = loadManifest(bundleLocation);
+		BundleDescription desc = addBundle(manifest, bundleLocation, bundleId);
+		bundleAdded(desc, manifest);
+		return desc;
+	}
+
+	/**
+	 * Loads the manifest of the given bundle, woven for development mode. Does
+	 * not modify this state and can be called from several threads at once.
+	 *
+	 * @param bundleLocation the location of the bundle
+	 * @return the manifest headers
+	 * @throws CoreException if the manifest cannot be read
+	 */
+	protected Map<String, String> loadManifest(File bundleLocation) throws CoreException {
 		Map<String, String> manifest = ManifestUtils.loadManifest(bundleLocation);
 		// update for development mode
 		TargetWeaver.weaveManifest(manifest);
+		return manifest;
+	}
 
-		BundleDescription desc = addBundle(manifest, bundleLocation, bundleId);
+	/**
+	 * Records the auxiliary data of a bundle description that was added to the
+	 * state
+	 *
+	 * @param desc the added bundle description or <code>null</code>
+	 * @param manifest the manifest of the bundle
+	 */
+	protected void bundleAdded(BundleDescription desc, Map<String, String> manifest) {
 		if (desc != null && manifest != null && "true".equals(manifest.get(ICoreConstants.ECLIPSE_SYSTEM_BUNDLE))) { //$NON-NLS-1$
 			// if this is the system bundle then
 			// indicate that the javaProfile has changed since the new system
@@ -133,7 +175,6 @@ public class MinimalState {
 		if (desc != null) {
 			addAuxiliaryData(desc, manifest, true);
 		}
-		return desc;
 	}
 
 	protected void addAuxiliaryData(BundleDescription desc, Map<String, String> manifest, boolean hasBundleStructure) {
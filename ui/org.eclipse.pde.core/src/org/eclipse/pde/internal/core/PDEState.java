@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2005, 2016 IBM Corporation and others.
+ * Copyright (c) 2005, 2019 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -17,16 +17,25 @@ package org.eclipse.pde.internal.core;
 import java.io.File;
 import java.net.URI;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntConsumer;
 import org.eclipse.core.filesystem.URIUtil;
 import org.eclipse.core.resources.IWorkspaceRoot;
 import org.eclipse.core.resources.ResourcesPlugin;
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IPath;
 import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.OperationCanceledException;
 import org.eclipse.core.runtime.Path;
 import org.eclipse.core.runtime.SubMonitor;
 import org.eclipse.osgi.service.resolver.BaseDescription;
@@ -42,7 +51,19 @@ import org.osgi.framework.Version;
 
 public class PDEState extends MinimalState {
 
+	/**
+	 * Name of the directory in the PDE metadata holding the target state snapshot
+	 */
+	private static final String SNAPSHOT_DIR = ".target_snapshot"; //$NON-NLS-1$
+
+	/**
+	 * Upper bound of the threads loading the target bundles. Loading is mostly
+	 * file system access, more threads do not help.
+	 */
+	private static final int MAX_THREADS = 8;
+
 	private final PDEAuxiliaryState fAuxiliaryState;
+	private final int fThreads;
 	private final ArrayList<IPluginModelBase> fTargetModels = new ArrayList<>();
 
 	/**
@@ -54,11 +75,48 @@ public class PDEState extends MinimalState {
 	 * @param monitor progress monitor
 	 */
 	public PDEState(URI[] target, boolean addResolver, boolean removeDuplicates, IProgressMonitor monitor) {
+		this(target, addResolver, removeDuplicates, false, monitor);
+	}
+
+	/**
+	 * Creates a new PDE State containing bundles from the given URLs.
+	 *
+	 * @param target urls of target bundles
+	 * @param addResolver whether to add a resolver to the state
+	 * @param removeDuplicates whether to remove duplicate conflicting bundles from the state
+	 * @param useSnapshot whether to restore the state from the target state snapshot
+	 * saved in the PDE metadata, only reading bundles that changed since, and to update
+	 * the snapshot
+	 * @param monitor progress monitor
+	 */
+	public PDEState(URI[] target, boolean addResolver, boolean removeDuplicates, boolean useSnapshot, IProgressMonitor monitor) {
+		this(target, addResolver, removeDuplicates, useSnapshot, Math.min(Runtime.getRuntime().availableProcessors(), MAX_THREADS), monitor);
+	}
+
+	/**
+	 * Creates a new PDE State containing bundles from the given URLs.
+	 *
+	 * @param target urls of target bundles
+	 * @param addResolver whether to add a resolver to the state
+	 * @param removeDuplicates whether to remove duplicate conflicting bundles from the state
+	 * @param useSnapshot whether to restore the state from the target state snapshot
+	 * saved in the PDE metadata, only reading bundles that changed since, and to update
+	 * the snapshot
+	 * @param threads the number of threads loading the target bundles, the state does
+	 * not depend on it
+	 * @param monitor progress monitor
+	 */
+	public PDEState(URI[] target, boolean addResolver, boolean removeDuplicates, boolean useSnapshot, int threads, IProgressMonitor monitor) {
 		long start = System.currentTimeMillis();
 		fAuxiliaryState = new PDEAuxiliaryState();
+		fThreads = Math.max(1, threads);
 
-		// We no longer try and restore from a cached state as it had no performance benefit
-		createNewTargetState(addResolver, target, monitor);
+		File[] files = toFiles(target);
+		if (useSnapshot) {
+			createTargetStateFromSnapshot(addResolver, files, monitor);
+		} else {
+			createNewTargetState(addResolver, files, monitor);
+		}
 
 		if (removeDuplicates) {
 			removeDuplicatesFromState(fState);
@@ -73,94 +131,315 @@ public class PDEState extends MinimalState {
 		}
 	}
 
-	private void createNewTargetState(boolean resolve, URI[] uris, IProgressMonitor monitor) {
+	private void createNewTargetState(boolean resolve, File[] files, IProgressMonitor monitor) {
 		fState = stateObjectFactory.createState(resolve);
 		if (resolve) {
-			fState.getResolver().setSelectionPolicy(new Comparator<BaseDescription>() {
-				@Override
-				public int compare(BaseDescription bd1, BaseDescription bd2) {
-					Version v1 = bd1.getVersion();
-					Version v2 = bd2.getVersion();
-					int versionCompare = versionCompare(v1, v2);
-					if (versionCompare != 0) {
-						return versionCompare;
-					}
-					BundleDescription s1 = bd1.getSupplier();
-					BundleDescription s2 = bd2.getSupplier();
-					String n1 = s1.getName();
-					String n2 = s2.getName();
-					if (n1 != null && n1.equals(n2)) {
-						int retValue = versionCompare(s1.getVersion(), s2.getVersion());
-						if(retValue == 0){
-							boolean isQualifier = "qualifier".equals(v1.getQualifier()); //$NON-NLS-1$
-							if (!isQualifier) {
-								String loc1 = s1.getLocation();
-								String loc2 = s2.getLocation();
-								if (loc1 != null && loc2 != null  && !loc1.equals(loc2)) {
-									IWorkspaceRoot root = ResourcesPlugin.getWorkspace().getRoot();
-									if (root != null) {
-										IPath p1 = new Path(loc1);
-										if (root.findContainersForLocationURI(URIUtil.toURI(p1)).length != 0) {
-											return -1;
-										}
-										IPath p2 = new Path(loc2);
-										if (root.findContainersForLocationURI(URIUtil.toURI(p2)).length != 0) {
-											return 1;
-										}
+			initializeSelectionPolicy();
+		}
+		addTargetBundles(files, Collections.emptyMap(), monitor);
+	}
+
+	/**
+	 * Creates the target state from the manifests recorded in the snapshot
+	 * saved in the PDE metadata. Only the manifests of bundles that changed or
+	 * are not part of the snapshot are read. The snapshot is updated if
+	 * anything changed. The resulting state is the same as the one created from
+	 * the manifest files.
+	 *
+	 * @param resolve whether to add a resolver to the state
+	 * @param files the target bundles, can contain <code>null</code> entries
+	 * @param monitor progress monitor
+	 */
+	private void createTargetStateFromSnapshot(boolean resolve, File[] files, IProgressMonitor monitor) {
+		long start = System.currentTimeMillis();
+		// checking the timestamps means one file system access per bundle, which is slow on network drives
+		long[] timestamps = new long[files.length];
+		runParallel(files.length, i -> {
+			if (files[i] != null) {
+				timestamps[i] = TargetStateSnapshot.getTimestamp(files[i]);
+			}
+		});
+
+		TargetStateSnapshot snapshot = new TargetStateSnapshot(new File(DIR, SNAPSHOT_DIR));
+		boolean valid = snapshot.read();
+		Map<String, Map<String, String>> manifests = new HashMap<>();
+		int bundles = 0;
+		for (int i = 0; i < files.length; i++) {
+			if (files[i] != null) {
+				String location = files[i].getAbsolutePath();
+				Map<String, String> manifest = snapshot.getManifest(location, timestamps[i]);
+				if (manifest != null) {
+					manifests.put(location, manifest);
+				}
+				bundles++;
+			}
+		}
+
+		fState = stateObjectFactory.createState(resolve);
+		if (resolve) {
+			initializeSelectionPolicy();
+		}
+		TargetBundleEntry[] entries = addTargetBundles(files, manifests, monitor);
+		int read = bundles - manifests.size();
+		if (!valid || read > 0 || bundles != snapshot.getBundleCount()) {
+			writeSnapshot(snapshot, entries, timestamps);
+		}
+		if (PDECore.DEBUG_MODEL) {
+			System.out.println("Created target state from snapshot with " + fState.getBundles().length + " bundles, " + read + " read, in " + (System.currentTimeMillis() - start) + " ms"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$
+		}
+	}
+
+	/**
+	 * Saves the manifests of the target bundles as snapshot
+	 *
+	 * @param snapshot the snapshot to replace
+	 * @param entries the target bundles added to the state
+	 * @param timestamps the timestamps of the target bundles
+	 */
+	private void writeSnapshot(TargetStateSnapshot snapshot, TargetBundleEntry[] entries, long[] timestamps) {
+		long start = System.currentTimeMillis();
+		Map<String, TargetStateSnapshot.BundleStamp> stamps = new LinkedHashMap<>();
+		for (int i = 0; i < entries.length; i++) {
+			// bundles without a readable manifest are read again next time
+			if (entries[i] != null && entries[i].manifest != null) {
+				stamps.put(entries[i].file.getAbsolutePath(), new TargetStateSnapshot.BundleStamp(timestamps[i], entries[i].manifest));
+			}
+		}
+		snapshot.write(stamps);
+		if (PDECore.DEBUG_MODEL) {
+			System.out.println("Time to save target state snapshot: " + (System.currentTimeMillis() - start) + " ms"); //$NON-NLS-1$ //$NON-NLS-2$
+		}
+	}
+
+	private void initializeSelectionPolicy() {
+		fState.getResolver().setSelectionPolicy(new Comparator<BaseDescription>() {
+			@Override
+			public int compare(BaseDescription bd1, BaseDescription bd2) {
+				Version v1 = bd1.getVersion();
+				Version v2 = bd2.getVersion();
+				int versionCompare = versionCompare(v1, v2);
+				if (versionCompare != 0) {
+					return versionCompare;
+				}
+				BundleDescription s1 = bd1.getSupplier();
+				BundleDescription s2 = bd2.getSupplier();
+				String n1 = s1.getName();
+				String n2 = s2.getName();
+				if (n1 != null && n1.equals(n2)) {
+					int retValue = versionCompare(s1.getVersion(), s2.getVersion());
+					if(retValue == 0){
+						boolean isQualifier = "qualifier".equals(v1.getQualifier()); //$NON-NLS-1$
+						if (!isQualifier) {
+							String loc1 = s1.getLocation();
+							String loc2 = s2.getLocation();
+							if (loc1 != null && loc2 != null  && !loc1.equals(loc2)) {
+								IWorkspaceRoot root = ResourcesPlugin.getWorkspace().getRoot();
+								if (root != null) {
+									IPath p1 = new Path(loc1);
+									if (root.findContainersForLocationURI(URIUtil.toURI(p1)).length != 0) {
+										return -1;
+									}
+									IPath p2 = new Path(loc2);
+									if (root.findContainersForLocationURI(URIUtil.toURI(p2)).length != 0) {
+										return 1;
 									}
 								}
 							}
 						}
-						return retValue;
 					}
-					long id1 = s1.getBundleId();
-					long id2 = s2.getBundleId();
-					return (id1 < id2) ? -1 : ((id1 == id2) ? 0 : 1);
+					return retValue;
 				}
+				long id1 = s1.getBundleId();
+				long id2 = s2.getBundleId();
+				return (id1 < id2) ? -1 : ((id1 == id2) ? 0 : 1);
+			}
 
-				/**
-				 * Compares the given versions and prefers ".qualifier" versions over versions
-				 * with any concrete qualifier.
-				 *
-				 * @param v1 first version
-				 * @param v2 second version
-				 * @return a negative number, zero, or a positive number depending on
-				 * if the first version is more desired, equal amount of desire, or less desired
-				 * than the second version respectively
-				 */
-				private int versionCompare(Version v1, Version v2) {
-					if (v1.getMajor() == v2.getMajor() && v1.getMinor() == v2.getMinor() && v1.getMicro() == v2.getMicro()) {
-						if (v1.getQualifier().equals(v2.getQualifier())) {
-							return 0;
-						}
-						boolean q1 = "qualifier".equals(v1.getQualifier()); //$NON-NLS-1$
-						boolean q2 = "qualifier".equals(v2.getQualifier()); //$NON-NLS-1$
-						if (q1 && !q2) {
-							return -1;
-						} else if (q2 && !q1) {
-							return 1;
-						}
+			/**
+			 * Compares the given versions and prefers ".qualifier" versions over versions
+			 * with any concrete qualifier.
+			 *
+			 * @param v1 first version
+			 * @param v2 second version
+			 * @return a negative number, zero, or a positive number depending on
+			 * if the first version is more desired, equal amount of desire, or less desired
+			 * than the second version respectively
+			 */
+			private int versionCompare(Version v1, Version v2) {
+				if (v1.getMajor() == v2.getMajor() && v1.getMinor() == v2.getMinor() && v1.getMicro() == v2.getMicro()) {
+					if (v1.getQualifier().equals(v2.getQualifier())) {
+						return 0;
+					}
+					boolean q1 = "qualifier".equals(v1.getQualifier()); //$NON-NLS-1$
+					boolean q2 = "qualifier".equals(v2.getQualifier()); //$NON-NLS-1$
+					if (q1 && !q2) {
+						return -1;
+					} else if (q2 && !q1) {
+						return 1;
 					}
-					int versionCompare = -(v1.compareTo(v2));
-					return versionCompare;
 				}
-			});
-		}
+				int versionCompare = -(v1.compareTo(v2));
+				return versionCompare;
+			}
+		});
+	}
+
+	/**
+	 * Adds the given target bundles to the state
+	 *
+	 * @param files the bundle locations, can contain <code>null</code> entries
+	 * @param manifests the already known manifests by bundle location, the
+	 *            manifests of the other bundles are read
+	 * @param monitor progress monitor
+	 * @return the added bundles, at the indexes of their locations
+	 */
+	private TargetBundleEntry[] addTargetBundles(File[] files, Map<String, Map<String, String>> manifests, IProgressMonitor monitor) {
 		SubMonitor subMonitor = SubMonitor.convert(monitor, PDECoreMessages.PDEState_CreatingTargetModelState,
-				uris.length);
-		for (URI uri : uris) {
-			File file = toFile(uri);
-			if (file == null) {
+				files.length * 2);
+		// Reading the manifests and creating the bundle descriptions dominate
+		// on large targets and are independent for each bundle, do them in
+		// parallel. The descriptions are added to the state by this thread
+		// only, in the order of the given files, so bundle ids stay the same.
+		long start = System.currentTimeMillis();
+		TargetBundleEntry[] entries = new TargetBundleEntry[files.length];
+		runParallel(files.length, i -> {
+			File file = files[i];
+			if (file != null) {
+				TargetBundleEntry entry = new TargetBundleEntry(file);
+				try {
+					Map<String, String> manifest = manifests.get(file.getAbsolutePath());
+					entry.manifest = manifest != null ? manifest : loadManifest(file);
+				} catch (CoreException e) {
+					entry.exception = e;
+				}
+				entries[i] = entry;
+			}
+			synchronized (subMonitor) {
+				subMonitor.split(1);
+			}
+		});
+		long manifests = System.currentTimeMillis();
+		for (TargetBundleEntry entry : entries) {
+			if (entry != null && entry.exception == null) {
+				entry.id = getNextId();
+			}
+		}
+		runParallel(entries.length, i -> {
+			TargetBundleEntry entry = entries[i];
+			if (entry != null && entry.exception == null) {
+				try {
+					entry.description = createBundleDescription(entry.manifest, entry.file, entry.id);
+				} catch (CoreException e) {
+					entry.exception = e;
+				}
+			}
+		});
+		long descriptions = System.currentTimeMillis();
+		for (TargetBundleEntry entry : entries) {
+			if (entry == null) {
+				subMonitor.split(1);
 				continue;
 			}
-			try {
-				subMonitor.subTask(file.getName());
-				addBundle(file, -1);
-			} catch (CoreException e) {
-				PDECore.log(e);
+			subMonitor.subTask(entry.file.getName());
+			if (entry.exception != null) {
+				PDECore.log(entry.exception);
+			} else if (entry.description != null) {
+				fState.addBundle(entry.description);
+				bundleAdded(entry.description, entry.manifest);
 			}
 			subMonitor.split(1);
 		}
+		if (PDECore.DEBUG_MODEL) {
+			long end = System.currentTimeMillis();
+			System.out.println("Time to read " + files.length + " target manifests: " + (manifests - start) + " ms"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+			System.out.println("Time to create target bundle descriptions: " + (descriptions - manifests) + " ms"); //$NON-NLS-1$ //$NON-NLS-2$
+			System.out.println("Time to add target bundle descriptions to the state: " + (end - descriptions) + " ms"); //$NON-NLS-1$ //$NON-NLS-2$
+		}
+		return entries;
+	}
+
+	/**
+	 * Runs the given action for the indexes from <code>0</code> to
+	 * <code>count - 1</code> on a dedicated pool of up to the configured
+	 * number of threads, which is shut down when all indexes are done. The
+	 * common fork join pool is not used, since loading blocks on the file
+	 * system and other work shares that pool.
+	 *
+	 * @param count the number of indexes
+	 * @param action the action, must be safe to run concurrently
+	 */
+	private void runParallel(int count, IntConsumer action) {
+		int threads = Math.min(fThreads, count);
+		if (threads <= 1) {
+			for (int i = 0; i < count; i++) {
+				action.accept(i);
+			}
+			return;
+		}
+		AtomicInteger next = new AtomicInteger();
+		ExecutorService executor = Executors.newFixedThreadPool(threads, runnable -> {
+			Thread thread = new Thread(runnable, "PDE Target State Loader"); //$NON-NLS-1$
+			thread.setDaemon(true);
+			return thread;
+		});
+		try {
+			List<Future<?>> futures = new ArrayList<>(threads);
+			for (int t = 0; t < threads; t++) {
+				futures.add(executor.submit(() -> {
+					try {
+						for (int i = next.getAndIncrement(); i < count; i = next.getAndIncrement()) {
+							action.accept(i);
+						}
+					} catch (RuntimeException | Error e) {
+						// stops the other threads
+						next.set(count);
+						throw e;
+					}
+				}));
+			}
+			for (Future<?> future : futures) {
+				future.get();
+			}
+		} catch (InterruptedException e) {
+			next.set(count);
+			Thread.currentThread().interrupt();
+			throw new OperationCanceledException();
+		} catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			if (cause instanceof RuntimeException) {
+				throw (RuntimeException) cause;
+			}
+			throw (Error) cause;
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+	/**
+	 * A target bundle being loaded into the state
+	 */
+	private static class TargetBundleEntry {
+		final File file;
+		Map<String, String> manifest;
+		long id;
+		BundleDescription description;
+		CoreException exception;
+
+		TargetBundleEntry(File file) {
+			this.file = file;
+		}
+	}
+
+	/**
+	 * @param uris
+	 * @return File objects, with {@code null} entries for the URIs that can't be
+	 *         converted to file
+	 */
+	private static File[] toFiles(URI[] uris) {
+		File[] files = new File[uris.length];
+		for (int i = 0; i < uris.length; i++) {
+			files[i] = toFile(uris[i]);
+		}
+		return files;
 	}
 
 	/**
@@ -21,6 +21,7 @@ import java.io.FileWriter;
 import java.io.IOException;
 import java.net.URI;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -101,7 +102,7 @@ public class PluginModelManager implements IModelProviderListener {
 						fProjects.clear();
 						fContainers.clear();
 					}
-					JavaCore.setClasspathContainer(PDECore.REQUIRED_PLUGINS_CONTAINER_PATH, projects, containers, monitor);
+					setClasspathContainers(projects, containers, monitor);
 					synchronized (fProjects) {
 						more = !fProjects.isEmpty();
 					}
@@ -322,7 +323,12 @@ public class PluginModelManager implements IModelProviderListener {
 			}
 		} else {
 			BundleDelta[] deltas = delta.getChanges();
+			Set<String> changed = new HashSet<>();
 			for (BundleDelta bundleDelta : deltas) {
+				String name = bundleDelta.getBundle().getSymbolicName();
+				if (name != null) {
+					changed.add(name);
+				}
 				try {
 					// update classpath for workspace plug-ins that are housed in a
 					// Java project hand have been affected by the processd model changes.
@@ -353,7 +359,8 @@ public class PluginModelManager implements IModelProviderListener {
 						continue;
 					}
 					IBuild build = ClasspathUtilCore.getBuild(model);
-					if (build != null && build.getEntry(IBuildEntry.SECONDARY_DEPENDENCIES) != null) {
+					IBuildEntry entry = build == null ? null : build.getEntry(IBuildEntry.SECONDARY_DEPENDENCIES);
+					if (entry != null && dependsOn(entry.getTokens(), changed)) {
 						map.put(jProject, new RequiredPluginsClasspathContainer(model, build));
 					}
 				} catch (CoreException e) {
@@ -381,13 +388,197 @@ public class PluginModelManager implements IModelProviderListener {
 			} else {
 				// else update synchronously
 				try {
-					JavaCore.setClasspathContainer(PDECore.REQUIRED_PLUGINS_CONTAINER_PATH, projects, containers, null);
+					setClasspathContainers(projects, containers, null);
 				} catch (JavaModelException e) {
 				}
 			}
 		}
 	}
 
+	/**
+	 * Returns whether any of the given plug-ins, or the plug-ins they depend
+	 * on, is one of the given changed bundles
+	 *
+	 * @param pluginIds ids of plug-ins, like the secondary dependencies of a project
+	 * @param changed symbolic names of the bundles changed by a state delta
+	 * @return whether the plug-ins are affected by the changes
+	 */
+	private boolean dependsOn(String[] pluginIds, Set<String> changed) {
+		List<IPluginModelBase> models = new ArrayList<>();
+		for (String id : pluginIds) {
+			if (changed.contains(id)) {
+				return true;
+			}
+			IPluginModelBase model = findModel(id);
+			if (model != null) {
+				models.add(model);
+			}
+		}
+		if (models.isEmpty()) {
+			return false;
+		}
+		Set<String> dependencies = DependencyManager.getSelfandDependencies(models.toArray(new IPluginModelBase[models.size()]), null);
+		for (String id : changed) {
+			if (dependencies.contains(id)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Sets the given classpath containers on their projects, skipping the
+	 * projects whose current container has the same entries. Setting an
+	 * unchanged container would still make JDT rebuild the project.
+	 *
+	 * @param projects the projects to update
+	 * @param containers the new container of each project
+	 * @param monitor progress monitor or <code>null</code>
+	 * @throws JavaModelException if the containers cannot be set
+	 */
+	static void setClasspathContainers(IJavaProject[] projects, IClasspathContainer[] containers, IProgressMonitor monitor) throws JavaModelException {
+		List<IJavaProject> changedProjects = new ArrayList<>(projects.length);
+		List<IClasspathContainer> changedContainers = new ArrayList<>(projects.length);
+		for (int i = 0; i < projects.length; i++) {
+			IClasspathContainer current = null;
+			try {
+				current = JavaCore.getClasspathContainer(PDECore.REQUIRED_PLUGINS_CONTAINER_PATH, projects[i]);
+			} catch (JavaModelException e) {
+				// the project is not a Java project anymore, let JDT handle it
+			}
+			if (current != null && current != containers[i] && Arrays.equals(current.getClasspathEntries(), containers[i].getClasspathEntries())) {
+				continue;
+			}
+			changedProjects.add(projects[i]);
+			changedContainers.add(containers[i]);
+		}
+		if (PDECore.DEBUG_CLASSPATH) {
+			System.out.println("Updating " + changedProjects.size() + " of " + projects.length + " classpath containers, the others are unchanged"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+		}
+		if (changedProjects.isEmpty()) {
+			return;
+		}
+		JavaCore.setClasspathContainer(PDECore.REQUIRED_PLUGINS_CONTAINER_PATH, changedProjects.toArray(new IJavaProject[changedProjects.size()]), changedContainers.toArray(new IClasspathContainer[changedContainers.size()]), monitor);
+	}
+
+	/**
+	 * Computes the changes of the target models between the given tables. An
+	 * entry is changed if the locations, versions or timestamps of its target
+	 * models differ, so a bundle rebuilt with the same version is changed as
+	 * well.
+	 *
+	 * @param previousEntries the table before the target was reloaded
+	 * @param entries the table of the reloaded target
+	 * @return the delta of the target models
+	 */
+	private PluginModelDelta computeTargetDelta(Map<String, LocalModelEntry> previousEntries, Map<String, LocalModelEntry> entries) {
+		PluginModelDelta delta = new PluginModelDelta();
+		synchronized (previousEntries) {
+			for (LocalModelEntry previous : previousEntries.values()) {
+				LocalModelEntry entry = entries.get(previous.getId());
+				if (entry == null) {
+					if (previous.getExternalModels().length > 0) {
+						delta.addEntry(previous, PluginModelDelta.REMOVED);
+					}
+				} else if (!getTargetModelKeys(previous).equals(getTargetModelKeys(entry))) {
+					delta.addEntry(entry, previous.getExternalModels().length == 0 ? PluginModelDelta.ADDED : PluginModelDelta.CHANGED);
+				}
+			}
+		}
+		synchronized (entries) {
+			for (LocalModelEntry entry : entries.values()) {
+				if (!previousEntries.containsKey(entry.getId()) && entry.getExternalModels().length > 0) {
+					delta.addEntry(entry, PluginModelDelta.ADDED);
+				}
+			}
+		}
+		if (PDECore.DEBUG_MODEL) {
+			System.out.println("Target delta: " + delta.getAddedEntries().length + " added, " + delta.getRemovedEntries().length + " removed, " + delta.getChangedEntries().length + " changed"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$
+		}
+		return delta;
+	}
+
+	/**
+	 * @param entry model entry
+	 * @return the locations, versions and timestamps of the target models of
+	 *         the given entry
+	 */
+	private static Set<String> getTargetModelKeys(ModelEntry entry) {
+		Set<String> keys = new HashSet<>();
+		for (IPluginModelBase model : entry.getExternalModels()) {
+			keys.add(model.getInstallLocation() + '@' + model.getPluginBase().getVersion() + '@' + model.getTimeStamp());
+		}
+		return keys;
+	}
+
+	/**
+	 * Trigger a classpath update for the workspace plug-ins that depend on a
+	 * target model changed by a target reload, directly or through the
+	 * secondary dependencies of their build.properties. Plug-ins that have
+	 * unresolved constraints are updated as well, as they may have lost a
+	 * dependency that is no longer part of their dependencies.
+	 *
+	 * @param delta the changes of the target models
+	 */
+	private void updateAffectedEntries(PluginModelDelta delta) {
+		Set<String> changed = new HashSet<>();
+		for (ModelEntry entry : delta.getAddedEntries()) {
+			changed.add(entry.getId());
+		}
+		for (ModelEntry entry : delta.getRemovedEntries()) {
+			changed.add(entry.getId());
+		}
+		for (ModelEntry entry : delta.getChangedEntries()) {
+			changed.add(entry.getId());
+		}
+		if (changed.isEmpty()) {
+			return;
+		}
+		Map<IJavaProject, RequiredPluginsClasspathContainer> map = new HashMap<>();
+		for (IPluginModelBase model : getWorkspaceModels()) {
+			IProject project = model.getUnderlyingResource().getProject();
+			try {
+				if (!project.hasNature(JavaCore.NATURE_ID)) {
+					continue;
+				}
+				BundleDescription desc = model.getBundleDescription();
+				boolean affected = desc == null || !desc.isResolved() || fState.getState().getStateHelper().getUnsatisfiedConstraints(desc).length > 0;
+				if (!affected) {
+					Set<String> dependencies = DependencyManager.getSelfAndDependencies(model, null);
+					for (String id : changed) {
+						if (dependencies.contains(id)) {
+							affected = true;
+							break;
+						}
+					}
+				}
+				if (affected) {
+					map.put(JavaCore.create(project), new RequiredPluginsClasspathContainer(model));
+					continue;
+				}
+				// do secondary dependencies
+				IBuild build = ClasspathUtilCore.getBuild(model);
+				IBuildEntry entry = build == null ? null : build.getEntry(IBuildEntry.SECONDARY_DEPENDENCIES);
+				if (entry != null && dependsOn(entry.getTokens(), changed)) {
+					map.put(JavaCore.create(project), new RequiredPluginsClasspathContainer(model, build));
+				}
+			} catch (CoreException e) {
+			}
+		}
+		if (PDECore.DEBUG_MODEL) {
+			System.out.println("Updating classpath of " + map.size() + " workspace plug-ins affected by the target changes"); //$NON-NLS-1$ //$NON-NLS-2$
+		}
+		if (!map.isEmpty()) {
+			IJavaProject[] projects = map.keySet().toArray(new IJavaProject[map.size()]);
+			IClasspathContainer[] containers = new IClasspathContainer[projects.length];
+			for (int i = 0; i < projects.length; i++) {
+				containers[i] = map.get(projects[i]);
+			}
+			fUpdateJob.add(projects, containers);
+			fUpdateJob.schedule();
+		}
+	}
+
 	/**
 	 * Notify all interested listeners in changes made to the master table
 	 *
@@ -518,8 +709,9 @@ public class PluginModelManager implements IModelProviderListener {
 	 * Clears all existing models and recreates them
 	 */
 	public void targetReloaded(IProgressMonitor monitor) {
+		Map<String, LocalModelEntry> previousEntries = fEntries;
 		fEntries = null;
-		initializeTable(monitor);
+		initializeTable(monitor, previousEntries);
 	}
 
 	/**
@@ -541,7 +733,19 @@ public class PluginModelManager implements IModelProviderListener {
 	 * the table is initialized.
 	 *
 	 */
-	private synchronized void initializeTable(IProgressMonitor monitor) {
+	private void initializeTable(IProgressMonitor monitor) {
+		initializeTable(monitor, null);
+	}
+
+	/**
+	 * Initializes the table, see {@link #initializeTable(IProgressMonitor)}.
+	 *
+	 * @param monitor progress monitor
+	 * @param previousEntries the table before the target was reloaded or
+	 *            <code>null</code>, used to only update the workspace plug-ins
+	 *            affected by the changes of the target
+	 */
+	private synchronized void initializeTable(IProgressMonitor monitor, Map<String, LocalModelEntry> previousEntries) {
 		if (fEntries != null) {
 			return;
 		}
@@ -599,7 +803,7 @@ public class PluginModelManager implements IModelProviderListener {
 			fCancelled = true;
 		}
 
-		fState = new PDEState(externalUris, true, true, subMon.split(15));
+		fState = new PDEState(externalUris, true, true, true, subMon.split(15));
 		fExternalManager.setModels(fState.getTargetModels());
 		addToTable(entries, fExternalManager.getAllModels());
 
@@ -635,7 +839,16 @@ public class PluginModelManager implements IModelProviderListener {
 		PDECore.getDefault().getExtensionsRegistry().targetReloaded();
 		if (oldState != null) {
 			// Need to update classpath entries
-			updateAffectedEntries(null, true);
+			if (previousEntries != null) {
+				// only of the plug-ins affected by the target changes, and tell listeners what changed
+				PluginModelDelta delta = computeTargetDelta(previousEntries, entries);
+				updateAffectedEntries(delta);
+				if (delta.getKind() != 0) {
+					fireDelta(delta);
+				}
+			} else {
+				updateAffectedEntries(null, true);
+			}
 		}
 
 		// Fire a state change event to touch all projects if the target content has changed since last model init
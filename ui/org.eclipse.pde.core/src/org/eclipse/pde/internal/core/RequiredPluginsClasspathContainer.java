@@ -15,6 +15,7 @@ package org.eclipse.pde.internal.core;
 
 import java.io.File;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
@@ -22,6 +23,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Stack;
 import java.util.TreeMap;
+import java.util.WeakHashMap;
 import org.eclipse.core.resources.IFile;
 import org.eclipse.core.resources.IProject;
 import org.eclipse.core.resources.IResource;
@@ -64,6 +66,14 @@ public class RequiredPluginsClasspathContainer extends PDEClasspathContainer imp
 	 */
 	private static List<IClasspathContributor> fClasspathContributors = null;
 
+	/**
+	 * Access rule paths of exported packages, shared by the containers of all
+	 * projects. The state creates new descriptions for the exports of changed
+	 * bundles, so entries of replaced bundles are simply collected.
+	 * @see #getRulePath(ExportPackageDescription)
+	 */
+	private static final Map<ExportPackageDescription, IPath> fRulePaths = Collections.synchronizedMap(new WeakHashMap<>());
+
 	/**
 	 * Constructor for RequiredPluginsClasspathContainer.
 	 */
@@ -243,11 +253,24 @@ public class RequiredPluginsClasspathContainer extends PDEClasspathContainer imp
 	private Rule getRule(StateHelper helper, BundleDescription desc, ExportPackageDescription export) {
 		Rule rule = new Rule();
 		rule.discouraged = helper.getAccessCode(desc, export) == StateHelper.ACCESS_DISCOURAGED;
-		String name = export.getName();
-		rule.path = (name.equals(".")) ? new Path("*") : new Path(name.replaceAll("\\.", "/") + "/*"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$ //$NON-NLS-5$
+		rule.path = getRulePath(export);
 		return rule;
 	}
 
+	/**
+	 * Returns the path matching the types of the given exported package in an
+	 * access rule
+	 *
+	 * @param export exported package
+	 * @return the access rule path
+	 */
+	private static IPath getRulePath(ExportPackageDescription export) {
+		return fRulePaths.computeIfAbsent(export, e -> {
+			String name = e.getName();
+			return (name.equals(".")) ? new Path("*") : new Path(name.replace('.', '/') + "/*"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+		});
+	}
+
 	protected void addDependencyViaImportPackage(BundleDescription desc, HashSet<BundleDescription> added, Map<BundleDescription, ArrayList<Rule>> map, ArrayList<IClasspathEntry> entries) throws CoreException {
 		if (desc == null || !added.add(desc)) {
 			return;
@@ -491,7 +514,7 @@ public class RequiredPluginsClasspathContainer extends PDEClasspathContainer imp
 				for (ExportPackageDescription expkg : expkgs) {
 					Rule rule = new Rule();
 					rule.discouraged = restrictPackage(projectDesc, expkg);
-					rule.path = new Path(expkg.getName().replaceAll("\\.", "/") + "/*"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+					rule.path = getRulePath(expkg);
 					rules.add(rule);
 				}
 				map.put(bdesc, rules);
@@ -0,0 +1,195 @@
+/*******************************************************************************
+ * Copyright (c) 2019 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.pde.internal.core;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.TreeMap;
+import org.eclipse.pde.internal.core.util.CoreUtility;
+
+/**
+ * A snapshot of the target bundles of a {@link PDEState}, saved in the PDE
+ * metadata so that an unchanged target can be restored on startup without
+ * reading the manifests of all target bundles again.
+ * <p>
+ * The snapshot records the timestamp and the manifest headers of each target
+ * bundle location. The bundle descriptions and the auxiliary plug-in
+ * information are created from the recorded headers the same way as from the
+ * manifest files. A bundle whose timestamp changed, or which was not part of
+ * the target when the snapshot was taken, has to be read again.
+ * </p>
+ */
+class TargetStateSnapshot {
+
+	/**
+	 * Version of the file format, bump whenever the snapshot contents change
+	 */
+	private static final int VERSION = 2;
+
+	private static final String BUNDLES_FILE = ".bundles"; //$NON-NLS-1$
+
+	/**
+	 * Timestamp and manifest headers of a target bundle location
+	 */
+	static class BundleStamp {
+		final long timestamp;
+		final Map<String, String> manifest;
+
+		BundleStamp(long timestamp, Map<String, String> manifest) {
+			this.timestamp = timestamp;
+			this.manifest = manifest;
+		}
+	}
+
+	private final File fDirectory;
+	private final Map<String, BundleStamp> fBundles = new HashMap<>();
+
+	TargetStateSnapshot(File directory) {
+		fDirectory = directory;
+	}
+
+	/**
+	 * Returns the timestamp used to detect changes of the given bundle. For
+	 * a directory bundle this is the most recent modification time of its
+	 * manifest files, for an archive the modification time of the archive.
+	 *
+	 * @param bundle bundle location
+	 * @return the timestamp or <code>0</code> if the bundle does not exist
+	 */
+	static long getTimestamp(File bundle) {
+		if (!bundle.isDirectory()) {
+			return bundle.lastModified();
+		}
+		long timestamp = new File(bundle, ICoreConstants.BUNDLE_FILENAME_DESCRIPTOR).lastModified();
+		timestamp = Math.max(timestamp, new File(bundle, ICoreConstants.PLUGIN_FILENAME_DESCRIPTOR).lastModified());
+		return Math.max(timestamp, new File(bundle, ICoreConstants.FRAGMENT_FILENAME_DESCRIPTOR).lastModified());
+	}
+
+	/**
+	 * @param location absolute bundle location
+	 * @param timestamp the current timestamp of the bundle
+	 * @return the recorded manifest headers of the given location or
+	 *         <code>null</code> if the location is not recorded or its
+	 *         timestamp changed
+	 */
+	Map<String, String> getManifest(String location, long timestamp) {
+		BundleStamp stamp = fBundles.get(location);
+		return stamp != null && stamp.timestamp == timestamp ? stamp.manifest : null;
+	}
+
+	/**
+	 * @return the number of bundle locations recorded in the snapshot
+	 */
+	int getBundleCount() {
+		return fBundles.size();
+	}
+
+	/**
+	 * Reads the snapshot. A missing or unreadable snapshot records no bundles.
+	 *
+	 * @return whether a valid snapshot was read
+	 */
+	boolean read() {
+		File file = new File(fDirectory, BUNDLES_FILE);
+		if (!file.isFile()) {
+			return false;
+		}
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+			if (in.readInt() != VERSION) {
+				return false;
+			}
+			long length = file.length();
+			int count = in.readInt();
+			for (int i = 0; i < count; i++) {
+				String location = readString(in, length);
+				long timestamp = in.readLong();
+				int headers = in.readInt();
+				// header names are case insensitive like the ones read from a bundle
+				Map<String, String> manifest = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+				for (int j = 0; j < headers; j++) {
+					manifest.put(readString(in, length), readString(in, length));
+				}
+				fBundles.put(location, new BundleStamp(timestamp, manifest));
+			}
+			return true;
+		} catch (IOException e) {
+			PDECore.log(e);
+			fBundles.clear();
+			return false;
+		}
+	}
+
+	/**
+	 * Replaces the snapshot with the given bundles
+	 *
+	 * @param bundles the stamps of all target bundle locations
+	 */
+	void write(Map<String, BundleStamp> bundles) {
+		// also removes the files of older snapshot versions
+		if (fDirectory.exists()) {
+			CoreUtility.deleteContent(fDirectory);
+		}
+		if (!fDirectory.mkdirs()) {
+			return;
+		}
+		File file = new File(fDirectory, BUNDLES_FILE);
+		try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)))) {
+			out.writeInt(VERSION);
+			out.writeInt(bundles.size());
+			for (Entry<String, BundleStamp> entry : bundles.entrySet()) {
+				writeString(out, entry.getKey());
+				out.writeLong(entry.getValue().timestamp);
+				Map<String, String> manifest = entry.getValue().manifest;
+				out.writeInt(manifest.size());
+				for (Entry<String, String> header : manifest.entrySet()) {
+					writeString(out, header.getKey());
+					writeString(out, header.getValue());
+				}
+			}
+		} catch (IOException e) {
+			PDECore.log(e);
+			file.delete();
+		}
+	}
+
+	/**
+	 * Writes the given string, which unlike {@link DataOutputStream#writeUTF(String)}
+	 * may be longer than 64k, as the headers of large bundles are
+	 */
+	private static void writeString(DataOutputStream out, String value) throws IOException {
+		byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+		out.writeInt(bytes.length);
+		out.write(bytes);
+	}
+
+	private static String readString(DataInputStream in, long maxLength) throws IOException {
+		int length = in.readInt();
+		if (length < 0 || length > maxLength) {
+			throw new IOException("Corrupt target state snapshot"); //$NON-NLS-1$
+		}
+		byte[] bytes = new byte[length];
+		in.readFully(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+}
@@ -109,6 +109,14 @@ public abstract class ErrorReporter {
 
 	public final void validateContent(IProgressMonitor monitor) {
 		validate(monitor);
+		applyMarkers();
+	}
+
+	/**
+	 * Replaces the markers of the validated file with the problems found by
+	 * {@link #validate(IProgressMonitor)}
+	 */
+	final void applyMarkers() {
 		fErrorReporter.applyMarkers();
 	}
 
@@ -96,6 +96,35 @@ public class ExtensionsErrorReporter extends ManifestErrorReporter {
 	public void characters(char[] characters, int start, int length) throws SAXException {
 	}
 
+	/**
+	 * @param name the name of the root element
+	 * @return whether the given name is a valid root element name
+	 */
+	protected boolean isRootElementName(String name) {
+		return "plugin".equals(name) || "fragment".equals(name); //$NON-NLS-1$ //$NON-NLS-2$
+	}
+
+	/**
+	 * Extensions and extension points are validated while parsing, so the
+	 * subtrees of the extensions of large files are not all held in memory at
+	 * the same time.
+	 */
+	@Override
+	protected boolean isValidatedWhileParsing(Element element) {
+		String name = element.getNodeName();
+		return (name.equals("extension") || name.equals("extension-point")) //$NON-NLS-1$ //$NON-NLS-2$
+				&& isRootElementName(element.getParentNode().getNodeName());
+	}
+
+	@Override
+	protected void validateParsedElement(Element element) {
+		if (element.getNodeName().equals("extension")) { //$NON-NLS-1$
+			validateExtension(element);
+		} else {
+			validateExtensionPoint(element);
+		}
+	}
+
 	@Override
 	public void validate(IProgressMonitor monitor) {
 		Element element = getDocumentRoot();
@@ -103,7 +132,7 @@ public class ExtensionsErrorReporter extends ManifestErrorReporter {
 			return;
 		}
 		String elementName = element.getNodeName();
-		if (!"plugin".equals(elementName) && !"fragment".equals(elementName)) { //$NON-NLS-1$ //$NON-NLS-2$
+		if (!isRootElementName(elementName)) {
 			reportIllegalElement(element, CompilerFlags.ERROR);
 		} else {
 			int severity = CompilerFlags.getFlag(fProject, CompilerFlags.P_DEPRECATED);
@@ -120,6 +149,9 @@ public class ExtensionsErrorReporter extends ManifestErrorReporter {
 					break;
 				}
 				Element child = (Element) children.item(i);
+				if (wasValidatedWhileParsing(child)) {
+					continue;
+				}
 				String name = child.getNodeName();
 				if (name.equals("extension")) { //$NON-NLS-1$
 					validateExtension(child);
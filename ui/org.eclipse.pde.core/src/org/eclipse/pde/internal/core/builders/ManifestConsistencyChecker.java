@@ -15,38 +15,33 @@
  *******************************************************************************/
 package org.eclipse.pde.internal.core.builders;
 
-import java.io.File;
-import java.io.FilenameFilter;
 import java.util.Arrays;
 import java.util.Map;
 import org.eclipse.core.resources.IFile;
-import org.eclipse.core.resources.IFolder;
-import org.eclipse.core.resources.IMarker;
 import org.eclipse.core.resources.IProject;
 import org.eclipse.core.resources.IResource;
 import org.eclipse.core.resources.IResourceDelta;
 import org.eclipse.core.resources.IResourceDeltaVisitor;
 import org.eclipse.core.resources.IncrementalProjectBuilder;
 import org.eclipse.core.runtime.CoreException;
-import org.eclipse.core.runtime.IPath;
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.SubMonitor;
 import org.eclipse.core.runtime.jobs.ISchedulingRule;
 import org.eclipse.core.runtime.jobs.MultiRule;
 import org.eclipse.osgi.util.NLS;
-import org.eclipse.pde.internal.core.ICoreConstants;
 import org.eclipse.pde.internal.core.PDECore;
 import org.eclipse.pde.internal.core.PDECoreMessages;
 import org.eclipse.pde.internal.core.WorkspaceModelManager;
+import org.eclipse.pde.internal.core.natures.PDE;
 import org.eclipse.pde.internal.core.project.PDEProject;
 import org.osgi.framework.Bundle;
 
 public class ManifestConsistencyChecker extends IncrementalProjectBuilder {
 
-	private final int MANIFEST = 0x1;
-	private final int EXTENSIONS = 0x2;
-	private final int BUILD = 0x4;
-	private final int STRUCTURE = 0x8;
+	static final int MANIFEST = 0x1;
+	static final int EXTENSIONS = 0x2;
+	static final int BUILD = 0x4;
+	static final int STRUCTURE = 0x8;
 
 	private static IProject[] EMPTY_LIST = new IProject[0];
 
@@ -174,12 +169,39 @@ public class ManifestConsistencyChecker extends IncrementalProjectBuilder {
 		if (!WorkspaceModelManager.isBinaryProject(project)) {
 			int type = getDeltaType(project);
 			if (type != 0) {
-				validateProject(type, monitor);
+				ManifestValidationService service = new ManifestValidationService();
+				service.add(project, type);
+				addTouchedProjects(service);
+				service.run(project.getWorkspace(), monitor);
 			}
 		}
 		return EMPTY_LIST;
 	}
 
+	/**
+	 * Adds the other projects touched by the {@link PluginRebuilder} to the
+	 * given service, so that all plug-ins affected by a change of their
+	 * dependencies are validated concurrently instead of one builder
+	 * invocation at a time. Their builders will no longer see the touch and
+	 * only validate the files changed since.
+	 *
+	 * @param service the service validating the project being built
+	 * @throws CoreException
+	 */
+	private void addTouchedProjects(ManifestValidationService service) throws CoreException {
+		for (IProject project : getProject().getWorkspace().getRoot().getProjects()) {
+			if (project.isAccessible() && PDE.hasPluginNature(project) && Boolean.TRUE.equals(project.getSessionProperty(PDECore.TOUCH_PROJECT))) {
+				project.setSessionProperty(PDECore.TOUCH_PROJECT, null);
+				if (!WorkspaceModelManager.isBinaryProject(project)) {
+					if (PDECore.DEBUG_VALIDATION) {
+						System.out.println("Dependencies Changed: Project [" + project.getName() + "] - validated with project [" + getProject().getName() + "]"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+					}
+					service.add(project, MANIFEST | EXTENSIONS | BUILD);
+				}
+			}
+		}
+	}
+
 	private int getDeltaType(IProject project) throws CoreException {
 		IResourceDelta delta = getDelta(project);
 
@@ -228,193 +250,6 @@ public class ManifestConsistencyChecker extends IncrementalProjectBuilder {
 		return type;
 	}
 
-	private void validateProject(int type, IProgressMonitor monitor) {
-		SubMonitor subMonitor = SubMonitor.convert(monitor, PDECoreMessages.ManifestConsistencyChecker_builderTaskName, getWorkAmount(type));
-		if ((type & STRUCTURE) != 0) {
-			validateProjectStructure(type, subMonitor.split(1));
-		}
-
-		if ((type & MANIFEST | EXTENSIONS) != 0) {
-			IProject project = getProject();
-			IFile file = PDEProject.getPluginXml(project);
-			if (!file.exists()) {
-				file = PDEProject.getFragmentXml(project);
-			}
-
-			if (file.exists()) {
-				validateFiles(file, type, monitor);
-			} else if ((type & MANIFEST) != 0) {
-				IFile manifestFile = PDEProject.getManifest(project);
-				if (manifestFile.exists()) {
-					validateManifestFile(manifestFile, subMonitor.split(1));
-				}
-			}
-		}
-		if ((type & BUILD) != 0) {
-			validateBuildProperties(subMonitor.split(1));
-		}
-	}
-
-	private int getWorkAmount(int type) {
-		int work = 1;
-		if ((type & MANIFEST | EXTENSIONS) != 0) {
-			++work;
-		}
-		if ((type & BUILD) != 0) {
-			++work;
-		}
-		return work;
-	}
-
-	private void validateProjectStructure(int type, IProgressMonitor monitor) {
-		if (monitor.isCanceled()) {
-			return;
-		}
-		// clear markers from project
-		IProject project = getProject();
-		try {
-			project.deleteMarkers(PDEMarkerFactory.MARKER_ID, false, IResource.DEPTH_ZERO);
-		} catch (CoreException e) {
-		}
-
-		// make sure build.properties exists
-		validateBuildPropertiesExists(project);
-
-		// if META-INF exists, make sure MANIFEST.MF exists in correct casing
-		validateManifestCasing(project);
-	}
-
-	private void validateManifestFile(IFile file, IProgressMonitor monitor) {
-		if (monitor.isCanceled()) {
-			return;
-		}
-		String message = NLS.bind(PDECoreMessages.Builders_verifying, file.getFullPath().toString());
-		monitor.subTask(message);
-
-		BundleErrorReporter reporter = new BundleErrorReporter(file);
-		reporter.validateContent(monitor);
-		monitor.subTask(PDECoreMessages.Builders_updating);
-		monitor.done();
-	}
-
-	private void validateFiles(IFile file, int type, IProgressMonitor monitor) {
-		if (monitor.isCanceled()) {
-			return;
-		}
-		String message = NLS.bind(PDECoreMessages.Builders_verifying, file.getFullPath().toString());
-		monitor.subTask(message);
-
-		IFile bundleManifest = PDEProject.getManifest(getProject());
-		XMLErrorReporter reporter = null;
-		BundleErrorReporter bundleReporter = null;
-		if (bundleManifest.exists()) {
-			if ((type & EXTENSIONS) != 0) {
-				reporter = new ExtensionsErrorReporter(file);
-			}
-			if ((type & MANIFEST) != 0) {
-				bundleReporter = new BundleErrorReporter(bundleManifest);
-			}
-		} else if ((type & MANIFEST) != 0 || (type & EXTENSIONS) != 0) {
-			if (file.equals(PDEProject.getPluginXml(getProject()))) {
-				reporter = new PluginErrorReporter(file);
-			} else if (file.equals(PDEProject.getFragmentXml(getProject()))) {
-				reporter = new FragmentErrorReporter(file);
-			}
-		}
-		if (reporter != null) {
-			DefaultSAXParser.parse(file, reporter);
-			reporter.validateContent(monitor);
-			monitor.subTask(PDECoreMessages.Builders_updating);
-		}
-		if (bundleReporter != null) {
-			bundleReporter.validateContent(monitor);
-			monitor.subTask(PDECoreMessages.Builders_updating);
-		}
-		monitor.done();
-	}
-
-	private void validateBuildProperties(IProgressMonitor monitor) {
-		if (monitor.isCanceled()) {
-			return;
-		}
-		IProject project = getProject();
-		IFile file = PDEProject.getBuildProperties(project);
-		if (file.exists()) {
-			monitor.subTask(PDECoreMessages.ManifestConsistencyChecker_buildPropertiesSubtask);
-			BuildErrorReporter ber = new BuildErrorReporter(file);
-			ber.validateContent(monitor);
-		}
-	}
-
-	// Will place a marker on the project if the build.properties does not exist
-	private void validateBuildPropertiesExists(IProject project) {
-		IFile file = PDEProject.getBuildProperties(project);
-		if (!file.exists()) {
-			int severity = CompilerFlags.getFlag(project, CompilerFlags.P_BUILD);
-			if (severity == CompilerFlags.IGNORE) {
-				return;
-			}
-			// if build.properties doesn't exist and build problems != IGNORE, create a marker on the project bug 172451
-			try {
-				IMarker marker = project.createMarker(PDEMarkerFactory.MARKER_ID);
-				marker.setAttribute(IMarker.SEVERITY, CompilerFlags.ERROR == severity ? IMarker.SEVERITY_ERROR : IMarker.SEVERITY_WARNING);
-				marker.setAttribute(IMarker.MESSAGE, PDECoreMessages.ManifestConsistencyChecker_buildDoesNotExist);
-				marker.setAttribute(PDEMarkerFactory.compilerKey, CompilerFlags.P_BUILD);
-			} catch (CoreException e) {
-			}
-		}
-	}
-
-	// Will place a marker on either the project (if META-INF exist but not a MANIFEST.MF) or on the MANIFEST.MF file with incorrect casing.
-	private void validateManifestCasing(IProject project) {
-		IFolder manifestFolder = PDEProject.getMetaInf(project);
-		if (manifestFolder.exists()) {
-			try {
-				manifestFolder.deleteMarkers(PDEMarkerFactory.MARKER_ID, false, IResource.DEPTH_ONE);
-			} catch (CoreException e1) {
-			}
-			// exit if the proper casing exists (should be majority of the time)
-			if (PDEProject.getManifest(project).exists()) {
-				return;
-			}
-
-			IPath location = manifestFolder.getLocation();
-			if (location != null) {
-				File metaFolder = location.toFile();
-				String[] fileList = metaFolder.list(new ManifestFilter());
-
-				if (fileList == null || fileList.length == 0) {
-					// no MANIFEST.MF at all -> flag the project
-					try {
-						IMarker marker = project.createMarker(PDEMarkerFactory.MARKER_ID);
-						marker.setAttribute(IMarker.SEVERITY, IMarker.SEVERITY_ERROR);
-						marker.setAttribute(IMarker.MESSAGE, PDECoreMessages.ManifestConsistencyChecker_manifestDoesNotExist);
-					} catch (CoreException e) {
-					}
-				} else {
-					// check for misspelled MANIFEST.MF files
-					for (String fileName : fileList) {
-						IFile currentFile = manifestFolder.getFile(fileName);
-						try {
-							IMarker marker = currentFile.createMarker(PDEMarkerFactory.MARKER_ID);
-							marker.setAttribute(IMarker.SEVERITY, IMarker.SEVERITY_ERROR);
-							marker.setAttribute(IMarker.MESSAGE, PDECoreMessages.ManifestConsistencyChecker_manifestMisspelled);
-						} catch (CoreException e) {
-						}
-					}
-				}
-			}
-		}
-	}
-
-	class ManifestFilter implements FilenameFilter {
-
-		@Override
-		public boolean accept(File dir, String name) {
-			return (name.equalsIgnoreCase(ICoreConstants.MANIFEST_FILENAME));
-		}
-	}
-
 	@Override
 	protected void clean(IProgressMonitor monitor) throws CoreException {
 		SubMonitor localmonitor = SubMonitor.convert(monitor, NLS.bind(PDECoreMessages.ManifestConsistencyChecker_0, getProject().getName()), 1);
@@ -0,0 +1,307 @@
+/*******************************************************************************
+ * Copyright (c) 2019 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.pde.internal.core.builders;
+
+import java.io.File;
+import java.io.FilenameFilter;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.IFolder;
+import org.eclipse.core.resources.IMarker;
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.IWorkspace;
+import org.eclipse.core.resources.IWorkspaceRunnable;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IPath;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.core.runtime.SubMonitor;
+import org.eclipse.osgi.util.NLS;
+import org.eclipse.pde.internal.core.ICoreConstants;
+import org.eclipse.pde.internal.core.PDECore;
+import org.eclipse.pde.internal.core.PDECoreMessages;
+import org.eclipse.pde.internal.core.project.PDEProject;
+
+/**
+ * Validates the manifest, plug-in and build.properties files of plug-in
+ * projects for the {@link ManifestConsistencyChecker}.
+ * <p>
+ * The projects added to a service are validated concurrently. Validation only
+ * reads the files of the projects and the plug-in models, the problems found
+ * are kept by the error reporters. The markers of all projects are then
+ * replaced in a single workspace operation, so that listeners are notified
+ * once for the whole batch.
+ * </p>
+ * <p>
+ * The caller must hold a scheduling rule covering all plug-in projects while
+ * running the service: the workspace and the PDE state then cannot change
+ * while the projects are validated, so all of them see the same state.
+ * </p>
+ */
+class ManifestValidationService {
+
+	/**
+	 * The validation of one project
+	 */
+	private static class ProjectValidation {
+		final IProject fProject;
+		final int fType;
+		XMLErrorReporter fExtensionsReporter;
+		ErrorReporter fManifestReporter;
+		ErrorReporter fBuildReporter;
+
+		ProjectValidation(IProject project, int type) {
+			fProject = project;
+			fType = type;
+		}
+
+		/**
+		 * Validates the files of the project without creating any markers
+		 *
+		 * @param monitor the monitor to check for cancellation
+		 */
+		void validate(IProgressMonitor monitor) {
+			long start = System.currentTimeMillis();
+			if ((fType & (ManifestConsistencyChecker.MANIFEST | ManifestConsistencyChecker.EXTENSIONS)) != 0) {
+				IFile file = PDEProject.getPluginXml(fProject);
+				if (!file.exists()) {
+					file = PDEProject.getFragmentXml(fProject);
+				}
+				IFile bundleManifest = PDEProject.getManifest(fProject);
+				if (file.exists()) {
+					if (bundleManifest.exists()) {
+						if ((fType & ManifestConsistencyChecker.EXTENSIONS) != 0) {
+							fExtensionsReporter = new ExtensionsErrorReporter(file);
+						}
+						if ((fType & ManifestConsistencyChecker.MANIFEST) != 0) {
+							fManifestReporter = new BundleErrorReporter(bundleManifest);
+						}
+					} else if (file.equals(PDEProject.getPluginXml(fProject))) {
+						fExtensionsReporter = new PluginErrorReporter(file);
+					} else {
+						fExtensionsReporter = new FragmentErrorReporter(file);
+					}
+				} else if ((fType & ManifestConsistencyChecker.MANIFEST) != 0 && bundleManifest.exists()) {
+					fManifestReporter = new BundleErrorReporter(bundleManifest);
+				}
+			}
+			if ((fType & ManifestConsistencyChecker.BUILD) != 0) {
+				IFile file = PDEProject.getBuildProperties(fProject);
+				if (file.exists()) {
+					fBuildReporter = new BuildErrorReporter(file);
+				}
+			}
+
+			if (fExtensionsReporter != null && !monitor.isCanceled()) {
+				fExtensionsReporter.setParseMonitor(monitor);
+				DefaultSAXParser.parse(fExtensionsReporter.getFile(), fExtensionsReporter);
+				if (!monitor.isCanceled()) {
+					fExtensionsReporter.validate(monitor);
+				}
+			}
+			if (fManifestReporter != null && !monitor.isCanceled()) {
+				fManifestReporter.validate(monitor);
+			}
+			if (fBuildReporter != null && !monitor.isCanceled()) {
+				fBuildReporter.validate(monitor);
+			}
+			if (PDECore.DEBUG_VALIDATION) {
+				System.out.println("Validated project [" + fProject.getName() + "] in " + (System.currentTimeMillis() - start) + "ms"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+			}
+		}
+
+		/**
+		 * Replaces the markers of the project with the problems found by
+		 * {@link #validate(IProgressMonitor)}
+		 */
+		void applyMarkers() {
+			if ((fType & ManifestConsistencyChecker.STRUCTURE) != 0) {
+				validateProjectStructure(fProject);
+			}
+			if (fExtensionsReporter != null) {
+				fExtensionsReporter.applyMarkers();
+			}
+			if (fManifestReporter != null) {
+				fManifestReporter.applyMarkers();
+			}
+			if (fBuildReporter != null) {
+				fBuildReporter.applyMarkers();
+			}
+		}
+	}
+
+	/**
+	 * Progress monitor handed to the validation threads, which only forwards
+	 * the cancellation of the monitor of the build
+	 */
+	private static class CancellationMonitor extends NullProgressMonitor {
+		private final IProgressMonitor fMonitor;
+
+		CancellationMonitor(IProgressMonitor monitor) {
+			fMonitor = monitor;
+		}
+
+		@Override
+		public boolean isCanceled() {
+			return super.isCanceled() || fMonitor.isCanceled();
+		}
+	}
+
+	private final Map<IProject, Integer> fProjects = new LinkedHashMap<>();
+
+	/**
+	 * Adds a project to validate. The types of a project added more than once
+	 * are merged.
+	 *
+	 * @param project the project
+	 * @param type the files to validate, a combination of the types of
+	 *            {@link ManifestConsistencyChecker}
+	 */
+	void add(IProject project, int type) {
+		fProjects.merge(project, type, (t1, t2) -> t1 | t2);
+	}
+
+	/**
+	 * Validates all added projects and creates their markers
+	 *
+	 * @param workspace the workspace of the projects
+	 * @param monitor the progress monitor
+	 */
+	void run(IWorkspace workspace, IProgressMonitor monitor) {
+		SubMonitor subMonitor = SubMonitor.convert(monitor, PDECoreMessages.ManifestConsistencyChecker_builderTaskName, 2);
+		List<ProjectValidation> validations = new ArrayList<>(fProjects.size());
+		for (Entry<IProject, Integer> entry : fProjects.entrySet()) {
+			validations.add(new ProjectValidation(entry.getKey(), entry.getValue()));
+		}
+		fProjects.clear();
+		if (validations.size() == 1) {
+			subMonitor.subTask(NLS.bind(PDECoreMessages.Builders_verifying, validations.get(0).fProject.getFullPath().toString()));
+		}
+
+		IProgressMonitor cancellation = new CancellationMonitor(subMonitor);
+		validations.parallelStream().forEach(validation -> {
+			try {
+				validation.validate(cancellation);
+			} catch (RuntimeException e) {
+				PDECore.logException(e, "Error validating " + validation.fProject.getName()); //$NON-NLS-1$
+			}
+		});
+		subMonitor.worked(1);
+		if (subMonitor.isCanceled()) {
+			return;
+		}
+
+		subMonitor.subTask(PDECoreMessages.Builders_updating);
+		IWorkspaceRunnable apply = m -> {
+			for (ProjectValidation validation : validations) {
+				if (validation.fProject.isAccessible()) {
+					validation.applyMarkers();
+				}
+			}
+		};
+		try {
+			workspace.run(apply, null, IWorkspace.AVOID_UPDATE, subMonitor.split(1));
+		} catch (CoreException e) {
+			PDECore.log(e);
+		}
+	}
+
+	private static void validateProjectStructure(IProject project) {
+		// clear markers from project
+		try {
+			project.deleteMarkers(PDEMarkerFactory.MARKER_ID, false, IResource.DEPTH_ZERO);
+		} catch (CoreException e) {
+		}
+
+		// make sure build.properties exists
+		validateBuildPropertiesExists(project);
+
+		// if META-INF exists, make sure MANIFEST.MF exists in correct casing
+		validateManifestCasing(project);
+	}
+
+	// Will place a marker on the project if the build.properties does not exist
+	private static void validateBuildPropertiesExists(IProject project) {
+		IFile file = PDEProject.getBuildProperties(project);
+		if (!file.exists()) {
+			int severity = CompilerFlags.getFlag(project, CompilerFlags.P_BUILD);
+			if (severity == CompilerFlags.IGNORE) {
+				return;
+			}
+			// if build.properties doesn't exist and build problems != IGNORE, create a marker on the project bug 172451
+			try {
+				IMarker marker = project.createMarker(PDEMarkerFactory.MARKER_ID);
+				marker.setAttribute(IMarker.SEVERITY, CompilerFlags.ERROR == severity ? IMarker.SEVERITY_ERROR : IMarker.SEVERITY_WARNING);
+				marker.setAttribute(IMarker.MESSAGE, PDECoreMessages.ManifestConsistencyChecker_buildDoesNotExist);
+				marker.setAttribute(PDEMarkerFactory.compilerKey, CompilerFlags.P_BUILD);
+			} catch (CoreException e) {
+			}
+		}
+	}
+
+	// Will place a marker on either the project (if META-INF exist but not a MANIFEST.MF) or on the MANIFEST.MF file with incorrect casing.
+	private static void validateManifestCasing(IProject project) {
+		IFolder manifestFolder = PDEProject.getMetaInf(project);
+		if (manifestFolder.exists()) {
+			try {
+				manifestFolder.deleteMarkers(PDEMarkerFactory.MARKER_ID, false, IResource.DEPTH_ONE);
+			} catch (CoreException e1) {
+			}
+			// exit if the proper casing exists (should be majority of the time)
+			if (PDEProject.getManifest(project).exists()) {
+				return;
+			}
+
+			IPath location = manifestFolder.getLocation();
+			if (location != null) {
+				File metaFolder = location.toFile();
+				String[] fileList = metaFolder.list(new ManifestFilter());
+
+				if (fileList == null || fileList.length == 0) {
+					// no MANIFEST.MF at all -> flag the project
+					try {
+						IMarker marker = project.createMarker(PDEMarkerFactory.MARKER_ID);
+						marker.setAttribute(IMarker.SEVERITY, IMarker.SEVERITY_ERROR);
+						marker.setAttribute(IMarker.MESSAGE, PDECoreMessages.ManifestConsistencyChecker_manifestDoesNotExist);
+					} catch (CoreException e) {
+					}
+				} else {
+					// check for misspelled MANIFEST.MF files
+					for (String fileName : fileList) {
+						IFile currentFile = manifestFolder.getFile(fileName);
+						try {
+							IMarker marker = currentFile.createMarker(PDEMarkerFactory.MARKER_ID);
+							marker.setAttribute(IMarker.SEVERITY, IMarker.SEVERITY_ERROR);
+							marker.setAttribute(IMarker.MESSAGE, PDECoreMessages.ManifestConsistencyChecker_manifestMisspelled);
+						} catch (CoreException e) {
+						}
+					}
+				}
+			}
+		}
+	}
+
+	static class ManifestFilter implements FilenameFilter {
+
+		@Override
+		public boolean accept(File dir, String name) {
+			return (name.equalsIgnoreCase(ICoreConstants.MANIFEST_FILENAME));
+		}
+	}
+}
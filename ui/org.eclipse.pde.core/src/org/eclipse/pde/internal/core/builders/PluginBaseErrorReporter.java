@@ -30,6 +30,11 @@ public abstract class PluginBaseErrorReporter extends ExtensionsErrorReporter {
 		super(file);
 	}
 
+	@Override
+	protected boolean isRootElementName(String name) {
+		return getRootElementName().equals(name);
+	}
+
 	@Override
 	public void validate(IProgressMonitor monitor) {
 		Element element = getDocumentRoot();
@@ -37,7 +42,7 @@ public abstract class PluginBaseErrorReporter extends ExtensionsErrorReporter {
 			return;
 		}
 		String elementName = element.getNodeName();
-		if (!getRootElementName().equals(elementName)) {
+		if (!isRootElementName(elementName)) {
 			reportIllegalElement(element, CompilerFlags.ERROR);
 		} else {
 			validateTopLevelAttributes(element);
@@ -47,6 +52,9 @@ public abstract class PluginBaseErrorReporter extends ExtensionsErrorReporter {
 					break;
 				}
 				Element child = (Element) children.item(i);
+				if (wasValidatedWhileParsing(child)) {
+					continue;
+				}
 				String name = child.getNodeName();
 				if (name.equals("extension")) { //$NON-NLS-1$
 					validateExtension(child);
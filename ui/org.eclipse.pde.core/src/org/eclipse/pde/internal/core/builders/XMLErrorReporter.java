@@ -17,6 +17,8 @@ package org.eclipse.pde.internal.core.builders;
 import java.io.StringReader;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Set;
 import java.util.Stack;
 import javax.xml.parsers.DocumentBuilderFactory;
 import javax.xml.parsers.ParserConfigurationException;
@@ -28,6 +30,8 @@ import org.eclipse.core.resources.IMarker;
 import org.eclipse.core.resources.IProject;
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.core.runtime.OperationCanceledException;
 import org.eclipse.jface.text.BadLocationException;
 import org.eclipse.jface.text.FindReplaceDocumentAdapter;
 import org.eclipse.jface.text.IDocument;
@@ -83,6 +87,14 @@ public abstract class XMLErrorReporter extends DefaultHandler {
 
 	private HashMap<Element, ElementData> fOffsetTable;
 
+	/**
+	 * Placeholders of the children of the root element that were validated
+	 * while parsing, see {@link #isValidatedWhileParsing(Element)}
+	 */
+	private final Set<Element> fParsedElements = new HashSet<>();
+
+	private IProgressMonitor fParseMonitor = new NullProgressMonitor();
+
 	private FindReplaceDocumentAdapter fFindReplaceAdapter;
 
 	private double fSchemaVersion = 2.1;
@@ -231,7 +243,51 @@ public abstract class XMLErrorReporter extends DefaultHandler {
 
 	@Override
 	public void endElement(String uri, String localName, String qName) throws SAXException {
-		fElementStack.pop();
+		Element element = fElementStack.pop();
+		if (element.getParentNode() == fRootElement) {
+			if (fParseMonitor.isCanceled()) {
+				// the problems found are dropped anyway, stop reading the file
+				throw new SAXException(new OperationCanceledException());
+			}
+			if (isValidatedWhileParsing(element)) {
+				validateParsedElement(element);
+				releaseParsedElement(element);
+			}
+		}
+	}
+
+	/**
+	 * Sets the monitor checked for cancellation while the file is parsed. When
+	 * it is canceled, parsing stops after the current child of the root
+	 * element and no further elements are validated while parsing.
+	 *
+	 * @param monitor the monitor or <code>null</code>
+	 */
+	public void setParseMonitor(IProgressMonitor monitor) {
+		fParseMonitor = monitor == null ? new NullProgressMonitor() : monitor;
+	}
+
+	/**
+	 * Replaces a validated child of the root element by an empty element of
+	 * the same name, so that its subtree can be freed while the location
+	 * paths of the following children stay the same
+	 *
+	 * @param element the validated element
+	 */
+	private void releaseParsedElement(Element element) {
+		removeOffsets(element);
+		Element placeholder = fXMLDocument.createElement(element.getNodeName());
+		fRootElement.replaceChild(placeholder, element);
+		fParsedElements.add(placeholder);
+	}
+
+	private void removeOffsets(Element element) {
+		fOffsetTable.remove(element);
+		for (Node child = element.getFirstChild(); child != null; child = child.getNextSibling()) {
+			if (child instanceof Element) {
+				removeOffsets((Element) child);
+			}
+		}
 	}
 
 	private void generateErrorElementHierarchy() {
@@ -398,11 +454,60 @@ public abstract class XMLErrorReporter extends DefaultHandler {
 
 	public final void validateContent(IProgressMonitor monitor) {
 		validate(monitor);
+		applyMarkers();
+	}
+
+	/**
+	 * Replaces the markers of the validated file with the problems found by
+	 * {@link #validate(IProgressMonitor)}
+	 */
+	final void applyMarkers() {
 		fErrorReporter.applyMarkers();
 	}
 
 	protected abstract void validate(IProgressMonitor monitor);
 
+	/**
+	 * Returns whether the given child of the root element is validated as
+	 * soon as its end tag is parsed instead of by
+	 * {@link #validate(IProgressMonitor)}. Such elements are passed to
+	 * {@link #validateParsedElement(Element)} and then dropped from the
+	 * document, so that large files never have to be held in memory as a
+	 * whole. Line numbers of the problems found are the same in both modes.
+	 * <p>
+	 * Returns <code>false</code> by default, subclasses may override.
+	 * </p>
+	 *
+	 * @param element a child of the root element whose subtree is complete
+	 * @return whether to validate the element while parsing
+	 */
+	protected boolean isValidatedWhileParsing(Element element) {
+		return false;
+	}
+
+	/**
+	 * Validates a child of the root element while parsing. Only called for
+	 * elements accepted by {@link #isValidatedWhileParsing(Element)}. The
+	 * element must not be referenced once this method returns.
+	 *
+	 * @param element a child of the root element whose subtree is complete
+	 */
+	protected void validateParsedElement(Element element) {
+	}
+
+	/**
+	 * Returns whether the given child of the root element was already
+	 * validated while parsing. The element is then an empty placeholder
+	 * without attributes that must be skipped by
+	 * {@link #validate(IProgressMonitor)}.
+	 *
+	 * @param element a child of the root element
+	 * @return whether the element was validated while parsing
+	 */
+	protected boolean wasValidatedWhileParsing(Element element) {
+		return fParsedElements.contains(element);
+	}
+
 	public Element getDocumentRoot() {
 		if (fRootElement != null) {
 			fRootElement.normalize();
@@ -27,9 +27,17 @@ import org.eclipse.pde.internal.core.ischema.ISchema;
 import org.eclipse.pde.internal.core.ischema.ISchemaDescriptor;
 
 public class IncludedSchemaDescriptor implements ISchemaDescriptor {
+	/**
+	 * Lock shared by all included schemas. Loading a schema loads the schemas
+	 * it includes, which may include it again: with a single lock the whole
+	 * chain is loaded by one thread that never waits for another one.
+	 */
+	private static final Object LOAD_LOCK = new Object();
+
 	private final URL fSchemaURL;
 	private String fSchemaLocation;
-	private Schema fSchema;
+	private volatile Schema fSchema;
+	private Schema fLoading;
 	private long fLastModified;
 
 	public IncludedSchemaDescriptor(URL schemaURL) {
@@ -159,11 +167,26 @@ public class IncludedSchemaDescriptor implements ISchemaDescriptor {
 
 	@Override
 	public ISchema getSchema(boolean abbreviated) {
-		if (fSchema == null && fSchemaURL != null) {
-			fSchema = new Schema(this, fSchemaURL, abbreviated);
-			fSchema.load();
+		Schema schema = fSchema;
+		if (schema != null || fSchemaURL == null) {
+			return schema;
+		}
+		synchronized (LOAD_LOCK) {
+			if (fSchema == null) {
+				if (fLoading != null) {
+					// included again while loading it
+					return fLoading;
+				}
+				try {
+					fLoading = new Schema(this, fSchemaURL, abbreviated);
+					SchemaRegistry.load(fLoading);
+					fSchema = fLoading;
+				} finally {
+					fLoading = null;
+				}
+			}
+			return fSchema;
 		}
-		return fSchema;
 	}
 
 	@Override
@@ -423,6 +423,10 @@ public class Schema extends PlatformObject implements ISchema {
 		return fLoaded;
 	}
 
+	boolean isAbbreviated() {
+		return fAbbreviated;
+	}
+
 	public boolean isNotificationEnabled() {
 		return fNotificationEnabled;
 	}
@@ -857,7 +861,10 @@ public class Schema extends PlatformObject implements ISchema {
 	}
 
 	private void processInclude(Node node) {
-		String location = getAttribute(node, "schemaLocation"); //$NON-NLS-1$
+		processInclude(getAttribute(node, "schemaLocation")); //$NON-NLS-1$
+	}
+
+	private void processInclude(String location) {
 		SchemaInclude include = new SchemaInclude(this, location, fAbbreviated, fSearchPath);
 		if (fIncludes == null) {
 			fIncludes = new Vector<>();
@@ -1057,6 +1064,39 @@ public class Schema extends PlatformObject implements ISchema {
 		fReferences = null;
 	}
 
+	/**
+	 * Restores the contents of this schema from the {@link SchemaCache} instead
+	 * of parsing the schema document. The given objects must have been created
+	 * with this schema as their root.
+	 *
+	 * @param name the schema name
+	 * @param pluginId the id of the plug-in declaring the extension point
+	 * @param pointId the simple id of the extension point
+	 * @param description the overview or <code>null</code>
+	 * @param valid whether the schema declared its meta information
+	 * @param sections all document sections, including the omitted ones
+	 * @param includes the locations of the included schemas
+	 * @param elements the element declarations
+	 * @param references the element references of the compositors of the elements
+	 */
+	void restore(String name, String pluginId, String pointId, String description, boolean valid, List<DocumentSection> sections, List<String> includes, List<ISchemaElement> elements, Vector<SchemaElementReference> references) {
+		reset();
+		fName = name;
+		fPluginID = pluginId;
+		fPointID = pointId;
+		fDescription = description;
+		fValid = valid;
+		fDocSections.addAll(sections);
+		for (String location : includes) {
+			processInclude(location);
+		}
+		fElements.addAll(elements);
+		fLoaded = true;
+		if (!references.isEmpty()) {
+			resolveReferences(references);
+		}
+	}
+
 	private void addOmittedDocumentSections() {
 		for (String element : DocumentSection.DOC_SECTIONS) {
 			DocumentSection section = new DocumentSection(this, element, null);
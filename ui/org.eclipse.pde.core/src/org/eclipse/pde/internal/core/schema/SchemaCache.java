@@ -0,0 +1,487 @@
+/*******************************************************************************
+ * Copyright (c) 2019 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.pde.internal.core.schema;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Vector;
+import org.eclipse.pde.internal.core.ischema.IDocumentSection;
+import org.eclipse.pde.internal.core.ischema.ISchema;
+import org.eclipse.pde.internal.core.ischema.ISchemaAttribute;
+import org.eclipse.pde.internal.core.ischema.ISchemaComplexType;
+import org.eclipse.pde.internal.core.ischema.ISchemaCompositor;
+import org.eclipse.pde.internal.core.ischema.ISchemaElement;
+import org.eclipse.pde.internal.core.ischema.ISchemaEnumeration;
+import org.eclipse.pde.internal.core.ischema.ISchemaInclude;
+import org.eclipse.pde.internal.core.ischema.ISchemaObject;
+import org.eclipse.pde.internal.core.ischema.ISchemaRestriction;
+import org.eclipse.pde.internal.core.ischema.ISchemaSimpleType;
+import org.eclipse.pde.internal.core.ischema.ISchemaType;
+
+/**
+ * Persistent cache of parsed extension point schemas, kept in the PDE
+ * metadata and shared by everything that gets its schemas from the
+ * {@link SchemaRegistry}, like the manifest builder and the content assist of
+ * the manifest editor.
+ * <p>
+ * Each schema is saved to its own binary file, keyed by its URL and by whether
+ * it was loaded abbreviated. A cached schema is only used as long as the
+ * timestamp of the file or archive it was read from is unchanged. Only schemas
+ * read from the local file system are cached, editable schemas never are.
+ * </p>
+ */
+public class SchemaCache {
+
+	/**
+	 * Version of the file format, bump whenever the contents change
+	 */
+	private static final int VERSION = 1;
+
+	private static final String FILE_EXTENSION = ".schema"; //$NON-NLS-1$
+
+	private static final byte NONE = 0;
+	private static final byte SIMPLE_TYPE = 1;
+	private static final byte COMPLEX_TYPE = 2;
+	private static final byte COMPOSITOR = 3;
+	private static final byte REFERENCE = 4;
+
+	private final File fDirectory;
+
+	/**
+	 * Creates a cache keeping its files in the given directory
+	 *
+	 * @param directory the cache directory, created on demand
+	 */
+	public SchemaCache(File directory) {
+		fDirectory = directory;
+	}
+
+	/**
+	 * Loads the given schema, from the cache if it holds an up to date copy of
+	 * it and otherwise from its document. A schema loaded from its document is
+	 * added to the cache.
+	 *
+	 * @param schema the schema to load
+	 */
+	public void load(Schema schema) {
+		if (read(schema)) {
+			return;
+		}
+		schema.load();
+		if (schema.isLoaded()) {
+			write(schema);
+		}
+	}
+
+	/**
+	 * Removes all cached schemas
+	 */
+	public void clear() {
+		File[] files = fDirectory.listFiles();
+		if (files == null) {
+			return;
+		}
+		for (File file : files) {
+			if (file.getName().endsWith(FILE_EXTENSION)) {
+				file.delete();
+			}
+		}
+	}
+
+	/**
+	 * Returns the timestamp of the file holding the schema at the given URL
+	 *
+	 * @param url the schema URL
+	 * @return the timestamp or <code>0</code> if the schema is not read from a
+	 *         local file or archive
+	 */
+	static long getTimestamp(URL url) {
+		File file = null;
+		if ("file".equals(url.getProtocol())) { //$NON-NLS-1$
+			file = new File(url.getFile());
+		} else if ("jar".equals(url.getProtocol())) { //$NON-NLS-1$
+			String spec = url.getFile();
+			int index = spec.indexOf("!/"); //$NON-NLS-1$
+			if (index == -1) {
+				return 0;
+			}
+			try {
+				URL archive = new URL(spec.substring(0, index));
+				if ("file".equals(archive.getProtocol())) { //$NON-NLS-1$
+					file = new File(archive.getFile());
+				}
+			} catch (MalformedURLException e) {
+			}
+		}
+		return file == null ? 0 : file.lastModified();
+	}
+
+	private File getFile(URL url, boolean abbreviated) {
+		String key = url.toExternalForm();
+		return new File(fDirectory, Integer.toHexString(key.hashCode()) + (abbreviated ? "a" : "f") + FILE_EXTENSION); //$NON-NLS-1$ //$NON-NLS-2$
+	}
+
+	/**
+	 * Restores the given schema from the cache
+	 *
+	 * @param schema the schema to restore
+	 * @return whether the schema was restored
+	 */
+	boolean read(Schema schema) {
+		URL url = schema.getURL();
+		if (url == null || schema.isEditable()) {
+			return false;
+		}
+		long timestamp = getTimestamp(url);
+		if (timestamp == 0) {
+			return false;
+		}
+		File file = getFile(url, schema.isAbbreviated());
+		if (!file.isFile()) {
+			return false;
+		}
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+			if (in.readInt() != VERSION || !url.toExternalForm().equals(in.readUTF()) || in.readLong() != timestamp) {
+				return false;
+			}
+			String name = readString(in);
+			String pluginId = readString(in);
+			String pointId = readString(in);
+			String description = readString(in);
+			boolean valid = in.readBoolean();
+			int count = in.readInt();
+			List<DocumentSection> sections = new ArrayList<>(count);
+			for (int i = 0; i < count; i++) {
+				DocumentSection section = new DocumentSection(schema, readString(in), readString(in));
+				section.setDescription(readString(in));
+				sections.add(section);
+			}
+			count = in.readInt();
+			List<String> includes = new ArrayList<>(count);
+			for (int i = 0; i < count; i++) {
+				includes.add(readString(in));
+			}
+			Vector<SchemaElementReference> references = new Vector<>();
+			count = in.readInt();
+			List<ISchemaElement> elements = new ArrayList<>(count);
+			for (int i = 0; i < count; i++) {
+				elements.add(readElement(in, schema, references));
+			}
+			schema.restore(name, pluginId, pointId, description, valid, sections, includes, elements, references);
+			return true;
+		} catch (IOException | RuntimeException e) {
+			// a corrupt or truncated file, the schema is parsed again
+			file.delete();
+			return false;
+		}
+	}
+
+	/**
+	 * Adds the given loaded schema to the cache, replacing any previous copy
+	 *
+	 * @param schema the schema to save
+	 */
+	void write(Schema schema) {
+		URL url = schema.getURL();
+		if (url == null || schema.isEditable()) {
+			return;
+		}
+		long timestamp = getTimestamp(url);
+		if (timestamp == 0 || (!fDirectory.isDirectory() && !fDirectory.mkdirs())) {
+			return;
+		}
+		File file = getFile(url, schema.isAbbreviated());
+		File temp = null;
+		try {
+			// written to a temporary file first, readers never see a partial file
+			temp = File.createTempFile("schema", ".tmp", fDirectory); //$NON-NLS-1$ //$NON-NLS-2$
+			try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp)))) {
+				out.writeInt(VERSION);
+				out.writeUTF(url.toExternalForm());
+				out.writeLong(timestamp);
+				writeString(out, schema.getName());
+				writeString(out, schema.getPluginId());
+				writeString(out, schema.getPointId());
+				writeString(out, schema.getDescription());
+				out.writeBoolean(schema.isValid());
+				IDocumentSection[] sections = schema.getDocumentSections();
+				out.writeInt(sections.length);
+				for (IDocumentSection section : sections) {
+					writeString(out, section.getSectionId());
+					writeString(out, section.getName());
+					writeString(out, ((DocumentSection) section).getStoredDescription());
+				}
+				ISchemaInclude[] includes = schema.getIncludes();
+				out.writeInt(includes.length);
+				for (ISchemaInclude include : includes) {
+					writeString(out, include.getLocation());
+				}
+				ISchemaElement[] elements = schema.getElements();
+				out.writeInt(elements.length);
+				for (ISchemaElement element : elements) {
+					writeElement(out, (SchemaElement) element);
+				}
+			}
+			try {
+				Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+			} catch (AtomicMoveNotSupportedException e) {
+				Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+			}
+		} catch (IOException | RuntimeException e) {
+			// not cached, the schema is parsed again next time
+			if (temp != null) {
+				temp.delete();
+			}
+		}
+	}
+
+	private void writeElement(DataOutputStream out, SchemaElement element) throws IOException {
+		boolean root = element instanceof SchemaRootElement;
+		out.writeBoolean(root);
+		writeString(out, element.getName());
+		writeString(out, element.getStoredDescription());
+		out.writeInt(element.getMinOccurs());
+		out.writeInt(element.getMaxOccurs());
+		writeString(out, element.getStoredLabelProperty());
+		writeString(out, element.getStoredIconProperty());
+		out.writeBoolean(element.hasTranslatableContent());
+		out.writeBoolean(element.isDeprecated());
+		if (root) {
+			SchemaRootElement rootElement = (SchemaRootElement) element;
+			writeString(out, rootElement.getDeprecatedSuggestion());
+			out.writeBoolean(rootElement.isInternal());
+		}
+		ISchemaType type = element.getType();
+		if (type instanceof ISchemaComplexType) {
+			ISchemaComplexType complexType = (ISchemaComplexType) type;
+			out.writeByte(COMPLEX_TYPE);
+			writeString(out, complexType.getName());
+			out.writeBoolean(complexType.isMixed());
+			ISchemaAttribute[] attributes = complexType.getAttributes();
+			out.writeInt(attributes.length);
+			for (ISchemaAttribute attribute : attributes) {
+				writeAttribute(out, (SchemaAttribute) attribute);
+			}
+			writeCompositorChild(out, complexType.getCompositor());
+		} else {
+			writeSimpleType(out, (ISchemaSimpleType) type);
+		}
+	}
+
+	private ISchemaElement readElement(DataInputStream in, Schema schema, Vector<SchemaElementReference> references) throws IOException {
+		boolean root = in.readBoolean();
+		String name = readString(in);
+		SchemaElement element = root ? new SchemaRootElement(schema, name) : new SchemaElement(schema, name);
+		element.setDescription(readString(in));
+		element.setMinOccurs(in.readInt());
+		element.setMaxOccurs(in.readInt());
+		element.setLabelProperty(readString(in));
+		element.setIconProperty(readString(in));
+		element.setTranslatableProperty(in.readBoolean());
+		element.setDeprecatedProperty(in.readBoolean());
+		if (root) {
+			SchemaRootElement rootElement = (SchemaRootElement) element;
+			rootElement.setDeprecatedSuggestion(readString(in));
+			rootElement.setInternal(in.readBoolean());
+		}
+		byte kind = in.readByte();
+		if (kind == COMPLEX_TYPE) {
+			SchemaComplexType complexType = new SchemaComplexType(schema, readString(in));
+			complexType.setMixed(in.readBoolean());
+			int count = in.readInt();
+			for (int i = 0; i < count; i++) {
+				complexType.addAttribute(readAttribute(in, element));
+			}
+			complexType.setCompositor((ISchemaCompositor) readCompositorChild(in, element, references));
+			element.setType(complexType);
+		} else {
+			element.setType(readSimpleType(in, kind, schema));
+		}
+		return element;
+	}
+
+	private void writeAttribute(DataOutputStream out, SchemaAttribute attribute) throws IOException {
+		writeString(out, attribute.getName());
+		writeString(out, attribute.getStoredDescription());
+		out.writeInt(attribute.getKind());
+		out.writeInt(attribute.getUse());
+		Object value = attribute.getValue();
+		writeString(out, value == null ? null : value.toString());
+		writeString(out, attribute.getBasedOn());
+		out.writeBoolean(attribute.isTranslatable());
+		out.writeBoolean(attribute.isDeprecated());
+		writeSimpleType(out, attribute.getType());
+	}
+
+	private ISchemaAttribute readAttribute(DataInputStream in, ISchemaElement element) throws IOException {
+		SchemaAttribute attribute = new SchemaAttribute(element, readString(in));
+		attribute.setDescription(readString(in));
+		attribute.setKind(in.readInt());
+		attribute.setUse(in.readInt());
+		String value = readString(in);
+		if (value != null) {
+			attribute.setValue(value);
+		}
+		attribute.setBasedOn(readString(in));
+		attribute.setTranslatableProperty(in.readBoolean());
+		attribute.setDeprecatedProperty(in.readBoolean());
+		ISchemaSimpleType type = readSimpleType(in, in.readByte(), element.getSchema());
+		if (type != null) {
+			attribute.setType(type);
+		}
+		return attribute;
+	}
+
+	private void writeSimpleType(DataOutputStream out, ISchemaSimpleType type) throws IOException {
+		if (type == null) {
+			out.writeByte(NONE);
+			return;
+		}
+		out.writeByte(SIMPLE_TYPE);
+		writeString(out, type.getName());
+		ISchemaRestriction restriction = type.getRestriction();
+		if (restriction == null) {
+			out.writeInt(-1);
+			return;
+		}
+		// choices are the only restriction the schema reader creates
+		ISchemaEnumeration[] choices = ((ChoiceRestriction) restriction).getChildren();
+		out.writeInt(choices.length);
+		for (ISchemaEnumeration choice : choices) {
+			writeString(out, choice.getName());
+		}
+	}
+
+	private ISchemaSimpleType readSimpleType(DataInputStream in, byte kind, ISchema schema) throws IOException {
+		if (kind == NONE) {
+			return null;
+		}
+		if (kind != SIMPLE_TYPE) {
+			throw new IOException("Unexpected type kind " + kind); //$NON-NLS-1$
+		}
+		SchemaSimpleType type = new SchemaSimpleType(schema, readString(in));
+		int count = in.readInt();
+		if (count >= 0) {
+			List<ISchemaEnumeration> choices = new ArrayList<>(count);
+			for (int i = 0; i < count; i++) {
+				choices.add(new SchemaEnumeration(schema, readString(in)));
+			}
+			ChoiceRestriction restriction = new ChoiceRestriction(schema);
+			restriction.setChildren(choices);
+			type.setRestriction(restriction);
+		}
+		return type;
+	}
+
+	private void writeCompositorChild(DataOutputStream out, ISchemaObject object) throws IOException {
+		if (object instanceof SchemaCompositor) {
+			SchemaCompositor compositor = (SchemaCompositor) object;
+			out.writeByte(COMPOSITOR);
+			out.writeInt(compositor.getKind());
+			out.writeInt(compositor.getMinOccurs());
+			out.writeInt(compositor.getMaxOccurs());
+			ISchemaObject[] children = compositor.getChildren();
+			out.writeInt(children.length);
+			for (ISchemaObject child : children) {
+				writeCompositorChild(out, child);
+			}
+		} else if (object instanceof SchemaElementReference) {
+			SchemaElementReference reference = (SchemaElementReference) object;
+			out.writeByte(REFERENCE);
+			writeString(out, reference.getReferenceName());
+			out.writeInt(reference.getMinOccurs());
+			out.writeInt(reference.getMaxOccurs());
+			Vector<String> comments = reference.getComments();
+			out.writeInt(comments == null ? -1 : comments.size());
+			if (comments != null) {
+				for (String comment : comments) {
+					writeString(out, comment);
+				}
+			}
+		} else {
+			out.writeByte(NONE);
+		}
+	}
+
+	private ISchemaObject readCompositorChild(DataInputStream in, ISchemaObject parent, Vector<SchemaElementReference> references) throws IOException {
+		byte kind = in.readByte();
+		switch (kind) {
+			case NONE :
+				return null;
+			case COMPOSITOR :
+				SchemaCompositor compositor = new SchemaCompositor(parent, in.readInt());
+				compositor.setMinOccurs(in.readInt());
+				compositor.setMaxOccurs(in.readInt());
+				int count = in.readInt();
+				for (int i = 0; i < count; i++) {
+					compositor.addChild(readCompositorChild(in, compositor, references));
+				}
+				return compositor;
+			case REFERENCE :
+				SchemaElementReference reference = new SchemaElementReference((ISchemaCompositor) parent, readString(in));
+				reference.setMinOccurs(in.readInt());
+				reference.setMaxOccurs(in.readInt());
+				int comments = in.readInt();
+				if (comments >= 0) {
+					Vector<String> list = new Vector<>(comments);
+					for (int i = 0; i < comments; i++) {
+						list.add(readString(in));
+					}
+					reference.setComments(list);
+				}
+				references.add(reference);
+				return reference;
+			default :
+				throw new IOException("Unexpected compositor child kind " + kind); //$NON-NLS-1$
+		}
+	}
+
+	/**
+	 * Writes a string that may be <code>null</code> or longer than
+	 * {@link DataOutputStream#writeUTF(String)} allows
+	 */
+	private static void writeString(DataOutputStream out, String value) throws IOException {
+		if (value == null) {
+			out.writeInt(-1);
+			return;
+		}
+		byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+		out.writeInt(bytes.length);
+		out.write(bytes);
+	}
+
+	private static String readString(DataInputStream in) throws IOException {
+		int length = in.readInt();
+		if (length < 0) {
+			return null;
+		}
+		byte[] bytes = new byte[length];
+		in.readFully(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+}
@@ -26,7 +26,7 @@ public class SchemaDescriptor implements ISchemaDescriptor {
 
 	private String fPoint;
 	private URL fSchemaURL;
-	private Schema fSchema;
+	private volatile Schema fSchema;
 	private long fLastModified;
 	private boolean fEditable;
 	private List<IPath> fSearchPath;
@@ -79,7 +79,7 @@ public class SchemaDescriptor implements ISchemaDescriptor {
 	}
 
 	@Override
-	public ISchema getSchema(boolean abbreviated) {
+	public synchronized ISchema getSchema(boolean abbreviated) {
 		if (fSchema == null && fSchemaURL != null) {
 			if (fEditable) {
 				fSchema = new EditableSchema(this, fSchemaURL, abbreviated);
@@ -87,7 +87,7 @@ public class SchemaDescriptor implements ISchemaDescriptor {
 				fSchema = new Schema(this, fSchemaURL, abbreviated);
 			}
 			fSchema.setSearchPath(fSearchPath);
-			fSchema.load();
+			SchemaRegistry.load(fSchema);
 		}
 		return fSchema;
 	}
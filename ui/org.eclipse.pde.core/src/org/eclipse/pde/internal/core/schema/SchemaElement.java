@@ -201,6 +201,22 @@ public class SchemaElement extends RepeatableSchemaObject implements ISchemaElem
 		return null;
 	}
 
+	/**
+	 * Returns the label property set on this element, without falling back to a
+	 * suitable attribute.
+	 */
+	String getStoredLabelProperty() {
+		return labelProperty;
+	}
+
+	/**
+	 * Returns the icon property set on this element, without falling back to a
+	 * suitable attribute.
+	 */
+	String getStoredIconProperty() {
+		return iconName;
+	}
+
 	private boolean isValidLabelProperty(ISchemaAttribute a) {
 		return a.getKind() == IMetaAttribute.STRING && a.getType().getName().equals(ISchemaAttribute.TYPES[ISchemaAttribute.STR_IND]) && a.isTranslatable();
 	}
@@ -281,6 +281,14 @@ public class SchemaElementReference extends PlatformObject implements ISchemaEle
 		return result;
 	}
 
+	Vector<String> getComments() {
+		return comments;
+	}
+
+	void setComments(Vector<String> comments) {
+		this.comments = comments;
+	}
+
 	void writeComments(PrintWriter writer) {
 		writeComments(writer, comments);
 	}
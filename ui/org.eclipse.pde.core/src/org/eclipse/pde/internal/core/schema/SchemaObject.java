@@ -39,6 +39,14 @@ public abstract class SchemaObject extends PlatformObject implements ISchemaObje
 		return fDescription;
 	}
 
+	/**
+	 * Returns the description set on this object, subclasses may compute a
+	 * missing description on demand in {@link #getDescription()}.
+	 */
+	String getStoredDescription() {
+		return fDescription;
+	}
+
 	@Override
 	public java.lang.String getName() {
 		return fName;
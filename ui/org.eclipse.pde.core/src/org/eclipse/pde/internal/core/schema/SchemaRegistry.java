@@ -16,7 +16,12 @@ package org.eclipse.pde.internal.core.schema;
 import java.io.File;
 import java.net.MalformedURLException;
 import java.net.URL;
-import java.util.HashMap;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
 import org.eclipse.core.runtime.IPath;
 import org.eclipse.core.runtime.Path;
 import org.eclipse.pde.core.plugin.IFragment;
@@ -35,15 +40,44 @@ import org.eclipse.pde.internal.core.util.CoreUtility;
 
 public class SchemaRegistry {
 
-	private final HashMap<String, ISchemaDescriptor> fRegistry = new HashMap<>();
+	private static final String CACHE_DIR = ".schemas"; //$NON-NLS-1$
+
+	/**
+	 * Maximum number of schemas kept in the registry. When it is exceeded the
+	 * least recently used schemas are released, they are restored from the
+	 * {@link SchemaCache} when needed again.
+	 */
+	private static final int MAX_SCHEMAS = 256;
+
+	/**
+	 * A registered descriptor and the time it was last used
+	 */
+	private static class RegisteredSchema {
+		final String key;
+		final ISchemaDescriptor descriptor;
+		volatile long lastUsed;
+		// copy of lastUsed that does not change while sorting for eviction
+		long evictionOrder;
+
+		RegisteredSchema(String key, ISchemaDescriptor descriptor) {
+			this.key = key;
+			this.descriptor = descriptor;
+		}
+	}
+
+	private final ConcurrentHashMap<String, RegisteredSchema> fRegistry = new ConcurrentHashMap<>();
+
+	private final AtomicLong fClock = new AtomicLong();
+
+	private final Object fEvictionLock = new Object();
+
+	private SchemaCache fCache;
 
 	public ISchema getSchema(String extPointID) {
 		IPluginExtensionPoint point = PDECore.getDefault().getExtensionsRegistry().findExtensionPoint(extPointID);
 		if (point == null) {
 			// if there is an old schema associated with this extension point, release it.
-			if (fRegistry.containsKey(extPointID)) {
-				fRegistry.remove(extPointID);
-			}
+			fRegistry.remove(extPointID);
 			return null;
 		}
 
@@ -52,12 +86,8 @@ public class SchemaRegistry {
 			return null;
 		}
 
-		ISchemaDescriptor desc = getExistingDescriptor(extPointID, url);
-		if (desc == null) {
-			desc = new SchemaDescriptor(extPointID, url);
-			fRegistry.put(extPointID, desc);
-		}
-
+		ISchemaDescriptor desc = getDescriptor(extPointID, url, () -> new SchemaDescriptor(extPointID, url));
+		// descriptors load their schema once, concurrent callers wait for it
 		return desc.getSchema(true);
 	}
 
@@ -68,26 +98,55 @@ public class SchemaRegistry {
 				return null;
 			}
 
-			ISchemaDescriptor desc = getExistingDescriptor(url.toString(), url);
-			if (desc == null) {
-				desc = new IncludedSchemaDescriptor(url);
-				fRegistry.put(url.toString(), desc);
-			}
+			ISchemaDescriptor desc = getDescriptor(url.toString(), url, () -> new IncludedSchemaDescriptor(url));
 			return desc.getSchema(true);
 		} catch (MalformedURLException e) {
 		}
 		return null;
 	}
 
-	private ISchemaDescriptor getExistingDescriptor(String key, URL url) {
-		ISchemaDescriptor desc = null;
-		if (fRegistry.containsKey(key)) {
-			desc = fRegistry.get(key);
-			if (hasSchemaChanged(desc, url)) {
-				desc = null;
+	/**
+	 * Returns the registered descriptor for the given key, registering a new
+	 * one if there is none or the schema has changed. Only one descriptor is
+	 * registered when several threads ask for the same key.
+	 */
+	private ISchemaDescriptor getDescriptor(String key, URL url, Supplier<ISchemaDescriptor> factory) {
+		RegisteredSchema entry = fRegistry.get(key);
+		if (entry == null || hasSchemaChanged(entry.descriptor, url)) {
+			entry = fRegistry.compute(key, (k, existing) -> {
+				if (existing != null && !hasSchemaChanged(existing.descriptor, url)) {
+					return existing;
+				}
+				return new RegisteredSchema(k, factory.get());
+			});
+		}
+		entry.lastUsed = fClock.incrementAndGet();
+		if (fRegistry.size() > MAX_SCHEMAS) {
+			evict();
+		}
+		return entry.descriptor;
+	}
+
+	/**
+	 * Releases the least recently used schemas, down to three quarters of the
+	 * maximum so that eviction does not run on every new schema
+	 */
+	private void evict() {
+		synchronized (fEvictionLock) {
+			int excess = fRegistry.size() - MAX_SCHEMAS * 3 / 4;
+			if (excess <= 0) {
+				return;
+			}
+			List<RegisteredSchema> entries = new ArrayList<>(fRegistry.values());
+			for (RegisteredSchema entry : entries) {
+				entry.evictionOrder = entry.lastUsed;
+			}
+			entries.sort(Comparator.comparingLong(entry -> entry.evictionOrder));
+			for (int i = 0; i < excess && i < entries.size(); i++) {
+				RegisteredSchema entry = entries.get(i);
+				fRegistry.remove(entry.key, entry);
 			}
 		}
-		return desc;
 	}
 
 	public static URL getSchemaURL(IPluginExtensionPoint point, IPluginModelBase base) {
@@ -182,6 +241,34 @@ public class SchemaRegistry {
 		return (desc.getLastModified() != file.lastModified());
 	}
 
+	/**
+	 * Returns the persistent cache of parsed schemas shared by all descriptors
+	 * of this registry
+	 *
+	 * @return the schema cache
+	 */
+	public synchronized SchemaCache getCache() {
+		if (fCache == null) {
+			fCache = new SchemaCache(new File(PDECore.getDefault().getStateLocation().toFile(), CACHE_DIR));
+		}
+		return fCache;
+	}
+
+	/**
+	 * Loads the given schema through the schema cache of the running PDE core
+	 * plug-in, or directly from its document when there is none
+	 *
+	 * @param schema the schema to load
+	 */
+	static void load(Schema schema) {
+		PDECore core = PDECore.getDefault();
+		if (core == null) {
+			schema.load();
+		} else {
+			core.getSchemaRegistry().getCache().load(schema);
+		}
+	}
+
 	public void shutdown() {
 		fRegistry.clear();
 	}
@@ -16,7 +16,10 @@ package org.eclipse.pde.internal.core.target;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.Map.Entry;
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IProgressMonitor;
@@ -67,6 +70,42 @@ public abstract class AbstractBundleContainer extends PlatformObject implements
 
 	static private HashMap<AbstractBundleContainer, String[]> hash = new HashMap<>();
 
+	/**
+	 * Maximum number of resolved locations remembered in {@link #fgResolvedLocations}
+	 */
+	private static final int MAX_RESOLVED_LOCATIONS = 64;
+
+	/**
+	 * Bundles and features of locations that were resolved successfully and
+	 * provide a fingerprint, keyed by location. Containers are compared by
+	 * equality, so the result is reused by other instances of the same
+	 * location, e.g. when a target is loaded again.
+	 */
+	private static final Map<AbstractBundleContainer, ResolvedLocation> fgResolvedLocations = Collections.synchronizedMap(new LinkedHashMap<AbstractBundleContainer, ResolvedLocation>(16, 0.75f, true) {
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<AbstractBundleContainer, ResolvedLocation> eldest) {
+			return size() > MAX_RESOLVED_LOCATIONS;
+		}
+	});
+
+	/**
+	 * Resolution result of a location together with the fingerprint of the
+	 * location contents it was computed from
+	 */
+	private static class ResolvedLocation {
+		final String fingerprint;
+		final TargetBundle[] bundles;
+		final TargetFeature[] features;
+
+		ResolvedLocation(String fingerprint, TargetBundle[] bundles, TargetFeature[] features) {
+			this.fingerprint = fingerprint;
+			this.bundles = bundles;
+			this.features = features;
+		}
+	}
+
 	/**
 	 * Resolves any string substitution variables in the given text returning
 	 * the result.
@@ -92,14 +131,33 @@ public abstract class AbstractBundleContainer extends PlatformObject implements
 
 		SubMonitor subMonitor = SubMonitor.convert(monitor, resolveBundlesWork + resolveFeaturesWork);
 		try {
+			String fingerprint = getFingerprint(definition);
+			if (fingerprint != null) {
+				ResolvedLocation resolved = fgResolvedLocations.get(this);
+				if (resolved != null && resolved.fingerprint.equals(fingerprint)) {
+					// location did not change since it was last resolved
+					if (PDECore.DEBUG_TARGET_PROFILE) {
+						System.out.println("Reusing resolved bundles of unchanged location: " + this); //$NON-NLS-1$
+					}
+					fBundles = resolved.bundles;
+					fFeatures = resolved.features;
+					fResolutionStatus = Status.OK_STATUS;
+					return fResolutionStatus;
+				}
+			}
 			fResolutionStatus = Status.OK_STATUS;
 			fBundles = resolveBundles(definition, subMonitor.split(resolveBundlesWork));
 			fFeatures = resolveFeatures(definition, subMonitor.split(resolveFeaturesWork));
 			if (subMonitor.isCanceled()) {
 				fBundles = null;
 				fResolutionStatus = Status.CANCEL_STATUS;
+			} else if (fingerprint != null) {
+				fgResolvedLocations.put(this, new ResolvedLocation(fingerprint, fBundles, fFeatures));
+			} else {
+				fgResolvedLocations.remove(this);
 			}
 		} catch (CoreException e) {
+			fgResolvedLocations.remove(this);
 			fBundles = new TargetBundle[0];
 			fFeatures = new TargetFeature[0];
 			fResolutionStatus = e.getStatus();
@@ -160,6 +218,35 @@ public abstract class AbstractBundleContainer extends PlatformObject implements
 		return null;
 	}
 
+	/**
+	 * Returns a fingerprint of the contents this location resolves to, for
+	 * example computed from the names and modification times of the files in a
+	 * directory. If the fingerprint is equal to the one of the last successful
+	 * resolution of an equal location, the bundles and features of that
+	 * resolution are reused instead of resolving this location again.
+	 * <p>
+	 * Subclasses may override. The default implementation returns
+	 * <code>null</code>, meaning the location is always resolved.
+	 * </p>
+	 *
+	 * @param definition target context
+	 * @return fingerprint of the location contents or <code>null</code> if
+	 *         the location cannot tell whether its contents changed
+	 * @throws CoreException if the location cannot be determined, reported as
+	 *             resolution status of this location
+	 */
+	protected String getFingerprint(ITargetDefinition definition) throws CoreException {
+		return null;
+	}
+
+	/**
+	 * Forgets the resolution results remembered for unchanged locations, so
+	 * all locations are resolved again on the next resolve.
+	 */
+	public static void clearResolvedLocations() {
+		fgResolvedLocations.clear();
+	}
+
 	/**
 	 * Resolves all source and executable bundles in this container
 	 * <p>
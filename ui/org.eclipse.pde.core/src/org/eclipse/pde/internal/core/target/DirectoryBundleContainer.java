@@ -119,6 +119,15 @@ public class DirectoryBundleContainer extends AbstractBundleContainer {
 		return features.toArray(new TargetFeature[features.size()]);
 	}
 
+	@Override
+	protected String getFingerprint(ITargetDefinition definition) throws CoreException {
+		File dir = getDirectory();
+		LocationFingerprint fingerprint = new LocationFingerprint();
+		fingerprint.addDirectory(getSite(dir));
+		fingerprint.addDirectory(getFeatureSite(dir));
+		return fingerprint.get();
+	}
+
 	/**
 	 * Returns the directory to search for bundles in.
 	 *
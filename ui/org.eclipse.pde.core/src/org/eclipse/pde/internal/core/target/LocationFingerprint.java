@@ -0,0 +1,124 @@
+/*******************************************************************************
+ * Copyright (c) 2019 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.pde.internal.core.target;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import org.eclipse.pde.internal.core.ICoreConstants;
+
+/**
+ * Computes the fingerprint of the contents of a target location from the file
+ * system entries the location is resolved from. Two fingerprints are equal if
+ * the names, sizes and modification times of all entries are equal.
+ *
+ * @see AbstractBundleContainer#getFingerprint(org.eclipse.pde.core.target.ITargetDefinition)
+ */
+class LocationFingerprint {
+
+	private final MessageDigest fDigest;
+
+	LocationFingerprint() {
+		try {
+			fDigest = MessageDigest.getInstance("SHA-1"); //$NON-NLS-1$
+		} catch (NoSuchAlgorithmException e) {
+			// every Java platform is required to support SHA-1
+			throw new IllegalStateException(e);
+		}
+	}
+
+	/**
+	 * Adds the given value to the fingerprint
+	 *
+	 * @param value value to add, may be <code>null</code>
+	 * @return this fingerprint
+	 */
+	LocationFingerprint add(String value) {
+		fDigest.update(String.valueOf(value).getBytes(StandardCharsets.UTF_8));
+		fDigest.update((byte) 0);
+		return this;
+	}
+
+	/**
+	 * Adds the given value to the fingerprint
+	 *
+	 * @param value value to add
+	 * @return this fingerprint
+	 */
+	LocationFingerprint add(long value) {
+		for (int i = 0; i < 8; i++) {
+			fDigest.update((byte) (value >>> (i * 8)));
+		}
+		return this;
+	}
+
+	/**
+	 * Adds the path, size and modification time of the given file to the
+	 * fingerprint. For a directory bundle the modification times of its
+	 * manifest files are added as well, since editing them does not touch the
+	 * directory.
+	 *
+	 * @param file file to add
+	 * @return this fingerprint
+	 */
+	LocationFingerprint addFile(File file) {
+		add(file.getAbsolutePath());
+		add(file.length());
+		add(file.lastModified());
+		if (file.isDirectory()) {
+			add(new File(file, ICoreConstants.BUNDLE_FILENAME_DESCRIPTOR).lastModified());
+			add(new File(file, ICoreConstants.PLUGIN_FILENAME_DESCRIPTOR).lastModified());
+			add(new File(file, ICoreConstants.FRAGMENT_FILENAME_DESCRIPTOR).lastModified());
+			add(new File(file, ICoreConstants.FEATURE_FILENAME_DESCRIPTOR).lastModified());
+		}
+		return this;
+	}
+
+	/**
+	 * Adds all children of the given directory to the fingerprint, see
+	 * {@link #addFile(File)}. A missing directory is recorded as such.
+	 *
+	 * @param directory directory to add
+	 * @return this fingerprint
+	 */
+	LocationFingerprint addDirectory(File directory) {
+		add(directory.getAbsolutePath());
+		File[] files = directory.listFiles();
+		if (files == null) {
+			add(-1);
+			return this;
+		}
+		// the order of a listing is not defined
+		Arrays.sort(files);
+		add(files.length);
+		for (File file : files) {
+			addFile(file);
+		}
+		return this;
+	}
+
+	/**
+	 * @return the fingerprint as hexadecimal string
+	 */
+	String get() {
+		StringBuilder buffer = new StringBuilder();
+		for (byte b : fDigest.digest()) {
+			buffer.append(Character.forDigit((b >> 4) & 0xF, 16));
+			buffer.append(Character.forDigit(b & 0xF, 16));
+		}
+		return buffer.toString();
+	}
+}
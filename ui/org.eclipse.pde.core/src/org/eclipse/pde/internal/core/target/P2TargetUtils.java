@@ -288,6 +288,8 @@ public class P2TargetUtils {
 
 	@SuppressWarnings("restriction")
 	public static void forceCheckTarget(final ITargetDefinition target) {
+		// an explicit reload resolves all locations again, changed or not
+		AbstractBundleContainer.clearResolvedLocations();
 		final P2TargetUtils result = getSynchronizer(target);
 		if (result != null && result.fProfile != null && result.fProfile instanceof Profile) {
 			((Profile) result.fProfile).setProperty(PROP_SEQUENCE_NUMBER, "-1"); //$NON-NLS-1$
@@ -179,6 +179,54 @@ public class ProfileBundleContainer extends AbstractBundleContainer {
 		return new TargetFeature[0];
 	}
 
+	@Override
+	protected String getFingerprint(ITargetDefinition definition) throws CoreException {
+		String home = resolveHomeLocation().toOSString();
+		LocationFingerprint fingerprint = new LocationFingerprint();
+		fingerprint.addDirectory(new File(home, "plugins")); //$NON-NLS-1$
+		fingerprint.addDirectory(new File(home, "features")); //$NON-NLS-1$
+		URL configUrl = getConfigurationArea();
+		if (configUrl != null) {
+			// the files the installed bundles are read from
+			File configArea = new File(configUrl.getFile());
+			fingerprint.addFile(new File(configArea, CONFIG_INI));
+			fingerprint.addFile(new File(configArea, "org.eclipse.equinox.simpleconfigurator/bundles.info")); //$NON-NLS-1$
+			fingerprint.addFile(new File(configArea, "org.eclipse.equinox.source/source.info")); //$NON-NLS-1$
+			fingerprint.addFile(new File(configArea, "org.eclipse.update/platform.xml")); //$NON-NLS-1$
+		}
+		// the bundles may be anywhere, like a shared bundle pool or the
+		// dropins, so every bundle that is resolved is added
+		BundleInfo[] infos = P2Utils.readBundles(home, configUrl);
+		if (infos == null) {
+			for (URL file : PluginPathFinder.getPlatformXMLPaths(home, false)) {
+				fingerprint.addFile(new File(file.getFile()));
+			}
+		} else {
+			addBundles(fingerprint, infos);
+		}
+		BundleInfo[] source = P2Utils.readSourceBundles(home, configUrl);
+		if (source != null) {
+			addBundles(fingerprint, source);
+		}
+		return fingerprint.get();
+	}
+
+	private void addBundles(LocationFingerprint fingerprint, BundleInfo[] infos) {
+		for (BundleInfo info : infos) {
+			URI location = info.getLocation();
+			if (location == null) {
+				continue;
+			}
+			File file = URIUtil.toFile(location);
+			if (file != null) {
+				fingerprint.addFile(file);
+			} else {
+				// not a local file, only its location is known
+				fingerprint.add(location.toString());
+			}
+		}
+	}
+
 	/**
 	 * Resolves installed bundles based on update manager's platform XML or scans the plugins directory if
 	 * no platform.xml is available
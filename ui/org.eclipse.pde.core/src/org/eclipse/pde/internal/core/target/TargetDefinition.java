@@ -31,6 +31,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import javax.xml.parsers.DocumentBuilder;
 import javax.xml.parsers.DocumentBuilderFactory;
 import javax.xml.parsers.ParserConfigurationException;
@@ -40,6 +41,7 @@ import org.eclipse.core.runtime.IPath;
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.IStatus;
 import org.eclipse.core.runtime.MultiStatus;
+import org.eclipse.core.runtime.NullProgressMonitor;
 import org.eclipse.core.runtime.OperationCanceledException;
 import org.eclipse.core.runtime.Status;
 import org.eclipse.core.runtime.SubMonitor;
@@ -115,7 +117,7 @@ public class TargetDefinition implements ITargetDefinition {
 	public static final int MODE_FEATURE = 1;
 
 	// cache of features found for a given location, maps a string path location to a array of IFeatureModels (IFeatureModel[])
-	private static Map<String, TargetFeature[]> fFeaturesInLocation = new HashMap<>();
+	private static Map<String, TargetFeature[]> fFeaturesInLocation = new ConcurrentHashMap<>();
 
 	// internal cache for features.  A target managed by features will contain a set of features as well as a set of plug-ins that don't belong to a feature
 	private TargetFeature[] fFeatures;
@@ -412,15 +414,22 @@ public class TargetDefinition implements ITargetDefinition {
 					fResolutionStatus = status;
 					return fResolutionStatus;
 				}
-				for (ITargetLocation container : containers) {
+				// Locations backed by p2 share their synchronizer and are resolved
+				// in order, all other locations share no state and are resolved in
+				// parallel. Statuses are collected in the order of the locations.
+				IStatus[] statuses = new IStatus[containers.length];
+				List<Integer> independent = new ArrayList<>();
+				for (int i = 0; i < containers.length; i++) {
 					subMonitor.checkCanceled();
-					subMonitor.subTask(Messages.TargetDefinition_4);
-					P2TargetUtils synchronizer = container.getAdapter(P2TargetUtils.class);
-					int totalWork = 5;
-					if (synchronizer == null) {
-						totalWork = 100;
+					if (containers[i].getAdapter(P2TargetUtils.class) == null) {
+						independent.add(Integer.valueOf(i));
+						continue;
 					}
-					IStatus s = container.resolve(this, subMonitor.split(totalWork));
+					subMonitor.subTask(Messages.TargetDefinition_4);
+					statuses[i] = containers[i].resolve(this, subMonitor.split(5));
+				}
+				resolveIndependentLocations(containers, independent, statuses, subMonitor);
+				for (IStatus s : statuses) {
 					if (!s.isOK()) {
 						status.add(s);
 					}
@@ -446,6 +455,48 @@ public class TargetDefinition implements ITargetDefinition {
 		}
 	}
 
+	/**
+	 * Resolves the given locations, which are not backed by p2, in parallel.
+	 * Each location reports 100 units of work to the given monitor when done,
+	 * the locations themselves only check it for cancellation. Once the
+	 * monitor is canceled no further location is resolved.
+	 *
+	 * @param containers all locations of this target
+	 * @param indexes indexes of the locations to resolve
+	 * @param statuses array to store the resolution status of each location at its index
+	 * @param subMonitor progress monitor
+	 * @throws OperationCanceledException if the monitor was canceled
+	 */
+	private void resolveIndependentLocations(ITargetLocation[] containers, List<Integer> indexes, IStatus[] statuses, SubMonitor subMonitor) {
+		if (indexes.size() < 2) {
+			for (Integer i : indexes) {
+				subMonitor.subTask(Messages.TargetDefinition_4);
+				statuses[i] = containers[i].resolve(this, subMonitor.split(100));
+			}
+			return;
+		}
+		subMonitor.subTask(Messages.TargetDefinition_4);
+		// progress monitors are not thread safe, the workers may only ask for cancellation
+		IProgressMonitor workerMonitor = new NullProgressMonitor() {
+			@Override
+			public boolean isCanceled() {
+				return subMonitor.isCanceled();
+			}
+		};
+		indexes.parallelStream().forEach(i -> {
+			// locations not started yet are skipped once the resolution is canceled
+			if (workerMonitor.isCanceled()) {
+				statuses[i] = Status.CANCEL_STATUS;
+				return;
+			}
+			statuses[i] = containers[i].resolve(this, workerMonitor);
+			synchronized (subMonitor) {
+				subMonitor.worked(100);
+			}
+		});
+		subMonitor.checkCanceled();
+	}
+
 	@Override
 	public boolean isResolved() {
 		ITargetLocation[] containers = getTargetLocations();
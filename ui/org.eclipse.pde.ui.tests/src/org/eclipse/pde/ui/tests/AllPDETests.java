@@ -20,6 +20,7 @@ import org.eclipse.pde.ui.tests.ee.ExportBundleTests;
 import org.eclipse.pde.ui.tests.imports.AllImportTests;
 import org.eclipse.pde.ui.tests.launcher.AllLauncherTests;
 import org.eclipse.pde.ui.tests.model.bundle.AllBundleModelTests;
+import org.eclipse.pde.ui.tests.model.schema.AllSchemaModelTests;
 import org.eclipse.pde.ui.tests.model.xml.AllXMLModelTests;
 import org.eclipse.pde.ui.tests.nls.AllNLSTests;
 import org.eclipse.pde.ui.tests.preferences.AllPreferenceTests;
@@ -39,6 +40,7 @@ import org.junit.runners.Suite.SuiteClasses;
 	AllPreferenceTests.class,
 	AllImportTests.class,
 	AllBundleModelTests.class,
+	AllSchemaModelTests.class,
 	AllXMLModelTests.class,
 	AllValidatorTests.class,
 	AllNLSTests.class,
@@ -49,6 +51,8 @@ import org.junit.runners.Suite.SuiteClasses;
 	ProjectCreationTests.class,
 	BundleRootTests.class,
 	PluginRegistryTests.class,
+	ManifestValidationTests.class,
+	ExtensionsValidationTests.class,
 	ClasspathResolverTest.class,
 	ClasspathContributorTest.class
 })
@@ -13,6 +13,11 @@
  *******************************************************************************/
 package org.eclipse.pde.ui.tests.model.schema;
 
-public class AllSchemaModelTests {
+import org.junit.runner.RunWith;
+import org.junit.runners.Suite;
+import org.junit.runners.Suite.SuiteClasses;
 
+@RunWith(Suite.class)
+@SuiteClasses({ SchemaCacheTestCase.class, SchemaIncludeTestCase.class })
+public class AllSchemaModelTests {
 }
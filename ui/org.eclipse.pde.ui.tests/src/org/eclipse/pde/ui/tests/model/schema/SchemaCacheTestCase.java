@@ -0,0 +1,215 @@
+/*******************************************************************************
+ * Copyright (c) 2019 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.pde.ui.tests.model.schema;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import junit.framework.TestCase;
+import org.eclipse.pde.internal.core.ischema.*;
+import org.eclipse.pde.internal.core.schema.*;
+
+/**
+ * Tests that schemas restored from the {@link SchemaCache} are the same as the
+ * parsed schemas and that cached schemas are dropped when their file changes.
+ */
+public class SchemaCacheTestCase extends TestCase {
+
+	private File fDirectory;
+	private File fCacheDirectory;
+	private File fSchemaFile;
+
+	@Override
+	protected void setUp() throws Exception {
+		fDirectory = Files.createTempDirectory("schemacache").toFile();
+		fCacheDirectory = new File(fDirectory, "cache");
+		fSchemaFile = new File(fDirectory, "sample.exsd");
+		writeFile(new File(fDirectory, "included.exsd"), getIncludedSchema());
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		delete(fDirectory);
+	}
+
+	public void testRoundTrip() throws Exception {
+		String description = getLongDescription();
+		writeFile(fSchemaFile, getSchema("Sample", description));
+		SchemaCache cache = new SchemaCache(fCacheDirectory);
+
+		Schema parsed = loadSchema(cache);
+		assertTrue(parsed.isLoaded());
+		assertEquals("Sample", parsed.getName());
+		assertEquals(description, parsed.getDescription());
+		assertEquals(1, parsed.getIncludes().length);
+		assertTrue(getCacheFiles().length > 0);
+
+		Schema cached = loadSchema(cache);
+		assertTrue(cached.isLoaded());
+		assertEquals(dump(parsed), dump(cached));
+		assertEquals(description, cached.getDescription());
+	}
+
+	public void testTimestampChange() throws Exception {
+		writeFile(fSchemaFile, getSchema("Sample", "Description"));
+		long timestamp = fSchemaFile.lastModified();
+		SchemaCache cache = new SchemaCache(fCacheDirectory);
+		assertEquals("Sample", loadSchema(cache).getName());
+
+		// same timestamp, the cached copy is still used
+		writeFile(fSchemaFile, getSchema("Changed", "Description"));
+		assertTrue(fSchemaFile.setLastModified(timestamp));
+		assertEquals("Sample", loadSchema(cache).getName());
+
+		// new timestamp, the schema is parsed again
+		assertTrue(fSchemaFile.setLastModified(timestamp + 10000));
+		assertEquals("Changed", loadSchema(cache).getName());
+		assertEquals("Changed", loadSchema(cache).getName());
+
+		cache.clear();
+		assertEquals(0, getCacheFiles().length);
+	}
+
+	private Schema loadSchema(SchemaCache cache) throws IOException {
+		IncludedSchemaDescriptor descriptor = new IncludedSchemaDescriptor(fSchemaFile.toURI().toURL());
+		Schema schema = new Schema(descriptor, descriptor.getSchemaURL(), false);
+		cache.load(schema);
+		return schema;
+	}
+
+	private File[] getCacheFiles() {
+		File[] files = fCacheDirectory.listFiles((dir, name) -> name.endsWith(".schema"));
+		return files == null ? new File[0] : files;
+	}
+
+	/**
+	 * Returns a text representation of everything the cache keeps of a schema
+	 */
+	private String dump(ISchema schema) {
+		StringBuilder buffer = new StringBuilder();
+		buffer.append(schema.getName()).append('|').append(schema.getPluginId()).append('|').append(schema.getPointId()).append('\n');
+		buffer.append(schema.getDescription()).append('\n');
+		for (IDocumentSection section : schema.getDocumentSections()) {
+			buffer.append("section ").append(section.getSectionId()).append('|').append(section.getName()).append('|').append(section.getDescription()).append('\n');
+		}
+		for (ISchemaInclude include : schema.getIncludes()) {
+			buffer.append("include ").append(include.getLocation()).append('\n');
+		}
+		for (ISchemaElement element : schema.getElements()) {
+			buffer.append("element ").append(element.getName()).append('|').append(element.getDescription()).append('|').append(element.getMinOccurs()).append('|').append(element.getMaxOccurs()).append('|').append(element.getLabelProperty()).append('|').append(element.getIconProperty()).append('|').append(element.hasTranslatableContent()).append('|').append(element.isDeprecated()).append('\n');
+			ISchemaType type = element.getType();
+			if (type instanceof ISchemaComplexType) {
+				ISchemaComplexType complexType = (ISchemaComplexType) type;
+				buffer.append(" complex ").append(complexType.getName()).append('|').append(complexType.isMixed()).append('\n');
+				for (ISchemaAttribute attribute : complexType.getAttributes()) {
+					buffer.append(" attribute ").append(attribute.getName()).append('|').append(attribute.getDescription()).append('|').append(attribute.getKind()).append('|').append(attribute.getUse()).append('|').append(attribute.getValue()).append('|').append(attribute.getBasedOn()).append('|').append(attribute.isTranslatable()).append('|').append(attribute.isDeprecated()).append('\n');
+					dump(attribute.getType(), buffer);
+				}
+				dump(complexType.getCompositor(), "  ", buffer);
+			} else {
+				dump((ISchemaSimpleType) type, buffer);
+			}
+		}
+		return buffer.toString();
+	}
+
+	private void dump(ISchemaSimpleType type, StringBuilder buffer) {
+		if (type == null) {
+			return;
+		}
+		buffer.append("  simple ").append(type.getName()).append('\n');
+		ISchemaRestriction restriction = type.getRestriction();
+		if (restriction != null) {
+			for (Object choice : restriction.getChildren()) {
+				buffer.append("   choice ").append(((ISchemaEnumeration) choice).getName()).append('\n');
+			}
+		}
+	}
+
+	private void dump(ISchemaObject object, String indent, StringBuilder buffer) {
+		if (object instanceof ISchemaCompositor) {
+			ISchemaCompositor compositor = (ISchemaCompositor) object;
+			buffer.append(indent).append("compositor ").append(compositor.getKind()).append('|').append(compositor.getMinOccurs()).append('|').append(compositor.getMaxOccurs()).append('\n');
+			for (ISchemaObject child : compositor.getChildren()) {
+				dump(child, indent + ' ', buffer);
+			}
+		} else if (object instanceof ISchemaObjectReference) {
+			ISchemaObjectReference reference = (ISchemaObjectReference) object;
+			ISchemaRepeatable repeatable = (ISchemaRepeatable) object;
+			buffer.append(indent).append("reference ").append(reference.getName()).append('|').append(repeatable.getMinOccurs()).append('|').append(repeatable.getMaxOccurs()).append('|').append(reference.getReferencedObject() != null).append('\n');
+		}
+	}
+
+	private String getLongDescription() {
+		StringBuilder buffer = new StringBuilder();
+		while (buffer.length() <= 70000) {
+			buffer.append("A long description of the extension point. \u00e9\u00e8 ");
+		}
+		return buffer.toString();
+	}
+
+	private String getSchema(String name, String description) {
+		StringBuilder buffer = new StringBuilder();
+		buffer.append("<?xml version='1.0' encoding='UTF-8'?>\n");
+		buffer.append("<schema targetNamespace=\"org.eclipse.pde.ui.tests\" xmlns=\"http://www.w3.org/2001/XMLSchema\">\n");
+		buffer.append("<annotation><appInfo><meta.schema plugin=\"org.eclipse.pde.ui.tests\" id=\"sample\" name=\"").append(name).append("\"/></appInfo>\n");
+		buffer.append("<documentation>").append(description).append("</documentation></annotation>\n");
+		buffer.append("<include schemaLocation=\"included.exsd\"/>\n");
+		buffer.append("<element name=\"extension\"><annotation><appInfo><meta.element /></appInfo></annotation>\n");
+		buffer.append("<complexType><sequence minOccurs=\"1\" maxOccurs=\"unbounded\">\n");
+		buffer.append("<element ref=\"item\" minOccurs=\"0\" maxOccurs=\"unbounded\"/>\n");
+		buffer.append("<choice><element ref=\"other\"/><element ref=\"shared\"/></choice>\n");
+		buffer.append("</sequence>\n");
+		buffer.append("<attribute name=\"point\" type=\"string\" use=\"required\"/>\n");
+		buffer.append("<attribute name=\"name\" type=\"string\"><annotation><appInfo><meta.attribute translatable=\"true\"/></appInfo></annotation></attribute>\n");
+		buffer.append("</complexType></element>\n");
+		buffer.append("<element name=\"item\"><annotation><appInfo><meta.element labelAttribute=\"kind\"/></appInfo><documentation>An item</documentation></annotation>\n");
+		buffer.append("<complexType>\n");
+		buffer.append("<attribute name=\"kind\" use=\"default\" value=\"first\"><simpleType><restriction base=\"string\">");
+		buffer.append("<enumeration value=\"first\"/><enumeration value=\"second\"/></restriction></simpleType></attribute>\n");
+		buffer.append("<attribute name=\"class\" type=\"string\"><annotation><documentation>The class</documentation>");
+		buffer.append("<appInfo><meta.attribute kind=\"java\" basedOn=\":java.lang.Runnable\"/></appInfo></annotation></attribute>\n");
+		buffer.append("</complexType></element>\n");
+		buffer.append("<element name=\"other\"><annotation><appInfo><meta.element deprecated=\"true\"/></appInfo></annotation>\n");
+		buffer.append("<complexType><attribute name=\"id\" type=\"string\"/></complexType></element>\n");
+		buffer.append("<annotation><appInfo><meta.section type=\"examples\"/></appInfo><documentation>An example</documentation></annotation>\n");
+		buffer.append("</schema>\n");
+		return buffer.toString();
+	}
+
+	private String getIncludedSchema() {
+		StringBuilder buffer = new StringBuilder();
+		buffer.append("<?xml version='1.0' encoding='UTF-8'?>\n");
+		buffer.append("<schema targetNamespace=\"org.eclipse.pde.ui.tests\" xmlns=\"http://www.w3.org/2001/XMLSchema\">\n");
+		buffer.append("<annotation><appInfo><meta.schema plugin=\"org.eclipse.pde.ui.tests\" id=\"included\" name=\"Included\"/></appInfo></annotation>\n");
+		buffer.append("<element name=\"shared\"><complexType><attribute name=\"id\" type=\"string\"/></complexType></element>\n");
+		buffer.append("</schema>\n");
+		return buffer.toString();
+	}
+
+	private void writeFile(File file, String contents) throws IOException {
+		Files.write(file.toPath(), contents.getBytes(StandardCharsets.UTF_8));
+	}
+
+	private void delete(File file) {
+		File[] children = file.listFiles();
+		if (children != null) {
+			for (File child : children) {
+				delete(child);
+			}
+		}
+		file.delete();
+	}
+}
@@ -0,0 +1,125 @@
+/*******************************************************************************
+ * Copyright (c) 2019 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.pde.ui.tests.model.schema;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.concurrent.*;
+import junit.framework.TestCase;
+import org.eclipse.pde.internal.core.PDECore;
+import org.eclipse.pde.internal.core.ischema.*;
+import org.eclipse.pde.internal.core.schema.IncludedSchemaDescriptor;
+import org.eclipse.pde.internal.core.schema.SchemaRegistry;
+
+/**
+ * Tests loading schemas that include each other through the
+ * {@link SchemaRegistry}
+ */
+public class SchemaIncludeTestCase extends TestCase {
+
+	private File fDirectory;
+	private IncludedSchemaDescriptor fParent;
+
+	@Override
+	protected void setUp() throws Exception {
+		fDirectory = Files.createTempDirectory("schemainclude").toFile();
+		writeSchema("first", "second");
+		writeSchema("second", "first");
+		fParent = new IncludedSchemaDescriptor(new File(fDirectory, "parent.exsd").toURI().toURL());
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		File[] files = fDirectory.listFiles();
+		if (files != null) {
+			for (File file : files) {
+				file.delete();
+			}
+		}
+		fDirectory.delete();
+	}
+
+	public void testMutualIncludes() {
+		SchemaRegistry registry = PDECore.getDefault().getSchemaRegistry();
+		ISchema first = registry.getIncludedSchema(fParent, "first.exsd");
+		ISchema second = registry.getIncludedSchema(fParent, "second.exsd");
+		assertIncludes(first, second);
+		assertIncludes(second, first);
+	}
+
+	public void testConcurrentMutualIncludes() throws Exception {
+		SchemaRegistry registry = PDECore.getDefault().getSchemaRegistry();
+		CountDownLatch start = new CountDownLatch(1);
+		ExecutorService executor = Executors.newFixedThreadPool(2);
+		try {
+			Future<ISchema> first = executor.submit(() -> {
+				start.await();
+				return registry.getIncludedSchema(fParent, "first.exsd");
+			});
+			Future<ISchema> second = executor.submit(() -> {
+				start.await();
+				return registry.getIncludedSchema(fParent, "second.exsd");
+			});
+			start.countDown();
+			ISchema firstSchema;
+			ISchema secondSchema;
+			try {
+				firstSchema = first.get(1, TimeUnit.MINUTES);
+				secondSchema = second.get(1, TimeUnit.MINUTES);
+			} catch (TimeoutException e) {
+				fail("Loading schemas that include each other did not finish");
+				return;
+			}
+			assertIncludes(firstSchema, secondSchema);
+			assertIncludes(secondSchema, firstSchema);
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	/**
+	 * Asserts that the schema is loaded once, includes the other schema and
+	 * resolved its reference to the element of the other schema
+	 */
+	private void assertIncludes(ISchema schema, ISchema included) {
+		assertNotNull(schema);
+		assertNotNull(included);
+		ISchemaInclude[] includes = schema.getIncludes();
+		assertEquals(1, includes.length);
+		assertSame(included, includes[0].getIncludedSchema());
+
+		ISchemaElement element = schema.findElement(schema.getName());
+		assertNotNull(element);
+		ISchemaCompositor compositor = ((ISchemaComplexType) element.getType()).getCompositor();
+		ISchemaObjectReference reference = (ISchemaObjectReference) compositor.getChildren()[0];
+		assertEquals(included.getName(), reference.getName());
+		assertNotNull(reference.getReferencedObject());
+		assertSame(included, ((ISchemaElement) reference.getReferencedObject()).getSchema());
+	}
+
+	private void writeSchema(String name, String include) throws IOException {
+		StringBuilder buffer = new StringBuilder();
+		buffer.append("<?xml version='1.0' encoding='UTF-8'?>\n");
+		buffer.append("<schema targetNamespace=\"org.eclipse.pde.ui.tests\" xmlns=\"http://www.w3.org/2001/XMLSchema\">\n");
+		buffer.append("<annotation><appInfo><meta.schema plugin=\"org.eclipse.pde.ui.tests\" id=\"").append(name).append("\" name=\"").append(name).append("\"/></appInfo></annotation>\n");
+		buffer.append("<include schemaLocation=\"").append(include).append(".exsd\"/>\n");
+		buffer.append("<element name=\"").append(name).append("\"><complexType><sequence>");
+		buffer.append("<element ref=\"").append(include).append("\"/>");
+		buffer.append("</sequence><attribute name=\"id\" type=\"string\"/></complexType></element>\n");
+		buffer.append("</schema>\n");
+		Files.write(new File(fDirectory, name + ".exsd").toPath(), buffer.toString().getBytes(StandardCharsets.UTF_8));
+	}
+}
@@ -0,0 +1,166 @@
+/*******************************************************************************
+ * Copyright (c) 2019 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.pde.ui.tests.project;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import junit.framework.TestCase;
+import org.eclipse.core.resources.*;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.pde.core.project.IBundleProjectDescription;
+import org.eclipse.pde.internal.core.builders.*;
+import org.eclipse.pde.internal.core.project.PDEProject;
+import org.w3c.dom.Element;
+
+/**
+ * Tests that extensions and extension points validated while the plugin.xml
+ * is parsed get the same markers as when the whole document is validated
+ * after parsing.
+ */
+public class ExtensionsValidationTests extends TestCase {
+
+	private IProject fProject;
+	private IFile fPluginXml;
+
+	/**
+	 * Records the extensions and extension points it validates, and can be
+	 * told not to validate any of them while parsing
+	 */
+	static class RecordingReporter extends ExtensionsErrorReporter {
+		private final boolean fStreaming;
+		final List<String> fValidated = new ArrayList<>();
+
+		RecordingReporter(IFile file, boolean streaming) {
+			super(file);
+			fStreaming = streaming;
+		}
+
+		@Override
+		protected boolean isValidatedWhileParsing(Element element) {
+			return fStreaming && super.isValidatedWhileParsing(element);
+		}
+
+		@Override
+		protected void validateExtension(Element element) {
+			fValidated.add("extension " + element.getAttribute("point"));
+			super.validateExtension(element);
+		}
+
+		@Override
+		protected void validateExtensionPoint(Element element) {
+			fValidated.add("extension-point " + element.getAttribute("id"));
+			super.validateExtensionPoint(element);
+		}
+	}
+
+	@Override
+	protected void setUp() throws Exception {
+		fProject = ResourcesPlugin.getWorkspace().getRoot().getProject("test.extensions.validation");
+		assertFalse("Project should not exist", fProject.exists());
+		IBundleProjectDescription description = ProjectCreationTests.getBundleProjectService().getDescription(fProject);
+		description.setSymbolicName(fProject.getName());
+		description.setSingleton(true);
+		description.setExtensionRegistry(true);
+		description.apply(null);
+		fPluginXml = PDEProject.getPluginXml(fProject);
+		fPluginXml.create(new ByteArrayInputStream(getPluginXml().getBytes(StandardCharsets.UTF_8)), true, null);
+		ProjectCreationTests.waitForBuild();
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		fProject.delete(true, true, new NullProgressMonitor());
+	}
+
+	private String getPluginXml() {
+		StringBuilder buffer = new StringBuilder();
+		buffer.append("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n");
+		buffer.append("<?eclipse version=\"3.4\"?>\n");
+		buffer.append("<plugin>\n");
+		buffer.append("   <extension-point id=\"valid\" name=\"Valid\" schema=\"schema/valid.exsd\"/>\n");
+		buffer.append("   <extension-point name=\"Missing id\"/>\n");
+		buffer.append("   <extension-point id=\"invalid id\" name=\"Invalid id\"/>\n");
+		buffer.append("   <extension point=\"org.eclipse.core.runtime.adapters\">\n");
+		buffer.append("      <factory adaptableType=\"java.lang.Object\" class=\"test.does.not.Exist\">\n");
+		buffer.append("         <adapter type=\"java.lang.String\"/>\n");
+		buffer.append("      </factory>\n");
+		buffer.append("      <unknown/>\n");
+		buffer.append("   </extension>\n");
+		buffer.append("   <extension point=\"test.does.not.exist\"/>\n");
+		buffer.append("   <extension id=\"missing.point\"/>\n");
+		buffer.append("   <unknown/>\n");
+		buffer.append("   <extension point=\"org.eclipse.core.runtime.adapters\">\n");
+		buffer.append("      <factory adaptableType=\"java.lang.Object\"/>\n");
+		buffer.append("   </extension>\n");
+		buffer.append("</plugin>\n");
+		return buffer.toString();
+	}
+
+	private RecordingReporter validate(boolean streaming) {
+		RecordingReporter reporter = new RecordingReporter(fPluginXml, streaming);
+		DefaultSAXParser.parse(fPluginXml, reporter);
+		reporter.validateContent(new NullProgressMonitor());
+		return reporter;
+	}
+
+	private List<String> getMarkers() throws CoreException {
+		List<String> result = new ArrayList<>();
+		for (IMarker marker : fPluginXml.findMarkers(PDEMarkerFactory.MARKER_ID, false, IResource.DEPTH_ZERO)) {
+			result.add(marker.getAttribute(IMarker.LINE_NUMBER, -1) + " " + marker.getAttribute(IMarker.SEVERITY, -1) + " " + marker.getAttribute(PDEMarkerFactory.MPK_LOCATION_PATH, "") + " " + marker.getAttribute(IMarker.MESSAGE, ""));
+		}
+		Collections.sort(result);
+		return result;
+	}
+
+	/**
+	 * Tests that validating while parsing creates the same markers
+	 *
+	 * @throws CoreException
+	 */
+	public void testSameMarkers() throws CoreException {
+		RecordingReporter reporter = validate(false);
+		List<String> expected = getMarkers();
+		assertFalse("The plug-in should have problems", expected.isEmpty());
+		assertEquals("Wrong number of validated elements", 7, reporter.fValidated.size());
+
+		validate(true);
+		assertEquals("Markers differ when validating while parsing", expected, getMarkers());
+	}
+
+	/**
+	 * Tests that elements validated while parsing are not validated again
+	 * with the rest of the document
+	 */
+	public void testValidatedOnce() {
+		RecordingReporter reporter = validate(true);
+		List<String> validated = reporter.fValidated;
+		assertEquals("Wrong number of validated elements", 7, validated.size());
+		assertEquals("Each adapters extension should be validated once", 2, Collections.frequency(validated, "extension org.eclipse.core.runtime.adapters"));
+	}
+
+	/**
+	 * Tests that nothing is validated while parsing once the monitor is
+	 * canceled
+	 */
+	public void testCanceled() {
+		RecordingReporter reporter = new RecordingReporter(fPluginXml, true);
+		NullProgressMonitor monitor = new NullProgressMonitor();
+		monitor.setCanceled(true);
+		reporter.setParseMonitor(monitor);
+		DefaultSAXParser.parse(fPluginXml, reporter);
+		assertTrue("Nothing should be validated once canceled", reporter.fValidated.isEmpty());
+	}
+}
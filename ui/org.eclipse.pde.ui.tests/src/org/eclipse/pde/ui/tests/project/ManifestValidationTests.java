@@ -0,0 +1,143 @@
+/*******************************************************************************
+ * Copyright (c) 2019 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.pde.ui.tests.project;
+
+import java.util.ArrayList;
+import java.util.List;
+import junit.framework.TestCase;
+import org.eclipse.core.resources.*;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.osgi.service.resolver.VersionRange;
+import org.eclipse.pde.core.project.*;
+import org.eclipse.pde.internal.core.builders.PDEMarkerFactory;
+import org.eclipse.pde.internal.core.project.PDEProject;
+import org.osgi.framework.Version;
+
+/**
+ * Tests the markers created when the manifest builder validates several
+ * plug-in projects at once, because a plug-in they depend on has changed.
+ */
+public class ManifestValidationTests extends TestCase {
+
+	private static final String PROVIDER = "test.validation.provider";
+	private static final int CONSUMERS = 4;
+
+	private final List<IProject> fProjects = new ArrayList<>();
+
+	@Override
+	protected void setUp() throws Exception {
+		createProject(PROVIDER, null, new Version("1.0.0"));
+		for (int i = 0; i < CONSUMERS; i++) {
+			createProject("test.validation.consumer" + i, PROVIDER, null);
+		}
+		createProject("test.validation.broken", "test.validation.missing", null);
+		build(IncrementalProjectBuilder.FULL_BUILD);
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		for (IProject project : fProjects) {
+			project.delete(true, true, new NullProgressMonitor());
+		}
+		fProjects.clear();
+	}
+
+	private void createProject(String name, String required, Version version) throws CoreException {
+		IBundleProjectService service = ProjectCreationTests.getBundleProjectService();
+		IProject project = ResourcesPlugin.getWorkspace().getRoot().getProject(name);
+		assertFalse("Project should not exist", project.exists());
+		IBundleProjectDescription description = service.getDescription(project);
+		description.setSymbolicName(name);
+		if (version != null) {
+			description.setBundleVersion(version);
+		}
+		if (required != null) {
+			IRequiredBundleDescription requirement = service.newRequiredBundle(required, new VersionRange("[1.0.0,2.0.0)"), false, false);
+			description.setRequiredBundles(new IRequiredBundleDescription[] {requirement});
+		}
+		description.apply(null);
+		fProjects.add(project);
+	}
+
+	private void setProviderVersion(Version version) throws CoreException {
+		IProject project = ResourcesPlugin.getWorkspace().getRoot().getProject(PROVIDER);
+		IBundleProjectDescription description = ProjectCreationTests.getBundleProjectService().getDescription(project);
+		description.setBundleVersion(version);
+		description.apply(null);
+		build(IncrementalProjectBuilder.INCREMENTAL_BUILD);
+	}
+
+	private void build(int kind) throws CoreException {
+		ProjectCreationTests.waitForBuild();
+		ResourcesPlugin.getWorkspace().build(kind, new NullProgressMonitor());
+		ProjectCreationTests.waitForBuild();
+	}
+
+	private int getErrorCount(String name) throws CoreException {
+		IProject project = ResourcesPlugin.getWorkspace().getRoot().getProject(name);
+		IMarker[] markers = PDEProject.getManifest(project).findMarkers(PDEMarkerFactory.MARKER_ID, false, IResource.DEPTH_ZERO);
+		int count = 0;
+		for (IMarker marker : markers) {
+			if (marker.getAttribute(IMarker.SEVERITY, -1) == IMarker.SEVERITY_ERROR) {
+				count++;
+			}
+		}
+		return count;
+	}
+
+	private void assertConsumerErrors(boolean expected) throws CoreException {
+		for (int i = 0; i < CONSUMERS; i++) {
+			String name = "test.validation.consumer" + i;
+			assertEquals("Wrong errors for " + name, expected, getErrorCount(name) > 0);
+		}
+	}
+
+	/**
+	 * Tests that all projects depending on a changed plug-in are validated
+	 * again and get the markers of their new state
+	 *
+	 * @throws CoreException
+	 */
+	public void testDependentProjects() throws CoreException {
+		assertEquals("Provider should have no errors", 0, getErrorCount(PROVIDER));
+		assertConsumerErrors(false);
+		assertTrue("Unresolved requirement should be an error", getErrorCount("test.validation.broken") > 0);
+
+		// the required version is no longer available
+		setProviderVersion(new Version("2.0.0"));
+		assertEquals("Provider should have no errors", 0, getErrorCount(PROVIDER));
+		assertConsumerErrors(true);
+		assertTrue("Unresolved requirement should be an error", getErrorCount("test.validation.broken") > 0);
+
+		setProviderVersion(new Version("1.0.0"));
+		assertEquals("Provider should have no errors", 0, getErrorCount(PROVIDER));
+		assertConsumerErrors(false);
+		assertTrue("Unresolved requirement should be an error", getErrorCount("test.validation.broken") > 0);
+	}
+
+	/**
+	 * Tests that a full build of several projects replaces their markers
+	 * instead of adding to them
+	 *
+	 * @throws CoreException
+	 */
+	public void testRepeatedBuild() throws CoreException {
+		int errors = getErrorCount("test.validation.broken");
+		assertTrue("Unresolved requirement should be an error", errors > 0);
+		build(IncrementalProjectBuilder.FULL_BUILD);
+		assertEquals("Markers should be replaced", errors, getErrorCount("test.validation.broken"));
+		assertConsumerErrors(false);
+	}
+}
@@ -21,7 +21,7 @@ import org.junit.runners.Suite.SuiteClasses;
 @SuiteClasses({ TargetEnvironmentTestCase.class, TargetPlatformHelperTests.class, LocalTargetDefinitionTests.class,
 	WorkspaceTargetDefinitionTests.class, TargetDefinitionPersistenceTests.class,
 	TargetDefinitionResolutionTests.class, TargetDefinitionFeatureResolutionTests.class,
-	IUBundleContainerTests.class })
+	IUBundleContainerTests.class, TargetStateSnapshotTests.class, ClasspathContainerUpdateTests.class })
 public class AllTargetTests {
 
 }
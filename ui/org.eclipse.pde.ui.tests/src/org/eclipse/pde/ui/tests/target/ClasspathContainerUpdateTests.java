@@ -0,0 +1,137 @@
+/*******************************************************************************
+ * Copyright (c) 2019 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.pde.ui.tests.target;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import org.eclipse.core.resources.*;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IPath;
+import org.eclipse.jdt.core.*;
+import org.eclipse.pde.core.target.*;
+import org.eclipse.pde.internal.core.PDECore;
+import org.eclipse.pde.internal.core.natures.PDE;
+import org.eclipse.pde.ui.tests.runtime.TestUtils;
+
+/**
+ * Tests that a target reload only recomputes the plug-in classpath containers
+ * of the workspace plug-ins that depend on a changed target bundle, here
+ * through the secondary dependencies of their build.properties.
+ */
+public class ClasspathContainerUpdateTests extends AbstractTargetTest {
+
+	private static final String PROJECT_NAME = "classpath.update";
+
+	private IPath fLocation;
+	private IJavaProject fProject;
+
+	@Override
+	protected void setUp() throws Exception {
+		fLocation = extractAbcdePlugins();
+		setTargetPlatform(createTarget(null));
+		fProject = createProject();
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		try {
+			fProject.getProject().delete(true, true, null);
+		} finally {
+			resetTargetPlatform();
+		}
+	}
+
+	/**
+	 * Returns a target with the bundles and source bundles a to e except the
+	 * given one
+	 */
+	private ITargetDefinition createTarget(String excluded) {
+		ITargetDefinition target = getNewTarget();
+		target.setTargetLocations(new ITargetLocation[] {getTargetService().newDirectoryLocation(fLocation.toOSString())});
+		if (excluded != null) {
+			List<NameVersionDescriptor> included = new ArrayList<>();
+			for (String id : new String[] {"bundle.a", "bundle.b", "bundle.c", "bundle.d", "bundle.e"}) {
+				if (!id.equals(excluded)) {
+					included.add(new NameVersionDescriptor(id, null));
+					included.add(new NameVersionDescriptor(id + ".source", null));
+				}
+			}
+			target.setIncluded(included.toArray(new NameVersionDescriptor[included.size()]));
+		}
+		return target;
+	}
+
+	/**
+	 * Creates a resolved plug-in project without requirements that has
+	 * bundle.b as secondary dependency
+	 */
+	private IJavaProject createProject() throws Exception {
+		IProject project = ResourcesPlugin.getWorkspace().getRoot().getProject(PROJECT_NAME);
+		project.create(null);
+		project.open(null);
+		IProjectDescription description = project.getDescription();
+		description.setNatureIds(new String[] {JavaCore.NATURE_ID, PDE.PLUGIN_NATURE});
+		project.setDescription(description, null);
+		project.getFolder("META-INF").create(true, true, null);
+		createFile(project.getFile("META-INF/MANIFEST.MF"), "Manifest-Version: 1.0\nBundle-ManifestVersion: 2\nBundle-SymbolicName: " + PROJECT_NAME + "\nBundle-Version: 1.0.0\n");
+		createFile(project.getFile("build.properties"), "bin.includes = META-INF/\nadditional.bundles = bundle.b\n");
+		IJavaProject javaProject = JavaCore.create(project);
+		javaProject.setRawClasspath(new IClasspathEntry[] {JavaCore.newContainerEntry(PDECore.REQUIRED_PLUGINS_CONTAINER_PATH)}, project.getFullPath().append("bin"), null);
+		TestUtils.waitForJobs("ClasspathContainerUpdateTests.createProject", 100, 10000);
+		return javaProject;
+	}
+
+	private void createFile(IFile file, String contents) throws CoreException {
+		file.create(new ByteArrayInputStream(contents.getBytes(StandardCharsets.UTF_8)), true, null);
+	}
+
+	private IClasspathContainer getContainer() throws JavaModelException {
+		TestUtils.waitForJobs("ClasspathContainerUpdateTests.getContainer", 100, 10000);
+		IClasspathContainer container = JavaCore.getClasspathContainer(PDECore.REQUIRED_PLUGINS_CONTAINER_PATH, fProject);
+		assertNotNull("Could not find PDE classpath container", container);
+		return container;
+	}
+
+	private boolean containsBundleB(IClasspathContainer container) {
+		for (IClasspathEntry entry : container.getClasspathEntries()) {
+			if (entry.getPath().lastSegment().startsWith("bundle.b_")) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	public void testUnrelatedChangeKeepsContainer() throws Exception {
+		IClasspathContainer container = getContainer();
+		assertTrue("The secondary dependency should be on the classpath", containsBundleB(container));
+
+		setTargetPlatform(createTarget("bundle.e"));
+		assertSame("Container should not be reset by an unrelated change", container, getContainer());
+	}
+
+	public void testSecondaryDependencyChangeRecomputesContainer() throws Exception {
+		IClasspathContainer container = getContainer();
+		assertTrue("The secondary dependency should be on the classpath", containsBundleB(container));
+
+		setTargetPlatform(createTarget("bundle.b"));
+		IClasspathContainer updated = getContainer();
+		assertNotSame("Container should be recomputed", container, updated);
+		assertFalse("The removed secondary dependency should not be on the classpath", containsBundleB(updated));
+
+		setTargetPlatform(createTarget(null));
+		assertTrue("The added secondary dependency should be on the classpath", containsBundleB(getContainer()));
+	}
+}
@@ -628,6 +628,40 @@ public class LocalTargetDefinitionTests extends AbstractTargetTest {
 		}
 	}
 
+	/**
+	 * Tests that a target bundle rebuilt with the same version is reported as
+	 * changed when the target is reloaded, and the unchanged bundles are not.
+	 *
+	 * @throws Exception
+	 */
+	public void testRebuiltTargetBundleChanged() throws Exception {
+		IPath location = extractAbcdePlugins();
+		List<String> changed = new ArrayList<>();
+		IPluginModelListener listener = delta -> {
+			for (ModelEntry entry : delta.getChangedEntries()) {
+				changed.add(entry.getId());
+			}
+		};
+		PluginModelManager manager = PDECore.getDefault().getModelManager();
+		try {
+			ITargetDefinition target = getNewTarget();
+			target.setTargetLocations(new ITargetLocation[] {getTargetService().newDirectoryLocation(location.toOSString())});
+			setTargetPlatform(target);
+			manager.addPluginModelListener(listener);
+
+			// same location and version, only the archive is newer
+			File bundle = location.append("plugins/bundle.a_1.0.0.jar").toFile();
+			assertTrue(bundle.setLastModified(bundle.lastModified() + 10000));
+			ITargetDefinition reloaded = getNewTarget();
+			reloaded.setTargetLocations(new ITargetLocation[] {getTargetService().newDirectoryLocation(location.toOSString())});
+			setTargetPlatform(reloaded);
+			assertEquals("Only the rebuilt bundle should be changed", Collections.singletonList("bundle.a"), changed);
+		} finally {
+			manager.removePluginModelListener(listener);
+			resetTargetPlatform();
+		}
+	}
+
 	/**
 	 * Tests setting the target platform to empty.
 	 * @throws CoreException
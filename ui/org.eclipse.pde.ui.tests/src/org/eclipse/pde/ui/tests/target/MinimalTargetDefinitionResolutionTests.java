@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2016, 2017 IBM Corporation and others.
+ * Copyright (c) 2016, 2019 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -14,6 +14,8 @@
 package org.eclipse.pde.ui.tests.target;
 
 import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import org.eclipse.core.runtime.*;
 import org.eclipse.equinox.p2.metadata.IInstallableUnit;
 import org.eclipse.jdt.launching.JavaRuntime;
@@ -23,6 +25,7 @@ import org.eclipse.pde.internal.core.ICoreConstants;
 import org.eclipse.pde.internal.core.PDECore;
 import org.eclipse.pde.internal.core.target.IUBundleContainer;
 import org.eclipse.pde.internal.core.target.TargetPlatformService;
+import org.eclipse.pde.ui.tests.PDETestsPlugin;
 
 /**
  * Runs on minimal bundles and don't require full eclipse SDK.This class is
@@ -160,6 +163,122 @@ public class MinimalTargetDefinitionResolutionTests extends AbstractTargetTest {
 
 	}
 
+	/**
+	 * Tests that locations resolved in parallel report their failures
+	 * individually and that a failing location does not affect the others.
+	 *
+	 * @throws Exception
+	 */
+	public void testFailingLocationDoesNotAffectOthers() throws Exception {
+		IPath location = extractAbcdePlugins();
+		ITargetDefinition definition = getNewTarget();
+		ITargetLocation broken1 = getTargetService().newDirectoryLocation("***SHOULD NOT EXIST 1***");
+		ITargetLocation valid1 = getTargetService().newDirectoryLocation(location.toOSString());
+		ITargetLocation broken2 = getTargetService().newDirectoryLocation("***SHOULD NOT EXIST 2***");
+		ITargetLocation valid2 = getTargetService().newDirectoryLocation(location.append("plugins").toOSString());
+		definition.setTargetLocations(new ITargetLocation[] { broken1, valid1, broken2, valid2 });
+
+		IStatus status = definition.resolve(null);
+		assertEquals("Incorrect severity", IStatus.ERROR, status.getSeverity());
+		IStatus[] children = status.getChildren();
+		assertEquals("Wrong number of children", 2, children.length);
+		assertEquals("Statuses should be in location order", broken1.getStatus(), children[0]);
+		assertEquals("Statuses should be in location order", broken2.getStatus(), children[1]);
+
+		assertTrue(definition.isResolved());
+		assertEquals("Incorrect severity", IStatus.ERROR, broken1.getStatus().getSeverity());
+		assertEquals("Incorrect severity", IStatus.ERROR, broken2.getStatus().getSeverity());
+		assertEquals("Wrong number of bundles", 0, broken1.getBundles().length);
+		assertEquals("Wrong number of bundles", 0, broken2.getBundles().length);
+		assertTrue(valid1.getStatus().isOK());
+		assertTrue(valid2.getStatus().isOK());
+		assertEquals("Wrong number of bundles", 10, valid1.getBundles().length);
+		assertEquals("Wrong number of bundles", 10, valid2.getBundles().length);
+	}
+
+	/**
+	 * Tests that resolving an unchanged directory location again reuses the
+	 * previous result and that a changed location is resolved again.
+	 *
+	 * @throws Exception
+	 */
+	public void testUnchangedLocationReused() throws Exception {
+		IPath location = extractAbcdePlugins();
+		ITargetDefinition definition = getNewTarget();
+		ITargetLocation container = getTargetService().newDirectoryLocation(location.toOSString());
+		IStatus status = container.resolve(definition, null);
+		assertTrue(status.isOK());
+		TargetBundle[] bundles = container.getBundles();
+		assertEquals("Wrong number of bundles", 10, bundles.length);
+
+		// an equal location of another target reuses the resolved bundles
+		ITargetLocation same = getTargetService().newDirectoryLocation(location.toOSString());
+		status = same.resolve(getNewTarget(), null);
+		assertTrue(status.isOK());
+		assertSame("Unchanged location should not be resolved again", bundles, same.getBundles());
+
+		// removing a bundle changes the location
+		File[] files = location.append("plugins").toFile().listFiles();
+		assertNotNull(files);
+		for (File file : files) {
+			if (file.getName().startsWith("bundle.a")) {
+				assertTrue(file.delete());
+			}
+		}
+		ITargetLocation changed = getTargetService().newDirectoryLocation(location.toOSString());
+		status = changed.resolve(definition, null);
+		assertTrue(status.isOK());
+		assertNotSame("Changed location should be resolved again", bundles, changed.getBundles());
+		assertEquals("Wrong number of bundles", 8, changed.getBundles().length);
+	}
+
+	/**
+	 * Tests that a profile location is resolved again when a bundle listed in
+	 * its bundles.info changes, even if the bundle is not in the plugins
+	 * directory of the installation.
+	 *
+	 * @throws Exception
+	 */
+	public void testChangedProfileBundleResolved() throws Exception {
+		IPath location = extractAbcdePlugins();
+		File home = PDETestsPlugin.getDefault().getStateLocation().append("profile-home").toFile();
+		if (home.exists()) {
+			delete(home);
+		}
+		File configuration = new File(home, "configuration");
+		File bundlesInfo = new File(configuration, "org.eclipse.equinox.simpleconfigurator/bundles.info");
+		assertTrue(bundlesInfo.getParentFile().mkdirs());
+		// the bundles are outside of the installation, like in a shared bundle pool
+		File bundleA = location.append("plugins/bundle.a_1.0.0.jar").toFile();
+		File bundleB = location.append("plugins/bundle.b_1.0.0.jar").toFile();
+		StringBuilder buffer = new StringBuilder();
+		buffer.append("#version=1\n");
+		buffer.append("bundle.a,1.0.0,").append(bundleA.toURI()).append(",4,false\n");
+		buffer.append("bundle.b,1.0.0,").append(bundleB.toURI()).append(",4,false\n");
+		Files.write(bundlesInfo.toPath(), buffer.toString().getBytes(StandardCharsets.UTF_8));
+		try {
+			ITargetLocation container = getTargetService().newProfileLocation(home.getAbsolutePath(), configuration.getAbsolutePath());
+			IStatus status = container.resolve(getNewTarget(), null);
+			assertTrue(status.isOK());
+			TargetBundle[] bundles = container.getBundles();
+			assertEquals("Wrong number of bundles", 2, bundles.length);
+
+			ITargetLocation same = getTargetService().newProfileLocation(home.getAbsolutePath(), configuration.getAbsolutePath());
+			status = same.resolve(getNewTarget(), null);
+			assertTrue(status.isOK());
+			assertSame("Unchanged location should not be resolved again", bundles, same.getBundles());
+
+			// rebuilding a bundle does not touch the installation
+			assertTrue(bundleA.setLastModified(bundleA.lastModified() + 10000));
+			ITargetLocation changed = getTargetService().newProfileLocation(home.getAbsolutePath(), configuration.getAbsolutePath());
+			status = changed.resolve(getNewTarget(), null);
+			assertTrue(status.isOK());
+			assertNotSame("Changed bundle should resolve the location again", bundles, changed.getBundles());
+			assertEquals("Wrong number of bundles", 2, changed.getBundles().length);
+		} finally {
+			delete(home);
+		}
+	}
 
 	/**
 	 * Tests that if users *don't* have the old preference to append .ini VM
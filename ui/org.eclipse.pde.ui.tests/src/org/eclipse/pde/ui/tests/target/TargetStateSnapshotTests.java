@@ -0,0 +1,175 @@
+/*******************************************************************************
+ * Copyright (c) 2019 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.pde.ui.tests.target;
+
+import java.io.*;
+import java.net.URI;
+import java.util.*;
+import org.eclipse.core.runtime.IPath;
+import org.eclipse.osgi.service.resolver.BundleDescription;
+import org.eclipse.pde.core.plugin.IPluginModelBase;
+import org.eclipse.pde.internal.core.PDECore;
+import org.eclipse.pde.internal.core.PDEState;
+
+/**
+ * Tests that a {@link PDEState} created from the target state snapshot, or
+ * loaded on several threads, is the same as a state created from the manifests
+ * of the target bundles on a single thread.
+ */
+public class TargetStateSnapshotTests extends AbstractTargetTest {
+
+	private File fSnapshot;
+	private File[] fBundles;
+
+	@Override
+	protected void setUp() throws Exception {
+		fSnapshot = PDECore.getDefault().getStateLocation().append(".target_snapshot").toFile();
+		deleteSnapshot();
+		IPath location = extractAbcdePlugins();
+		fBundles = location.append("plugins").toFile().listFiles();
+		assertNotNull(fBundles);
+		Arrays.sort(fBundles);
+		assertEquals("Wrong number of bundles", 10, fBundles.length);
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		// the next target reload writes the snapshot again
+		deleteSnapshot();
+	}
+
+	private void deleteSnapshot() {
+		if (fSnapshot.exists()) {
+			delete(fSnapshot);
+		}
+	}
+
+	private File getSnapshotFile() {
+		return new File(fSnapshot, ".bundles");
+	}
+
+	private PDEState createState(boolean useSnapshot, File... bundles) {
+		return createState(useSnapshot, 1, bundles);
+	}
+
+	private PDEState createState(boolean useSnapshot, int threads, File... bundles) {
+		URI[] uris = new URI[bundles.length];
+		for (int i = 0; i < bundles.length; i++) {
+			uris[i] = bundles[i].toURI();
+		}
+		return new PDEState(uris, true, false, useSnapshot, threads, null);
+	}
+
+	/**
+	 * Returns a text representation of the bundles and target models of the
+	 * given state
+	 */
+	private List<String> dump(PDEState state) {
+		List<String> result = new ArrayList<>();
+		for (BundleDescription desc : state.getState().getBundles()) {
+			result.add(desc.getSymbolicName() + "_" + desc.getVersion() + " " + desc.getLocation() + " " + desc.getBundleId() + " " + desc.isResolved());
+		}
+		for (IPluginModelBase model : state.getTargetModels()) {
+			result.add(model.getPluginBase().getId() + " " + model.getPluginBase().getName() + " " + model.getPluginBase().getProviderName() + " " + model.getInstallLocation());
+		}
+		Collections.sort(result);
+		return result;
+	}
+
+	/**
+	 * Sets the modification time of the snapshot into the past, so that a
+	 * new snapshot can be told apart
+	 */
+	private long ageSnapshot() {
+		File file = getSnapshotFile();
+		assertTrue("Snapshot should be written", file.isFile());
+		long timestamp = file.lastModified() - 100000;
+		assertTrue(file.setLastModified(timestamp));
+		return timestamp;
+	}
+
+	public void testUnchangedTarget() {
+		List<String> expected = dump(createState(false, fBundles));
+		assertEquals("New snapshot", expected, dump(createState(true, fBundles)));
+		long timestamp = ageSnapshot();
+
+		assertEquals("Restored snapshot", expected, dump(createState(true, fBundles)));
+		assertEquals("Unchanged snapshot should not be written", timestamp, getSnapshotFile().lastModified());
+	}
+
+	public void testChangedBundle() throws Exception {
+		createState(true, fBundles);
+		long timestamp = ageSnapshot();
+
+		// replace bundle.a by bundle.b, with a new timestamp the manifest is read again
+		File bundleA = fBundles[1];
+		File bundleB = fBundles[3];
+		assertTrue(bundleA.getName().startsWith("bundle.a_"));
+		assertTrue(bundleB.getName().startsWith("bundle.b_"));
+		try (InputStream in = new FileInputStream(bundleB); OutputStream out = new FileOutputStream(bundleA)) {
+			byte[] buffer = new byte[8192];
+			int read;
+			while ((read = in.read(buffer)) != -1) {
+				out.write(buffer, 0, read);
+			}
+		}
+		assertTrue(bundleA.setLastModified(bundleA.lastModified() + 10000));
+
+		PDEState state = createState(true, fBundles);
+		assertEquals("Changed bundle should be read again", dump(createState(false, fBundles)), dump(state));
+		assertEquals(0, state.getState().getBundles("bundle.a").length);
+		assertEquals(2, state.getState().getBundles("bundle.b").length);
+		assertTrue("Changed snapshot should be written", getSnapshotFile().lastModified() != timestamp);
+	}
+
+	public void testRemovedBundle() {
+		createState(true, fBundles);
+		long timestamp = ageSnapshot();
+
+		File[] remaining = Arrays.copyOfRange(fBundles, 2, fBundles.length);
+		PDEState state = createState(true, remaining);
+		assertEquals("Removed bundles should not be restored", dump(createState(false, remaining)), dump(state));
+		assertEquals(0, state.getState().getBundles("bundle.a").length);
+		assertEquals(0, state.getState().getBundles("bundle.a.source").length);
+		assertTrue("Changed snapshot should be written", getSnapshotFile().lastModified() != timestamp);
+	}
+
+	public void testParallelLoading() {
+		List<String> expected = dump(createState(false, fBundles));
+		for (int threads : new int[] { 2, 4, 16 }) {
+			assertEquals("State loaded on " + threads + " threads", expected, dump(createState(false, threads, fBundles)));
+			assertEquals("Snapshot written on " + threads + " threads", expected, dump(createState(true, threads, fBundles)));
+			assertEquals("Snapshot restored on " + threads + " threads", expected, dump(createState(true, threads, fBundles)));
+			deleteSnapshot();
+		}
+	}
+
+	public void testCorruptSnapshot() throws Exception {
+		List<String> expected = dump(createState(false, fBundles));
+		createState(true, fBundles);
+		File file = getSnapshotFile();
+		try (DataOutputStream out = new DataOutputStream(new FileOutputStream(file))) {
+			// a valid header followed by garbage
+			out.writeInt(2);
+			out.writeInt(10);
+			out.writeInt(Integer.MAX_VALUE);
+			out.writeBytes("garbage");
+		}
+
+		assertEquals("Corrupt snapshot should fall back to the manifests", expected, dump(createState(true, fBundles)));
+		long timestamp = ageSnapshot();
+		assertEquals("Snapshot should be written again", expected, dump(createState(true, fBundles)));
+		assertEquals("Rewritten snapshot should be valid", timestamp, getSnapshotFile().lastModified());
+	}
+}